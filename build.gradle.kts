@@ -3,6 +3,7 @@ plugins {
     alias(libs.plugins.spring.boot)
     alias(libs.plugins.spring.dependency.management)
     id("jacoco")
+    alias(libs.plugins.jmh)
 }
 
 configurations {
@@ -23,6 +24,8 @@ dependencyManagement {
 
 dependencies {
     implementation(libs.spring.boot.starter.web)
+    implementation(libs.spring.boot.starter.actuator)
+    runtimeOnly(libs.micrometer.registry.prometheus)
     compileOnly(libs.lombok)
     annotationProcessor(libs.lombok)
     annotationProcessor(libs.spring.boot.configuration.processor)
@@ -49,4 +52,19 @@ tasks.getByName("jar") {
 tasks.test {
     ignoreFailures = true
     useJUnitPlatform()
+    // Java 21 이상에서 가상 스레드가 캐리어 스레드에 고정되면 스택 트레이스를 출력한다. (그 이하 버전에서는 무시된다.)
+    jvmArgs("-Djdk.tracePinnedThreads=short")
+    // 수백만 사용자의 잔액 복구 테스트가 색인과 원장을 함께 메모리에 올린다.
+    maxHeapSize = "2g"
+}
+
+// benchmark tasks
+// 스레드 수는 -PjmhThreads 로, 실행할 벤치마크는 -PjmhIncludes(정규식)로 지정한다. 결과는 스레드 수 별 JSON 파일로 남긴다.
+val jmhThreads = providers.gradleProperty("jmhThreads").map(String::toInt).getOrElse(8)
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    threads.set(jmhThreads)
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.set(listOf(it)) }
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results-t$jmhThreads.json"))
 }
@@ -0,0 +1,169 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.CachedUserPointRepository;
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.UserPointTableRepository;
+import io.hhplus.tdd.point.PointAdmission;
+import io.hhplus.tdd.point.PointExecutionMode;
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointService;
+import io.hhplus.tdd.point.RefCountedUserLockProvider;
+import io.hhplus.tdd.point.TransactionType;
+import io.hhplus.tdd.point.UserPoint;
+import io.hhplus.tdd.point.UserPointRepository;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PointService 경합 벤치마크
+ * <br></br>
+ * 측정 축
+ * <br></br>
+ * - 스레드 수 : Gradle 속성 jmhThreads 로 지정한다. (예 : for t in 1 4 16 64; do ./gradlew jmh -PjmhThreads=$t; done)
+ * <br></br>
+ * - 사용자 수(users) : 1 이면 단일 사용자에 모든 요청이 몰리고, 값이 클수록 요청이 사용자들에게 고르게 분산된다.
+ * <br></br>
+ * - 읽기/쓰기 비율(readRatio) : mixed 벤치마크에서 잔액 조회가 차지하는 비율(%).
+ * <br></br>
+ * - 지연 적용 여부(throttle) : 테이블 대역의 지연 적용 여부. false 라면 서비스 자체(락, 캐시, 기록 큐)의 비용만 측정된다.
+ * <br></br>
+ * - 실행 방식(mode), 잔액 캐시 적용 여부(cache)
+ * <br></br>
+ * 결과는 build/results/jmh/results-t{스레드 수}.json 에 JSON 으로 기록된다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PointServiceBenchmark {
+
+    private static final long INITIAL_BALANCE = 500_000L;
+    private static final int INITIAL_HISTORY_PER_USER = 50;
+    private static final int CACHE_CAPACITY = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class PointServiceState {
+
+        @Param({"1", "16", "1024"})
+        int users;
+
+        @Param({"false", "true"})
+        boolean throttle;
+
+        @Param({"LOCK", "MAILBOX", "COMBINING", "OPTIMISTIC", "SHARDED"})
+        PointExecutionMode mode;
+
+        @Param({"true", "false"})
+        boolean cache;
+
+        PointService pointService;
+
+        /* 측정 반복마다 새 테이블로 시작하여, 누적된 내역 수가 다음 반복의 측정에 영향을 주지 않도록 한다. */
+        @Setup(Level.Iteration)
+        public void setUp() {
+            StandInUserPointTable userPointTable = new StandInUserPointTable(false);
+            StandInPointHistoryTable pointHistoryTable = new StandInPointHistoryTable(false);
+            IndexedPointHistoryRepository pointHistoryRepository = new IndexedPointHistoryRepository(pointHistoryTable);
+
+            // 사용 요청이 잔액 부족으로 실패하지 않도록 지연 없이 초기 잔액과 내역을 채운다.
+            for (long userId = 1; userId <= users; userId++) {
+                userPointTable.insertOrUpdate(userId, INITIAL_BALANCE);
+                for (int i = 0; i < INITIAL_HISTORY_PER_USER; i++) {
+                    pointHistoryRepository.save(userId, 1L, TransactionType.CHARGE, System.currentTimeMillis());
+                }
+            }
+            userPointTable.setThrottled(throttle);
+            pointHistoryTable.setThrottled(throttle);
+
+            UserPointRepository userPointRepository = cache
+                    ? new CachedUserPointRepository(userPointTable, CACHE_CAPACITY)
+                    : new UserPointTableRepository(userPointTable);
+            PointMetrics pointMetrics = new PointMetrics();
+            pointService = new PointService(pointHistoryRepository,
+                    userPointRepository,
+                    new RefCountedUserLockProvider(),
+                    new PointAdmission(pointMetrics),
+                    pointMetrics,
+                    mode);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws InterruptedException {
+            pointService.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MixState {
+
+        @Param({"50", "90", "99"})
+        int readRatio;
+    }
+
+    /* 스레드 별 요청 대상 선택기. 충전과 사용을 번갈아 요청하여 잔액이 초기 잔액 근처에 머물도록 한다. */
+    @State(Scope.Thread)
+    public static class RequestState {
+
+        private final SplittableRandom random = new SplittableRandom();
+        private boolean charge;
+
+        long nextUserId(PointServiceState state) {
+            return 1 + random.nextInt(state.users);
+        }
+
+        boolean nextIsCharge() {
+            charge = !charge;
+            return charge;
+        }
+
+        boolean nextIsRead(MixState mix) {
+            return random.nextInt(100) < mix.readRatio;
+        }
+    }
+
+    @Benchmark
+    public UserPoint chargeOrUse(PointServiceState state, RequestState request) {
+        return write(state, request);
+    }
+
+    @Benchmark
+    public UserPoint getUserPoint(PointServiceState state, RequestState request) {
+        return state.pointService.getUserPoint(request.nextUserId(state));
+    }
+
+    @Benchmark
+    public List<PointHistory> getAllHistory(PointServiceState state, RequestState request) {
+        return state.pointService.getAllHistory(request.nextUserId(state));
+    }
+
+    @Benchmark
+    public UserPoint mixed(PointServiceState state, MixState mix, RequestState request) {
+        if (request.nextIsRead(mix)) {
+            return state.pointService.getUserPoint(request.nextUserId(state));
+        }
+        return write(state, request);
+    }
+
+    private static UserPoint write(PointServiceState state, RequestState request) {
+        long userId = request.nextUserId(state);
+        return request.nextIsCharge()
+                ? state.pointService.charge(userId, 1L)
+                : state.pointService.use(userId, 1L);
+    }
+}
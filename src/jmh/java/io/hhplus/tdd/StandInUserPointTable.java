@@ -0,0 +1,56 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.point.UserPoint;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 벤치마크용 UserPointTable 대역
+ * <br></br>
+ * 원본 테이블의 공개 API 를 그대로 재정의하되, 지연(throttle) 적용 여부를 선택할 수 있다.
+ * <br></br>
+ * - throttled 가 true 라면 원본과 같은 분포(조회 0~200ms, 갱신 0~300ms)로 지연시킨다.
+ * <br></br>
+ * - 여러 사용자에 대한 동시 갱신으로 측정이 오염되지 않도록 ConcurrentHashMap 에 저장한다.
+ */
+public class StandInUserPointTable extends UserPointTable {
+
+    private final Map<Long, UserPoint> table = new ConcurrentHashMap<>();
+    private volatile boolean throttled;
+
+    public StandInUserPointTable(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    @Override
+    public UserPoint selectById(Long id) {
+        throttle(200);
+        return table.getOrDefault(id, UserPoint.empty(id));
+    }
+
+    @Override
+    public UserPoint insertOrUpdate(long id, long amount) {
+        throttle(300);
+        UserPoint userPoint = new UserPoint(id, amount, System.currentTimeMillis());
+        table.put(id, userPoint);
+        return userPoint;
+    }
+
+    private void throttle(long millis) {
+        if (!throttled) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package io.hhplus.tdd;
 
+import io.hhplus.tdd.point.PointOverloadedException;
+import io.hhplus.tdd.point.PointPeerResponseException;
+import io.hhplus.tdd.point.PointRoutingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -7,6 +12,47 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @RestControllerAdvice
 class ApiControllerAdvice extends ResponseEntityExceptionHandler {
+
+    /* 처리 한도를 넘어 거절한 요청은 반영되지 않았으므로, 재시도 가능함을 알린다. 한 사용자에 몰린 요청은 429, 서버 전체의 과부하는 503 으로 응답한다. */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(value = PointOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleOverloaded(PointOverloadedException e) {
+        HttpStatus status = e.reason() == PointOverloadedException.Reason.USER_LIMIT
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(new ErrorResponse(String.valueOf(status.value()), e.getMessage()));
+    }
+
+    /*
+       라우팅 실패 : 전달받은 요청의 소유자가 아니라면 421(Misdirected Request), 소유 인스턴스에 연결하지 못했다면 503,
+       한 요청의 사용자들을 소유한 인스턴스가 다르다면 409 로 응답한다.
+     */
+    @ExceptionHandler(value = PointRoutingException.class)
+    public ResponseEntity<ErrorResponse> handleRouting(PointRoutingException e) {
+        return switch (e.reason()) {
+            case NOT_OWNER -> ResponseEntity.status(421)
+                    .body(new ErrorResponse("421", e.getMessage()));
+            case UNAVAILABLE -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(new ErrorResponse("503", e.getMessage()));
+            case CROSS_OWNER -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse("409", e.getMessage()));
+        };
+    }
+
+    /* 소유 인스턴스의 오류 응답은 상태 코드와 본문을 그대로 전달한다. */
+    @ExceptionHandler(value = PointPeerResponseException.class)
+    public ResponseEntity<byte[]> handlePeerResponse(PointPeerResponseException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.status());
+        if (e.contentType() != null) {
+            response.header(HttpHeaders.CONTENT_TYPE, e.contentType());
+        }
+        return response.body(e.body());
+    }
+
     @ExceptionHandler(value = Exception.class)
     public ResponseEntity<ErrorResponse> handleException(Exception e) {
         return ResponseEntity.status(500).body(new ErrorResponse("500", "에러가 발생했습니다."));
@@ -0,0 +1,68 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.TransactionType;
+import io.hhplus.tdd.point.UserPoint;
+
+/**
+ * <b>내역으로부터 계산한 사용자 별 잔액 원장</b>
+ * <br></br>
+ * 저널에 기록된 내역을 순서대로 반영한 잔액이다. 항목마다 마지막으로 반영한 내역 ID 를 함께 보관하므로,
+ * 스냅샷을 찍는 동안 반영이 계속되더라도 복구 시 이미 반영된 내역을 다시 반영하지 않는다.
+ * <br></br>
+ * - 반영은 단일 스레드(저널 재생 혹은 내역 기록 스레드)가 수행하고, 스냅샷과 조회는 다른 스레드에서 수행한다.
+ * <br></br>
+ * - 항목은 {@link LongBalanceTable} 에 잔액, 시각, 마지막 반영 내역 ID(태그)로 저장되어 사용자 당 객체를 만들지 않는다.
+ */
+final class BalanceLedger {
+
+    private final LongBalanceTable entries;
+
+    BalanceLedger() {
+        this(0);
+    }
+
+    /**
+     * @param expectedUsers 예상 사용자 수. 복구 중 배열을 늘리지 않도록 미리 크기를 잡는다.
+     */
+    BalanceLedger(int expectedUsers) {
+        this.entries = new LongBalanceTable(expectedUsers);
+    }
+
+    /**
+     * 스냅샷에서 읽어온 항목을 그대로 채운다.
+     */
+    void restore(long userId, long point, long updateMillis, long lastHistoryId) {
+        entries.put(userId, point, updateMillis, lastHistoryId);
+    }
+
+    /**
+     * 내역을 잔액에 반영한다. 이미 반영한 내역(ID 가 마지막 반영 ID 이하)은 무시한다.
+     * @param pointHistory
+     * @return 반영했다면 true
+     */
+    boolean apply(PointHistory pointHistory) {
+        long delta = pointHistory.type() == TransactionType.CHARGE ? pointHistory.amount() : -pointHistory.amount();
+        return entries.addIfNewer(pointHistory.userId(), delta, pointHistory.updateMillis(), pointHistory.id());
+    }
+
+    /**
+     * @param userId
+     * @return 원장에 없는 사용자라면 null
+     */
+    UserPoint find(long userId) {
+        return entries.find(userId);
+    }
+
+    long size() {
+        return entries.size();
+    }
+
+    /**
+     * 모든 항목을 순회한다. 태그로 마지막 반영 내역 ID 가 전달된다.
+     * 순회 중의 반영은 일부만 보일 수 있으나, 순회 시작 전에 존재한 사용자는 모두 전달된다.
+     */
+    void forEach(LongBalanceTable.EntryVisitor visitor) {
+        entries.forEach(visitor);
+    }
+}
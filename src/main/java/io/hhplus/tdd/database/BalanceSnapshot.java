@@ -0,0 +1,213 @@
+package io.hhplus.tdd.database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * <b>잔액 원장 스냅샷 파일</b>
+ * <br></br>
+ * {@link BalanceLedger} 의 모든 항목을 고정 길이 이진 레코드로 기록한다. 파일 이름은 스냅샷을 시작한 시점의 저널 위치(마지막 내역 ID)이다.
+ * <br></br>
+ * - 기록 : 임시 파일에 기록하고 디스크에 반영한 뒤 이름을 바꾸므로, 쓰다 만 스냅샷이 최신 스냅샷으로 보이지 않는다. 최근 {@value #RETAINED} 개만 남긴다.
+ * <br></br>
+ * - 복구 : 최신 스냅샷부터 체크섬을 검증하고, 손상되었다면 이전 스냅샷을 사용한다. 검증을 마친 뒤에만 원장을 채운다.
+ * <br></br>
+ * - 스냅샷 순회 중 반영된 내역은 항목의 마지막 반영 ID 로 구분되므로, 저널 위치 이후의 내역을 다시 재생해도 중복 반영되지 않는다.
+ */
+final class BalanceSnapshot {
+
+    /*
+       파일 구조 (Big Endian)
+       헤더 [0] magic(4) [4] version(4) [8] journalOffset(8)
+       레코드 [0] userId(8) [8] point(8) [16] updateMillis(8) [24] lastHistoryId(8)
+       트레일러 [0] count(8) [8] crc32(8) : 헤더와 모든 레코드에 대한 체크섬
+     */
+    private static final int MAGIC = 0x5042_534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 32;
+    private static final int TRAILER_SIZE = 16;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final int RETAINED = 2;
+
+    private static final String SNAPSHOT_PREFIX = "balances-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String TEMPORARY_NAME = "balances.snapshot.tmp";
+
+    private BalanceSnapshot() {
+    }
+
+    /**
+     * 원장의 모든 항목을 스냅샷 파일로 기록한다.
+     * @param directory
+     * @param journalOffset 순회를 시작하기 전 저널에 기록된 마지막 내역 ID. 이 ID 이하의 내역은 모두 스냅샷에 반영되어 있다.
+     * @param ledger
+     * @return 기록한 항목 수
+     */
+    static long write(Path directory, long journalOffset, BalanceLedger ledger) {
+        Path temporary = directory.resolve(TEMPORARY_NAME);
+        long count;
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            writer.buffer.putInt(MAGIC).putInt(VERSION).putLong(journalOffset);
+            ledger.forEach(writer::put);
+            writer.finish();
+            channel.force(true);
+            count = writer.count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("잔액 스냅샷을 기록할 수 없습니다.", e);
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException("잔액 스냅샷을 기록할 수 없습니다.", e.getCause());
+        }
+
+        try {
+            Files.move(temporary, directory.resolve(snapshotName(journalOffset)),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            List<Path> snapshots = snapshots(directory);
+            for (int i = RETAINED; i < snapshots.size(); i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("잔액 스냅샷을 기록할 수 없습니다.", e);
+        }
+        return count;
+    }
+
+    /**
+     * 복구된 원장
+     * @param journalOffset 스냅샷의 저널 위치. 사용할 수 있는 스냅샷이 없었다면 0
+     * @param ledger 스냅샷의 항목으로 채운 원장. 스냅샷이 없었다면 빈 원장
+     */
+    record Restored(long journalOffset, BalanceLedger ledger) {
+    }
+
+    /**
+     * 검증을 통과한 가장 최신 스냅샷으로 원장을 만든다. 원장은 스냅샷의 항목 수에 맞춰 미리 크기를 잡는다.
+     * @param directory
+     * @return
+     */
+    static Restored load(Path directory) {
+        try {
+            if (!Files.isDirectory(directory)) {
+                return new Restored(0L, new BalanceLedger());
+            }
+            for (Path snapshot : snapshots(directory)) {
+                try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (verify(buffer)) {
+                        return fill(buffer);
+                    }
+                }
+            }
+            return new Restored(0L, new BalanceLedger());
+        } catch (IOException e) {
+            throw new UncheckedIOException("잔액 스냅샷을 읽을 수 없습니다.", e);
+        }
+    }
+
+    /* 크기, 헤더, 레코드 수, 체크섬이 모두 맞는지 확인한다. */
+    private static boolean verify(ByteBuffer buffer) {
+        int size = buffer.limit();
+        if (size < HEADER_SIZE + TRAILER_SIZE || (size - HEADER_SIZE - TRAILER_SIZE) % RECORD_SIZE != 0) {
+            return false;
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return false;
+        }
+        int body = size - TRAILER_SIZE;
+        if (buffer.getLong(body) != (body - HEADER_SIZE) / RECORD_SIZE) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(body));
+        return buffer.getLong(body + Long.BYTES) == crc.getValue();
+    }
+
+    private static Restored fill(ByteBuffer buffer) {
+        int end = buffer.limit() - TRAILER_SIZE;
+        BalanceLedger ledger = new BalanceLedger((int) buffer.getLong(end));
+        for (int position = HEADER_SIZE; position < end; position += RECORD_SIZE) {
+            ledger.restore(buffer.getLong(position),
+                    buffer.getLong(position + 8),
+                    buffer.getLong(position + 16),
+                    buffer.getLong(position + 24));
+        }
+        return new Restored(buffer.getLong(8), ledger);
+    }
+
+    /* 최신(저널 위치가 큰) 스냅샷부터 정렬한다. 이름이 0 으로 채운 고정 길이 ID 이므로 이름 순서가 곧 저널 위치 순서이다. */
+    private static List<Path> snapshots(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+    }
+
+    static String snapshotName(long journalOffset) {
+        return String.format("%s%020d%s", SNAPSHOT_PREFIX, journalOffset, SNAPSHOT_SUFFIX);
+    }
+
+    /* 버퍼가 가득 찰 때만 채널에 기록하고, 기록하는 내용의 체크섬을 함께 계산한다. */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        private long count;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void put(long userId, long point, long updateMillis, long lastHistoryId) {
+            if (buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            buffer.putLong(userId)
+                    .putLong(point)
+                    .putLong(updateMillis)
+                    .putLong(lastHistoryId);
+            count++;
+        }
+
+        private void finish() {
+            flush();
+            buffer.putLong(count).putLong(crc.getValue());
+            buffer.flip();
+            drain();
+        }
+
+        private void flush() {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            drain();
+        }
+
+        private void drain() {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
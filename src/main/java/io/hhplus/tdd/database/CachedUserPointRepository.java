@@ -0,0 +1,124 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.UserPoint;
+import io.hhplus.tdd.point.UserPointRepository;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <b>Read-Through / Write-Through 잔액 캐시</b>
+ * <br></br>
+ * {@link UserPointTable} 앞에 위치하는 크기 제한 LRU 캐시이다.
+ * <br></br>
+ * - 조회 : 캐시에 없을 때만 테이블을 조회하고(Read-Through) 결과를 캐시에 채운다.
+ * <br></br>
+ * - 갱신 : 테이블에 먼저 저장한 뒤 캐시를 갱신한다(Write-Through).
+ * <br></br>
+ * - 쓰기는 사용자 단위로 직렬화되어 있으므로, 해당 사용자의 쓰기 권한(락)을 보유한 동안의 캐시 적중 값은 테이블과 같은 최신 값이다.
+ *   따라서 충전/사용 내부의 잔액 조회는 캐시 적중 시 테이블 조회를 생략할 수 있다.
+ * <br></br>
+ * - 경합을 줄이기 위해 캐시를 여러 세그먼트로 나누고, 세그먼트마다 접근 순서 기반 {@link LinkedHashMap} 으로 LRU 를 구현한다.
+ * <br></br>
+ * - 테이블 접근은 항상 세그먼트 모니터 밖에서 수행한다. 모니터 안에서 블로킹하지 않으므로 가상 스레드가 캐리어 스레드에 고정(pinning)되지 않는다.
+ */
+public class CachedUserPointRepository implements UserPointRepository {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final UserPointTable userPointTable;
+    private final Segment[] segments;
+    private final long capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachedUserPointRepository(UserPointTable userPointTable, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("캐시 용량은 1 이상이어야 합니다.");
+        }
+        this.userPointTable = userPointTable;
+        int segmentCount = Math.min(SEGMENT_COUNT, capacity);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // 용량을 세그먼트에 고르게 나누되, 나머지는 앞쪽 세그먼트에 하나씩 더 배분한다.
+            segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public UserPoint findById(long userId) {
+        Segment segment = segmentOf(userId);
+        long writesBeforeLoad;
+        synchronized (segment) {
+            UserPoint cached = segment.entries.get(userId);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            writesBeforeLoad = segment.writes;
+        }
+
+        misses.increment();
+        UserPoint loaded = userPointTable.selectById(userId); // 테이블 지연은 세그먼트 락 밖에서 발생한다.
+
+        synchronized (segment) {
+            /*
+               테이블 조회 도중 같은 세그먼트에 쓰기가 있었다면, 방금 읽은 값이 그 쓰기보다 오래된 값일 수 있다.
+               (조회 -> 다른 스레드의 갱신 및 캐시 반영 -> 해당 항목 제거 -> 오래된 값으로 채움)
+               이 경우 캐시를 채우지 않음으로써 캐시 값이 테이블보다 과거로 돌아가는 일을 막는다.
+             */
+            if (segment.writes == writesBeforeLoad) {
+                segment.entries.putIfAbsent(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public UserPoint save(long userId, long point) {
+        UserPoint saved = userPointTable.insertOrUpdate(userId, point);
+        Segment segment = segmentOf(userId);
+        synchronized (segment) {
+            segment.writes++;
+            segment.entries.put(userId, saved);
+        }
+        return saved;
+    }
+
+    public UserPointCacheStats stats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return new UserPointCacheStats(hits.sum(), misses.sum(), evictions.sum(), size, capacity);
+    }
+
+    private Segment segmentOf(long userId) {
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return segments[(int) ((hash >>> 32) % segments.length)];
+    }
+
+    /* 세그먼트 : 자신의 모니터로 보호되는 LRU 맵과 쓰기 횟수. */
+    private final class Segment {
+        private final Map<Long, UserPoint> entries;
+        private long writes;
+
+        private Segment(int segmentCapacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, UserPoint> eldest) {
+                    if (size() > segmentCapacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
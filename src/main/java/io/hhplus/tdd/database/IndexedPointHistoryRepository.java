@@ -0,0 +1,126 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointHistoryRepository;
+import io.hhplus.tdd.point.PointSummary;
+import io.hhplus.tdd.point.TransactionType;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>사용자 별 색인을 갖는 포인트 내역 저장소</b>
+ * <br></br>
+ * {@link PointHistoryTable#selectAllByUserId} 는 전체 내역을 매번 순회하므로, 조회 비용이 전체 트래픽에 비례한다.
+ * 이 저장소는 테이블에 저장된 내역을 사용자 ID 별 색인({@link UserHistoryLog})에도 추가해두고, 조회는 색인에서 수행한다.
+ * <br></br>
+ * - 조회 비용은 해당 사용자의 내역 수에만 비례한다.
+ * <br></br>
+ * - 색인은 추가가 진행되는 동안에도 락 없이 안전하게 조회할 수 있다. (테이블의 ArrayList 는 동시 조회에 안전하지 않다.)
+ * <br></br>
+ * - 테이블을 여러 개 주면 사용자 ID 해시로 테이블(파티션)을 나누어 저장한다. 테이블은 동시 저장에 안전하지 않아 테이블마다 직렬화해야 하므로,
+ *   저장이 느린 테이블이라도 서로 다른 파티션의 사용자 내역은 병렬로 저장된다.
+ *   ID 는 파티션 안에서 테이블이 부여한 ID 를 파티션 수만큼 벌려 파티션 번호를 더한 값이므로, 전체에서 유일하고 사용자 별로 증가한다.
+ * <br></br>
+ * - 테이블 없이 생성하면 내역을 색인에만 보관하고 ID 도 직접 부여한다. 테이블은 내역을 {@link PointHistory} 객체로 한 벌 더 보관하므로,
+ *   내역 하나에 약 53 바이트(객체 48 바이트와 ArrayList 참조)가 색인의 25 바이트와 별도로 더 든다.
+ */
+public class IndexedPointHistoryRepository implements PointHistoryRepository {
+
+    /* 색인에만 보관한다면 비어있다. */
+    private final PointHistoryTable[] partitions;
+    private final Object[] partitionLocks;
+    private final ConcurrentHashMap<Long, UserHistoryLog> historiesByUser = new ConcurrentHashMap<>();
+    private final AtomicLong cursor = new AtomicLong(1);
+
+    /**
+     * 내역을 색인에만 보관한다.
+     */
+    public IndexedPointHistoryRepository() {
+        this(List.of());
+    }
+
+    /**
+     * 내역을 테이블에 저장하고, 테이블이 부여한 ID 로 색인에도 추가한다.
+     * @param pointHistoryTable
+     */
+    public IndexedPointHistoryRepository(PointHistoryTable pointHistoryTable) {
+        this(List.of(pointHistoryTable));
+    }
+
+    /**
+     * 내역을 사용자 ID 해시로 정해진 테이블에 저장하고, 색인에도 추가한다.
+     * @param partitions 파티션 별 테이블. 비어있다면 색인에만 보관한다.
+     */
+    public IndexedPointHistoryRepository(List<PointHistoryTable> partitions) {
+        this.partitions = partitions.toArray(PointHistoryTable[]::new);
+        this.partitionLocks = new Object[Math.max(1, this.partitions.length)];
+        for (int i = 0; i < partitionLocks.length; i++) {
+            partitionLocks[i] = new Object();
+        }
+    }
+
+    /*
+       ID 부여와 색인 추가를 파티션 단위로 직렬화하여, 테이블을 동시에 호출하지 않고 사용자 별 색인이 ID 순서로 쌓이도록 한다.
+       색인에만 보관한다면 ID 는 원자적으로 부여하고, 사용자 별 색인의 모니터 안에서 부여하여 순서를 맞춘다.
+     */
+    @Override
+    public PointHistory save(long userId, long amount, TransactionType type, long updateMillis) {
+        if (partitions.length == 0) {
+            UserHistoryLog userHistoryLog = historiesByUser.computeIfAbsent(userId, id -> new UserHistoryLog(id));
+            synchronized (userHistoryLog) {
+                PointHistory pointHistory = new PointHistory(cursor.getAndIncrement(), userId, amount, type, updateMillis);
+                userHistoryLog.append(pointHistory);
+                return pointHistory;
+            }
+        }
+        int partition = partitions.length == 1 ? 0 : Math.floorMod(mix(userId), partitions.length);
+        synchronized (partitionLocks[partition]) {
+            PointHistory inserted = partitions[partition].insert(userId, amount, type, updateMillis);
+            PointHistory pointHistory = partitions.length == 1 ? inserted : new PointHistory(
+                    (inserted.id() - 1) * partitions.length + partition + 1, userId, amount, type, updateMillis);
+            historiesByUser.computeIfAbsent(userId, id -> new UserHistoryLog(id)).append(pointHistory);
+            return pointHistory;
+        }
+    }
+
+    @Override
+    public List<PointHistory> findAllByUserId(long userId) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? List.of() : userHistoryLog.snapshot();
+    }
+
+    @Override
+    public List<PointHistory> findAllByUserIdAfter(long userId, long cursor, int limit) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? List.of() : userHistoryLog.page(cursor, limit);
+    }
+
+    @Override
+    public List<PointHistory> findAllByUserIdBetween(long userId, long fromMillis, long toMillis) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? List.of() : userHistoryLog.between(fromMillis, toMillis);
+    }
+
+    @Override
+    public PointSummary summarize(long userId) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? PointSummary.empty(userId) : userHistoryLog.summary();
+    }
+
+    @Override
+    public List<Long> findAllUserIds() {
+        return List.copyOf(historiesByUser.keySet());
+    }
+
+    /* 연속된 사용자 ID 가 고르게 흩어지도록 비트를 섞는다. (MurmurHash3 fmix64) */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
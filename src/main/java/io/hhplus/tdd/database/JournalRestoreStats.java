@@ -0,0 +1,22 @@
+package io.hhplus.tdd.database;
+
+/**
+ * 시작 시 잔액 복구 통계
+ * @param snapshotOffset 사용한 스냅샷의 저널 위치(마지막 내역 ID). 스냅샷이 없었다면 0
+ * @param restoredUsers 복구된 사용자 수
+ * @param replayedRecords 스냅샷 이후 잔액에 다시 반영한 내역 수
+ * @param snapshotLoadNanos 스냅샷을 읽어 원장을 채우는 데 걸린 시간
+ * @param journalReplayNanos 저널을 재생하여 색인을 만들고 스냅샷 이후의 내역을 반영하는 데 걸린 시간
+ */
+public record JournalRestoreStats(
+        long snapshotOffset,
+        long restoredUsers,
+        long replayedRecords,
+        long snapshotLoadNanos,
+        long journalReplayNanos
+) {
+
+    public long totalNanos() {
+        return snapshotLoadNanos + journalReplayNanos;
+    }
+}
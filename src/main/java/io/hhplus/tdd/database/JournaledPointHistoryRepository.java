@@ -0,0 +1,201 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointExecutors;
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointHistoryRepository;
+import io.hhplus.tdd.point.PointSummary;
+import io.hhplus.tdd.point.TransactionType;
+import io.hhplus.tdd.point.UserPointRepository;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <b>저널 기반 포인트 내역 저장소</b>
+ * <br></br>
+ * {@link PointHistoryTable} 은 내역을 힙의 ArrayList 에만 보관하므로, 재시작하면 사라지고 가동 시간에 비례해 힙이 커진다.
+ * 이 저장소는 내역을 메모리 매핑된 추가 전용 저널({@link PointHistoryJournal})에 기록하고, 조회는 사용자 별 색인({@link UserHistoryLog})에서 수행한다.
+ * <br></br>
+ * - 시작 : 저널의 모든 세그먼트를 재생하여 사용자 별 색인을 다시 만들고, 마지막 내역 ID 다음부터 ID 를 부여한다.
+ * <br></br>
+ * - 저장 : ID 부여와 저널 기록을 직렬화한다. 저널 기록은 매핑된 버퍼에 복사하는 짧은 구간이므로,
+ *   여러 파티션의 기록 스레드({@link PointHistoryWriter})가 함께 저장하더라도 모니터 보유 시간은 짧다.
+ * <br></br>
+ * - 잔액 : 기록한 내역을 잔액 원장({@link BalanceLedger})에도 반영하고, 주기적으로 원장 스냅샷({@link BalanceSnapshot})을 남긴다.
+ *   시작 시 최신 스냅샷을 읽은 뒤 스냅샷 이후의 내역만 원장에 반영하므로, 전체 내역으로 잔액을 다시 계산하지 않는다.
+ *   복구된 잔액은 {@link #userPointRepository()} 로 제공한다.
+ * <br></br>
+ * - 스냅샷은 별도 스레드가 원장을 락 없이 순회하며 기록한다. 기록 경로가 멈추는 구간은 저널 위치를 읽고 저널을 디스크에 반영하는 동안뿐이다.
+ */
+@Slf4j
+public class JournaledPointHistoryRepository implements PointHistoryRepository, AutoCloseable {
+
+    private final ConcurrentHashMap<Long, UserHistoryLog> historiesByUser = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final BalanceLedger ledger;
+    private final JournaledUserPointRepository userPointRepository;
+    private final long snapshotOffset;
+    private final PointHistoryJournal journal;
+    private final JournalRestoreStats restoreStats;
+    private final ScheduledExecutorService snapshotScheduler;
+    private final Object snapshotLock = new Object();
+    private long replayedRecords;
+    private long cursor;
+
+    /**
+     * 주기적인 스냅샷 없이 저널을 연다.
+     * @param directory 저널 세그먼트와 잔액 스냅샷을 보관할 디렉토리
+     * @param segmentBytes 세그먼트 파일 크기
+     */
+    public JournaledPointHistoryRepository(Path directory, long segmentBytes) {
+        this(directory, segmentBytes, Duration.ZERO);
+    }
+
+    /**
+     * @param directory 저널 세그먼트와 잔액 스냅샷을 보관할 디렉토리
+     * @param segmentBytes 세그먼트 파일 크기
+     * @param snapshotInterval 잔액 스냅샷 주기. 0 이라면 주기적으로 기록하지 않으며, 종료 시에도 기록하지 않는다.
+     */
+    public JournaledPointHistoryRepository(Path directory, long segmentBytes, Duration snapshotInterval) {
+        this.directory = directory;
+
+        long startedAt = System.nanoTime();
+        BalanceSnapshot.Restored restored = BalanceSnapshot.load(directory);
+        this.snapshotOffset = restored.journalOffset();
+        this.ledger = restored.ledger();
+        this.userPointRepository = new JournaledUserPointRepository(ledger, this::lastHistoryId);
+        long snapshotLoadedAt = System.nanoTime();
+        this.journal = new PointHistoryJournal(directory, segmentBytes, this::replay);
+        long replayedAt = System.nanoTime();
+
+        // 저널이 스냅샷보다 뒤처져 있더라도 이미 스냅샷에 반영된 ID 를 다시 부여하지 않는다.
+        this.cursor = Math.max(journal.lastId(), snapshotOffset) + 1;
+        this.restoreStats = new JournalRestoreStats(snapshotOffset, ledger.size(), replayedRecords,
+                snapshotLoadedAt - startedAt, replayedAt - snapshotLoadedAt);
+
+        if (snapshotInterval.isZero() || snapshotInterval.isNegative()) {
+            this.snapshotScheduler = null;
+        } else {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(PointExecutors.namedDaemonThreadFactory("point-snapshot"));
+            long intervalMillis = snapshotInterval.toMillis();
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized PointHistory save(long userId, long amount, TransactionType type, long updateMillis) {
+        PointHistory pointHistory = new PointHistory(cursor, userId, amount, type, updateMillis);
+        journal.append(pointHistory);
+        cursor++;
+        index(pointHistory);
+        ledger.apply(pointHistory);
+        return pointHistory;
+    }
+
+    @Override
+    public List<PointHistory> findAllByUserId(long userId) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? List.of() : userHistoryLog.snapshot();
+    }
+
+    @Override
+    public List<PointHistory> findAllByUserIdAfter(long userId, long cursor, int limit) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? List.of() : userHistoryLog.page(cursor, limit);
+    }
+
+    @Override
+    public List<PointHistory> findAllByUserIdBetween(long userId, long fromMillis, long toMillis) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? List.of() : userHistoryLog.between(fromMillis, toMillis);
+    }
+
+    @Override
+    public PointSummary summarize(long userId) {
+        UserHistoryLog userHistoryLog = historiesByUser.get(userId);
+        return userHistoryLog == null ? PointSummary.empty(userId) : userHistoryLog.summary();
+    }
+
+    @Override
+    public List<Long> findAllUserIds() {
+        return List.copyOf(historiesByUser.keySet());
+    }
+
+    private synchronized long lastHistoryId() {
+        return cursor - 1;
+    }
+
+    /**
+     * 저널로부터 복구되어 이후 갱신을 반영하는 잔액 저장소
+     */
+    public UserPointRepository userPointRepository() {
+        return userPointRepository;
+    }
+
+    public JournalRestoreStats restoreStats() {
+        return restoreStats;
+    }
+
+    /**
+     * 현재 세그먼트에 기록된 내역을 디스크에 강제 반영한다.
+     */
+    public synchronized void force() {
+        journal.force();
+    }
+
+    /**
+     * 잔액 원장의 스냅샷을 기록한다. 기록하는 동안에도 내역 저장은 계속된다.
+     * @return 기록한 사용자 수
+     */
+    public long snapshot() {
+        synchronized (snapshotLock) {
+            long offset;
+            synchronized (this) {
+                // 스냅샷이 가리키는 위치까지의 저널이 디스크에 남아 있어야 복구 시 그 이후부터 재생할 수 있다.
+                offset = journal.lastId();
+                journal.force();
+            }
+            return BalanceSnapshot.write(directory, offset, ledger);
+        }
+    }
+
+    /**
+     * 주기적 스냅샷을 사용한다면 마지막 스냅샷을 기록하고, 저널을 디스크에 반영한 뒤 닫는다. 이후의 저장은 실패한다.
+     */
+    @Override
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotQuietly();
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            long users = snapshot();
+            log.debug("잔액 스냅샷을 기록했습니다. (사용자 {} 명)", users);
+        } catch (RuntimeException e) {
+            log.warn("잔액 스냅샷 기록에 실패했습니다. 다음 주기에 다시 시도합니다.", e);
+        }
+    }
+
+    /* 시작 시 저널 재생 : 색인은 전체 내역으로 만들고, 잔액은 스냅샷 이후의 내역만 반영한다. */
+    private void replay(PointHistory pointHistory) {
+        index(pointHistory);
+        if (pointHistory.id() > snapshotOffset && ledger.apply(pointHistory)) {
+            replayedRecords++;
+        }
+    }
+
+    private void index(PointHistory pointHistory) {
+        historiesByUser.computeIfAbsent(pointHistory.userId(), id -> new UserHistoryLog(id)).append(pointHistory);
+    }
+}
@@ -0,0 +1,62 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.UserPoint;
+import io.hhplus.tdd.point.UserPointRepository;
+import java.util.function.LongSupplier;
+
+/**
+ * <b>저널로부터 복구한 잔액 저장소</b>
+ * <br></br>
+ * 저널을 사용하는 동안에는 내역이 잔액의 원본이다. {@link UserPointTable} 은 재시작하면 모든 잔액이 비어버리므로 사용하지 않는다.
+ * <br></br>
+ * - 조회 : 잔액 원장({@link BalanceLedger})의 값을 반환한다. 원장은 복구 이후 기록되는 내역도 반영하므로 따로 갱신된 잔액을 두지 않는다.
+ * <br></br>
+ * - 갱신 : 잔액은 함께 기록되는 내역이 원장에 반영될 때 바뀌므로 저장하지 않는다. ({@link #derivedFromHistory()})
+ *   기록하지 못한 내역은 원장에 반영되지 않으므로, 되돌릴 잔액도 없다.
+ * <br></br>
+ * - 이관 : 이관받은 잔액은 내역의 합과 다를 수 있으므로 원장을 그 값으로 덮어쓴다.
+ */
+public class JournaledUserPointRepository implements UserPointRepository {
+
+    private final BalanceLedger ledger;
+    private final LongSupplier lastHistoryId;
+
+    /**
+     * @param ledger 내역을 반영하는 잔액 원장
+     * @param lastHistoryId 마지막으로 부여된 내역 ID. 이관받은 잔액을 원장에 덮어쓸 때 반영한 내역 ID 로 사용한다.
+     */
+    JournaledUserPointRepository(BalanceLedger ledger, LongSupplier lastHistoryId) {
+        this.ledger = ledger;
+        this.lastHistoryId = lastHistoryId;
+    }
+
+    @Override
+    public UserPoint findById(long userId) {
+        UserPoint userPoint = ledger.find(userId);
+        return userPoint != null ? userPoint : UserPoint.empty(userId);
+    }
+
+    /**
+     * 잔액은 기록된 내역으로 원장에 반영되므로 저장하지 않고, 저장하려던 잔액을 그대로 반환한다.
+     */
+    @Override
+    public UserPoint save(long userId, long point) {
+        return new UserPoint(userId, point, System.currentTimeMillis());
+    }
+
+    /**
+     * 호출자는 이관받은 내역이 모두 기록된 뒤 호출하므로, 해당 사용자의 내역은 모두 마지막 내역 ID 이하이다.
+     * 스냅샷으로 복구할 때 그 내역들을 다시 반영하지 않도록 마지막 내역 ID 를 함께 기록한다.
+     */
+    @Override
+    public UserPoint importBalance(long userId, long point) {
+        long updateMillis = System.currentTimeMillis();
+        ledger.restore(userId, point, updateMillis, lastHistoryId.getAsLong());
+        return new UserPoint(userId, point, updateMillis);
+    }
+
+    @Override
+    public boolean derivedFromHistory() {
+        return true;
+    }
+}
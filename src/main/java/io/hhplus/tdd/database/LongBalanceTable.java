@@ -0,0 +1,360 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.UserPoint;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <b>long 키 전용 동시성 잔액 테이블</b>
+ * <br></br>
+ * {@code Map<Long, UserPoint>} 는 사용자마다 Long 키, 엔트리 노드, UserPoint 객체를 힙에 만든다. 수천만 사용자에서는 힙 크기와 GC 대상이 이 객체 수에 비례한다.
+ * 이 테이블은 사용자 ID 와 잔액, 갱신 시각, 태그를 병렬 long 배열에 저장하는 개방 주소법(선형 탐사) 해시 테이블이다. 사용자 당 객체를 만들지 않는다.
+ * <br></br>
+ * - 경합을 줄이기 위해 여러 세그먼트로 나누고, 세그먼트마다 {@link StampedLock} 으로 보호한다.
+ * <br></br>
+ * - 조회 : 낙관적 읽기로 락 없이 읽고, 그 사이 쓰기가 있었을 때만 읽기 락으로 다시 읽는다.
+ * <br></br>
+ * - 사용률이 {@value #MAX_LOAD_PERCENT}% 를 넘으면 세그먼트의 배열을 두 배로 늘린다. 삭제해도 배열을 줄이지는 않는다.
+ * <br></br>
+ * - 삭제는 탐사 경로의 뒤 항목을 당겨 빈 슬롯을 채우므로(backward shift), 삭제 표식이 남지 않고 탐사 길이도 늘어나지 않는다.
+ * <br></br>
+ * - 태그는 사용처가 정하는 값이다. (예 : 잔액 원장의 마지막 반영 내역 ID)
+ */
+public final class LongBalanceTable {
+
+    /**
+     * 항목 순회 시 항목을 전달받는다.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long userId, long point, long updateMillis, long tag);
+    }
+
+    private static final int SEGMENT_SHIFT = 6;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_SHIFT;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 75;
+
+    /* 빈 슬롯 표시. 사용자 ID 0 은 세그먼트의 별도 필드에 저장한다. */
+    private static final long EMPTY = 0L;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    public LongBalanceTable() {
+        this(0);
+    }
+
+    /**
+     * @param expectedUsers 예상 사용자 수. 이만큼 채워도 배열을 늘리지 않도록 미리 크기를 잡는다.
+     */
+    public LongBalanceTable(int expectedUsers) {
+        long perSegment = (long) Math.max(expectedUsers, 0) / SEGMENT_COUNT + 1;
+        int capacity = tableSizeFor(perSegment * 100 / MAX_LOAD_PERCENT + 1);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * @param userId
+     * @return 테이블에 없는 사용자라면 null
+     */
+    public UserPoint find(long userId) {
+        long hash = mix(userId);
+        return segmentOf(hash).find(userId, hash);
+    }
+
+    /**
+     * 항목을 저장한다. 기존 항목이 있다면 덮어쓴다.
+     */
+    public void put(long userId, long point, long updateMillis, long tag) {
+        long hash = mix(userId);
+        segmentOf(hash).put(userId, hash, point, updateMillis, tag, false);
+    }
+
+    /**
+     * 기존 항목의 태그보다 큰 태그일 때만 잔액에 delta 를 더한다. 없는 사용자라면 잔액 0 에서 시작한다.
+     * @return 반영했다면 true
+     */
+    public boolean addIfNewer(long userId, long delta, long updateMillis, long tag) {
+        long hash = mix(userId);
+        return segmentOf(hash).put(userId, hash, delta, updateMillis, tag, true);
+    }
+
+    /**
+     * 항목을 삭제한다.
+     * @return 삭제했다면 true, 테이블에 없는 사용자라면 false
+     */
+    public boolean remove(long userId) {
+        long hash = mix(userId);
+        return segmentOf(hash).remove(userId, hash);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 모든 항목을 순회한다. 세그먼트 단위로 배열을 복사한 뒤 락 밖에서 전달하므로, 쓰기가 멈추는 구간은 세그먼트 하나를 복사하는 동안뿐이다.
+     * 순회 시작 전에 존재한 항목은 모두 전달된다.
+     */
+    public void forEach(EntryVisitor visitor) {
+        for (Segment segment : segments) {
+            Slots copy;
+            boolean hasZero;
+            long zeroPoint;
+            long zeroUpdateMillis;
+            long zeroTag;
+            long stamp = segment.lock.readLock();
+            try {
+                copy = segment.slots.copy();
+                hasZero = segment.hasZero;
+                zeroPoint = segment.zeroPoint;
+                zeroUpdateMillis = segment.zeroUpdateMillis;
+                zeroTag = segment.zeroTag;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            if (hasZero) {
+                visitor.visit(0L, zeroPoint, zeroUpdateMillis, zeroTag);
+            }
+            for (int i = 0; i < copy.keys.length; i++) {
+                if (copy.keys[i] != EMPTY) {
+                    visitor.visit(copy.keys[i], copy.points[i], copy.updateMillis[i], copy.tags[i]);
+                }
+            }
+        }
+    }
+
+    private Segment segmentOf(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_SHIFT))];
+    }
+
+    /* 연속된 사용자 ID 가 고르게 흩어지도록 비트를 섞는다. (MurmurHash3 fmix64) */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableSizeFor(long capacity) {
+        long size = Math.max(MIN_SEGMENT_CAPACITY, Long.highestOneBit(Math.max(capacity - 1, 1)) << 1);
+        if (size > 1 << 30) {
+            throw new IllegalArgumentException("세그먼트 크기가 너무 큽니다.");
+        }
+        return (int) size;
+    }
+
+    /* 한 세그먼트의 배열 묶음. 배열을 늘릴 때는 새 묶음으로 교체하므로, 읽는 쪽은 항상 길이가 같은 배열들을 본다. */
+    private static final class Slots {
+        private final long[] keys;
+        private final long[] points;
+        private final long[] updateMillis;
+        private final long[] tags;
+
+        private Slots(int capacity) {
+            this(new long[capacity], new long[capacity], new long[capacity], new long[capacity]);
+        }
+
+        private Slots(long[] keys, long[] points, long[] updateMillis, long[] tags) {
+            this.keys = keys;
+            this.points = points;
+            this.updateMillis = updateMillis;
+            this.tags = tags;
+        }
+
+        private Slots copy() {
+            return new Slots(keys.clone(), points.clone(), updateMillis.clone(), tags.clone());
+        }
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private Slots slots;
+        private int size;
+
+        private boolean hasZero;
+        private long zeroPoint;
+        private long zeroUpdateMillis;
+        private long zeroTag;
+
+        private Segment(int capacity) {
+            this.slots = new Slots(capacity);
+        }
+
+        private UserPoint find(long userId, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                UserPoint found = read(userId, hash);
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return read(userId, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /* 락 없이 호출될 수 있다. 쓰기와 겹쳐 읽은 값은 호출자가 버리며, 탐사 횟수는 배열 길이로 제한한다. */
+        private UserPoint read(long userId, long hash) {
+            if (userId == EMPTY) {
+                return hasZero ? new UserPoint(userId, zeroPoint, zeroUpdateMillis) : null;
+            }
+            Slots current = slots;
+            int mask = current.keys.length - 1;
+            int index = (int) hash & mask;
+            for (int probe = 0; probe <= mask; probe++) {
+                long key = current.keys[index];
+                if (key == userId) {
+                    return new UserPoint(userId, current.points[index], current.updateMillis[index]);
+                }
+                if (key == EMPTY) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private boolean put(long userId, long hash, long point, long updateMillis, long tag, boolean addIfNewer) {
+            long stamp = lock.writeLock();
+            try {
+                if (userId == EMPTY) {
+                    if (addIfNewer && hasZero && tag <= zeroTag) {
+                        return false;
+                    }
+                    zeroPoint = addIfNewer && hasZero ? zeroPoint + point : point;
+                    zeroUpdateMillis = updateMillis;
+                    zeroTag = tag;
+                    if (!hasZero) {
+                        hasZero = true;
+                        size++;
+                    }
+                    return true;
+                }
+
+                Slots current = slots;
+                int mask = current.keys.length - 1;
+                int index = (int) hash & mask;
+                while (true) {
+                    long key = current.keys[index];
+                    if (key == userId) {
+                        if (addIfNewer && tag <= current.tags[index]) {
+                            return false;
+                        }
+                        current.points[index] = addIfNewer ? current.points[index] + point : point;
+                        current.updateMillis[index] = updateMillis;
+                        current.tags[index] = tag;
+                        return true;
+                    }
+                    if (key == EMPTY) {
+                        break;
+                    }
+                    index = (index + 1) & mask;
+                }
+
+                current.points[index] = point;
+                current.updateMillis[index] = updateMillis;
+                current.tags[index] = tag;
+                current.keys[index] = userId;
+                size++;
+                if ((long) size * 100 > (long) current.keys.length * MAX_LOAD_PERCENT) {
+                    resize(current);
+                }
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private boolean remove(long userId, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                if (userId == EMPTY) {
+                    if (!hasZero) {
+                        return false;
+                    }
+                    hasZero = false;
+                    size--;
+                    return true;
+                }
+
+                Slots current = slots;
+                int mask = current.keys.length - 1;
+                int index = (int) hash & mask;
+                while (current.keys[index] != userId) {
+                    if (current.keys[index] == EMPTY) {
+                        return false;
+                    }
+                    index = (index + 1) & mask;
+                }
+
+                // 비운 슬롯 뒤의 항목 중, 원래 위치에서 비운 슬롯을 지나 탐사되는 항목을 당겨 채운다.
+                int hole = index;
+                int next = index;
+                while (true) {
+                    next = (next + 1) & mask;
+                    long key = current.keys[next];
+                    if (key == EMPTY) {
+                        break;
+                    }
+                    int home = (int) mix(key) & mask;
+                    // home 이 (hole, next] 구간(원형)에 있다면 제자리에서도 찾을 수 있으므로 옮기지 않는다.
+                    boolean reachable = hole <= next
+                            ? hole < home && home <= next
+                            : hole < home || home <= next;
+                    if (!reachable) {
+                        current.keys[hole] = key;
+                        current.points[hole] = current.points[next];
+                        current.updateMillis[hole] = current.updateMillis[next];
+                        current.tags[hole] = current.tags[next];
+                        hole = next;
+                    }
+                }
+                current.keys[hole] = EMPTY;
+                current.points[hole] = 0L;
+                current.updateMillis[hole] = 0L;
+                current.tags[hole] = 0L;
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize(Slots current) {
+            Slots resized = new Slots(current.keys.length << 1);
+            int mask = resized.keys.length - 1;
+            for (int i = 0; i < current.keys.length; i++) {
+                long key = current.keys[i];
+                if (key == EMPTY) {
+                    continue;
+                }
+                int index = (int) mix(key) & mask;
+                while (resized.keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                resized.keys[index] = key;
+                resized.points[index] = current.points[i];
+                resized.updateMillis[index] = current.updateMillis[i];
+                resized.tags[index] = current.tags[i];
+            }
+            slots = resized;
+        }
+    }
+}
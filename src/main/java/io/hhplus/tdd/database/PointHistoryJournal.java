@@ -0,0 +1,216 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.TransactionType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * <b>포인트 내역 추가 전용(append-only) 저널</b>
+ * <br></br>
+ * 내역을 고정 길이({@value #RECORD_SIZE} 바이트) 이진 레코드로 메모리 매핑된 세그먼트 파일에 순서대로 기록한다.
+ * <br></br>
+ * - 기록 : 매핑된 버퍼에 값을 쓰는 것뿐이므로 레코드마다 시스템 콜이 발생하지 않는다. 페이지 반영은 운영체제가 수행한다.
+ * <br></br>
+ * - 세그먼트 : 세그먼트가 가득 차면 디스크에 강제 반영(force)한 뒤 다음 세그먼트로 넘어간다. 파일 이름은 첫 레코드의 ID 이다.
+ * <br></br>
+ * - 복구 : 열 때 세그먼트를 이름 순서대로 재생한다. 각 세그먼트는 체크섬이 맞지 않는 첫 레코드(미기록 영역 혹은 쓰다 만 레코드)에서 끝난 것으로 본다.
+ * <br></br>
+ * - 내구성 : 프로세스가 비정상 종료되어도 매핑된 페이지는 운영체제가 반영하지만, 전원 장애 시에는 마지막 force 이후의 레코드를 잃을 수 있다.
+ * <br></br>
+ * 동시 호출에 안전하지 않다. 호출자가 기록과 종료를 직렬화해야 한다.
+ */
+final class PointHistoryJournal implements AutoCloseable {
+
+    /*
+       레코드 구조 (Big Endian)
+       [0] id(8) [8] userId(8) [16] amount(8) [24] updateMillis(8) [32] type(4) [36] checksum(4)
+     */
+    static final int RECORD_SIZE = 40;
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int CHECKSUM_SEED = 0x5048_4a31;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long lastId;
+    private boolean closed;
+
+    /**
+     * 저널 디렉토리를 열고, 기존 세그먼트의 레코드를 순서대로 전달한 뒤 마지막 세그먼트의 끝에서부터 기록을 이어간다.
+     * @param directory 세그먼트 파일을 보관할 디렉토리. 없으면 생성한다.
+     * @param segmentBytes 세그먼트 파일 크기. 레코드 크기의 배수로 내림하며, 최소 한 개의 레코드를 담는다.
+     * @param replay 복구된 내역을 ID 오름차순으로 전달받는다.
+     */
+    PointHistoryJournal(Path directory, long segmentBytes, Consumer<PointHistory> replay) {
+        long records = Math.max(1L, segmentBytes / RECORD_SIZE);
+        if ((long) RECORD_SIZE * records > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("세그먼트 크기는 2GB 를 넘을 수 없습니다.");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = (int) records;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            int end = 0;
+            for (Path path : segments) {
+                end = replay(path, replay);
+            }
+            if (!segments.isEmpty() && end + RECORD_SIZE <= segmentCapacity()) {
+                // 마지막 세그먼트에 여유가 있다면 복구된 끝 위치에서부터 이어서 기록한다. 쓰다 만 레코드는 덮어쓴다.
+                this.channel = FileChannel.open(segments.get(segments.size() - 1), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentCapacity());
+                this.segment.position(end);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("포인트 내역 저널을 열 수 없습니다.", e);
+        }
+    }
+
+    /**
+     * 마지막으로 기록된(혹은 복구된) 내역의 ID. 기록된 내역이 없다면 0 이다.
+     */
+    long lastId() {
+        return lastId;
+    }
+
+    /**
+     * 내역을 다음 레코드로 기록한다. ID 는 직전 내역보다 커야 한다.
+     * @param pointHistory
+     */
+    void append(PointHistory pointHistory) {
+        if (closed) {
+            throw new IllegalStateException("포인트 내역 저널이 닫혔습니다.");
+        }
+        if (pointHistory.id() <= lastId) {
+            throw new IllegalArgumentException("내역 ID 는 직전에 기록된 ID 보다 커야 합니다.");
+        }
+        if (segment == null || !segment.hasRemaining()) {
+            roll(pointHistory.id());
+        }
+        int type = pointHistory.type().ordinal();
+        segment.putLong(pointHistory.id())
+                .putLong(pointHistory.userId())
+                .putLong(pointHistory.amount())
+                .putLong(pointHistory.updateMillis())
+                .putInt(type)
+                .putInt(checksum(pointHistory.id(), pointHistory.userId(), pointHistory.amount(), pointHistory.updateMillis(), type));
+        lastId = pointHistory.id();
+    }
+
+    /**
+     * 현재 세그먼트에 기록된 내용을 디스크에 강제 반영한다.
+     */
+    void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeSegment();
+    }
+
+    /* 현재 세그먼트를 반영하고 닫은 뒤, 첫 레코드 ID 를 이름으로 하는 새 세그먼트를 만든다. */
+    private void roll(long firstId) {
+        closeSegment();
+        Path path = directory.resolve(segmentName(firstId));
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // 매핑 크기만큼 파일이 확장되며, 확장된 영역은 0 으로 채워져 체크섬이 맞지 않는 미기록 영역이 된다.
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentCapacity());
+        } catch (IOException e) {
+            throw new UncheckedIOException("포인트 내역 저널 세그먼트를 만들 수 없습니다.", e);
+        }
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        segment.force();
+        try {
+            // 매핑은 버퍼가 수거될 때 해제된다. 채널을 닫아도 매핑된 버퍼는 유효하다.
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("포인트 내역 저널 세그먼트를 닫을 수 없습니다.", e);
+        } finally {
+            segment = null;
+            channel = null;
+        }
+    }
+
+    private long segmentCapacity() {
+        return (long) RECORD_SIZE * recordsPerSegment;
+    }
+
+    /* 세그먼트의 유효한 레코드를 전달하고, 마지막 유효 레코드 다음 위치를 반환한다. */
+    private int replay(Path path, Consumer<PointHistory> replay) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+        }
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            long id = buffer.getLong();
+            long userId = buffer.getLong();
+            long amount = buffer.getLong();
+            long updateMillis = buffer.getLong();
+            int type = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (checksum != checksum(id, userId, amount, updateMillis, type) || type < 0 || type >= TYPES.length || id <= lastId) {
+                buffer.position(start);
+                break;
+            }
+            replay.accept(new PointHistory(id, userId, amount, TYPES[type], updateMillis));
+            lastId = id;
+        }
+        return buffer.position();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            // 이름이 0 으로 채운 고정 길이 ID 이므로 이름 순서가 곧 ID 순서이다.
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static String segmentName(long firstId) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstId, SEGMENT_SUFFIX);
+    }
+
+    /* 0 으로 채워진 미기록 영역은 체크섬이 맞지 않도록 시드를 섞는다. */
+    private static int checksum(long id, long userId, long amount, long updateMillis, int type) {
+        long hash = CHECKSUM_SEED;
+        hash = hash * 0x9E37_79B9_7F4A_7C15L + id;
+        hash = hash * 0x9E37_79B9_7F4A_7C15L + userId;
+        hash = hash * 0x9E37_79B9_7F4A_7C15L + amount;
+        hash = hash * 0x9E37_79B9_7F4A_7C15L + updateMillis;
+        hash = hash * 0x9E37_79B9_7F4A_7C15L + type;
+        hash ^= hash >>> 29;
+        return (int) (hash ^ (hash >>> 32)) | 1;
+    }
+}
@@ -0,0 +1,303 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointHistoryRepository;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointOperation;
+import io.hhplus.tdd.point.TransactionType;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>포인트 내역 기록기</b>
+ * <br></br>
+ * 충전/사용 요청 스레드는 사용자 락을 보유한 채로 내역을 큐에 적재하고, 실제 저장({@link PointHistoryRepository#save})은
+ * 기록 스레드가 큐를 배치 단위로 비워가며 수행한다. 요청 스레드는 락을 해제한 뒤 기록 완료를 기다렸다가 응답한다.
+ * <br></br>
+ * - 분할 : 사용자 ID 해시로 정해진 파티션마다 큐와 기록 스레드를 하나씩 둔다. 서로 다른 파티션의 사용자 내역은 병렬로 기록되므로,
+ *   내역 저장이 느리더라도 처리량은 파티션 수에 비례한다.
+ * <br></br>
+ * - 순서 보장 : 적재는 사용자 락 내부에서, 기록은 사용자가 속한 파티션의 스레드가 FIFO 로 수행하므로 사용자 별 내역 순서는 락 획득 순서와 같다.
+ * <br></br>
+ * - 내구성 보장 : 호출자는 {@link #await(CompletableFuture)} 로 자신의 내역이 기록될 때까지 기다린 뒤 응답한다.
+ * <br></br>
+ * - 기록 실패 : 저장에 실패하면 같은 자리에서 몇 차례 다시 시도하고, 끝내 실패하면 Future 를 예외로 완료하여 호출자가 요청을 실패시키도록 한다.
+ *   앞선 내역에 이어서 적재한 내역({@link #append(long, long, TransactionType, long, CompletableFuture)})은 앞선 내역의 기록이 실패하면 기록하지 않고 함께 실패한다.
+ * <br></br>
+ * - Read-Your-Writes : 내역 조회 전 {@link #awaitPending(long)} 으로 해당 사용자의 미기록 내역이 모두 기록되기를 기다린다.
+ */
+@Slf4j
+@Component
+public class PointHistoryWriter {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final int DEFAULT_PARTITIONS = 16;
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final long WRITE_RETRY_BACKOFF_MILLIS = 10L;
+
+    /* 기록 스레드 종료 표식. 인터럽트는 저장소의 파일 I/O(FileChannel)를 닫아버리므로 종료 요청은 큐로 전달한다. */
+    private static final PendingHistory SHUTDOWN = new PendingHistory(0L, 0L, null, 0L, null, null);
+
+    private final PointHistoryRepository pointHistoryRepository;
+    private final PointMetrics pointMetrics;
+    private final int maxBatchSize;
+    private final Partition[] partitions;
+
+    /*
+       사용자 별 가장 마지막으로 적재된 내역의 Future.
+       한 사용자의 내역은 같은 파티션에서 FIFO 로 기록되므로, 마지막 Future 가 완료되었다면 그 이전에 적재된 해당 사용자의 내역도 모두 기록된 것이다.
+       기록이 완료되면 자신이 여전히 마지막인 경우에만 제거하므로 사용자 수만큼 계속 늘어나지 않는다.
+     */
+    private final ConcurrentHashMap<Long, CompletableFuture<PointHistory>> lastPendingByUser = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+
+    public PointHistoryWriter(PointHistoryRepository pointHistoryRepository) {
+        this(pointHistoryRepository, new PointMetrics());
+    }
+
+    public PointHistoryWriter(PointHistoryRepository pointHistoryRepository, PointMetrics pointMetrics) {
+        this(pointHistoryRepository, pointMetrics, DEFAULT_MAX_BATCH_SIZE, DEFAULT_PARTITIONS);
+    }
+
+    /**
+     * @param maxBatchSize 기록 스레드가 한 번에 꺼내어 기록하는 최대 내역 수
+     * @param partitionCount 파티션(기록 스레드) 수
+     */
+    @Autowired
+    public PointHistoryWriter(PointHistoryRepository pointHistoryRepository,
+                              PointMetrics pointMetrics,
+                              @Value("${point.history.writer.max-batch-size:64}") int maxBatchSize,
+                              @Value("${point.history.writer.partitions:16}") int partitionCount) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("배치 크기는 1 이상이어야 합니다.");
+        }
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("파티션 수는 1 이상이어야 합니다.");
+        }
+        this.pointHistoryRepository = pointHistoryRepository;
+        this.pointMetrics = pointMetrics;
+        this.maxBatchSize = maxBatchSize;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition("point-history-writer-" + i);
+        }
+    }
+
+    /**
+     * 포인트 내역을 기록 큐에 적재한다. 사용자 락 보유 중에 호출되어야 사용자 별 순서가 보장된다.
+     * @param userId
+     * @param amount
+     * @param type
+     * @param updateMillis
+     * @return 내역 기록이 완료되면 완료되는 Future
+     */
+    public CompletableFuture<PointHistory> append(long userId, long amount, TransactionType type, long updateMillis) {
+        return append(userId, amount, type, updateMillis, null);
+    }
+
+    /**
+     * 같은 사용자의 앞선 내역에 이어서 적재한다. 앞선 내역의 기록이 실패했다면 이 내역은 기록하지 않고 같은 예외로 실패한다.
+     * <br></br>
+     * 일괄 처리처럼 한 번에 적재한 내역 중 기록된 앞부분만 잔액에 반영할 때 사용한다.
+     * @param previous 같은 사용자에 대해 앞서 적재한 내역의 Future. 없다면 null
+     * @return 내역 기록이 완료되면 완료되는 Future
+     */
+    public CompletableFuture<PointHistory> append(long userId, long amount, TransactionType type, long updateMillis,
+                                                  CompletableFuture<PointHistory> previous) {
+        if (!running) {
+            throw new IllegalStateException("포인트 내역 기록기가 종료되었습니다.");
+        }
+        PendingHistory pending = new PendingHistory(userId, amount, type, updateMillis, new CompletableFuture<>(), previous);
+        lastPendingByUser.put(userId, pending.future());
+        partitionOf(userId).queue.add(pending);
+        return pending.future();
+    }
+
+    /**
+     * 적재한 내역이 기록될 때까지 기다린다. 기록에 실패했다면 그 예외를 던진다.
+     * @param appended
+     * @return 기록 결과
+     */
+    public <T> T await(CompletableFuture<T> appended) {
+        try {
+            return appended.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 해당 사용자에 대해 현재까지 적재된 내역이 모두 기록될 때까지 기다린다.
+     * @param userId
+     */
+    public void awaitPending(long userId) {
+        CompletableFuture<PointHistory> last = lastPendingByUser.get(userId);
+        if (last != null) {
+            // 기록 실패 여부는 적재한 호출자에게 전달되므로, 조회 측에서는 완료 여부만 기다린다.
+            last.exceptionally(e -> null).join();
+        }
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    private Partition partitionOf(long userId) {
+        return partitions[Math.floorMod(mix(userId), partitions.length)];
+    }
+
+    /* 연속된 사용자 ID 가 고르게 흩어지도록 비트를 섞는다. (MurmurHash3 fmix64) */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /* 배치를 순서대로 기록하고, 종료 표식이 포함되어 있었는지 반환한다. */
+    private boolean writeBatch(List<PendingHistory> batch) {
+        boolean closing = false;
+        for (PendingHistory pending : batch) {
+            if (pending == SHUTDOWN) {
+                closing = true;
+                continue;
+            }
+            write(pending);
+        }
+        return closing;
+    }
+
+    /*
+       저장에 실패하면 다음 내역으로 넘어가지 않고 같은 내역을 다시 시도하여, 사용자 별 기록 순서를 유지한다.
+       앞선 내역은 같은 파티션에서 먼저 처리되었으므로 이미 완료되어 있다.
+     */
+    private void write(PendingHistory pending) {
+        try {
+            Throwable previousFailure = failureOf(pending.previous());
+            if (previousFailure != null) {
+                pending.future().completeExceptionally(previousFailure);
+                return;
+            }
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    PointHistory pointHistory = pointMetrics.time(PointMetrics.Stage.HISTORY_INSERT, PointOperation.of(pending.type()),
+                            () -> pointHistoryRepository.save(pending.userId(), pending.amount(), pending.type(), pending.updateMillis()));
+                    pending.future().complete(pointHistory);
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= MAX_WRITE_ATTEMPTS) {
+                        log.error("포인트 내역 기록에 실패했습니다. userId={}, type={}, amount={}, updateMillis={}",
+                                pending.userId(), pending.type(), pending.amount(), pending.updateMillis(), e);
+                        pending.future().completeExceptionally(e);
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(WRITE_RETRY_BACKOFF_MILLIS * attempt));
+                }
+            }
+        } finally {
+            lastPendingByUser.remove(pending.userId(), pending.future());
+        }
+    }
+
+    private static Throwable failureOf(CompletableFuture<PointHistory> previous) {
+        if (previous == null || !previous.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            previous.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        } catch (CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * 애플리케이션 종료 시 새로운 적재를 막고, 이미 적재된 내역을 모두 기록한 뒤 기록 스레드를 종료한다.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Partition partition : partitions) {
+            partition.queue.add(SHUTDOWN);
+        }
+        for (Partition partition : partitions) {
+            partition.worker.join();
+        }
+
+        // 종료 직전 경합으로 기록되지 못하고 남은 내역은 대기 중인 호출자가 무한히 기다리지 않도록 실패 처리한다.
+        List<PendingHistory> stranded = new ArrayList<>();
+        for (Partition partition : partitions) {
+            partition.queue.drainTo(stranded);
+        }
+        for (PendingHistory pending : stranded) {
+            pending.future().completeExceptionally(new IllegalStateException("포인트 내역 기록기가 종료되었습니다."));
+        }
+    }
+
+    private final class Partition {
+        private final BlockingQueue<PendingHistory> queue = new LinkedBlockingQueue<>();
+        private final Thread worker;
+
+        private Partition(String name) {
+            this.worker = new Thread(this::drainLoop, name);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        /*
+           파티션 기록 스레드 : 큐에 쌓인 내역을 최대 maxBatchSize 개씩 꺼내어 순서대로 기록한다.
+           종료 표식을 꺼내면, 같은 배치에 함께 꺼낸 내역까지 기록한 뒤 루프를 빠져나간다.
+         */
+        private void drainLoop() {
+            List<PendingHistory> batch = new ArrayList<>(maxBatchSize);
+            boolean closing = false;
+            while (!closing) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    closing = writeBatch(batch);
+                } catch (InterruptedException e) {
+                    // 종료는 종료 표식으로만 요청한다. 외부에서 인터럽트되더라도 기록을 계속한다.
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private record PendingHistory(
+            long userId,
+            long amount,
+            TransactionType type,
+            long updateMillis,
+            CompletableFuture<PointHistory> future,
+            /* 같은 사용자에 대해 앞서 적재한 내역. 이 내역의 기록이 실패했다면 기록하지 않는다. 없다면 null */
+            CompletableFuture<PointHistory> previous
+    ) {
+    }
+}
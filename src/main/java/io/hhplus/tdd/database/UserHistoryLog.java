@@ -0,0 +1,382 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointSummary;
+import io.hhplus.tdd.point.TransactionType;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.NavigableSet;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * <b>사용자 한 명의 포인트 내역 색인</b>
+ * <br></br>
+ * 내역을 {@link PointHistory} 객체로 보관하면 내역마다 객체 헤더와 TransactionType 참조, 배열의 참조가 더해진다.
+ * 이 색인은 내역을 열(column) 단위 배열에 나누어 보관한다. ID, 금액, 시각은 long 배열에, 종류는 byte 배열에 저장하고,
+ * 사용자 ID 는 색인이 한 번만 보관한다. 내역 하나에 25 바이트만 사용한다. (늦게 도착한 내역만 실제 시각을 따로 보관한다.)
+ * <br></br>
+ * - 추가 : 청크 단위로 늘어난다. 청크는 {@value #FIRST_CHUNK_CAPACITY} 개에서 시작해 {@value #MAX_CHUNK_CAPACITY} 개까지 두 배씩 커지며,
+ *   가득 찬 청크는 복사하지 않는다. 새 청크를 먼저 게시한 뒤 원소를 기록하고 마지막으로 size 를 증가시킨다.
+ * <br></br>
+ * - 조회 : volatile size 를 먼저 읽고 청크를 읽는다. size 이전의 원소는 size 기록보다 먼저 기록되었으므로 모두 보인다.
+ *   조회 결과는 청크를 그대로 가리키는 읽기 전용 목록이며, {@link PointHistory} 는 원소를 꺼낼 때(직렬화할 때) 만들어진다.
+ *   청크는 추가만 되므로 이미 게시된 원소는 바뀌지 않는다.
+ * <br></br>
+ * - 시각 구간 조회 : 내역은 ID 순서로 추가되며 시각도 거의 같은 순서이지만, 낙관적 실행이나 시계 조정으로 순서가 어긋날 수 있다.
+ *   시각 열에는 앞선 내역의 시각보다 이른 내역(늦게 도착한 내역) 대신 직전 내역의 시각을 기록하여, 시각 열이 항상 정렬되도록 한다.
+ *   늦게 도착한 내역은 종류 열에 표식을 남기고 실제 시각을 청크의 별도 열에 기록하며, 실제 시각 순서의 색인에도 추가한다.
+ *   구간 조회는 정렬된 시각 열을 이진 탐색한 구간과 늦게 도착한 내역의 색인에서 찾은 구간을 ID 순서로 합친다.
+ *   조회 비용은 결과 크기에 비례하며, 사용자의 전체 내역 수와는 로그 관계이다. 순서가 한 번 어긋났다고 이후의 조회가 넓어지지 않는다.
+ * <br></br>
+ * - 요약 : 충전/사용 합계와 횟수, 마지막 활동 시각을 추가할 때마다 함께 갱신하므로, 요약 조회는 내역 수와 무관하다.
+ *   여러 값을 함께 읽어야 하므로 요약 조회만 추가와 같은 모니터를 잡는다.
+ * <br></br>
+ * - append 의 synchronized 구간은 청크 배열 복사와 대입뿐이라 가상 스레드에서 호출되어도 블로킹 중 고정될 일이 없다.
+ */
+final class UserHistoryLog {
+
+    private static final int FIRST_CHUNK_SHIFT = 3;
+    private static final int FIRST_CHUNK_CAPACITY = 1 << FIRST_CHUNK_SHIFT;
+    private static final int MAX_CHUNK_SHIFT = 10;
+    private static final int MAX_CHUNK_CAPACITY = 1 << MAX_CHUNK_SHIFT;
+    /* 크기가 두 배씩 커지는 청크의 수와 그 청크들이 담는 원소 수 */
+    private static final int GROWING_CHUNKS = MAX_CHUNK_SHIFT - FIRST_CHUNK_SHIFT;
+    private static final int GROWING_CAPACITY = FIRST_CHUNK_CAPACITY * ((1 << GROWING_CHUNKS) - 1);
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    /* 종류 열의 늦게 도착한 내역 표식. 하위 비트는 종류의 순번이다. */
+    private static final byte LATE = (byte) 0x80;
+    private static final int TYPE_MASK = 0x7F;
+
+    private final long userId;
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    /* 늦게 도착한 내역의 (실제 시각, 위치) 색인. 실제 시각 순서로 정렬된다. */
+    private final NavigableSet<LateEntry> lateEntries = new ConcurrentSkipListSet<>();
+
+    private long totalCharged;
+    private long totalUsed;
+    private long chargeCount;
+    private long useCount;
+    private long lastActivityMillis;
+
+    UserHistoryLog(long userId) {
+        this.userId = userId;
+    }
+
+    synchronized void append(PointHistory pointHistory) {
+        int index = size;
+        Chunk[] current = chunks;
+        int chunkIndex = chunkIndexOf(index);
+        if (chunkIndex == current.length) {
+            current = Arrays.copyOf(current, chunkIndex + 1);
+            current[chunkIndex] = new Chunk(capacityOf(chunkIndex));
+            chunks = current;
+        }
+        int offset = offsetOf(index, chunkIndex);
+        long previousMillis = index > 0 ? updateMillisAt(current, index - 1) : Long.MIN_VALUE;
+        if (pointHistory.updateMillis() < previousMillis) {
+            // 시각 열의 정렬을 유지하도록 직전 시각을 기록하고, 실제 시각은 따로 색인한다.
+            current[chunkIndex].setLate(offset, pointHistory, previousMillis);
+            lateEntries.add(new LateEntry(pointHistory.updateMillis(), index));
+        } else {
+            current[chunkIndex].set(offset, pointHistory);
+        }
+        size = index + 1;
+
+        if (pointHistory.type() == TransactionType.CHARGE) {
+            totalCharged += pointHistory.amount();
+            chargeCount++;
+        } else {
+            totalUsed += pointHistory.amount();
+            useCount++;
+        }
+        lastActivityMillis = Math.max(lastActivityMillis, pointHistory.updateMillis());
+    }
+
+    synchronized PointSummary summary() {
+        return new PointSummary(userId, totalCharged, totalUsed, chargeCount, useCount, lastActivityMillis);
+    }
+
+    List<PointHistory> snapshot() {
+        int count = size;
+        return new View(chunks, 0, count);
+    }
+
+    /*
+       한 사용자의 내역은 하나의 기록 파티션에 의해 ID 가 증가하는 순서로 추가되므로, ID 기준 이진 탐색으로 커서 위치를 찾는다.
+     */
+    List<PointHistory> page(long afterId, int limit) {
+        int count = size;
+        Chunk[] current = chunks;
+
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int chunkIndex = chunkIndexOf(mid);
+            if (current[chunkIndex].ids[offsetOf(mid, chunkIndex)] <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int to = (int) Math.min(count, (long) low + limit);
+        return new View(current, low, to);
+    }
+
+    /*
+       시각이 [fromMillis, toMillis] 인 내역을 ID 순서로 반환한다.
+       정렬된 시각 열에서 찾은 구간의 내역 중 늦게 도착한 내역은 시각 열의 값이 실제 시각이 아니므로 건너뛰고,
+       늦게 도착한 내역은 실제 시각 색인에서 따로 찾아 위치 순서로 합친다.
+     */
+    List<PointHistory> between(long fromMillis, long toMillis) {
+        int count = size;
+        Chunk[] current = chunks;
+        if (fromMillis > toMillis) {
+            return List.of();
+        }
+
+        int from = lowerBound(current, count, fromMillis);
+        int to = upperBound(current, count, toMillis);
+        List<Integer> late = latePositions(count, fromMillis, toMillis);
+        View sorted = new View(current, from, to);
+        if (late.isEmpty() && !hasLate(current, from, to)) {
+            return sorted;
+        }
+
+        List<PointHistory> matched = new ArrayList<>();
+        int next = 0;
+        for (int position = from; position < to; position++) {
+            while (next < late.size() && late.get(next) < position) {
+                matched.add(sorted.materializeAt(late.get(next++)));
+            }
+            if (!isLate(current, position)) {
+                matched.add(sorted.materializeAt(position));
+            }
+        }
+        while (next < late.size()) {
+            matched.add(sorted.materializeAt(late.get(next++)));
+        }
+        return Collections.unmodifiableList(matched);
+    }
+
+    /*
+       구간 조회가 살펴보는 내역 수. 정렬된 시각 열의 구간 길이와 실제 시각 색인에서 찾은 늦게 도착한 내역 수의 합이다.
+     */
+    int candidateCount(long fromMillis, long toMillis) {
+        int count = size;
+        Chunk[] current = chunks;
+        if (fromMillis > toMillis) {
+            return 0;
+        }
+        int from = lowerBound(current, count, fromMillis);
+        int to = upperBound(current, count, toMillis);
+        return to - from + latePositions(count, fromMillis, toMillis).size();
+    }
+
+    /* 시각 열의 값이 fromMillis 이상인 첫 위치 */
+    private static int lowerBound(Chunk[] current, int count, long fromMillis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (updateMillisAt(current, mid) < fromMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /* 시각 열의 값이 toMillis 보다 큰 첫 위치 */
+    private static int upperBound(Chunk[] current, int count, long toMillis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (updateMillisAt(current, mid) <= toMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /* 실제 시각이 구간에 속하는 늦게 도착한 내역의 위치를 오름차순으로. 읽기 시작한 이후에 추가된 내역은 제외한다. */
+    private List<Integer> latePositions(int count, long fromMillis, long toMillis) {
+        if (lateEntries.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (LateEntry entry : lateEntries.subSet(new LateEntry(fromMillis, Integer.MIN_VALUE), true, new LateEntry(toMillis, Integer.MAX_VALUE), true)) {
+            if (entry.position() < count) {
+                positions.add(entry.position());
+            }
+        }
+        positions.sort(null);
+        return positions;
+    }
+
+    private static boolean hasLate(Chunk[] current, int from, int to) {
+        for (int position = from; position < to; position++) {
+            if (isLate(current, position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLate(Chunk[] current, int index) {
+        int chunkIndex = chunkIndexOf(index);
+        return (current[chunkIndex].types[offsetOf(index, chunkIndex)] & LATE) != 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static long updateMillisAt(Chunk[] current, int index) {
+        int chunkIndex = chunkIndexOf(index);
+        return current[chunkIndex].updateMillis[offsetOf(index, chunkIndex)];
+    }
+
+    /* 청크 크기는 FIRST, 2*FIRST, ... , MAX 로 커진 뒤 MAX 로 고정되므로, 위치로부터 청크와 청크 내 위치를 계산할 수 있다. */
+    private static int chunkIndexOf(int index) {
+        if (index < GROWING_CAPACITY) {
+            return 31 - Integer.numberOfLeadingZeros((index >>> FIRST_CHUNK_SHIFT) + 1);
+        }
+        return GROWING_CHUNKS + ((index - GROWING_CAPACITY) >>> MAX_CHUNK_SHIFT);
+    }
+
+    private static int offsetOf(int index, int chunkIndex) {
+        if (chunkIndex < GROWING_CHUNKS) {
+            return index - FIRST_CHUNK_CAPACITY * ((1 << chunkIndex) - 1);
+        }
+        return (index - GROWING_CAPACITY) & (MAX_CHUNK_CAPACITY - 1);
+    }
+
+    private static int capacityOf(int chunkIndex) {
+        return chunkIndex < GROWING_CHUNKS ? FIRST_CHUNK_CAPACITY << chunkIndex : MAX_CHUNK_CAPACITY;
+    }
+
+    private static final class Chunk {
+        private final long[] ids;
+        private final long[] amounts;
+        private final long[] updateMillis;
+        private final byte[] types;
+        /* 늦게 도착한 내역의 실제 시각. 청크에 늦게 도착한 내역이 처음 추가될 때 만든다. */
+        private long[] lateMillis;
+
+        private Chunk(int capacity) {
+            this.ids = new long[capacity];
+            this.amounts = new long[capacity];
+            this.updateMillis = new long[capacity];
+            this.types = new byte[capacity];
+        }
+
+        private void set(int offset, PointHistory pointHistory) {
+            ids[offset] = pointHistory.id();
+            amounts[offset] = pointHistory.amount();
+            updateMillis[offset] = pointHistory.updateMillis();
+            types[offset] = (byte) pointHistory.type().ordinal();
+        }
+
+        private void setLate(int offset, PointHistory pointHistory, long sortMillis) {
+            if (lateMillis == null) {
+                lateMillis = new long[ids.length];
+            }
+            ids[offset] = pointHistory.id();
+            amounts[offset] = pointHistory.amount();
+            updateMillis[offset] = sortMillis;
+            lateMillis[offset] = pointHistory.updateMillis();
+            types[offset] = (byte) (pointHistory.type().ordinal() | LATE);
+        }
+    }
+
+    /* 늦게 도착한 내역의 실제 시각 순서. 시각이 같다면 위치 순서이다. */
+    private record LateEntry(long updateMillis, int position) implements Comparable<LateEntry> {
+        @Override
+        public int compareTo(LateEntry other) {
+            int byTime = Long.compare(updateMillis, other.updateMillis);
+            return byTime != 0 ? byTime : Integer.compare(position, other.position);
+        }
+    }
+
+    /**
+     * 청크의 [from, to) 구간을 가리키는 읽기 전용 목록. 순회는 청크를 차례로 훑으며, 원소는 꺼낼 때 만들어진다.
+     */
+    private final class View extends AbstractList<PointHistory> implements RandomAccess {
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+
+        private View(Chunk[] chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public PointHistory get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return materializeAt(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Iterator<PointHistory> iterator() {
+            return new Iterator<>() {
+                private int position = from;
+                private int chunkIndex = from < to ? chunkIndexOf(from) : 0;
+                private int offset = from < to ? offsetOf(from, chunkIndex) : 0;
+
+                @Override
+                public boolean hasNext() {
+                    return position < to;
+                }
+
+                @Override
+                public PointHistory next() {
+                    if (position >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    Chunk chunk = chunks[chunkIndex];
+                    PointHistory pointHistory = materialize(chunk, offset);
+                    position++;
+                    if (++offset == chunk.ids.length) {
+                        chunkIndex++;
+                        offset = 0;
+                    }
+                    return pointHistory;
+                }
+            };
+        }
+
+        private PointHistory materializeAt(int position) {
+            int chunkIndex = chunkIndexOf(position);
+            return materialize(chunks[chunkIndex], offsetOf(position, chunkIndex));
+        }
+
+        private PointHistory materialize(Chunk chunk, int offset) {
+            byte type = chunk.types[offset];
+            long updateMillis = (type & LATE) != 0 ? chunk.lateMillis[offset] : chunk.updateMillis[offset];
+            return new PointHistory(chunk.ids[offset], userId, chunk.amounts[offset], TYPES[type & TYPE_MASK], updateMillis);
+        }
+    }
+}
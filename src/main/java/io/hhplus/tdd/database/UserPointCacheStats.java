@@ -0,0 +1,23 @@
+package io.hhplus.tdd.database;
+
+/**
+ * 잔액 캐시 통계
+ * @param hits 캐시 적중 횟수
+ * @param misses 캐시 미적중(테이블 조회) 횟수
+ * @param evictions 용량 초과로 제거된 항목 수
+ * @param size 현재 캐시된 항목 수
+ * @param capacity 최대 항목 수
+ */
+public record UserPointCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long size,
+        long capacity
+) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
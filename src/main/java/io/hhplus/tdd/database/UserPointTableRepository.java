@@ -0,0 +1,26 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.UserPoint;
+import io.hhplus.tdd.point.UserPointRepository;
+
+/**
+ * {@link UserPointTable} 에 그대로 위임하는 잔액 저장소. 캐시를 사용하지 않는 경우에 사용한다.
+ */
+public class UserPointTableRepository implements UserPointRepository {
+
+    private final UserPointTable userPointTable;
+
+    public UserPointTableRepository(UserPointTable userPointTable) {
+        this.userPointTable = userPointTable;
+    }
+
+    @Override
+    public UserPoint findById(long userId) {
+        return userPointTable.selectById(userId);
+    }
+
+    @Override
+    public UserPoint save(long userId, long point) {
+        return userPointTable.insertOrUpdate(userId, point);
+    }
+}
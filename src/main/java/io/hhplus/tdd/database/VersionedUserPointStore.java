@@ -0,0 +1,354 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointExecutors;
+import io.hhplus.tdd.point.UserPoint;
+import io.hhplus.tdd.point.UserPointRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>버전 기반 잔액 저장소 (낙관적 동시성 제어)</b>
+ * <br></br>
+ * {@link UserPointRepository} 앞에 위치하여 사용자 별 최신 잔액과 버전을 메모리에 유지한다.
+ * 잔액 갱신은 락 없이 읽은 시점의 버전에 대한 compare-and-set 으로만 이루어지며, 그 사이 다른 갱신이 있었다면 실패한다.
+ * <br></br>
+ * - 조회 : 메모리에 최신 버전이 있다면 그 값을, 없다면 저장소의 값을 반환한다. 조회만으로는 메모리에 적재하지 않는다.
+ * <br></br>
+ * - 반영 : CAS 에 성공한 값은 사용자 별로 하나의 반영 작업이 최신 버전만 저장소에 저장한다. 반영 중 새 버전이 생기면 이어서 반영한다.
+ * <br></br>
+ * - 예약 : 내역을 기록한 뒤에만 확정할 갱신은 {@link #reserve} 로 보류 상태의 값을 먼저 게시한다.
+ *   보류 중인 값 위로는 CAS 할 수 없으므로, 다른 갱신은 그 값이 {@link #commit} 또는 {@link #rollback} 될 때까지 기다린다.
+ *   따라서 되돌려질 수 있는 잔액을 바탕으로 한 갱신은 없고, 되돌린 잔액도 정책을 지킨다. 보류 중인 값은 저장소에 반영하지 않는다.
+ * <br></br>
+ * - 제거 : 최신 버전까지 저장소에 반영되고 기다리는 호출자가 없다면 메모리에서 제거한다.
+ *   따라서 메모리에 유지되는 사용자 수는 "반영 중인 쓰기가 있는 사용자 수"로 제한된다.
+ * <br></br>
+ * - 호출자는 {@link #awaitPersisted(long, long)} 로 자신이 쓴 버전 이상이 저장소에 반영될 때까지 기다린 뒤 응답한다.
+ * <br></br>
+ * 이 저장소를 사용하는 동안 잔액 쓰기는 모두 이 저장소를 거쳐야 한다. (OPTIMISTIC 모드)
+ * 반영 작업 스레드를 만들므로, point.execution.mode 가 OPTIMISTIC 일 때만 빈으로 등록한다.
+ */
+@Component
+@ConditionalOnProperty(name = "point.execution.mode", havingValue = "OPTIMISTIC")
+public class VersionedUserPointStore {
+
+    /**
+     * 버전이 부여된 잔액
+     * @param userPoint
+     * @param version 갱신할 때마다 저장소 전체에서 단조 증가하는 순번으로 부여된다. 저장소에서 읽어온 값의 버전은 읽은 시점의 순번이다.
+     *                버전은 반영 대기({@link #awaitPersisted(long, long)})에만 사용하며, 갱신 충돌 여부는 사용자 별로 판단한다.
+     * @param previous 보류 중인 값이라면 예약 직전의 확정된 값, 확정된 값이라면 null
+     * @param settled 보류 중인 값이라면 확정되거나 되돌려질 때 완료되는 Future, 확정된 값이라면 null
+     */
+    public record VersionedPoint(UserPoint userPoint, long version, VersionedPoint previous, CompletableFuture<Void> settled) {
+
+        public VersionedPoint(UserPoint userPoint, long version) {
+            this(userPoint, version, null, null);
+        }
+
+        public long point() {
+            return userPoint.point();
+        }
+
+        public boolean pending() {
+            return previous != null;
+        }
+
+        /**
+         * 조회 결과로 반환할 확정된 값. 보류 중이라면 예약 직전의 값이다.
+         */
+        public VersionedPoint committed() {
+            return pending() ? previous : this;
+        }
+    }
+
+    private final UserPointRepository userPointRepository;
+    private final ExecutorService flushers;
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    /* 제거된 슬롯의 표식. 이 값으로의 CAS 에 성공한 슬롯에는 더 이상 갱신이 반영되지 않는다. */
+    private static final VersionedPoint RETIRED = new VersionedPoint(null, Long.MIN_VALUE);
+
+    /*
+       버전 순번. 갱신마다 증가하므로, 다시 적재된 슬롯이 이 값에서 반영된 것으로 시작하면 제거되기 전의 버전을 기다리는 호출자는 곧바로 완료된다.
+       충돌 판단에는 사용하지 않으므로, 서로 다른 사용자의 갱신이 이 순번을 올려도 다른 사용자의 갱신은 실패하지 않는다.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    public VersionedUserPointStore(UserPointRepository userPointRepository) {
+        this(userPointRepository, 0, false);
+    }
+
+    /**
+     * @param userPointRepository 최종 반영 대상 저장소
+     * @param flushWorkers 반영 작업 스레드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @param virtualThreads true 이고 Java 21 이상이라면 반영 작업마다 가상 스레드를 사용한다.
+     */
+    @Autowired
+    public VersionedUserPointStore(UserPointRepository userPointRepository,
+                                   @Value("${point.optimistic.flush-workers:0}") int flushWorkers,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.userPointRepository = userPointRepository;
+        this.flushers = PointExecutors.newPool("point-flush", flushWorkers, virtualThreads);
+    }
+
+    /**
+     * 사용자의 최신 잔액과 버전을 조회한다. 보류 중인 값일 수 있으며, 확정된 잔액은 {@link VersionedPoint#committed()} 로 얻는다.
+     * @param userId
+     * @return
+     */
+    public VersionedPoint read(long userId) {
+        Slot slot = liveSlot(userId);
+        if (slot != null) {
+            VersionedPoint current = slot.current.get();
+            if (current != RETIRED) {
+                return current;
+            }
+        }
+        // 슬롯이 없다면 모든 버전이 저장소에 반영된 상태이다.
+        long version = sequence.get();
+        return new VersionedPoint(userPointRepository.findById(userId), version);
+    }
+
+    /**
+     * 조회한 버전이 여전히 최신일 때만 잔액을 갱신한다.
+     * @param userId
+     * @param expected {@link #read(long)} 로 조회한 값
+     * @param point 갱신할 잔액
+     * @return 갱신된 값. 그 사이 다른 갱신이 있었거나 조회한 값이 보류 중이라면 null
+     */
+    public VersionedPoint compareAndSet(long userId, VersionedPoint expected, long point) {
+        return update(userId, expected, point, false);
+    }
+
+    /**
+     * 조회한 버전이 여전히 최신일 때만 잔액을 보류 상태로 갱신한다. 보류 중인 값은 {@link #commit} 또는 {@link #rollback} 으로 끝내야 한다.
+     * @param userId
+     * @param expected {@link #read(long)} 로 조회한 값
+     * @param point 갱신할 잔액
+     * @return 보류 중인 값. 그 사이 다른 갱신이 있었거나 조회한 값이 보류 중이라면 null
+     */
+    public VersionedPoint reserve(long userId, VersionedPoint expected, long point) {
+        return update(userId, expected, point, true);
+    }
+
+    /**
+     * 보류 중인 값을 주어진 잔액으로 확정한다. 버전은 예약한 값의 버전을 유지한다.
+     * @param userId
+     * @param reserved {@link #reserve} 로 예약한 값
+     * @param point 확정할 잔액. 일부만 반영하는 경우 예약한 잔액과 다를 수 있다.
+     * @return 확정된 값
+     */
+    public VersionedPoint commit(long userId, VersionedPoint reserved, long point) {
+        VersionedPoint committed = new VersionedPoint(new UserPoint(userId, point, System.currentTimeMillis()), reserved.version());
+        settle(userId, reserved, committed);
+        return committed;
+    }
+
+    /**
+     * 보류 중인 값을 버리고 예약 직전의 값으로 되돌린다. 그 사이 이 값을 바탕으로 한 갱신은 없으므로 잔액만 되돌리면 된다.
+     * @param userId
+     * @param reserved {@link #reserve} 로 예약한 값
+     */
+    public void rollback(long userId, VersionedPoint reserved) {
+        Slot slot = settle(userId, reserved, reserved.previous());
+        evictIfIdle(userId, slot);
+    }
+
+    private VersionedPoint update(long userId, VersionedPoint expected, long point, boolean pending) {
+        if (expected.pending()) {
+            return null;
+        }
+        Slot slot = slot(userId, expected);
+        UserPoint userPoint = new UserPoint(userId, point, System.currentTimeMillis());
+        VersionedPoint updated = pending
+                ? new VersionedPoint(userPoint, sequence.incrementAndGet(), expected, new CompletableFuture<>())
+                : new VersionedPoint(userPoint, sequence.incrementAndGet());
+        if (!slot.current.compareAndSet(expected, updated)) {
+            // 다시 읽어온 값이 조회한 값과 달라 적재만 되고 갱신되지 않은 슬롯이라면 남겨두지 않는다.
+            evictIfIdle(userId, slot);
+            return null;
+        }
+        return updated;
+    }
+
+    /* 보류 중인 슬롯은 제거되지 않고 다른 갱신도 CAS 하지 않으므로, 예약한 호출자만 값을 바꿀 수 있다. */
+    private Slot settle(long userId, VersionedPoint reserved, VersionedPoint settled) {
+        Slot slot = slots.get(userId);
+        if (slot == null || !slot.current.compareAndSet(reserved, settled)) {
+            throw new IllegalStateException("보류 중인 잔액이 아닙니다.");
+        }
+        reserved.settled().complete(null);
+        return slot;
+    }
+
+    /**
+     * 해당 버전 이상의 잔액이 저장소에 반영될 때까지 기다리는 Future 를 반환한다. 반영이 예약되어 있지 않다면 예약한다.
+     * @param userId
+     * @param version {@link #compareAndSet} 으로 갱신한 값의 버전
+     * @return 반영이 끝나면 완료되는 Future
+     */
+    public CompletableFuture<Void> awaitPersisted(long userId, long version) {
+        Slot slot = liveSlot(userId);
+        if (slot == null) {
+            // 슬롯은 최신 버전까지 반영된 뒤에만 제거된다. 새로 적재된 슬롯도 그 이상의 버전에서 시작하므로 아래에서 곧바로 완료된다.
+            return CompletableFuture.completedFuture(null);
+        }
+        // 대기 등록 이후 반영을 예약해야, 진행 중인 반영이 자신의 버전을 놓치더라도 다음 반영에서 완료된다.
+        CompletableFuture<Void> persisted = slot.awaitPersisted(version);
+        scheduleFlush(userId, slot);
+        return persisted;
+    }
+
+    /**
+     * 현재 메모리에 최신 버전을 유지 중인(반영 중인 쓰기가 있는) 사용자 수.
+     */
+    public int slotCount() {
+        return slots.size();
+    }
+
+    /* 제거 표식이 남은 슬롯은 맵에서 마저 제거하고 없는 것으로 취급한다. */
+    private Slot liveSlot(long userId) {
+        Slot slot = slots.get(userId);
+        if (slot != null && slot.current.get() == RETIRED) {
+            slots.remove(userId, slot);
+            return null;
+        }
+        return slot;
+    }
+
+    /*
+       갱신할 슬롯을 반환하고, 없다면 저장소에서 다시 읽어 적재한다.
+       다시 읽어온 잔액이 조회한 잔액과 같다면 조회한 값을 그대로 최신 값으로 적재하여 CAS 가 성공하도록 한다.
+       그 사이 같은 사용자의 갱신이 있었더라도 모두 반영되어 잔액이 같다면, 조회한 잔액으로 계산한 갱신은 여전히 올바르다.
+       따라서 충돌은 같은 사용자의 잔액이 달라졌을 때만 일어나고, 다른 사용자의 갱신과 제거는 영향을 주지 않는다.
+       저장소 조회는 ConcurrentHashMap 의 잠금 밖에서 수행한다. 이 저장소를 거치지 않은 쓰기는 없으므로 동시에 읽어온 값은 서로 같다.
+     */
+    private Slot slot(long userId, VersionedPoint expected) {
+        Slot slot = liveSlot(userId);
+        if (slot != null) {
+            return slot;
+        }
+        // 순번을 먼저 읽는다. 저장소의 값은 이 순번 이하의 버전이 모두 반영된 값이다.
+        long version = sequence.get();
+        UserPoint stored = userPointRepository.findById(userId);
+        VersionedPoint loaded = expected.point() == stored.point()
+                ? expected
+                : new VersionedPoint(stored, version);
+        Slot created = new Slot(loaded, version);
+        Slot existing = slots.putIfAbsent(userId, created);
+        return existing != null ? existing : created;
+    }
+
+    /*
+       최신 버전까지 반영되었고 기다리는 호출자가 없다면 슬롯을 제거한다. 보류 중인 슬롯은 확정되거나 되돌려질 때까지 제거하지 않는다.
+       제거 표식으로의 CAS 가 실패했다면 그 사이 갱신이 있었던 것이므로 제거하지 않는다. 그 갱신의 반영이 끝나면 다시 시도된다.
+     */
+    private void evictIfIdle(long userId, Slot slot) {
+        VersionedPoint latest = slot.current.get();
+        if (latest == RETIRED || latest.pending() || slot.flushScheduled.get() || !slot.isIdle(latest.version())) {
+            return;
+        }
+        if (slot.current.compareAndSet(latest, RETIRED)) {
+            slots.remove(userId, slot);
+        }
+    }
+
+    private void scheduleFlush(long userId, Slot slot) {
+        if (slot.flushScheduled.compareAndSet(false, true)) {
+            flushers.execute(() -> flush(userId, slot));
+        }
+    }
+
+    /*
+       사용자 별 반영 작업 : 최신 확정 버전만 저장하고, 저장하는 동안 새 버전이 생겼다면 이어서 반영한다.
+       보류 중인 값은 저장하지 않는다. 확정되면 확정한 호출자의 반영 대기가 다시 반영을 예약한다.
+     */
+    private void flush(long userId, Slot slot) {
+        while (true) {
+            VersionedPoint latest = slot.current.get();
+            if (latest == RETIRED) {
+                slot.flushScheduled.set(false);
+                return;
+            }
+            VersionedPoint committed = latest.committed();
+            try {
+                userPointRepository.save(userId, committed.point());
+                slot.persisted(committed.version(), null);
+            } catch (RuntimeException e) {
+                slot.persisted(committed.version(), e);
+            }
+            slot.flushScheduled.set(false);
+            if (slot.current.get() == latest) {
+                evictIfIdle(userId, slot);
+                return;
+            }
+            if (!slot.flushScheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flushers.shutdown();
+    }
+
+    private static final class Slot {
+        private final AtomicReference<VersionedPoint> current;
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        /* 아래 필드는 Slot 모니터로 보호된다. 모니터 안에서는 블로킹하지 않는다. */
+        private long persistedVersion;
+        private final PriorityQueue<PersistWaiter> waiters = new PriorityQueue<>(Comparator.comparingLong(PersistWaiter::version));
+
+        /*
+           적재 시점의 순번까지는 저장소에 반영된 것으로 시작한다. 이후의 갱신은 이보다 큰 버전을 받으므로 반영될 때까지 기다린다.
+         */
+        private Slot(VersionedPoint loaded, long persistedVersion) {
+            this.current = new AtomicReference<>(loaded);
+            this.persistedVersion = persistedVersion;
+        }
+
+        private synchronized CompletableFuture<Void> awaitPersisted(long version) {
+            if (persistedVersion >= version) {
+                return CompletableFuture.completedFuture(null);
+            }
+            PersistWaiter waiter = new PersistWaiter(version, new CompletableFuture<>());
+            waiters.add(waiter);
+            return waiter.future();
+        }
+
+        private synchronized boolean isIdle(long version) {
+            return persistedVersion >= version && waiters.isEmpty();
+        }
+
+        private synchronized void persisted(long version, RuntimeException failure) {
+            if (failure == null) {
+                persistedVersion = Math.max(persistedVersion, version);
+            }
+            while (!waiters.isEmpty() && waiters.peek().version() <= version) {
+                PersistWaiter waiter = waiters.poll();
+                if (failure == null) {
+                    waiter.future().complete(null);
+                } else {
+                    waiter.future().completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    private record PersistWaiter(long version, CompletableFuture<Void> future) {
+    }
+}
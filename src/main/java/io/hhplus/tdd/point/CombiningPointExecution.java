@@ -0,0 +1,80 @@
+package io.hhplus.tdd.point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * <b>COMBINING 모드 : 명령 결합 실행</b>
+ * <br></br>
+ * 충전/사용 명령을 사용자 별 대기열에 적재한 뒤 락을 기다린다. 락을 획득한 스레드가 같은 사용자에 대해 대기 중인 명령을 모아
+ * 잔액을 한 번만 조회/저장한다. ({@link UserCommandCombiner})
+ * <br></br>
+ * - 일괄 처리와 이체는 LOCK 모드와 같이 사용자 락으로 실행한다.
+ */
+class CombiningPointExecution extends LockPointExecution {
+
+    private static final int MAX_COMBINED_SIZE = 256;
+
+    private final UserCommandCombiner<PointCommand, UserPoint> userCommandCombiner;
+
+    CombiningPointExecution(PointUpdater pointUpdater,
+                            UserLockProvider userLockProvider,
+                            PointAdmission pointAdmission,
+                            PointMetrics pointMetrics,
+                            Executor asyncExecutor) {
+        super(pointUpdater, userLockProvider, pointAdmission, pointMetrics, asyncExecutor);
+        this.userCommandCombiner = new UserCommandCombiner<>(userLockProvider, pointAdmission, pointMetrics,
+                command -> PointOperation.of(command.type()), this::applyCombined, MAX_COMBINED_SIZE);
+    }
+
+    /**
+     * 명령이 결합자에 의해 처리되면(내역 기록과 잔액 저장까지 끝나면) 그 결과를 반환한다.
+     */
+    @Override
+    public UserPoint execute(PointCommand command) {
+        // 정책 : 충전/사용 금액이 0 미만이라면 대기열에 적재하기 전에 실패시킨다.
+        PointPolicy.validateAmount(command.type(), command.amount());
+        return userCommandCombiner.execute(command.userId(), command);
+    }
+
+    /*
+       결합 임계 구역 : 잔액을 한 번 조회하고, 대기 중이던 명령을 도착 순서대로 메모리 상의 잔액에 반영한다.
+       정책을 통과한 명령의 내역을 이어서 기록한 뒤, 기록된 앞부분의 명령까지만 반영한 잔액을 한 번만 저장한다.
+       정책을 위반한 명령과 내역을 기록하지 못한 명령은 해당 요청 스레드에만 예외로 전달된다.
+       호출자(결합기)는 해당 사용자의 락을 보유해야 한다.
+     */
+    private void applyCombined(long userId, List<UserCommandCombiner.Pending<PointCommand, UserPoint>> combined) {
+        long balance = pointUpdater.select(userId, PointOperation.COMBINED).point();
+        List<UserCommandCombiner.Pending<PointCommand, UserPoint>> applied = new ArrayList<>(combined.size());
+        long[] balances = new long[combined.size()];
+
+        for (UserCommandCombiner.Pending<PointCommand, UserPoint> pending : combined) {
+            PointCommand command = pending.command();
+            try {
+                balance = PointPolicy.apply(balance, command.type(), command.amount());
+                balances[applied.size()] = balance;
+                applied.add(pending);
+            } catch (IllegalArgumentException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+
+        if (applied.isEmpty()) {
+            return;
+        }
+
+        PointUpdater.RecordedHistories recorded = pointUpdater.awaitRecorded(
+                pointUpdater.appendHistories(userId, applied.stream().map(UserCommandCombiner.Pending::command).toList()));
+        if (recorded.count() > 0) {
+            UserPoint saved = pointUpdater.save(userId, balances[recorded.count() - 1], PointOperation.COMBINED);
+            for (int i = 0; i < recorded.count(); i++) {
+                // 각 요청은 자신의 명령이 반영된 직후의 잔액을 응답받는다.
+                applied.get(i).result().complete(new UserPoint(userId, balances[i], saved.updateMillis()));
+            }
+        }
+        for (int i = recorded.count(); i < applied.size(); i++) {
+            applied.get(i).result().completeExceptionally(recorded.failure());
+        }
+    }
+}
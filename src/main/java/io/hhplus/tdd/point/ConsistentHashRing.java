@@ -0,0 +1,106 @@
+package io.hhplus.tdd.point;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * <b>사용자 ID 일관된 해시 링</b>
+ * <br></br>
+ * 인스턴스마다 여러 개의 가상 노드를 링 위에 두고, 사용자 ID 의 해시 바로 다음(시계 방향)에 위치한 가상 노드의 인스턴스가 그 사용자를 소유한다.
+ * <br></br>
+ * - 인스턴스가 추가/제거되면 해당 인스턴스의 가상 노드 구간에 속한 사용자만 소유자가 바뀐다. 나머지 사용자는 그대로 남는다.
+ * <br></br>
+ * - 같은 구성원 목록으로 만든 링은 어느 인스턴스에서 만들어도 같은 소유자를 반환한다. 목록의 순서는 결과에 영향을 주지 않는다.
+ * <br></br>
+ * - 불변 객체이다. 구성원이 바뀌면 새 링을 만든다.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    /* 가상 노드의 해시 오름차순. owners[i] 는 points[i] 에 위치한 가상 노드의 인스턴스이다. */
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param members 인스턴스 주소 목록 (예 : http://localhost:8081). 중복은 무시한다.
+     * @param virtualNodes 인스턴스 당 가상 노드 수. 많을수록 사용자가 고르게 나뉜다.
+     */
+    public ConsistentHashRing(List<String> members, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("가상 노드 수는 1 이상이어야 합니다.");
+        }
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(members));
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("구성원이 한 명 이상 있어야 합니다.");
+        }
+        this.members = distinct;
+
+        int size = distinct.size() * virtualNodes;
+        VirtualNode[] nodes = new VirtualNode[size];
+        int index = 0;
+        for (String member : distinct) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                nodes[index++] = new VirtualNode(hash(member + "#" + replica), member);
+            }
+        }
+        // 해시가 같은 가상 노드는 주소 순서로 정렬하여, 구성원 목록의 순서와 무관하게 같은 링을 만든다.
+        Arrays.sort(nodes, Comparator.comparingLong(VirtualNode::point).thenComparing(VirtualNode::owner));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = nodes[i].point();
+            owners[i] = nodes[i].owner();
+        }
+    }
+
+    /**
+     * @param userId
+     * @return 사용자를 소유한 인스턴스 주소
+     */
+    public String ownerOf(long userId) {
+        long point = mix(userId);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < point) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // 마지막 가상 노드보다 뒤라면 링의 처음으로 돌아간다.
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public List<String> members() {
+        return members;
+    }
+
+    /* 주소 문자열의 해시 : FNV-1a 64 로 바이트를 접은 뒤 비트를 섞는다. */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /* 연속된 사용자 ID 가 고르게 흩어지도록 비트를 섞는다. (MurmurHash3 fmix64) */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record VirtualNode(long point, String owner) {
+    }
+}
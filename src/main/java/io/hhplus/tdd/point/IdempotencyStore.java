@@ -0,0 +1,221 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>멱등 키 별 처리 결과 저장소</b>
+ * <br></br>
+ * 클라이언트는 시간 초과 시 같은 요청을 다시 보낸다. 멱등 키가 같은 요청은 한 번만 실행하고, 이후의 요청에는 저장된 결과를 돌려준다.
+ * <br></br>
+ * - 재시도 : 완료된 결과를 그대로 반환하므로 사용자 락을 잡거나 테이블에 접근하지 않는다.
+ * <br></br>
+ * - 동시 중복 : 처음 요청이 실행 중이라면 다시 실행하지 않고, 처음 요청의 결과 Future 를 함께 기다린다.
+ * <br></br>
+ * - 실패 : 처음 요청이 실패하면 이를 기다리던 요청도 같은 예외로 실패하고, 키는 제거되어 이후의 재시도는 다시 실행된다.
+ * <br></br>
+ * - 같은 키가 다른 요청(사용자, 종류, 금액)에 사용되면 실행하지 않고 실패시킨다.
+ * <br></br>
+ * - 완료된 결과는 완료 시점으로부터 ttl 이 지나면 만료되며, capacity 를 넘으면 가장 먼저 완료된 결과부터 제거한다.
+ *   만료 시간이 모두 같으므로 완료 순서가 곧 만료 순서이다. 실행 중인 키는 제거하지 않는다.
+ * <br></br>
+ * - 이관 : 키는 사용자를 소유한 인스턴스의 저장소에만 있다. 구성원이 바뀌어 사용자가 다른 인스턴스로 옮겨갈 때
+ *   {@link #exportCompleted(long)} 로 완료된 충전/사용 결과를 내보내고, 새 소유자는 {@link #restore(List)} 로 보관한다.
+ *   가져온 결과의 보관 기간은 가져온 시점부터 다시 센다.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> completed = new ConcurrentLinkedQueue<>();
+    /* 완료된 충전/사용 결과의 사용자 별 색인. 이관 시 전체 결과를 훑지 않고 사용자의 결과만 찾는다. */
+    private final ConcurrentHashMap<Long, Set<Entry>> completedByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final LongAdder replays = new LongAdder();
+    private final long ttlNanos;
+    private final int capacity;
+
+    /**
+     * @param ttl 완료된 결과를 보관하는 기간
+     * @param capacity 보관할 완료된 결과의 최대 수
+     */
+    @Autowired
+    public IdempotencyStore(@Value("${point.idempotency.ttl:10m}") Duration ttl,
+                            @Value("${point.idempotency.capacity:100000}") int capacity) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("멱등 키 보관 기간은 0 보다 커야 합니다.");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("멱등 키 저장소 용량은 1 이상이어야 합니다.");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.capacity = capacity;
+    }
+
+    /**
+     * 멱등 키로 요청을 실행한다.
+     * @param key 멱등 키
+     * @param request 요청 내용. 같은 키로 다른 요청이 들어왔는지 equals 로 비교한다.
+     * @param operation 처음 요청일 때만 호출된다.
+     * @return 처음 요청의 결과로 완료되는 Future
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String key, Object request, Supplier<CompletableFuture<T>> operation) {
+        evictExpired();
+        Entry created = new Entry(key, request);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                break;
+            }
+            if (existing.isExpired(System.nanoTime())) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.request.equals(request)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("이미 다른 요청에 사용된 멱등 키입니다."));
+            }
+            replays.increment();
+            return (CompletableFuture<T>) existing.result.copy();
+        }
+
+        try {
+            operation.get().whenComplete((result, failure) -> {
+                if (failure != null) {
+                    entries.remove(key, created);
+                    created.result.completeExceptionally(failure);
+                    return;
+                }
+                complete(created, result);
+                evictOverCapacity();
+            });
+        } catch (RuntimeException e) {
+            entries.remove(key, created);
+            created.result.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) created.result.copy();
+    }
+
+    /**
+     * 사용자의 만료되지 않은 충전/사용 결과를 내보낸다. 사용자를 다른 인스턴스로 넘길 때 사용한다.
+     * @param userId
+     * @return 이관할 결과
+     */
+    public List<IdempotentResult> exportCompleted(long userId) {
+        Set<Entry> userEntries = completedByUser.get(userId);
+        if (userEntries == null) {
+            return List.of();
+        }
+        long now = System.nanoTime();
+        List<IdempotentResult> exported = new ArrayList<>(userEntries.size());
+        for (Entry entry : userEntries) {
+            if (!entry.isExpired(now) && entry.result.getNow(null) instanceof UserPoint result) {
+                exported.add(new IdempotentResult(entry.key, (PointCommand) entry.request, result));
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * 다른 인스턴스가 내보낸 결과를 완료된 결과로 보관한다. 이미 보관 중인 키는 건너뛴다.
+     * @param results 이전 소유 인스턴스가 {@link #exportCompleted(long)} 로 내보낸 결과
+     */
+    public void restore(List<IdempotentResult> results) {
+        for (IdempotentResult imported : results) {
+            Entry entry = new Entry(imported.key(), imported.command());
+            if (entries.putIfAbsent(imported.key(), entry) == null) {
+                complete(entry, imported.result());
+            }
+        }
+        evictOverCapacity();
+    }
+
+    /**
+     * @return 저장된 결과를 반환한 재시도(중복 요청) 수
+     */
+    public long replays() {
+        return replays.sum();
+    }
+
+    /**
+     * @return 실행 중인 키를 포함한 보관 중인 키의 수
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void complete(Entry entry, Object result) {
+        // 완료 시각을 먼저 기록해야, 결과를 받은 재시도가 만료 여부를 올바르게 판단한다.
+        entry.completedAt = System.nanoTime();
+        completed.add(entry);
+        completedCount.incrementAndGet();
+        if (entry.request instanceof PointCommand command) {
+            // 추가도 compute 내부에서 수행해야, 비워진 색인을 제거하는 removeEldest 와 겹쳐도 유실되지 않는다.
+            completedByUser.compute(command.userId(), (id, userEntries) -> {
+                Set<Entry> indexed = userEntries == null ? ConcurrentHashMap.newKeySet() : userEntries;
+                indexed.add(entry);
+                return indexed;
+            });
+        }
+        entry.result.complete(result);
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Entry eldest;
+        while ((eldest = completed.peek()) != null && eldest.isExpired(now)) {
+            removeEldest(eldest);
+        }
+    }
+
+    private void evictOverCapacity() {
+        Entry eldest;
+        while (completedCount.get() > capacity && (eldest = completed.peek()) != null) {
+            removeEldest(eldest);
+        }
+    }
+
+    /* 다른 스레드가 먼저 꺼냈다면 아무것도 하지 않는다. */
+    private void removeEldest(Entry eldest) {
+        if (completed.remove(eldest)) {
+            completedCount.decrementAndGet();
+            entries.remove(eldest.key, eldest);
+            if (eldest.request instanceof PointCommand command) {
+                completedByUser.computeIfPresent(command.userId(), (id, userEntries) -> {
+                    userEntries.remove(eldest);
+                    return userEntries.isEmpty() ? null : userEntries;
+                });
+            }
+        }
+    }
+
+    private final class Entry {
+        private final String key;
+        private final Object request;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        /* 0 이라면 실행 중이다. */
+        private volatile long completedAt;
+
+        private Entry(String key, Object request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        private boolean isExpired(long now) {
+            long completedAt = this.completedAt;
+            return completedAt != 0L && now - completedAt >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 멱등 키로 완료된 충전/사용의 결과. 클러스터 구성 변경 시 사용자 상태와 함께 새 소유 인스턴스로 옮긴다.
+ * @param key 멱등 키
+ * @param command 처음 요청의 내용
+ * @param result 처음 요청의 결과
+ */
+public record IdempotentResult(
+        String key,
+        PointCommand command,
+        UserPoint result
+) {
+}
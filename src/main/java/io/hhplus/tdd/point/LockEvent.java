@@ -0,0 +1,24 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 락 보유 이벤트 하나. {@link LockTelemetry} 의 링 버퍼에서 조회 시점에만 생성된다.
+ * @param sequence 기록 순번
+ * @param userId
+ * @param operation 작업 종류
+ * @param outcome 처리 결과
+ * @param threadId 락을 보유한 스레드 ID
+ * @param acquiredAtMillis 락 획득 시각 (epoch millis)
+ * @param waitMicros 락 획득까지 대기한 시간
+ * @param holdMicros 락을 보유한 시간
+ */
+public record LockEvent(
+        long sequence,
+        long userId,
+        PointOperation operation,
+        PointMetrics.Outcome outcome,
+        long threadId,
+        long acquiredAtMillis,
+        long waitMicros,
+        long holdMicros
+) {
+}
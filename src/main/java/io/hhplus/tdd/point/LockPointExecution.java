@@ -0,0 +1,220 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * <b>LOCK 모드 : 사용자 락 기반 실행</b>
+ * <br></br>
+ * 요청 스레드가 사용자 별 공정 락을 획득한 뒤 임계 구역을 직접 실행한다. Future 반환 API 는 작업 스레드 풀에서 같은 과정을 수행한다.
+ * <br></br>
+ * - 락 획득 제한 시간({@link PointAdmission#lockTimeout()}) 안에 차례가 오지 않은 요청은 {@link PointOverloadedException} 으로 거절한다.
+ * <br></br>
+ * - 락 대기/보유 시간은 작업 종류와 처리 결과 별로 기록된다.
+ * <br></br>
+ * - 두 사용자의 락을 함께 보유할 수 있으므로 포인트 이체를 지원한다.
+ */
+class LockPointExecution implements PointExecution {
+
+    /*
+       사용자 별 락 제공자.
+
+       * 왜 사용자 별 락인가?
+        - 동시성 문제 발생 시나리오를 생각해보면 동일 사용자에 대한 포인트 충전 및 사용이 동시에 발생해서는 안됨을 알 수 있다.
+          반면 서로 다른 사용자에 대한 쓰기 연산은 동시에 진행되어도 무방하므로, 전역 락이 아닌 사용자 단위의 락이 필요하다.
+
+       * 왜 제공자(UserLockProvider)로 분리하였는가?
+        - 사용자마다 락을 생성하고 제거하지 않으면, 처리한 사용자 수만큼 락이 계속 쌓여 메모리 누수와 GC 부담으로 이어진다.
+          락 인스턴스의 수명 관리는 전략(고정 크기 스트라이핑 / 참조 카운트 기반 제거)에 따라 달라지므로 이를 제공자에 위임한다.
+     */
+    protected final UserLockProvider userLockProvider;
+    protected final PointUpdater pointUpdater;
+    protected final PointAdmission pointAdmission;
+    protected final PointMetrics pointMetrics;
+
+    /*
+       Future 반환 API 가 작업을 수행하는 스레드 풀. 요청 스레드(서블릿 스레드)는 락 대기와 테이블 지연 동안 점유되지 않고 즉시 반환된다.
+     */
+    private final Executor asyncExecutor;
+
+    LockPointExecution(PointUpdater pointUpdater,
+                       UserLockProvider userLockProvider,
+                       PointAdmission pointAdmission,
+                       PointMetrics pointMetrics,
+                       Executor asyncExecutor) {
+        this.pointUpdater = pointUpdater;
+        this.userLockProvider = userLockProvider;
+        this.pointAdmission = pointAdmission;
+        this.pointMetrics = pointMetrics;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * 락 안에서는 내역을 적재하고 잔액을 저장하기까지만 하고, 내역 기록은 락을 해제한 뒤에 기다린다.
+     * 그동안 같은 사용자의 다음 요청이 락을 획득하여 진행할 수 있다.
+     */
+    @Override
+    public UserPoint execute(PointCommand command) {
+        PointOperation operation = PointOperation.of(command.type());
+        PointUpdater.Applied applied = executeLocked(command.userId(), operation, () -> pointUpdater.apply(command));
+        try {
+            pointUpdater.await(applied.history());
+            return applied.userPoint();
+        } catch (RuntimeException e) {
+            // 보정은 거절되면 안 되므로 락 획득 제한 시간 없이 기다린다.
+            return executeLocked(command.userId(), operation, Duration.ZERO, () -> pointUpdater.compensate(applied, e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<UserPoint> executeAsync(PointCommand command) {
+        return pointAdmission.supplyAsync(() -> execute(command), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<PointCommandResult>> executeBatchAsync(long userId, List<PointCommand> userCommands) {
+        return pointAdmission.supplyAsync(
+                () -> executeLocked(userId, PointOperation.BATCH, () -> pointUpdater.applyBatch(userId, userCommands)), asyncExecutor);
+    }
+
+    @Override
+    public boolean supportsTransfer() {
+        return true;
+    }
+
+    /**
+     * 두 사용자의 락을 모두 보유한 채로 잔액을 갱신하므로, 다른 요청은 한쪽만 반영된 중간 상태를 볼 수 없다.
+     * <br></br>
+     * - 교착 상태 방지 : 두 락은 항상 {@link UserLockProvider#lockOrder(long)} 오름차순으로 획득한다.
+     */
+    @Override
+    public PointTransferResult transfer(long fromUserId, long toUserId, long amount) {
+        // 모든 스레드가 같은 순서로 락을 획득하므로, 서로 반대 방향의 이체가 동시에 일어나도 교착 상태에 빠지지 않는다.
+        long first = fromUserId;
+        long second = toUserId;
+        long firstOrder = userLockProvider.lockOrder(first);
+        long secondOrder = userLockProvider.lockOrder(second);
+        if (firstOrder > secondOrder || (firstOrder == secondOrder && first > second)) {
+            first = toUserId;
+            second = fromUserId;
+        }
+        long outer = first;
+        long inner = second;
+        return executeLocked(outer, PointOperation.TRANSFER,
+                () -> executeLocked(inner, PointOperation.TRANSFER, () -> applyTransfer(fromUserId, toUserId, amount)));
+    }
+
+    @Override
+    public CompletableFuture<PointTransferResult> transferAsync(long fromUserId, long toUserId, long amount) {
+        return pointAdmission.supplyAsync(() -> transfer(fromUserId, toUserId, amount), asyncExecutor);
+    }
+
+    @Override
+    public UserPoint getUserPoint(long userId) {
+        return pointUpdater.find(userId);
+    }
+
+    @Override
+    public void importBalance(long userId, long point) {
+        pointUpdater.importBalance(userId, point);
+    }
+
+    /*
+       이체 임계 구역 : 호출자는 두 사용자의 락을 모두 보유해야 한다.
+       양쪽 정책을 모두 검사하고 양쪽 내역을 모두 기록한 뒤에만 잔액을 갱신하며,
+       받는 쪽 저장이 실패하면 보낸 쪽 잔액을 되돌리고 기록된 두 내역을 반대 종류의 내역으로 상쇄한다.
+       한쪽 내역만 기록되었다면 반대 종류의 내역을 기록하여 상쇄하고, 잔액은 갱신하지 않은 채 실패시킨다.
+     */
+    private PointTransferResult applyTransfer(long fromUserId, long toUserId, long amount) {
+        UserPoint from = pointUpdater.select(fromUserId, PointOperation.TRANSFER);
+        UserPoint to = pointUpdater.select(toUserId, PointOperation.TRANSFER);
+
+        // 정책 : 보내는 쪽은 잔액 부족, 받는 쪽은 최대 한도 초과 여부를 갱신 전에 모두 검사한다.
+        long withdrawnBalance = PointPolicy.use(from.point(), amount);
+        long depositedBalance = PointPolicy.charge(to.point(), amount);
+
+        // 두 내역은 같은 시각으로, 각 사용자의 파티션에서 병렬로 기록된다.
+        long updateMillis = System.currentTimeMillis();
+        CompletableFuture<PointHistory> withdrawalAppended = pointUpdater.append(fromUserId, amount, TransactionType.USE, updateMillis);
+        CompletableFuture<PointHistory> depositAppended = pointUpdater.append(toUserId, amount, TransactionType.CHARGE, updateMillis);
+        PointHistory withdrawal = null;
+        PointHistory deposit = null;
+        RuntimeException failure = null;
+        try {
+            withdrawal = pointUpdater.await(withdrawalAppended);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        try {
+            deposit = pointUpdater.await(depositAppended);
+        } catch (RuntimeException e) {
+            failure = failure == null ? e : failure;
+        }
+        if (failure != null) {
+            if (withdrawal != null) {
+                pointUpdater.offset(fromUserId, amount, TransactionType.CHARGE, failure);
+            }
+            if (deposit != null) {
+                pointUpdater.offset(toUserId, amount, TransactionType.USE, failure);
+            }
+            throw failure;
+        }
+
+        UserPoint withdrawn = pointUpdater.save(fromUserId, withdrawnBalance, PointOperation.TRANSFER);
+        UserPoint deposited;
+        try {
+            deposited = pointUpdater.save(toUserId, depositedBalance, PointOperation.TRANSFER);
+        } catch (RuntimeException e) {
+            try {
+                pointUpdater.save(fromUserId, from.point(), PointOperation.TRANSFER);
+            } catch (RuntimeException restoreFailure) {
+                e.addSuppressed(restoreFailure);
+            }
+            pointUpdater.offset(fromUserId, amount, TransactionType.CHARGE, e);
+            pointUpdater.offset(toUserId, amount, TransactionType.USE, e);
+            throw e;
+        }
+        return new PointTransferResult(withdrawn, deposited, withdrawal, deposit);
+    }
+
+    /*
+       사용자 락을 획득하여 임계 구역을 실행한다. 락 대기 시간과 보유 시간은 작업 종류와 처리 결과 별로 기록된다.
+     */
+    protected <T> T executeLocked(long userId, PointOperation operation, Supplier<T> criticalSection) {
+        return executeLocked(userId, operation, pointAdmission.lockTimeout(), criticalSection);
+    }
+
+    /*
+       락 획득 제한 시간을 지정하여 임계 구역을 실행한다. 0 이라면 차례가 올 때까지 기다린다.
+     */
+    protected <T> T executeLocked(long userId, PointOperation operation, Duration lockTimeout, Supplier<T> criticalSection) {
+        // 현재 작업이 수행될 사용자에 대한 쓰기 작업 락을 획득한다. 다른 스레드가 보유 중이라면 대기 순서대로 기다린다.
+        long waitStartedAt = pointMetrics.lockWaitStarted(userId);
+        if (lockTimeout.isZero()) {
+            userLockProvider.lock(userId); // 락 설정!
+        } else if (!userLockProvider.tryLock(userId, lockTimeout)) {
+            // 제한 시간 안에 차례가 오지 않았다면, 응답 제한 시간을 넘길 때까지 기다리지 않고 거절한다.
+            pointMetrics.lockWaitAbandoned(userId);
+            throw pointAdmission.lockTimedOut(userId);
+        }
+        long acquiredAt = pointMetrics.lockAcquired(userId); // 락 획득 시점 기준 순차 수행하도록 설계한다!
+
+        PointMetrics.Outcome outcome = PointMetrics.Outcome.ERROR;
+        try {
+            T applied = criticalSection.get();
+            outcome = PointMetrics.Outcome.SUCCESS;
+            return applied;
+        } catch (RuntimeException e) {
+            outcome = PointMetrics.Outcome.of(e);
+            throw e;
+        }
+        finally {
+            userLockProvider.unlock(userId); // 명시적 잠금 해제.
+            // 락 획득/해제 시점은 로그 대신 할당 없는 링 버퍼(LockTelemetry)에 기록하고, /admin/point/locks/telemetry 로 요약해 조회한다.
+            pointMetrics.recordLock(userId, operation, outcome, waitStartedAt, acquiredAt);
+        }
+    }
+}
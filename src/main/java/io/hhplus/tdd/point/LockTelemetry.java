@@ -0,0 +1,208 @@
+package io.hhplus.tdd.point;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>락 보유 이벤트 링 버퍼</b>
+ * <br></br>
+ * 락 획득/해제마다 남기던 INFO 로그를 대신하여, 미리 할당한 원시 타입 배열에 최근 락 이벤트를 기록한다.
+ * <br></br>
+ * - 기록 : 순번을 원자적으로 발급받아 해당 칸의 배열 값만 덮어쓰므로 객체를 할당하지 않는다.
+ * <br></br>
+ * - 조회 : 칸 별 게시 순번을 읽기 전후로 비교(seqlock)하여, 기록 중이거나 그 사이 덮어쓰인 칸은 건너뛴다.
+ * <br></br>
+ * - 버퍼가 가득 차면 가장 오래된 이벤트부터 덮어쓴다. 진단용이므로 유실은 허용한다.
+ */
+@Component
+public class LockTelemetry {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long WRITING = -1L;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /* 칸 별 게시 순번. 기록 중에는 WRITING, 기록이 끝나면 해당 칸에 기록된 순번이다. */
+    private final AtomicLongArray published;
+    private final long[] userIds;
+    private final byte[] operations;
+    private final byte[] outcomes;
+    private final long[] threadIds;
+    private final long[] waitStartedAt;
+    private final long[] acquiredAt;
+    private final long[] releasedAt;
+
+    /* System.nanoTime 기반 시각을 epoch millis 로 환산하기 위한 기준점 */
+    private final long epochNanosOffset = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    public LockTelemetry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 보관할 최근 이벤트 수. 2의 거듭제곱으로 올림한다.
+     */
+    @Autowired
+    public LockTelemetry(@Value("${point.telemetry.capacity:65536}") int capacity) {
+        if (capacity < 1 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("락 이벤트 버퍼 크기는 1 이상 " + (1 << 24) + " 이하여야 합니다.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        this.capacity = size < capacity ? size << 1 : size; // 2의 거듭제곱으로 올림하여 나머지 연산을 비트 연산으로 대체한다.
+        this.mask = this.capacity - 1;
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            published.set(i, WRITING);
+        }
+        this.userIds = new long[this.capacity];
+        this.operations = new byte[this.capacity];
+        this.outcomes = new byte[this.capacity];
+        this.threadIds = new long[this.capacity];
+        this.waitStartedAt = new long[this.capacity];
+        this.acquiredAt = new long[this.capacity];
+        this.releasedAt = new long[this.capacity];
+    }
+
+    /**
+     * 락 보유 이벤트를 기록한다. 객체를 할당하지 않는다.
+     * @param userId
+     * @param operation
+     * @param outcome
+     * @param waitStartedAtNanos 락 대기 시작 시점(nanoTime)
+     * @param acquiredAtNanos 락 획득 시점(nanoTime)
+     * @param releasedAtNanos 락 해제 시점(nanoTime)
+     */
+    public void record(long userId, PointOperation operation, PointMetrics.Outcome outcome,
+                       long waitStartedAtNanos, long acquiredAtNanos, long releasedAtNanos) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) (sequence & mask);
+
+        published.set(slot, WRITING);
+        // 칸의 값을 덮어쓰기 전에 WRITING 표시가 먼저 보이도록 한다.
+        VarHandle.storeStoreFence();
+        userIds[slot] = userId;
+        operations[slot] = (byte) operation.ordinal();
+        outcomes[slot] = (byte) outcome.ordinal();
+        threadIds[slot] = Thread.currentThread().getId();
+        waitStartedAt[slot] = waitStartedAtNanos;
+        acquiredAt[slot] = acquiredAtNanos;
+        releasedAt[slot] = releasedAtNanos;
+        // volatile 쓰기이므로 앞선 값의 기록이 모두 보인 뒤에 게시된다.
+        published.set(slot, sequence);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long totalRecorded() {
+        return nextSequence.get();
+    }
+
+    /**
+     * 최근 이벤트를 최신순으로 조회한다.
+     * @param limit 최대 조회 수
+     */
+    public List<LockEvent> recent(int limit) {
+        List<LockEvent> events = snapshot();
+        events.sort(Comparator.comparingLong(LockEvent::sequence).reversed());
+        return events.size() > limit ? new ArrayList<>(events.subList(0, limit)) : events;
+    }
+
+    /**
+     * 버퍼에 남아있는 이벤트를 작업 종류 별 분포, 상위 사용자, 가장 오래 보유된 이벤트로 요약한다.
+     * @param topN 상위 사용자 및 가장 오래 보유된 이벤트의 최대 수
+     */
+    public LockTelemetrySummary summarize(int topN) {
+        List<LockEvent> events = snapshot();
+
+        List<LockTelemetrySummary.OperationSummary> operationSummaries = new ArrayList<>();
+        for (PointOperation operation : PointOperation.values()) {
+            List<LockEvent> ofOperation = events.stream().filter(event -> event.operation() == operation).toList();
+            if (ofOperation.isEmpty()) {
+                continue;
+            }
+            long[] waits = ofOperation.stream().mapToLong(LockEvent::waitMicros).sorted().toArray();
+            long[] holds = ofOperation.stream().mapToLong(LockEvent::holdMicros).sorted().toArray();
+            operationSummaries.add(new LockTelemetrySummary.OperationSummary(
+                    operation,
+                    ofOperation.size(),
+                    ofOperation.stream().filter(event -> event.outcome() == PointMetrics.Outcome.REJECTED).count(),
+                    ofOperation.stream().filter(event -> event.outcome() == PointMetrics.Outcome.ERROR).count(),
+                    percentile(waits, 0.50),
+                    percentile(waits, 0.99),
+                    percentile(holds, 0.50),
+                    percentile(holds, 0.99),
+                    holds[holds.length - 1]));
+        }
+
+        Map<Long, long[]> byUser = new HashMap<>();
+        for (LockEvent event : events) {
+            long[] countAndHold = byUser.computeIfAbsent(event.userId(), id -> new long[2]);
+            countAndHold[0]++;
+            countAndHold[1] += event.holdMicros();
+        }
+        List<LockTelemetrySummary.HotUser> hotUsers = byUser.entrySet().stream()
+                .map(entry -> new LockTelemetrySummary.HotUser(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+                .sorted(Comparator.comparingLong(LockTelemetrySummary.HotUser::totalHoldMicros).reversed())
+                .limit(topN)
+                .toList();
+
+        List<LockEvent> slowest = events.stream()
+                .sorted(Comparator.comparingLong(LockEvent::holdMicros).reversed())
+                .limit(topN)
+                .toList();
+
+        long fromMillis = events.stream().mapToLong(LockEvent::acquiredAtMillis).min().orElse(0L);
+        long toMillis = events.stream().mapToLong(LockEvent::acquiredAtMillis).max().orElse(0L);
+        return new LockTelemetrySummary(capacity, totalRecorded(), events.size(), fromMillis, toMillis,
+                operationSummaries, hotUsers, slowest);
+    }
+
+    private List<LockEvent> snapshot() {
+        PointOperation[] operationValues = PointOperation.values();
+        PointMetrics.Outcome[] outcomeValues = PointMetrics.Outcome.values();
+        List<LockEvent> events = new ArrayList<>(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            long sequence = published.get(slot);
+            if (sequence == WRITING) {
+                continue;
+            }
+            long userId = userIds[slot];
+            byte operation = operations[slot];
+            byte outcome = outcomes[slot];
+            long threadId = threadIds[slot];
+            long waitStarted = waitStartedAt[slot];
+            long acquired = acquiredAt[slot];
+            long released = releasedAt[slot];
+            // 값을 읽는 동안 다른 스레드가 칸을 덮어썼다면 게시 순번이 달라지므로 버린다.
+            VarHandle.loadLoadFence();
+            if (published.get(slot) != sequence) {
+                continue;
+            }
+            events.add(new LockEvent(sequence, userId, operationValues[operation], outcomeValues[outcome], threadId,
+                    TimeUnit.NANOSECONDS.toMillis(acquired + epochNanosOffset),
+                    TimeUnit.NANOSECONDS.toMicros(acquired - waitStarted),
+                    TimeUnit.NANOSECONDS.toMicros(released - acquired)));
+        }
+        return events;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
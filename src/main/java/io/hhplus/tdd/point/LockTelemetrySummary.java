@@ -0,0 +1,48 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+
+/**
+ * 링 버퍼에 남아있는 최근 락 이벤트의 요약
+ * @param capacity 링 버퍼 크기
+ * @param totalRecorded 누적 기록 수. capacity 를 넘는 이전 이벤트는 덮어쓰였다.
+ * @param sampled 요약에 사용된 이벤트 수
+ * @param fromMillis 요약 구간의 첫 락 획득 시각 (epoch millis)
+ * @param toMillis 요약 구간의 마지막 락 획득 시각 (epoch millis)
+ * @param operations 작업 종류 별 대기/보유 시간 분포
+ * @param hotUsers 락을 가장 오래 보유한 상위 사용자
+ * @param slowest 보유 시간이 가장 길었던 이벤트
+ */
+public record LockTelemetrySummary(
+        int capacity,
+        long totalRecorded,
+        int sampled,
+        long fromMillis,
+        long toMillis,
+        List<OperationSummary> operations,
+        List<HotUser> hotUsers,
+        List<LockEvent> slowest
+) {
+
+    /**
+     * 작업 종류 별 요약. 시간 단위는 마이크로초이다.
+     */
+    public record OperationSummary(
+            PointOperation operation,
+            long count,
+            long rejected,
+            long errors,
+            long waitP50Micros,
+            long waitP99Micros,
+            long holdP50Micros,
+            long holdP99Micros,
+            long holdMaxMicros
+    ) {
+    }
+
+    /**
+     * 사용자 별 락 보유 요약.
+     */
+    public record HotUser(long userId, long count, long totalHoldMicros) {
+    }
+}
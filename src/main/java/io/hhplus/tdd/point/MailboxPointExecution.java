@@ -0,0 +1,58 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * <b>MAILBOX 모드 : 사용자 별 메일박스 실행</b>
+ * <br></br>
+ * 요청 스레드가 직접 실행하지 않고, 사용자 별 메일박스에 명령을 적재한다. 메일박스의 단일 작업자가 명령을 순서대로 실행하므로 사용자 락이 필요 없다.
+ * <br></br>
+ * - 잔액 조회는 메일박스를 거치지 않고 잔액 저장소에서 바로 읽는다.
+ */
+class MailboxPointExecution implements PointExecution {
+
+    private final PointUpdater pointUpdater;
+    private final UserCommandMailbox userCommandMailbox;
+
+    MailboxPointExecution(PointUpdater pointUpdater, UserCommandMailbox userCommandMailbox) {
+        this.pointUpdater = pointUpdater;
+        this.userCommandMailbox = userCommandMailbox;
+    }
+
+    @Override
+    public UserPoint execute(PointCommand command) {
+        return PointExecution.join(executeAsync(command));
+    }
+
+    /**
+     * 메일박스에서는 내역을 적재하고 잔액을 저장하기까지만 하고, 내역 기록은 다음 명령을 막지 않고 기다린다.
+     * 기록하지 못했다면 보정도 메일박스에서 실행한다.
+     */
+    @Override
+    public CompletableFuture<UserPoint> executeAsync(PointCommand command) {
+        long userId = command.userId();
+        return userCommandMailbox.submit(userId, () -> pointUpdater.apply(command))
+                .thenCompose(applied -> applied.history()
+                        .handle((history, failure) -> failure == null
+                                ? CompletableFuture.completedFuture(applied.userPoint())
+                                : userCommandMailbox.submit(userId, () -> pointUpdater.compensate(applied, failure)))
+                        .thenCompose(Function.identity()));
+    }
+
+    @Override
+    public CompletableFuture<List<PointCommandResult>> executeBatchAsync(long userId, List<PointCommand> userCommands) {
+        return userCommandMailbox.submit(userId, () -> pointUpdater.applyBatch(userId, userCommands));
+    }
+
+    @Override
+    public UserPoint getUserPoint(long userId) {
+        return pointUpdater.find(userId);
+    }
+
+    @Override
+    public void importBalance(long userId, long point) {
+        pointUpdater.importBalance(userId, point);
+    }
+}
@@ -0,0 +1,166 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.VersionedUserPointStore;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <b>OPTIMISTIC 모드 : 버전 기반 낙관적 실행</b>
+ * <br></br>
+ * 락 없이 잔액의 버전을 읽고 정책을 적용한 뒤, 읽은 버전이 여전히 최신일 때만 갱신한다(CAS).
+ * 충돌하면 시도 횟수에 따라 늘어나는 임의의 시간만큼 물러났다가 다시 읽는다.
+ * <br></br>
+ * - CAS 가 갱신 순서를 정하므로 내역은 CAS 이후에 기록된다. CAS 는 보류 상태의 값을 게시하고, 내역이 기록된 뒤에 확정한다.
+ *   기록하지 못했다면 예약 직전의 잔액으로 되돌린 뒤 실패시킨다.
+ * <br></br>
+ * - 보류 중인 잔액을 읽은 요청은 충돌로 기록하고 그 값이 확정되거나 되돌려질 때까지 기다린다.
+ *   따라서 되돌려질 수 있는 잔액을 바탕으로 다른 명령이 반영되지 않으며, 되돌린 잔액도 정책을 지킨다.
+ * <br></br>
+ * - 잔액 조회는 잔액 저장소보다 앞선 버전 저장소의 최신 확정 버전을 반환한다.
+ */
+class OptimisticPointExecution implements PointExecution {
+
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 64;
+    private static final long OPTIMISTIC_BACKOFF_BASE_NANOS = 1_000L;
+    private static final long OPTIMISTIC_BACKOFF_MAX_NANOS = 1_000_000L;
+
+    private final PointUpdater pointUpdater;
+    private final VersionedUserPointStore versionedUserPointStore;
+    private final PointAdmission pointAdmission;
+    private final PointMetrics pointMetrics;
+    private final Executor asyncExecutor;
+
+    OptimisticPointExecution(PointUpdater pointUpdater,
+                             VersionedUserPointStore versionedUserPointStore,
+                             PointAdmission pointAdmission,
+                             PointMetrics pointMetrics,
+                             Executor asyncExecutor) {
+        this.pointUpdater = pointUpdater;
+        this.versionedUserPointStore = versionedUserPointStore;
+        this.pointAdmission = pointAdmission;
+        this.pointMetrics = pointMetrics;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    @Override
+    public UserPoint execute(PointCommand command) {
+        long userId = command.userId();
+        PointOperation operation = PointOperation.of(command.type());
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+            VersionedUserPointStore.VersionedPoint current = readSettled(userId, operation);
+
+            // 정책 위반은 다시 시도해도 같은 결과이므로 재시도하지 않고 그대로 실패시킨다.
+            long balance = PointPolicy.apply(current.point(), command.type(), command.amount());
+
+            VersionedUserPointStore.VersionedPoint reserved = versionedUserPointStore.reserve(userId, current, balance);
+            pointMetrics.recordOptimisticAttempt(operation, reserved == null);
+            if (reserved != null) {
+                try {
+                    pointUpdater.await(pointUpdater.append(userId, command.amount(), command.type(), System.currentTimeMillis()));
+                } catch (RuntimeException e) {
+                    versionedUserPointStore.rollback(userId, reserved);
+                    throw e;
+                }
+                VersionedUserPointStore.VersionedPoint committed = versionedUserPointStore.commit(userId, reserved, balance);
+                awaitPersisted(userId, committed, operation);
+                return committed.userPoint();
+            }
+            backoff(attempt);
+        }
+        throw new IllegalStateException("동시 갱신 충돌이 반복되어 포인트를 갱신하지 못했습니다.");
+    }
+
+    @Override
+    public CompletableFuture<UserPoint> executeAsync(PointCommand command) {
+        return pointAdmission.supplyAsync(() -> execute(command), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<PointCommandResult>> executeBatchAsync(long userId, List<PointCommand> userCommands) {
+        return pointAdmission.supplyAsync(() -> executeBatch(userId, userCommands), asyncExecutor);
+    }
+
+    /*
+       일괄 처리 : 읽은 버전의 잔액에 명령을 순서대로 반영한 뒤 한 번의 CAS 로 예약한다. 충돌하면 처음부터 다시 계산한다.
+       내역이 기록된 앞부분의 명령까지만 확정하며, 하나도 기록하지 못했다면 되돌린다.
+     */
+    private List<PointCommandResult> executeBatch(long userId, List<PointCommand> userCommands) {
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+            VersionedUserPointStore.VersionedPoint current = readSettled(userId, PointOperation.BATCH);
+            PointUpdater.BatchPlan plan = PointUpdater.planBatch(current.point(), userCommands);
+            if (plan.applied().isEmpty()) {
+                return plan.results();
+            }
+
+            VersionedUserPointStore.VersionedPoint reserved = versionedUserPointStore.reserve(userId, current, plan.balance());
+            pointMetrics.recordOptimisticAttempt(PointOperation.BATCH, reserved == null);
+            if (reserved != null) {
+                PointUpdater.BatchPlan durable;
+                try {
+                    PointUpdater.RecordedHistories recorded = pointUpdater.awaitRecorded(pointUpdater.appendHistories(userId, plan.applied()));
+                    durable = PointUpdater.recordedPlan(plan, current.point(), userCommands, recorded);
+                } catch (RuntimeException e) {
+                    versionedUserPointStore.rollback(userId, reserved);
+                    throw e;
+                }
+                if (durable.applied().isEmpty()) {
+                    versionedUserPointStore.rollback(userId, reserved);
+                    return durable.results();
+                }
+                awaitPersisted(userId, versionedUserPointStore.commit(userId, reserved, durable.balance()), PointOperation.BATCH);
+                return durable.results();
+            }
+            backoff(attempt);
+        }
+        throw new IllegalStateException("동시 갱신 충돌이 반복되어 포인트를 갱신하지 못했습니다.");
+    }
+
+    @Override
+    public UserPoint getUserPoint(long userId) {
+        // 잔액 저장소보다 앞선 최신 확정 버전을 반환한다. 내역을 기록 중인 보류 값은 반환하지 않는다.
+        return versionedUserPointStore.read(userId).committed().userPoint();
+    }
+
+    /**
+     * 버전 저장소가 최신 잔액이므로, 이전에 읽어둔 버전이 있더라도 덮어쓰도록 CAS 로 갱신한다.
+     * 버전 저장소의 반영은 {@link UserPointRepository#save} 를 거치므로, 내역으로부터 잔액을 계산하는 저장소에도 남도록 먼저 잔액 저장소에 가져온다.
+     */
+    @Override
+    public void importBalance(long userId, long point) {
+        pointUpdater.importBalance(userId, point);
+        VersionedUserPointStore.VersionedPoint updated = null;
+        while (updated == null) {
+            updated = versionedUserPointStore.compareAndSet(userId, readSettled(userId, PointOperation.HANDOFF), point);
+        }
+        awaitPersisted(userId, updated, PointOperation.HANDOFF);
+    }
+
+    /* 갱신한 버전 이상이 잔액 저장소에 반영될 때까지 기다린다. 이 대기 시간이 잔액 갱신 단계의 지연 시간이다. */
+    private void awaitPersisted(long userId, VersionedUserPointStore.VersionedPoint updated, PointOperation operation) {
+        pointMetrics.time(PointMetrics.Stage.UPDATE, operation,
+                () -> PointExecution.join(versionedUserPointStore.awaitPersisted(userId, updated.version())));
+    }
+
+    /*
+       확정된 잔액을 읽는다. 보류 중인 잔액을 읽었다면 충돌로 기록하고, 확정되거나 되돌려질 때까지 기다린 뒤 다시 읽는다.
+       보류는 내역 기록이 끝나면 풀리므로 물러나지 않고 기다리며, 이 대기는 CAS 시도 횟수에 포함하지 않는다.
+     */
+    private VersionedUserPointStore.VersionedPoint readSettled(long userId, PointOperation operation) {
+        VersionedUserPointStore.VersionedPoint current = versionedUserPointStore.read(userId);
+        while (current.pending()) {
+            pointMetrics.recordOptimisticAttempt(operation, true);
+            current.settled().join();
+            current = versionedUserPointStore.read(userId);
+        }
+        return current;
+    }
+
+    /* 충돌 시 대기 : 1µs 부터 시도마다 두 배씩 늘어나는 상한(최대 1ms) 이내의 임의 시간만큼 물러난다. */
+    private static void backoff(int attempt) {
+        long ceiling = Math.min(OPTIMISTIC_BACKOFF_MAX_NANOS, OPTIMISTIC_BACKOFF_BASE_NANOS << Math.min(attempt, 20));
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling) + 1);
+    }
+}
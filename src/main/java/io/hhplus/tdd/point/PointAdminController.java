@@ -0,0 +1,76 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.CachedUserPointRepository;
+import io.hhplus.tdd.database.UserPointCacheStats;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 포인트 서비스 운영 지표 조회용 API
+ */
+@RestController
+@RequestMapping("/admin/point")
+@RequiredArgsConstructor
+public class PointAdminController {
+
+    private final UserLockProvider userLockProvider;
+    private final UserPointRepository userPointRepository;
+    private final LockTelemetry lockTelemetry;
+    private final ObjectProvider<PointShards> pointShards;
+
+    private static final int MAX_TELEMETRY_EVENTS = 1_000;
+
+    /**
+     * 현재 사용 중인 사용자 락 전략의 경합 통계를 조회한다. 스트라이프 수 조정의 근거로 사용한다.
+     */
+    @GetMapping("locks")
+    public UserLockStats lockStats() {
+        return userLockProvider.stats();
+    }
+
+    /**
+     * 최근 락 이벤트를 작업 종류 별 대기/보유 시간 분포, 락을 오래 보유한 사용자, 가장 오래 보유된 이벤트로 요약한다.
+     */
+    @GetMapping("locks/telemetry")
+    public LockTelemetrySummary lockTelemetry(@RequestParam(defaultValue = "10") int top) {
+        return lockTelemetry.summarize(Math.max(1, Math.min(top, MAX_TELEMETRY_EVENTS)));
+    }
+
+    /**
+     * 최근 락 이벤트를 최신순으로 조회한다.
+     */
+    @GetMapping("locks/telemetry/events")
+    public List<LockEvent> lockEvents(@RequestParam(defaultValue = "100") int limit) {
+        return lockTelemetry.recent(Math.max(1, Math.min(limit, MAX_TELEMETRY_EVENTS)));
+    }
+
+    /**
+     * SHARDED 모드의 샤드 별 대기 명령 수와 누적 처리 수를 조회한다. 처리량은 누적 처리 수의 변화율(point.shard.completed)로 구한다.
+     * SHARDED 모드가 아니라면 404 를 반환한다.
+     */
+    @GetMapping("shards")
+    public ResponseEntity<List<PointShardStats>> shardStats() {
+        PointShards shards = pointShards.getIfAvailable();
+        if (shards == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(shards.stats());
+    }
+
+    /**
+     * 잔액 캐시의 적중/미적중/제거 통계를 조회한다. 캐시를 사용하지 않는 구성이라면 404 를 반환한다.
+     */
+    @GetMapping("cache")
+    public ResponseEntity<UserPointCacheStats> cacheStats() {
+        if (userPointRepository instanceof CachedUserPointRepository cachedUserPointRepository) {
+            return ResponseEntity.ok(cachedUserPointRepository.stats());
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,158 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>포인트 쓰기 경로의 요청 수 제한 (Admission Control)</b>
+ * <br></br>
+ * 한 사용자에게 요청이 몰리면 모두 같은 공정 락 뒤에 줄을 서고, 결국 대부분이 응답 제한 시간을 넘겨 실패한다.
+ * 처리 중인 요청 수가 한도를 넘으면 줄을 세우지 않고 즉시 거절하여, 나머지 요청과 다른 사용자의 요청을 제때 처리한다.
+ * <br></br>
+ * - 사용자 별 한도 : 같은 사용자에 대해 처리 중인 요청 수. 넘으면 {@link PointOverloadedException.Reason#USER_LIMIT}
+ * <br></br>
+ * - 전체 한도 : 모든 사용자에 대해 처리 중인 요청 수. 넘으면 {@link PointOverloadedException.Reason#GLOBAL_LIMIT}
+ * <br></br>
+ * - 락 획득 제한 시간 : 한도 안에서 받아들인 요청도 이 시간 안에 사용자 락을 얻지 못하면 거절한다. ({@link #lockTimeout()})
+ * <br></br>
+ * - 한도가 0 이라면 제한하지 않는다. 사용자 별 카운터는 처리 중인 요청이 없어지면 제거하여 처리한 사용자 수만큼 늘어나지 않는다.
+ */
+@Component
+public class PointAdmission {
+
+    private final ConcurrentHashMap<Long, AtomicInteger> inFlightByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxInFlightPerUser;
+    private final int maxInFlight;
+    private final Duration lockTimeout;
+    private final PointMetrics pointMetrics;
+
+    /**
+     * 제한하지 않는다. 락은 획득할 때까지 기다린다.
+     */
+    public PointAdmission(PointMetrics pointMetrics) {
+        this(0, 0, Duration.ZERO, pointMetrics);
+    }
+
+    /**
+     * @param maxInFlightPerUser 사용자 별 처리 중인 요청 수 한도. 0 이라면 제한하지 않는다.
+     * @param maxInFlight 전체 처리 중인 요청 수 한도. 0 이라면 제한하지 않는다.
+     * @param lockTimeout 사용자 락 획득 제한 시간. 0 이라면 획득할 때까지 기다린다.
+     * @param pointMetrics 거절한 요청 수를 기록한다.
+     */
+    @Autowired
+    public PointAdmission(@Value("${point.admission.max-in-flight-per-user:0}") int maxInFlightPerUser,
+                          @Value("${point.admission.max-in-flight:0}") int maxInFlight,
+                          @Value("${point.admission.lock-timeout:0}") Duration lockTimeout,
+                          PointMetrics pointMetrics) {
+        if (maxInFlightPerUser < 0 || maxInFlight < 0 || lockTimeout.isNegative()) {
+            throw new IllegalArgumentException("요청 수 한도와 락 획득 제한 시간은 0 이상이어야 합니다.");
+        }
+        this.maxInFlightPerUser = maxInFlightPerUser;
+        this.maxInFlight = maxInFlight;
+        this.lockTimeout = lockTimeout;
+        this.pointMetrics = pointMetrics;
+    }
+
+    /**
+     * 요청을 받아들인다. 받아들였다면 처리가 끝난 뒤 반드시 {@link #release(long)} 를 호출해야 한다.
+     * @param userId
+     * @throws PointOverloadedException 한도를 넘은 경우. 이때는 release 를 호출하지 않는다.
+     */
+    public void acquire(long userId) {
+        if (maxInFlight > 0 && inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            throw shed(PointOverloadedException.Reason.GLOBAL_LIMIT, "처리 중인 요청이 많아 요청을 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+        }
+        if (maxInFlightPerUser > 0) {
+            AtomicInteger userInFlight = inFlightByUser.compute(userId, (id, count) -> {
+                AtomicInteger retained = count == null ? new AtomicInteger() : count;
+                retained.incrementAndGet();
+                return retained;
+            });
+            if (userInFlight.get() > maxInFlightPerUser) {
+                releaseUser(userId);
+                releaseGlobal();
+                throw shed(PointOverloadedException.Reason.USER_LIMIT, "해당 사용자의 처리 중인 요청이 많아 요청을 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+            }
+        }
+    }
+
+    /**
+     * 받아들인 요청의 처리를 마친다.
+     * @param userId
+     */
+    public void release(long userId) {
+        if (maxInFlightPerUser > 0) {
+            releaseUser(userId);
+        }
+        releaseGlobal();
+    }
+
+    /**
+     * @return 사용자 락 획득 제한 시간. 0 이라면 획득할 때까지 기다린다.
+     */
+    public Duration lockTimeout() {
+        return lockTimeout;
+    }
+
+    /**
+     * 제한 시간 안에 사용자 락을 획득하지 못한 요청을 거절한다.
+     * @return 호출자가 던질 예외
+     */
+    public PointOverloadedException lockTimedOut(long userId) {
+        return shed(PointOverloadedException.Reason.LOCK_TIMEOUT, "제한 시간 안에 처리를 시작하지 못했습니다. 잠시 후 다시 시도해주세요. (사용자 " + userId + ")");
+    }
+
+    /**
+     * 작업 스레드 풀의 스레드와 대기열이 모두 사용 중이어서 적재하지 못한 요청을 거절한다.
+     * @return 호출자가 반환할 예외
+     */
+    public PointOverloadedException poolSaturated() {
+        return shed(PointOverloadedException.Reason.POOL_SATURATED, "처리 대기 중인 작업이 많아 요청을 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+    }
+
+    /**
+     * 작업 스레드 풀에 적재한다. 스레드와 대기열이 모두 사용 중이라 거절되면, 작업을 쌓지 않고 과부하로 실패시킨다.
+     * @param operation
+     * @param executor
+     * @return 작업이 끝나면 완료되는 Future
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> operation, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(poolSaturated());
+        }
+    }
+
+    /**
+     * @return 현재 처리 중인 요청 수. 전체 한도가 없다면 0
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void releaseUser(long userId) {
+        inFlightByUser.computeIfPresent(userId, (id, count) -> count.decrementAndGet() == 0 ? null : count);
+    }
+
+    private void releaseGlobal() {
+        if (maxInFlight > 0) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private PointOverloadedException shed(PointOverloadedException.Reason reason, String message) {
+        pointMetrics.recordShed(reason);
+        return new PointOverloadedException(reason, message);
+    }
+}
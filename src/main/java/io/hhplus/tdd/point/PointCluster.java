@@ -0,0 +1,415 @@
+package io.hhplus.tdd.point;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>사용자 ID 기준 다중 인스턴스 라우팅</b>
+ * <br></br>
+ * 사용자 락, 메일박스, 샤드는 모두 한 JVM 안에서만 사용자 단위 직렬 실행을 보장한다. 여러 인스턴스를 띄우면 각 인스턴스가
+ * {@link ConsistentHashRing} 으로 정해진 사용자 구간만 처리하고, 소유하지 않은 사용자의 요청은 소유 인스턴스로 HTTP 로 전달한다.
+ * 따라서 한 사용자의 요청은 항상 한 인스턴스에서 기존 실행 방식 그대로 직렬 실행된다.
+ * <br></br>
+ * - 구성원 : 설정의 정적 목록(point.cluster.members)으로 시작하며, {@link #updateMembers(List)} 로 바꿀 수 있다.
+ *   모든 인스턴스에 같은 목록을 적용해야 한다.
+ * <br></br>
+ * - 전달 : 전달한 요청에는 {@value #FORWARDED_BY_HEADER} 헤더를 붙인다. 전달받은 인스턴스도 소유자가 아니라면(구성원 목록이 다르다면)
+ *   다시 전달하지 않고 거절하여, 요청이 인스턴스 사이를 순환하지 않도록 한다.
+ * <br></br>
+ * - 이관(rebalance) : 구성원이 바뀌어 사용자의 소유자가 바뀌면, 새 소유자는 그 사용자의 첫 요청을 처리하기 전에
+ *   직전 구성의 소유자로부터 잔액과 내역, 완료된 멱등 키 결과를 가져온다(pull). {@link #rebalance()} 는 이전 소유자 쪽에서 옮겨갈 사용자를 찾아
+ *   새 소유자에게 이관을 요청하므로, 요청이 오기 전에 미리 옮길 수 있다.
+ * <br></br>
+ * - 이관 시점 : 이 인스턴스가 처리 중인 요청은 완료될 때까지 읽기 스탬프를 보유하고, 구성원 변경은 쓰기 락을 잡는다.
+ *   따라서 구성원이 바뀐 뒤에는 옛 구성으로 받은 요청이 남아있지 않으며, 이전 소유자는 자신이 더 이상 소유자가 아닐 때만 사용자를 내보낸다.
+ */
+@Component
+public class PointCluster {
+
+    public static final String FORWARDED_BY_HEADER = "X-Point-Forwarded-By";
+    private static final String HANDOFF_PATH = "/admin/point/cluster/handoff/";
+
+    private final boolean enabled;
+    private final String self;
+    private final int virtualNodes;
+    private final PointService pointService;
+    private final PointHistoryRepository pointHistoryRepository;
+    private final IdempotencyStore idempotencyStore;
+    private final PointPeerClient peerClient;
+
+    /*
+       구성원 변경은 쓰기 락을, 이 인스턴스가 처리하는 요청은 완료될 때까지 읽기 스탬프를 보유한다.
+       StampedLock 은 소유 스레드가 없으므로, 요청 Future 가 완료되는 다른 스레드에서 스탬프를 반납할 수 있다.
+     */
+    private final StampedLock routing = new StampedLock();
+    private volatile Rings rings;
+
+    /* 직전 구성으로부터 이관 중이거나 이관을 마친 사용자. 같은 사용자의 동시 요청은 하나의 이관을 함께 기다린다. */
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> migrations = new ConcurrentHashMap<>();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder migrated = new LongAdder();
+
+    /**
+     * @param enabled false 라면 모든 사용자를 이 인스턴스가 처리한다.
+     * @param self 이 인스턴스 주소. 다른 인스턴스가 이 인스턴스로 요청을 전달할 때 사용하는 주소와 같아야 한다.
+     * @param members 구성원 주소 목록. 비어있다면 이 인스턴스 하나로 구성한다.
+     * @param virtualNodes 인스턴스 당 가상 노드 수
+     * @param forwardTimeout 소유 인스턴스로 전달한 요청의 연결 및 응답 제한 시간
+     */
+    @Autowired
+    public PointCluster(@Value("${point.cluster.enabled:false}") boolean enabled,
+                        @Value("${point.cluster.self:http://localhost:8080}") String self,
+                        @Value("${point.cluster.members:}") List<String> members,
+                        @Value("${point.cluster.virtual-nodes:128}") int virtualNodes,
+                        @Value("${point.cluster.forward-timeout:5s}") Duration forwardTimeout,
+                        PointService pointService,
+                        PointHistoryRepository pointHistoryRepository,
+                        IdempotencyStore idempotencyStore,
+                        ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.self = normalize(self);
+        this.virtualNodes = virtualNodes;
+        this.pointService = pointService;
+        this.pointHistoryRepository = pointHistoryRepository;
+        this.idempotencyStore = idempotencyStore;
+        this.peerClient = new PointPeerClient(this.self, forwardTimeout, objectMapper);
+        List<String> initial = normalize(members);
+        this.rings = new Rings(ring(initial.isEmpty() ? List.of(this.self) : initial), null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String self() {
+        return self;
+    }
+
+    /**
+     * @param userId
+     * @return 현재 구성에서 사용자를 소유한 인스턴스 주소. 클러스터 모드가 아니라면 이 인스턴스
+     */
+    public String ownerOf(long userId) {
+        return enabled ? rings.current().ownerOf(userId) : self;
+    }
+
+    /**
+     * 사용자의 요청을 소유 인스턴스에서 처리한다.
+     * @see #route(Collection, boolean, Supplier, Function)
+     */
+    public <T> CompletableFuture<T> route(long userId, boolean forwardedRequest,
+                                          Supplier<CompletableFuture<T>> local,
+                                          Function<String, CompletableFuture<T>> remote) {
+        return route(List.of(userId), forwardedRequest, local, remote);
+    }
+
+    /**
+     * 사용자들의 요청을 소유 인스턴스에서 처리한다. 모든 사용자의 소유자가 같아야 한다.
+     * <br></br>
+     * 이 인스턴스가 소유자라면 이관을 마친 뒤 local 을 실행하고, 아니라면 remote 로 소유 인스턴스에 전달한다.
+     * @param userIds 요청이 다루는 사용자
+     * @param forwardedRequest 다른 인스턴스가 전달한 요청인지 여부. 그렇다면 다시 전달하지 않는다.
+     * @param local 이 인스턴스에서 처리
+     * @param remote 소유 인스턴스 주소를 받아 요청을 전달
+     * @return 처리 결과. 라우팅할 수 없다면 {@link PointRoutingException} 으로 실패한다.
+     */
+    public <T> CompletableFuture<T> route(Collection<Long> userIds, boolean forwardedRequest,
+                                          Supplier<CompletableFuture<T>> local,
+                                          Function<String, CompletableFuture<T>> remote) {
+        if (!enabled) {
+            return local.get();
+        }
+        long stamp = routing.readLock();
+        String owner;
+        try {
+            owner = commonOwner(rings.current(), userIds);
+        } catch (PointRoutingException e) {
+            routing.unlockRead(stamp);
+            return CompletableFuture.failedFuture(e);
+        }
+        if (owner.equals(self)) {
+            return runLocal(stamp, userIds, local);
+        }
+        routing.unlockRead(stamp);
+        if (forwardedRequest) {
+            return CompletableFuture.failedFuture(notOwner(owner));
+        }
+        forwarded.increment();
+        return remote.apply(owner);
+    }
+
+    /**
+     * Future 를 반환하지 않는 조회 API 가 사용한다. 이 인스턴스가 소유자라면 이관이 끝날 때까지 기다린다.
+     * 처리 중에 읽기 스탬프를 보유하지 않으므로, 상태를 바꾸는 요청에는 사용하지 않는다.
+     * @param userId
+     * @param forwardedRequest 다른 인스턴스가 전달한 요청인지 여부
+     * @return 사용자를 소유한 인스턴스 주소. 이 인스턴스라면 {@link #self()} 와 같다.
+     */
+    public String resolveOwner(long userId, boolean forwardedRequest) {
+        if (!enabled) {
+            return self;
+        }
+        String owner = rings.current().ownerOf(userId);
+        if (!owner.equals(self)) {
+            if (forwardedRequest) {
+                throw notOwner(owner);
+            }
+            return owner;
+        }
+        try {
+            migrate(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return self;
+    }
+
+    /**
+     * 요청을 다른 인스턴스에 전달한다.
+     * @param owner 전달받을 인스턴스 주소
+     * @param method HTTP 메소드
+     * @param pathAndQuery 경로와 쿼리 (예 : /point/1/histories?limit=10)
+     * @param body JSON 으로 직렬화할 본문. 없다면 null
+     * @param headers 함께 전달할 헤더
+     * @param type 응답 본문의 형식
+     * @return 2xx 응답의 본문. 그 외의 응답은 {@link PointPeerResponseException}, 연결 실패는 {@link PointRoutingException} 으로 실패한다.
+     */
+    public <T> CompletableFuture<T> forward(String owner, String method, String pathAndQuery, Object body,
+                                            Map<String, String> headers, TypeReference<T> type) {
+        return exchange(owner, method, pathAndQuery, body, headers, type).thenApply(PointPeerResponse::body);
+    }
+
+    /**
+     * 요청을 다른 인스턴스에 전달하고, 본문과 함께 응답 헤더를 반환한다.
+     * @see #forward(String, String, String, Object, Map, TypeReference)
+     */
+    public <T> CompletableFuture<PointPeerResponse<T>> exchange(String owner, String method, String pathAndQuery, Object body,
+                                                                Map<String, String> headers, TypeReference<T> type) {
+        return peerClient.send(owner, method, pathAndQuery, body, headers, type);
+    }
+
+    /**
+     * 스트리밍 조회 요청을 다른 인스턴스에 전달하고, 응답 본문을 받는 대로 그대로 기록한다.
+     * @param owner 전달받을 인스턴스 주소
+     * @param pathAndQuery 경로와 쿼리
+     * @param accept 요청할 응답 형식
+     * @param outputStream 응답 본문을 기록할 스트림
+     */
+    public void forwardStream(String owner, String pathAndQuery, String accept, OutputStream outputStream) throws IOException {
+        forwarded.increment();
+        peerClient.stream(owner, pathAndQuery, accept, outputStream);
+    }
+
+    /**
+     * 구성원을 바꾼다. 이 인스턴스가 처리 중인 요청이 모두 끝난 뒤 적용되며, 적용되는 동안 새 요청은 잠시 기다린다.
+     * 현재 구성은 직전 구성이 되어, 소유자가 바뀐 사용자를 이관받을 때 이전 소유자를 찾는 데 사용된다.
+     * @param members 새 구성원 주소 목록
+     * @return 적용된 구성
+     */
+    public PointClusterStatus updateMembers(List<String> members) {
+        ConsistentHashRing next = ring(normalize(members));
+        long stamp = routing.writeLock();
+        try {
+            rings = new Rings(next, rings.current());
+            migrations.clear();
+        } finally {
+            routing.unlockWrite(stamp);
+        }
+        return status();
+    }
+
+    /**
+     * 직전 구성에서 이 인스턴스가 소유했지만 현재 구성에서는 다른 인스턴스가 소유한 사용자를 찾아, 새 소유자에게 이관을 요청한다.
+     * 내역이 있는 사용자와 내역 없이 잔액만 이관받은 사용자를 모두 살펴보므로, 잔액만 있는 사용자도 옮긴다.
+     * 이관 요청은 하나씩 차례로 보내므로 새 소유자에 한 번에 몰리지 않는다.
+     * @return 이관을 요청한 사용자 수
+     */
+    public CompletableFuture<Integer> rebalance() {
+        Rings current = rings;
+        if (!enabled || current.previous() == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        List<Long> leaving = new ArrayList<>();
+        for (long userId : pointHistoryRepository.findAllUserIds()) {
+            if (isLeaving(current, userId)) {
+                leaving.add(userId);
+            }
+        }
+        // 이관받은 뒤 내역이 생긴 사용자는 위에서 이미 찾았다.
+        pointService.forEachBalanceOnlyUser(userId -> {
+            if (isLeaving(current, userId) && pointHistoryRepository.findAllByUserIdAfter(userId, 0L, 1).isEmpty()) {
+                leaving.add(userId);
+            }
+        });
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (long userId : leaving) {
+            String owner = current.current().ownerOf(userId);
+            chain = chain.thenCompose(done -> forward(owner, "POST", HANDOFF_PATH + userId + "/pull", null, Map.of(),
+                    new TypeReference<Void>() {}));
+        }
+        return chain.thenApply(done -> leaving.size());
+    }
+
+    /* 직전 구성에서도 소유하지 않았다면, 이 인스턴스가 가진 상태는 최신이 아니므로 옮기지 않는다. */
+    private boolean isLeaving(Rings current, long userId) {
+        return current.previous().ownerOf(userId).equals(self) && !current.current().ownerOf(userId).equals(self);
+    }
+
+    /**
+     * 직전 구성을 잊는다. 이후로는 이관하지 않는다. 모든 인스턴스의 {@link #rebalance()} 가 끝난 뒤 호출하며,
+     * 이후 직전 구성에만 있던 인스턴스를 종료할 수 있다.
+     */
+    public PointClusterStatus completeRebalance() {
+        long stamp = routing.writeLock();
+        try {
+            rings = new Rings(rings.current(), null);
+            migrations.clear();
+        } finally {
+            routing.unlockWrite(stamp);
+        }
+        return status();
+    }
+
+    /**
+     * 새 소유 인스턴스의 이관 요청에 응답하여 사용자 상태를 내보낸다.
+     * 이 인스턴스가 더 이상 소유자가 아닐 때만 내보내므로, 내보낸 뒤에는 이 인스턴스에서 해당 사용자의 요청이 처리되지 않는다.
+     * @param userId
+     * @return 잔액과 내역 전체, 완료된 멱등 키 결과
+     */
+    public PointHandoff handoff(long userId) {
+        if (enabled && rings.current().ownerOf(userId).equals(self)) {
+            // 이 인스턴스에는 아직 구성원 변경이 적용되지 않았다. 새 소유자는 잠시 후 다시 시도한다.
+            throw new PointRoutingException(PointRoutingException.Reason.UNAVAILABLE,
+                    "이 인스턴스는 아직 사용자 " + userId + " 의 소유자입니다.");
+        }
+        // 새 소유자에게 넘어간 뒤의 재시도가 다시 실행되지 않도록 멱등 키 결과도 함께 내보낸다.
+        return pointService.exportUser(userId).withIdempotentResults(idempotencyStore.exportCompleted(userId));
+    }
+
+    /**
+     * 이전 소유 인스턴스의 요청에 따라, 이 인스턴스가 새로 소유하게 된 사용자를 미리 이관받는다.
+     * @param userId
+     */
+    public CompletableFuture<Void> acceptHandoff(long userId) {
+        return route(userId, true, () -> CompletableFuture.completedFuture(null), owner -> CompletableFuture.completedFuture(null));
+    }
+
+    public PointClusterStatus status() {
+        Rings current = rings;
+        return new PointClusterStatus(self,
+                current.current().members(),
+                current.previous() == null ? List.of() : current.previous().members(),
+                forwarded.sum(),
+                migrated.sum());
+    }
+
+    private <T> CompletableFuture<T> runLocal(long stamp, Collection<Long> userIds, Supplier<CompletableFuture<T>> local) {
+        CompletableFuture<T> result;
+        try {
+            List<CompletableFuture<Void>> pending = new ArrayList<>(userIds.size());
+            for (long userId : userIds) {
+                pending.add(migrate(userId));
+            }
+            result = CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .thenCompose(done -> local.get());
+        } catch (RuntimeException e) {
+            routing.unlockRead(stamp);
+            throw e;
+        }
+        return result.whenComplete((completed, failure) -> routing.unlockRead(stamp));
+    }
+
+    /*
+       직전 구성의 소유자가 다른 인스턴스였다면 그 인스턴스로부터 사용자 상태를 가져온다. 실패한 이관은 지워서 다음 요청이 다시 시도한다.
+     */
+    private CompletableFuture<Void> migrate(long userId) {
+        ConsistentHashRing previous = rings.previous();
+        if (previous == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String previousOwner = previous.ownerOf(userId);
+        if (previousOwner.equals(self)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> migration = migrations.computeIfAbsent(userId, id -> pull(previousOwner, id));
+        migration.whenComplete((done, failure) -> {
+            if (failure != null) {
+                migrations.remove(userId, migration);
+            }
+        });
+        return migration;
+    }
+
+    private CompletableFuture<Void> pull(String previousOwner, long userId) {
+        return forward(previousOwner, "GET", HANDOFF_PATH + userId, null, Map.of(), new TypeReference<PointHandoff>() {})
+                .thenAccept(handoff -> {
+                    pointService.importUser(handoff);
+                    idempotencyStore.restore(handoff.idempotentResults());
+                    migrated.increment();
+                })
+                .exceptionally(failure -> {
+                    throw new PointRoutingException(PointRoutingException.Reason.UNAVAILABLE,
+                            "사용자 " + userId + " 를 이전 소유 인스턴스(" + previousOwner + ")로부터 이관받지 못했습니다.", failure);
+                });
+    }
+
+    private String commonOwner(ConsistentHashRing ring, Collection<Long> userIds) {
+        String owner = null;
+        for (long userId : userIds) {
+            String userOwner = ring.ownerOf(userId);
+            if (owner != null && !owner.equals(userOwner)) {
+                throw new PointRoutingException(PointRoutingException.Reason.CROSS_OWNER,
+                        "요청의 사용자들을 소유한 인스턴스가 서로 다릅니다.");
+            }
+            owner = userOwner;
+        }
+        return owner == null ? self : owner;
+    }
+
+    private PointRoutingException notOwner(String owner) {
+        return new PointRoutingException(PointRoutingException.Reason.NOT_OWNER,
+                "전달받은 요청의 사용자를 이 인스턴스가 소유하지 않습니다. (소유 인스턴스 : " + owner + ")");
+    }
+
+    private ConsistentHashRing ring(List<String> members) {
+        return new ConsistentHashRing(members, virtualNodes);
+    }
+
+    private static List<String> normalize(List<String> members) {
+        return members.stream()
+                .map(String::strip)
+                .filter(member -> !member.isEmpty())
+                .map(PointCluster::normalize)
+                .toList();
+    }
+
+    /* 끝의 '/' 를 제거하여, 같은 인스턴스를 가리키는 주소가 같은 문자열이 되도록 한다. */
+    private static String normalize(String member) {
+        String stripped = member.strip();
+        return stripped.endsWith("/") ? stripped.substring(0, stripped.length() - 1) : stripped;
+    }
+
+    /* 현재 구성과 직전 구성. 구성원이 바뀐 적 없다면 직전 구성은 null 이다. */
+    private record Rings(ConsistentHashRing current, ConsistentHashRing previous) {
+    }
+}
@@ -0,0 +1,73 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 클러스터 구성원 관리 및 인스턴스 간 사용자 이관용 API
+ * <br></br>
+ * 구성원 변경 순서 : 모든 인스턴스에 members 적용 → 기존 인스턴스마다 rebalance → 모든 인스턴스에 rebalance/complete → 빠진 인스턴스 종료
+ */
+@RestController
+@RequestMapping("/admin/point/cluster")
+@RequiredArgsConstructor
+public class PointClusterController {
+
+    private final PointCluster pointCluster;
+
+    /**
+     * 이 인스턴스의 현재/직전 구성과 전달, 이관 누적 수를 조회한다.
+     */
+    @GetMapping
+    public PointClusterStatus status() {
+        return pointCluster.status();
+    }
+
+    /**
+     * 구성원을 바꾼다. 모든 인스턴스에 같은 목록을 적용해야 한다.
+     */
+    @PutMapping("members")
+    public PointClusterStatus updateMembers(@RequestBody List<String> members) {
+        return pointCluster.updateMembers(members);
+    }
+
+    /**
+     * 직전 구성에서 이 인스턴스가 소유했던 사용자 중 소유자가 바뀐 사용자를 새 소유자에게 옮긴다. 옮긴 사용자 수를 반환한다.
+     */
+    @PostMapping("rebalance")
+    public CompletableFuture<Integer> rebalance() {
+        return pointCluster.rebalance();
+    }
+
+    /**
+     * 직전 구성을 잊는다. 모든 인스턴스의 rebalance 가 끝난 뒤 호출한다.
+     */
+    @PostMapping("rebalance/complete")
+    public PointClusterStatus completeRebalance() {
+        return pointCluster.completeRebalance();
+    }
+
+    /**
+     * 새 소유 인스턴스가 호출한다. 이 인스턴스가 더 이상 소유하지 않는 사용자의 잔액과 내역, 완료된 멱등 키 결과를 내보낸다.
+     */
+    @GetMapping("handoff/{id}")
+    public PointHandoff handoff(@PathVariable long id) {
+        return pointCluster.handoff(id);
+    }
+
+    /**
+     * 이전 소유 인스턴스가 rebalance 중에 호출한다. 이 인스턴스가 새로 소유한 사용자를 이전 소유자로부터 가져온다.
+     */
+    @PostMapping("handoff/{id}/pull")
+    public CompletableFuture<Void> pull(@PathVariable long id) {
+        return pointCluster.acceptHandoff(id);
+    }
+}
@@ -0,0 +1,20 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+
+/**
+ * 클러스터 구성 및 요청 전달/이관 현황
+ * @param self 이 인스턴스 주소
+ * @param members 현재 구성원 목록
+ * @param previousMembers 직전 구성원 목록. 사용자를 이관받을 때 이전 소유자를 찾는 데 사용한다. 구성원이 바뀐 적 없다면 빈 목록
+ * @param forwarded 소유 인스턴스로 전달한 누적 요청 수
+ * @param migrated 이전 소유 인스턴스로부터 이관받은 누적 사용자 수
+ */
+public record PointClusterStatus(
+        String self,
+        List<String> members,
+        List<String> previousMembers,
+        long forwarded,
+        long migrated
+) {
+}
@@ -0,0 +1,14 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 포인트 충전/사용 명령
+ * @param userId 대상 사용자 ID
+ * @param type 충전(CHARGE) 혹은 사용(USE)
+ * @param amount 충전 혹은 사용 금액
+ */
+public record PointCommand(
+        long userId,
+        TransactionType type,
+        long amount
+) {
+}
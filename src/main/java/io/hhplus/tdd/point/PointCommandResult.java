@@ -0,0 +1,28 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 포인트 충전/사용 명령의 처리 결과
+ * @param userId 대상 사용자 ID
+ * @param type 충전(CHARGE) 혹은 사용(USE)
+ * @param amount 요청 금액
+ * @param success 정책 위반 없이 반영되었는지 여부
+ * @param point 해당 명령 처리 직후의 잔액. 실패한 경우 처리 직전 잔액과 같다.
+ * @param message 실패 사유. 성공한 경우 null
+ */
+public record PointCommandResult(
+        long userId,
+        TransactionType type,
+        long amount,
+        boolean success,
+        long point,
+        String message
+) {
+
+    static PointCommandResult succeeded(PointCommand command, long point) {
+        return new PointCommandResult(command.userId(), command.type(), command.amount(), true, point, null);
+    }
+
+    static PointCommandResult failed(PointCommand command, long point, String message) {
+        return new PointCommandResult(command.userId(), command.type(), command.amount(), false, point, message);
+    }
+}
@@ -0,0 +1,148 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.CachedUserPointRepository;
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.JournalRestoreStats;
+import io.hhplus.tdd.database.JournaledPointHistoryRepository;
+import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.database.PointHistoryWriter;
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.database.UserPointTableRepository;
+import io.hhplus.tdd.database.VersionedUserPointStore;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 포인트 도메인의 전략 선택이 필요한 협력 객체들을 설정 값에 따라 생성한다.
+ */
+@Configuration
+public class PointConfiguration {
+
+    /**
+     * 사용자 락 제공자
+     * - point.lock.strategy : STRIPED 혹은 REF_COUNTED
+     * - point.lock.stripes : STRIPED 전략의 스트라이프 수 (2의 거듭제곱으로 올림)
+     */
+    @Bean
+    public UserLockProvider userLockProvider(@Value("${point.lock.strategy:REF_COUNTED}") UserLockStrategy strategy,
+                                             @Value("${point.lock.stripes:1024}") int stripes) {
+        return UserLockProvider.of(strategy, stripes);
+    }
+
+    /**
+     * 내역 저장소
+     * - point.history.journal.enabled : PointHistoryTable 대신 메모리 매핑된 추가 전용 저널에 내역을 기록할지 여부
+     * - point.history.journal.directory : 저널 세그먼트와 잔액 스냅샷을 보관할 디렉토리. 시작 시 최신 스냅샷과 그 이후의 저널을 재생한다.
+     * - point.history.journal.segment-bytes : 세그먼트 파일 크기
+     * - point.history.journal.snapshot-interval : 잔액 스냅샷 주기. 0 이면 스냅샷을 남기지 않는다.
+     * - point.history.table.enabled : 저널을 사용하지 않을 때, 내역을 기록 저장소인 PointHistoryTable 에 저장할지 여부. (기본값 true)
+     *   false 라면 테이블에 저장하지 않고 사용자 별 색인에만 보관하므로, 테이블은 더 이상 내역의 기록 저장소가 아니다.
+     * - point.history.table.partitions : 내역을 나누어 저장할 PointHistoryTable 수. 테이블은 동시 저장에 안전하지 않아 테이블마다 직렬화되므로,
+     *   테이블 수만큼 서로 다른 사용자의 내역이 병렬로 저장된다. 첫 번째 파티션은 PointHistoryTable 빈을 사용한다.
+     */
+    @Bean
+    public PointHistoryRepository pointHistoryRepository(PointHistoryTable pointHistoryTable,
+                                                         PointMetrics pointMetrics,
+                                                         @Value("${point.history.journal.enabled:false}") boolean journalEnabled,
+                                                         @Value("${point.history.journal.directory:data/point-history}") String directory,
+                                                         @Value("${point.history.journal.segment-bytes:64MB}") DataSize segmentBytes,
+                                                         @Value("${point.history.journal.snapshot-interval:1m}") Duration snapshotInterval,
+                                                         @Value("${point.history.table.enabled:true}") boolean tableEnabled,
+                                                         @Value("${point.history.table.partitions:16}") int tablePartitions) {
+        if (journalEnabled) {
+            JournaledPointHistoryRepository repository =
+                    new JournaledPointHistoryRepository(Path.of(directory), segmentBytes.toBytes(), snapshotInterval);
+            JournalRestoreStats restoreStats = repository.restoreStats();
+            pointMetrics.recordRestore(restoreStats.snapshotLoadNanos(), restoreStats.journalReplayNanos(), restoreStats.restoredUsers());
+            return repository;
+        }
+        if (!tableEnabled) {
+            return new IndexedPointHistoryRepository();
+        }
+        List<PointHistoryTable> partitions = new ArrayList<>();
+        partitions.add(pointHistoryTable);
+        while (partitions.size() < tablePartitions) {
+            partitions.add(new PointHistoryTable());
+        }
+        return new IndexedPointHistoryRepository(partitions);
+    }
+
+    /**
+     * 잔액 저장소
+     * - 내역 저널을 사용한다면 저널로부터 복구한 잔액 저장소를 사용한다. (캐시 설정 무시)
+     * - point.cache.enabled : UserPointTable 앞에 Read-Through / Write-Through LRU 캐시를 둘지 여부
+     * - point.cache.capacity : 캐시할 최대 사용자 수
+     */
+    @Bean
+    public UserPointRepository userPointRepository(UserPointTable userPointTable,
+                                                   PointHistoryRepository pointHistoryRepository,
+                                                   @Value("${point.cache.enabled:true}") boolean cacheEnabled,
+                                                   @Value("${point.cache.capacity:100000}") int capacity) {
+        if (pointHistoryRepository instanceof JournaledPointHistoryRepository journaled) {
+            return journaled.userPointRepository();
+        }
+        if (cacheEnabled) {
+            return new CachedUserPointRepository(userPointTable, capacity);
+        }
+        return new UserPointTableRepository(userPointTable);
+    }
+
+    /**
+     * 충전/사용/이체/일괄 처리 Future 반환 API 의 작업 스레드 풀 (LOCK, COMBINING, OPTIMISTIC 모드)
+     * - 작업 스레드는 사용자 락을 기다리는 동안에도 점유되므로, 스레드 수는 CPU 코어 수가 아닌 동시에 처리할 요청 수를 기준으로 정한다.
+     *   point.admission.max-in-flight-per-user 보다 크게 두어야 한 사용자의 락 대기 요청이 모든 스레드를 차지하지 못한다.
+     * - point.async.pool-size : 스레드 수
+     * - point.async.queue-capacity : 모든 스레드가 사용 중일 때 기다릴 수 있는 작업 수. 가득 차면 요청을 503 으로 거절한다.
+     * - spring.threads.virtual.enabled : true 이고 Java 21 이상이라면 작업마다 가상 스레드를 사용한다. (pool-size, queue-capacity 무시)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pointAsyncExecutor(@Value("${point.async.pool-size:200}") int poolSize,
+                                              @Value("${point.async.queue-capacity:1000}") int queueCapacity,
+                                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return PointExecutors.newBoundedPool("point-async", poolSize, queueCapacity, virtualThreads);
+    }
+
+    /**
+     * 조회 Future 반환 API 의 작업 스레드 풀. 락을 기다리는 쓰기 작업과 스레드를 공유하지 않으므로, 쓰기가 몰려도 조회는 밀리지 않는다.
+     * - point.async.read-pool-size : 스레드 수
+     * - point.async.read-queue-capacity : 모든 스레드가 사용 중일 때 기다릴 수 있는 작업 수. 가득 차면 요청을 503 으로 거절한다.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pointReadExecutor(@Value("${point.async.read-pool-size:32}") int poolSize,
+                                             @Value("${point.async.read-queue-capacity:1000}") int queueCapacity,
+                                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return PointExecutors.newBoundedPool("point-read", poolSize, queueCapacity, virtualThreads);
+    }
+
+    /**
+     * 충전/사용 실행 방식
+     * - point.execution.mode : LOCK, MAILBOX, COMBINING, OPTIMISTIC, SHARDED ({@link PointExecutionMode})
+     * <br></br>
+     * 메일박스 / 샤드 / 버전 저장소는 해당 실행 방식일 때만 빈으로 등록되므로, 등록된 것만 전달한다.
+     */
+    @Bean
+    PointExecution pointExecution(@Value("${point.execution.mode:LOCK}") PointExecutionMode executionMode,
+                                  UserPointRepository userPointRepository,
+                                  PointHistoryWriter pointHistoryWriter,
+                                  UserLockProvider userLockProvider,
+                                  PointAdmission pointAdmission,
+                                  PointMetrics pointMetrics,
+                                  @Qualifier("pointAsyncExecutor") Executor asyncExecutor,
+                                  ObjectProvider<UserCommandMailbox> userCommandMailbox,
+                                  ObjectProvider<PointShards> pointShards,
+                                  ObjectProvider<VersionedUserPointStore> versionedUserPointStore) {
+        return PointExecution.of(executionMode, new PointUpdater(userPointRepository, pointHistoryWriter, pointMetrics),
+                userLockProvider, pointAdmission, pointMetrics, asyncExecutor,
+                userCommandMailbox.getIfAvailable(), pointShards.getIfAvailable(), versionedUserPointStore.getIfAvailable());
+    }
+}
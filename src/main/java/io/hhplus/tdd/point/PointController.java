@@ -1,60 +1,301 @@
 package io.hhplus.tdd.point;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.validation.annotation.Validated;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * 포인트 API
+ * <br></br>
+ * 클러스터 모드에서는 모든 요청을 {@link PointCluster} 로 라우팅한다. 이 인스턴스가 소유하지 않은 사용자의 요청은
+ * 같은 API 로 소유 인스턴스에 전달하고, 그 응답을 그대로 반환한다.
+ */
 @RestController
 @RequestMapping("/point")
 @RequiredArgsConstructor
 public class PointController {
 
-    private static final Logger log = LoggerFactory.getLogger(PointController.class);
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 100;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final PointService pointService;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final PointCluster pointCluster;
 
     /**
      * TODO - 특정 유저의 포인트를 조회하는 기능을 작성해주세요.
      */
     @GetMapping("{id}")
-    public UserPoint point(
-            @PathVariable long id
+    public CompletableFuture<UserPoint> point(
+            @PathVariable long id,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
     ) {
-        return pointService.getUserPoint(id);
+        return pointCluster.route(id, forwardedBy != null,
+                () -> pointService.getUserPointAsync(id),
+                owner -> pointCluster.forward(owner, "GET", "/point/" + id, null, Map.of(), new TypeReference<>() {}));
     }
 
     /**
      * TODO - 특정 유저의 포인트 충전/이용 내역을 조회하는 기능을 작성해주세요.
+     * <br></br>
+     * - cursor, limit 이 주어지면 해당 커서(내역 ID) 이후의 내역을 최대 limit 개 반환한다.
+     *   반환한 내역 수가 limit 과 같다면 다음 페이지 조회에 사용할 커서를 X-Next-Cursor 헤더로 전달한다.
+     * <br></br>
+     * - from, to(epoch millis, 양 끝 포함) 중 하나라도 주어지면 해당 시각 구간의 내역을 반환한다. 주어지지 않은 쪽은 열린 구간으로 본다.
+     *   이 경우 cursor, limit 은 사용하지 않는다.
+     * <br></br>
+     * - 모두 주어지지 않으면 기존과 같이 전체 내역을 반환한다.
      */
     @GetMapping("{id}/histories")
-    public List<PointHistory> history(
-            @PathVariable long id
+    public CompletableFuture<ResponseEntity<List<PointHistory>>> history(
+            @PathVariable long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
+    ) {
+        return pointCluster.route(id, forwardedBy != null,
+                () -> localHistory(id, cursor, limit, from, to),
+                owner -> forwardHistory(owner, id, cursor, limit, from, to));
+    }
+
+    private CompletableFuture<ResponseEntity<List<PointHistory>>> localHistory(long id, Long cursor, Integer limit, Long from, Long to) {
+        if (from != null || to != null) {
+            return pointService.getHistoryBetweenAsync(id,
+                            from == null ? Long.MIN_VALUE : from,
+                            to == null ? Long.MAX_VALUE : to)
+                    .thenApply(ResponseEntity::ok);
+        }
+        if (cursor == null && limit == null) {
+            return pointService.getAllHistoryAsync(id).thenApply(ResponseEntity::ok);
+        }
+
+        int pageSize = limit == null ? DEFAULT_HISTORY_PAGE_SIZE : limit;
+        return pointService.getHistoryPageAsync(id, cursor == null ? 0L : cursor, pageSize)
+                .thenApply(page -> {
+                    if (page.size() == pageSize) {
+                        return ResponseEntity.ok()
+                                .header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).id()))
+                                .body(page);
+                    }
+                    return ResponseEntity.ok(page);
+                });
+    }
+
+    /* 소유 인스턴스의 다음 페이지 커서도 함께 전달한다. */
+    private CompletableFuture<ResponseEntity<List<PointHistory>>> forwardHistory(String owner, long id, Long cursor, Integer limit, Long from, Long to) {
+        String pathAndQuery = UriComponentsBuilder.fromPath("/point/{id}/histories")
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("from", Optional.ofNullable(from))
+                .queryParamIfPresent("to", Optional.ofNullable(to))
+                .buildAndExpand(id)
+                .toUriString();
+        return pointCluster.exchange(owner, "GET", pathAndQuery, null, Map.of(), new TypeReference<List<PointHistory>>() {})
+                .thenApply(response -> response.header(NEXT_CURSOR_HEADER)
+                        .map(next -> ResponseEntity.ok().header(NEXT_CURSOR_HEADER, next).body(response.body()))
+                        .orElseGet(() -> ResponseEntity.ok(response.body())));
+    }
+
+    /**
+     * 특정 유저의 포인트 충전/이용 요약(충전/사용 합계와 횟수, 마지막 활동 시각)을 조회한다.
+     * <br></br>
+     * - 내역을 조회해 합산하지 않고, 내역 기록 시 갱신해둔 값을 반환한다.
+     */
+    @GetMapping("{id}/summary")
+    public CompletableFuture<PointSummary> summary(
+            @PathVariable long id,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
+    ) {
+        return pointCluster.route(id, forwardedBy != null,
+                () -> pointService.getSummaryAsync(id),
+                owner -> pointCluster.forward(owner, "GET", "/point/" + id + "/summary", null, Map.of(), new TypeReference<>() {}));
+    }
+
+    /**
+     * 특정 유저의 포인트 충전/이용 내역을 NDJSON(한 줄에 하나의 JSON 객체)으로 스트리밍한다.
+     * <br></br>
+     * - Accept: application/x-ndjson 요청에 대응한다.
+     * <br></br>
+     * - 전체 목록을 메모리에 만들지 않고, 내역을 순회하며 바로 응답 스트림에 기록한다.
+     * <br></br>
+     * - 소유하지 않은 사용자라면 소유 인스턴스의 응답 본문을 받는 대로 그대로 기록한다.
+     */
+    @GetMapping(value = "{id}/histories", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamHistory(
+            @PathVariable long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Long limit,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
     ) {
-        return pointService.getAllHistory(id);
+        String owner = pointCluster.resolveOwner(id, forwardedBy != null);
+        if (!owner.equals(pointCluster.self())) {
+            String pathAndQuery = UriComponentsBuilder.fromPath("/point/{id}/histories")
+                    .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                    .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                    .buildAndExpand(id)
+                    .toUriString();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(outputStream -> pointCluster.forwardStream(owner, pathAndQuery, MediaType.APPLICATION_NDJSON_VALUE, outputStream));
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                pointService.forEachHistory(id,
+                        cursor == null ? 0L : cursor,
+                        limit == null ? Long.MAX_VALUE : limit,
+                        pointHistory -> writeLine(outputStream, pointHistory));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, PointHistory pointHistory) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(pointHistory));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
      * TODO - 특정 유저의 포인트를 충전하는 기능을 작성해주세요.
+     * <br></br>
+     * - Future 를 반환하므로, 명령 처리가 끝날 때까지 서블릿 스레드를 점유하지 않는다.
+     * <br></br>
+     * - Idempotency-Key 헤더가 주어지면 같은 키의 재시도는 다시 충전하지 않고 처음 요청의 결과를 반환한다.
      */
     @PatchMapping("{id}/charge")
-    public UserPoint charge(
+    public CompletableFuture<UserPoint> charge(
             @PathVariable long id,
-            @RequestBody long amount
+            @RequestBody long amount,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
     ) {
-        return pointService.charge(id, amount);
+        return pointCluster.route(id, forwardedBy != null,
+                () -> {
+                    if (idempotencyKey == null) {
+                        return pointService.chargeAsync(id, amount);
+                    }
+                    return idempotencyStore.execute(idempotencyKey, new PointCommand(id, TransactionType.CHARGE, amount),
+                            () -> pointService.chargeAsync(id, amount));
+                },
+                // 멱등 키는 소유 인스턴스의 저장소에서 확인한다.
+                owner -> pointCluster.forward(owner, "PATCH", "/point/" + id + "/charge", amount,
+                        idempotencyKey == null ? Map.of() : Map.of(IDEMPOTENCY_KEY_HEADER, idempotencyKey),
+                        new TypeReference<>() {}));
     }
 
     /**
      * TODO - 특정 유저의 포인트를 사용하는 기능을 작성해주세요.
+     * <br></br>
+     * - Future 를 반환하므로, 명령 처리가 끝날 때까지 서블릿 스레드를 점유하지 않는다.
+     * <br></br>
+     * - Idempotency-Key 헤더가 주어지면 같은 키의 재시도는 다시 사용하지 않고 처음 요청의 결과를 반환한다.
      */
     @PatchMapping("{id}/use")
-    public UserPoint use(
+    public CompletableFuture<UserPoint> use(
             @PathVariable long id,
-            @RequestBody long amount
+            @RequestBody long amount,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
+    ) {
+        return pointCluster.route(id, forwardedBy != null,
+                () -> {
+                    if (idempotencyKey == null) {
+                        return pointService.useAsync(id, amount);
+                    }
+                    return idempotencyStore.execute(idempotencyKey, new PointCommand(id, TransactionType.USE, amount),
+                            () -> pointService.useAsync(id, amount));
+                },
+                // 멱등 키는 소유 인스턴스의 저장소에서 확인한다.
+                owner -> pointCluster.forward(owner, "PATCH", "/point/" + id + "/use", amount,
+                        idempotencyKey == null ? Map.of() : Map.of(IDEMPOTENCY_KEY_HEADER, idempotencyKey),
+                        new TypeReference<>() {}));
+    }
+
+    /**
+     * 여러 사용자의 포인트 충전/사용을 일괄 처리한다.
+     * <br></br>
+     * - 사용자 별로 묶어 한 번의 잔액 조회/저장으로 처리하며, 결과는 요청 순서대로 명령마다 반환한다.
+     * <br></br>
+     * - 정책을 위반한 명령은 해당 명령만 실패(success = false)로 응답한다.
+     * <br></br>
+     * - 클러스터 모드에서는 명령을 소유 인스턴스 별로 나누어 각각 처리(전달)한 뒤, 요청 순서대로 합친다.
+     *   인스턴스 별 처리는 서로 독립적이므로, 한 인스턴스의 실패가 다른 인스턴스의 반영을 되돌리지 않는다.
+     */
+    @PostMapping("batch")
+    public CompletableFuture<List<PointCommandResult>> batch(
+            @RequestBody List<PointCommand> commands,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
+    ) {
+        if (!pointCluster.isEnabled() || commands.size() > PointService.MAX_BATCH_SIZE) {
+            return pointService.executeBatchAsync(commands);
+        }
+
+        Map<String, List<Integer>> indicesByOwner = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            indicesByOwner.computeIfAbsent(pointCluster.ownerOf(commands.get(i).userId()), owner -> new ArrayList<>()).add(i);
+        }
+        PointCommandResult[] results = new PointCommandResult[commands.size()];
+        List<CompletableFuture<Void>> parts = new ArrayList<>(indicesByOwner.size());
+        for (List<Integer> indices : indicesByOwner.values()) {
+            List<PointCommand> part = indices.stream().map(commands::get).toList();
+            List<Long> userIds = part.stream().map(PointCommand::userId).toList();
+            parts.add(pointCluster.<List<PointCommandResult>>route(userIds, forwardedBy != null,
+                            () -> pointService.executeBatchAsync(part),
+                            owner -> pointCluster.forward(owner, "POST", "/point/batch", part, Map.of(), new TypeReference<>() {}))
+                    .thenAccept(partResults -> {
+                        for (int i = 0; i < indices.size(); i++) {
+                            results[indices.get(i)] = partResults.get(i);
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenApply(done -> Arrays.asList(results));
+    }
+
+    /**
+     * 한 사용자의 포인트를 다른 사용자에게 이체한다.
+     * <br></br>
+     * - 보내는 쪽 사용과 받는 쪽 충전이 함께 반영되거나, 정책 위반 시 둘 다 반영되지 않는다.
+     * <br></br>
+     * - 양쪽의 이체 직후 잔액과 연결된 사용/충전 내역을 반환한다.
+     * <br></br>
+     * - 클러스터 모드에서는 두 사용자를 같은 인스턴스가 소유할 때만 처리하며, 소유 인스턴스가 다르다면 409 로 거절한다.
+     */
+    @PostMapping("transfer")
+    public CompletableFuture<PointTransferResult> transfer(
+            @RequestBody PointTransferCommand command,
+            @RequestHeader(value = PointCluster.FORWARDED_BY_HEADER, required = false) String forwardedBy
     ) {
-        return pointService.use(id, amount);
+        return pointCluster.route(List.of(command.fromUserId(), command.toUserId()), forwardedBy != null,
+                () -> pointService.transferAsync(command.fromUserId(), command.toUserId(), command.amount()),
+                owner -> pointCluster.forward(owner, "POST", "/point/transfer", command, Map.of(), new TypeReference<>() {}));
     }
 }
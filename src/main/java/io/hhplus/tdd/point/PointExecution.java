@@ -0,0 +1,149 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.VersionedUserPointStore;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * <b>포인트 충전/사용 실행 방식</b>
+ * <br></br>
+ * {@link PointService} 는 요청 수 제한과 내역 조회를 맡고, 한 사용자에 대한 잔액 쓰기를 어떻게 직렬화할지는 실행 방식에 위임한다.
+ * 실행 방식({@link PointExecutionMode})마다 구현체가 하나씩 있으며, 잔액과 내역의 실제 갱신은 {@link PointUpdater} 가 수행한다.
+ * <br></br>
+ * - 구현체는 같은 사용자에 대한 잔액 갱신이 동시에 수행되지 않음을 보장해야 한다.
+ * <br></br>
+ * - 요청 수 제한은 호출자가 먼저 판단하므로, 구현체는 받아들인 요청만 실행한다.
+ * <br></br>
+ * - 구현체가 직접 만든 스레드는 {@link #close()} 로 종료한다.
+ */
+interface PointExecution extends AutoCloseable {
+
+    /**
+     * 충전/사용 명령을 실행하고 결과를 기다린다.
+     * @param command
+     * @return 명령이 반영된 잔액
+     * @throws PointOverloadedException 제한 시간 안에 락을 획득하지 못한 경우
+     */
+    UserPoint execute(PointCommand command);
+
+    /**
+     * 충전/사용 명령을 실행한다. 요청 스레드는 즉시 반환된다.
+     * @param command
+     * @return 명령 반영 및 내역 기록이 끝나면 완료되는 Future
+     */
+    CompletableFuture<UserPoint> executeAsync(PointCommand command);
+
+    /**
+     * 한 사용자의 명령 묶음을 요청 순서대로 실행한다.
+     * @param userId
+     * @param userCommands 같은 사용자에 대한 명령 목록
+     * @return 요청 순서와 같은 순서의 명령 별 처리 결과
+     */
+    CompletableFuture<List<PointCommandResult>> executeBatchAsync(long userId, List<PointCommand> userCommands);
+
+    /**
+     * 두 사용자의 잔액 쓰기를 함께 묶을 수 있는지 여부. 사용자 락으로 쓰기를 직렬화하는 실행 방식만 지원한다.
+     */
+    default boolean supportsTransfer() {
+        return false;
+    }
+
+    /**
+     * 보내는 사용자의 사용과 받는 사용자의 충전을 하나의 작업으로 실행한다. {@link #supportsTransfer()} 가 true 일 때만 호출된다.
+     * @param fromUserId
+     * @param toUserId
+     * @param amount
+     * @return 양쪽의 이체 직후 잔액과 내역
+     */
+    default PointTransferResult transfer(long fromUserId, long toUserId, long amount) {
+        throw new UnsupportedOperationException("포인트 이체를 지원하지 않는 실행 방식입니다.");
+    }
+
+    /**
+     * 포인트 이체 - Future 반환. {@link #supportsTransfer()} 가 true 일 때만 호출된다.
+     * @param fromUserId
+     * @param toUserId
+     * @param amount
+     * @return 이체 및 양쪽 내역 기록이 끝나면 완료되는 Future
+     */
+    default CompletableFuture<PointTransferResult> transferAsync(long fromUserId, long toUserId, long amount) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("포인트 이체를 지원하지 않는 실행 방식입니다."));
+    }
+
+    /**
+     * 잔액을 조회한다.
+     * @param userId
+     * @return
+     */
+    UserPoint getUserPoint(long userId);
+
+    /**
+     * 잔액을 조회한다. 기본 구현은 조회 스레드 풀에서 {@link #getUserPoint(long)} 를 수행한다.
+     * @param userId
+     * @param readExecutor 조회 작업 스레드 풀
+     * @return
+     */
+    default CompletableFuture<UserPoint> getUserPointAsync(long userId, Executor readExecutor) {
+        return CompletableFuture.supplyAsync(() -> getUserPoint(userId), readExecutor);
+    }
+
+    /**
+     * 이관받은 잔액으로 덮어쓴다. 호출자는 해당 사용자의 다른 요청이 처리되지 않음을 보장해야 한다.
+     * @param userId
+     * @param point
+     */
+    void importBalance(long userId, long point);
+
+    /**
+     * 구현체가 직접 만든 스레드를 종료한다. 협력 객체의 스레드는 협력 객체가 종료한다.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * 실행 방식에 맞는 구현체를 생성한다. 실행 방식이 사용하지 않는 협력 객체는 null 이어도 된다.
+     * @param executionMode 충전/사용 실행 방식
+     * @param pointUpdater 잔액과 내역의 갱신
+     * @param userLockProvider LOCK, COMBINING 모드의 사용자 별 락 제공자
+     * @param pointAdmission 락 획득 제한 시간과 작업 스레드 풀 포화 시 거절
+     * @param pointMetrics
+     * @param asyncExecutor LOCK, COMBINING, OPTIMISTIC 모드의 Future 반환 API 작업 스레드 풀
+     * @param userCommandMailbox MAILBOX 모드의 사용자 별 메일박스
+     * @param pointShards SHARDED 모드의 단일 스레드 샤드
+     * @param versionedUserPointStore OPTIMISTIC 모드의 버전 기반 잔액 저장소
+     */
+    static PointExecution of(PointExecutionMode executionMode,
+                             PointUpdater pointUpdater,
+                             UserLockProvider userLockProvider,
+                             PointAdmission pointAdmission,
+                             PointMetrics pointMetrics,
+                             Executor asyncExecutor,
+                             UserCommandMailbox userCommandMailbox,
+                             PointShards pointShards,
+                             VersionedUserPointStore versionedUserPointStore) {
+        return switch (executionMode) {
+            case LOCK -> new LockPointExecution(pointUpdater, userLockProvider, pointAdmission, pointMetrics, asyncExecutor);
+            case COMBINING -> new CombiningPointExecution(pointUpdater, userLockProvider, pointAdmission, pointMetrics, asyncExecutor);
+            case MAILBOX -> new MailboxPointExecution(pointUpdater, userCommandMailbox);
+            case SHARDED -> new ShardedPointExecution(pointUpdater, pointShards);
+            case OPTIMISTIC -> new OptimisticPointExecution(pointUpdater, versionedUserPointStore, pointAdmission, pointMetrics, asyncExecutor);
+        };
+    }
+
+    /**
+     * Future 의 결과를 기다린다. 정책 위반 예외 등은 CompletionException 으로 감싸지 않고 그대로 던진다.
+     */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
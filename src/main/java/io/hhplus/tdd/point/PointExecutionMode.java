@@ -0,0 +1,13 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 포인트 충전/사용 명령의 실행 방식
+ * - LOCK : 요청 스레드가 사용자 별 공정 락을 획득한 뒤 직접 실행한다.
+ * - MAILBOX : 사용자 별 메일박스에 명령을 적재하고, 단일 작업자가 순서대로 실행한다. 요청 스레드는 Future 를 돌려받는다.
+ * - COMBINING : 사용자 별 대기열에 명령을 적재한 뒤 락을 기다린다. 락을 획득한 스레드가 대기 중인 명령을 모아 잔액을 한 번만 조회/저장한다.
+ * - OPTIMISTIC : 락 없이 잔액의 버전을 읽고, 버전에 대한 compare-and-set 으로 갱신한다. 충돌하면 잠시 물러났다가(backoff) 다시 시도한다.
+ * - SHARDED : 사용자 ID 를 해시하여 고정된 수의 단일 스레드 샤드에 배정하고, 소유 샤드가 샤드에 유지한 잔액으로 명령을 순서대로 실행한다. 저장소 반영은 샤드 밖에서 한다.
+ */
+public enum PointExecutionMode {
+    LOCK, MAILBOX, COMBINING, OPTIMISTIC, SHARDED
+}
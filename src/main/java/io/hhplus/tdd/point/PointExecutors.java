@@ -0,0 +1,148 @@
+package io.hhplus.tdd.point;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 포인트 도메인에서 사용하는 작업자 스레드 풀 생성 유틸리티.
+ * <br></br>
+ * 스레드 이름에 용도를 접두어로 붙여 스레드 덤프에서 구분할 수 있도록 하고, 애플리케이션 종료를 막지 않도록 데몬 스레드로 생성한다.
+ * <br></br>
+ * - 가상 스레드 : 빌드 대상은 Java 17 이므로 {@code Executors.newVirtualThreadPerTaskExecutor()} 를 실행 시점에 찾아 호출한다.
+ *   Java 21 이상에서 실행될 때만 가상 스레드를 사용하고, 그 외에는 고정 크기 플랫폼 스레드 풀로 대체한다.
+ */
+@Slf4j
+public final class PointExecutors {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    private PointExecutors() {
+    }
+
+    /**
+     * 현재 실행 환경이 가상 스레드를 지원하는지 여부
+     */
+    public static boolean virtualThreadsSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 작업마다 새로운 가상 스레드를 생성하는 Executor 를 생성한다.
+     * @return
+     * @throws UnsupportedOperationException 가상 스레드를 지원하지 않는 실행 환경인 경우
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!virtualThreadsSupported()) {
+            throw new UnsupportedOperationException("가상 스레드는 Java 21 이상에서만 사용할 수 있습니다.");
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("가상 스레드 Executor 생성에 실패했습니다.", e);
+        }
+    }
+
+    /**
+     * 가상 스레드 사용 여부에 따라 스레드 풀을 생성한다.
+     * <br></br>
+     * 가상 스레드를 요청했으나 실행 환경이 지원하지 않으면 경고를 남기고 고정 크기 플랫폼 스레드 풀을 생성한다.
+     * @param namePrefix 플랫폼 스레드 이름 접두어
+     * @param threads 플랫폼 스레드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @param virtual 가상 스레드 사용 여부
+     * @return
+     */
+    public static ExecutorService newPool(String namePrefix, int threads, boolean virtual) {
+        if (virtual) {
+            if (virtualThreadsSupported()) {
+                return newVirtualThreadPerTaskExecutor();
+            }
+            log.warn("가상 스레드를 지원하지 않는 실행 환경입니다. {} 는 플랫폼 스레드 풀로 동작합니다. (Java {})",
+                    namePrefix, Runtime.version().feature());
+        }
+        return newFixedPool(namePrefix, threads);
+    }
+
+    /**
+     * 가상 스레드 사용 여부에 따라 스레드 수와 대기열 크기가 제한된 스레드 풀을 생성한다.
+     * <br></br>
+     * 가상 스레드는 스레드 수를 제한하지 않으므로 대기열 크기도 무시한다. 이때 동시 실행 수는 요청 수 제한(PointAdmission)으로 제한한다.
+     * @param namePrefix 플랫폼 스레드 이름 접두어
+     * @param threads 플랫폼 스레드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @param queueCapacity 모든 스레드가 사용 중일 때 기다릴 수 있는 작업 수
+     * @param virtual 가상 스레드 사용 여부
+     * @return
+     */
+    public static ExecutorService newBoundedPool(String namePrefix, int threads, int queueCapacity, boolean virtual) {
+        if (virtual && virtualThreadsSupported()) {
+            return newVirtualThreadPerTaskExecutor();
+        }
+        if (virtual) {
+            log.warn("가상 스레드를 지원하지 않는 실행 환경입니다. {} 는 플랫폼 스레드 풀로 동작합니다. (Java {})",
+                    namePrefix, Runtime.version().feature());
+        }
+        return newBoundedPool(namePrefix, threads, queueCapacity);
+    }
+
+    /**
+     * 스레드 수와 대기열 크기가 제한된 스레드 풀을 생성한다.
+     * <br></br>
+     * 스레드와 대기열이 모두 가득 차면 작업을 {@link RejectedExecutionException} 으로 거절한다. 사용하지 않는 스레드는 일정 시간 뒤 종료된다.
+     * @param namePrefix 스레드 이름 접두어
+     * @param threads 스레드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @param queueCapacity 모든 스레드가 사용 중일 때 기다릴 수 있는 작업 수
+     * @return
+     */
+    public static ExecutorService newBoundedPool(String namePrefix, int threads, int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("대기열 크기는 1 이상이어야 합니다.");
+        }
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedDaemonThreadFactory(namePrefix), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 고정 크기 스레드 풀을 생성한다.
+     * @param namePrefix 스레드 이름 접두어
+     * @param threads 스레드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @return
+     */
+    public static ExecutorService newFixedPool(String namePrefix, int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(size, namedDaemonThreadFactory(namePrefix));
+    }
+
+    public static ThreadFactory namedDaemonThreadFactory(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static MethodHandle findVirtualThreadPerTaskExecutor() {
+        try {
+            MethodHandle factory = MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            // Java 19, 20 에서는 미리보기 기능이므로 --enable-preview 없이 호출하면 실패한다. 실제로 생성 가능한지 확인해둔다.
+            ((ExecutorService) factory.invoke()).shutdown();
+            return factory;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
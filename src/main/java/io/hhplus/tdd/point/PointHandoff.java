@@ -0,0 +1,29 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+
+/**
+ * 클러스터 구성원 변경 시 이전 소유 인스턴스에서 새 소유 인스턴스로 옮기는 사용자 상태
+ * @param point 잔액
+ * @param histories 내역 전체. 저장 순서대로
+ * @param idempotentResults 이전 소유 인스턴스가 보관 중인 사용자의 완료된 멱등 키 결과. 이관 후의 재시도가 다시 실행되지 않도록 함께 옮긴다.
+ */
+public record PointHandoff(
+        UserPoint point,
+        List<PointHistory> histories,
+        List<IdempotentResult> idempotentResults
+) {
+
+    public PointHandoff {
+        // 멱등 키 결과를 보내지 않는 인스턴스로부터 이관받는 경우
+        idempotentResults = idempotentResults == null ? List.of() : idempotentResults;
+    }
+
+    /**
+     * @param results 함께 옮길 멱등 키 결과
+     * @return 잔액과 내역은 같고 멱등 키 결과만 바꾼 상태
+     */
+    public PointHandoff withIdempotentResults(List<IdempotentResult> results) {
+        return new PointHandoff(point, histories, results);
+    }
+}
@@ -0,0 +1,57 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+
+/**
+ * <b>포인트 충전/사용 내역 저장소</b>
+ */
+public interface PointHistoryRepository {
+
+    /**
+     * 포인트 내역을 저장한다.
+     * @param userId
+     * @param amount
+     * @param type
+     * @param updateMillis
+     * @return 식별자가 부여된 포인트 내역
+     */
+    PointHistory save(long userId, long amount, TransactionType type, long updateMillis);
+
+    /**
+     * 사용자의 포인트 내역 전체를 저장 순서대로 조회한다.
+     * @param userId
+     * @return
+     */
+    List<PointHistory> findAllByUserId(long userId);
+
+    /**
+     * 사용자의 포인트 내역 중 커서(내역 ID)보다 큰 ID 를 갖는 내역을 ID 오름차순으로 최대 limit 개 조회한다. (Keyset Pagination)
+     * @param userId
+     * @param cursor 직전 페이지의 마지막 내역 ID. 처음부터 조회하려면 0 을 전달한다.
+     * @param limit
+     * @return
+     */
+    List<PointHistory> findAllByUserIdAfter(long userId, long cursor, int limit);
+
+    /**
+     * 사용자의 포인트 내역 중 시각(updateMillis)이 [fromMillis, toMillis] 구간에 속하는 내역을 저장 순서대로 조회한다.
+     * @param userId
+     * @param fromMillis 구간 시작 시각 (포함)
+     * @param toMillis 구간 끝 시각 (포함)
+     * @return
+     */
+    List<PointHistory> findAllByUserIdBetween(long userId, long fromMillis, long toMillis);
+
+    /**
+     * 사용자의 충전/사용 합계와 횟수, 마지막 활동 시각을 조회한다. 요약은 내역이 저장될 때마다 갱신되므로 내역을 순회하지 않는다.
+     * @param userId
+     * @return 내역이 없는 사용자라면 모든 값이 0 인 요약
+     */
+    PointSummary summarize(long userId);
+
+    /**
+     * 내역이 하나 이상 있는 모든 사용자의 ID 를 조회한다. 순서는 정해져 있지 않다.
+     * @return
+     */
+    List<Long> findAllUserIds();
+}
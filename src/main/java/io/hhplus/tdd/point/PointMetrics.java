@@ -0,0 +1,366 @@
+package io.hhplus.tdd.point;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>포인트 처리 계측</b>
+ * <br></br>
+ * 락 대기/보유 시간과 단계(잔액 조회, 잔액 갱신, 내역 기록) 별 지연 시간을 히스토그램으로 기록하고,
+ * 사용자 별 락 대기 스레드 수를 게이지로 노출한다. Actuator 를 통해 Prometheus 형식으로 수집된다.
+ * 개별 락 이벤트는 {@link LockTelemetry} 에 남긴다.
+ * <br></br>
+ * - point.lock.wait / point.lock.hold : operation(charge, use, ...), outcome(success, rejected, error) 태그
+ * <br></br>
+ * - point.stage.latency : stage(selectById, insertOrUpdate, insert), operation, outcome 태그
+ * <br></br>
+ * - point.lock.waiting : 전체 락 대기 스레드 수 / point.lock.waiting.user : 대기 스레드가 가장 많은 상위 사용자 별 대기 스레드 수
+ * <br></br>
+ * - point.optimistic.attempts / point.optimistic.conflicts : OPTIMISTIC 모드의 CAS 시도 및 충돌 수, point.optimistic.conflict.rate : 누적 충돌 비율
+ * <br></br>
+ * - point.admission.shed : 처리 한도를 넘어 거절한 요청 수. reason(user_limit, global_limit, lock_timeout) 태그
+ * <br></br>
+ * - point.shard.queue.depth / point.shard.completed : SHARDED 모드의 샤드 별 대기 명령 수와 누적 처리 수. shard 태그
+ * <br></br>
+ * - point.startup.restore : 시작 시 잔액 복구 단계(snapshot, journal) 별 소요 시간 / point.startup.restored.users : 복구된 사용자 수
+ * <br></br>
+ * 요청 경로에서 타이머를 조회하거나 태그를 만들지 않도록, 가능한 모든 태그 조합의 타이머를 생성 시점에 미리 등록해둔다.
+ */
+@Component
+public class PointMetrics {
+
+    /**
+     * 요청 처리 결과. 정책 위반(IllegalArgumentException)은 rejected, 그 외 예외는 error 로 구분한다.
+     */
+    public enum Outcome {
+        SUCCESS("success"), REJECTED("rejected"), ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        public static Outcome of(Throwable failure) {
+            return failure instanceof IllegalArgumentException ? REJECTED : ERROR;
+        }
+    }
+
+    /**
+     * 계측 대상 단계. 태그 값은 각 단계가 최종적으로 호출하는 테이블 API 의 이름이다.
+     */
+    public enum Stage {
+        SELECT("selectById"), UPDATE("insertOrUpdate"), HISTORY_INSERT("insert");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final int DEFAULT_HOT_USER_COUNT = 10;
+
+    private final MeterRegistry meterRegistry;
+    private final LockTelemetry lockTelemetry;
+    private final Timer[][] lockWaitTimers;
+    private final Timer[][] lockHoldTimers;
+    private final Timer[][][] stageTimers;
+    private final Counter[] optimisticAttempts;
+    private final Counter[] optimisticConflicts;
+    private final Counter[] shedRequests;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> waitingByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final MultiGauge hotUserWaiting;
+    private final int hotUserCount;
+    private final ScheduledExecutorService hotUserRefresher;
+
+    /**
+     * 외부로 노출하지 않는 계측기. 상위 사용자 게이지는 {@link #refreshHotUsers()} 를 호출할 때만 갱신된다.
+     */
+    public PointMetrics() {
+        this(new SimpleMeterRegistry(), new LockTelemetry(), DEFAULT_HOT_USER_COUNT, Duration.ZERO);
+    }
+
+    /**
+     * @param meterRegistry
+     * @param lockTelemetry 최근 락 이벤트를 보관하는 링 버퍼
+     * @param hotUserCount 대기 스레드 수를 노출할 상위 사용자 수
+     * @param hotUserRefreshInterval 상위 사용자 게이지 갱신 주기. 0 이라면 주기적으로 갱신하지 않는다.
+     */
+    @Autowired
+    public PointMetrics(MeterRegistry meterRegistry,
+                        LockTelemetry lockTelemetry,
+                        @Value("${point.metrics.hot-user-count:10}") int hotUserCount,
+                        @Value("${point.metrics.hot-user-refresh-interval:1s}") Duration hotUserRefreshInterval) {
+        this.meterRegistry = meterRegistry;
+        this.lockTelemetry = lockTelemetry;
+        this.hotUserCount = hotUserCount;
+
+        PointOperation[] operations = PointOperation.values();
+        Outcome[] outcomes = Outcome.values();
+        Stage[] stages = Stage.values();
+        this.lockWaitTimers = new Timer[operations.length][outcomes.length];
+        this.lockHoldTimers = new Timer[operations.length][outcomes.length];
+        this.stageTimers = new Timer[stages.length][operations.length][outcomes.length];
+        this.optimisticAttempts = new Counter[operations.length];
+        this.optimisticConflicts = new Counter[operations.length];
+        for (PointOperation operation : operations) {
+            optimisticAttempts[operation.ordinal()] = Counter.builder("point.optimistic.attempts")
+                    .description("OPTIMISTIC 모드의 잔액 CAS 시도 수")
+                    .tag("operation", operation.tag())
+                    .register(meterRegistry);
+            optimisticConflicts[operation.ordinal()] = Counter.builder("point.optimistic.conflicts")
+                    .description("다른 갱신과 충돌하여 실패한 잔액 CAS 수")
+                    .tag("operation", operation.tag())
+                    .register(meterRegistry);
+            for (Outcome outcome : outcomes) {
+                lockWaitTimers[operation.ordinal()][outcome.ordinal()] =
+                        timer("point.lock.wait", "사용자 락 획득까지 대기한 시간", operation, outcome).register(meterRegistry);
+                lockHoldTimers[operation.ordinal()][outcome.ordinal()] =
+                        timer("point.lock.hold", "사용자 락을 보유한 시간", operation, outcome).register(meterRegistry);
+                for (Stage stage : stages) {
+                    stageTimers[stage.ordinal()][operation.ordinal()][outcome.ordinal()] =
+                            timer("point.stage.latency", "처리 단계 별 지연 시간", operation, outcome)
+                                    .tag("stage", stage.tag)
+                                    .register(meterRegistry);
+                }
+            }
+        }
+
+        PointOverloadedException.Reason[] reasons = PointOverloadedException.Reason.values();
+        this.shedRequests = new Counter[reasons.length];
+        for (PointOverloadedException.Reason reason : reasons) {
+            shedRequests[reason.ordinal()] = Counter.builder("point.admission.shed")
+                    .description("처리 한도를 넘어 실행하지 않고 거절한 요청 수")
+                    .tag("reason", reason.tag())
+                    .register(meterRegistry);
+        }
+
+        Gauge.builder("point.lock.waiting", waiting, AtomicInteger::get)
+                .description("사용자 락 획득을 기다리는 전체 스레드 수")
+                .register(meterRegistry);
+        Gauge.builder("point.optimistic.conflict.rate", this, PointMetrics::optimisticConflictRate)
+                .description("누적 잔액 CAS 시도 중 충돌한 비율")
+                .register(meterRegistry);
+        this.hotUserWaiting = MultiGauge.builder("point.lock.waiting.user")
+                .description("락 대기 스레드가 가장 많은 상위 사용자 별 대기 스레드 수")
+                .register(meterRegistry);
+
+        if (hotUserRefreshInterval.isZero() || hotUserRefreshInterval.isNegative()) {
+            this.hotUserRefresher = null;
+        } else {
+            this.hotUserRefresher = Executors.newSingleThreadScheduledExecutor(PointExecutors.namedDaemonThreadFactory("point-metrics"));
+            long intervalMillis = hotUserRefreshInterval.toMillis();
+            hotUserRefresher.scheduleAtFixedRate(this::refreshHotUsers, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Timer.Builder timer(String name, String description, PointOperation operation, Outcome outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("operation", operation.tag())
+                .tag("outcome", outcome.tag)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+    }
+
+    public MeterRegistry meterRegistry() {
+        return meterRegistry;
+    }
+
+    public LockTelemetry lockTelemetry() {
+        return lockTelemetry;
+    }
+
+    /**
+     * 락 획득 대기를 시작한다.
+     * @param userId
+     * @return 대기 시작 시점(nanoTime)
+     */
+    public long lockWaitStarted(long userId) {
+        waiting.incrementAndGet();
+        waitingByUser.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 락을 획득하여 대기를 마친다.
+     * @param userId
+     * @return 락 획득 시점(nanoTime)
+     */
+    public long lockAcquired(long userId) {
+        waiting.decrementAndGet();
+        // 대기 스레드가 없어진 사용자는 제거하여 처리한 사용자 수만큼 계속 늘어나지 않도록 한다.
+        waitingByUser.computeIfPresent(userId, (id, count) -> count.decrementAndGet() == 0 ? null : count);
+        return System.nanoTime();
+    }
+
+    /**
+     * 제한 시간 안에 락을 획득하지 못해 대기를 포기한다.
+     * @param userId
+     */
+    public void lockWaitAbandoned(long userId) {
+        lockAcquired(userId);
+    }
+
+    /**
+     * 처리 한도를 넘어 거절한 요청을 기록한다.
+     * @param reason
+     */
+    public void recordShed(PointOverloadedException.Reason reason) {
+        shedRequests[reason.ordinal()].increment();
+    }
+
+    /**
+     * 거절 사유 별 누적 거절 요청 수
+     */
+    public double shedCount(PointOverloadedException.Reason reason) {
+        return shedRequests[reason.ordinal()].count();
+    }
+
+    /**
+     * 샤드 별 대기 명령 수 게이지와 누적 처리 수 카운터를 등록한다. 값은 수집 시점에 샤드에서 읽으므로 요청 경로에는 비용이 없다.
+     * @param pointShards
+     */
+    public void bindShards(PointShards pointShards) {
+        for (int shard = 0; shard < pointShards.shardCount(); shard++) {
+            int index = shard;
+            Gauge.builder("point.shard.queue.depth", pointShards, shards -> shards.queueDepth(index))
+                    .description("샤드 별 실행을 기다리는 명령 수")
+                    .tag("shard", String.valueOf(index))
+                    .register(meterRegistry);
+            FunctionCounter.builder("point.shard.completed", pointShards, shards -> shards.completed(index))
+                    .description("샤드 별 실행을 마친 누적 명령 수")
+                    .tag("shard", String.valueOf(index))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 락 해제 직후 호출하여 락 대기 시간과 보유 시간을 기록하고, 락 이벤트를 링 버퍼에 남긴다.
+     * @param userId
+     * @param operation
+     * @param outcome
+     * @param waitStartedAt {@link #lockWaitStarted(long)} 의 반환값
+     * @param acquiredAt {@link #lockAcquired(long)} 의 반환값
+     */
+    public void recordLock(long userId, PointOperation operation, Outcome outcome, long waitStartedAt, long acquiredAt) {
+        long releasedAt = System.nanoTime();
+        lockTelemetry.record(userId, operation, outcome, waitStartedAt, acquiredAt, releasedAt);
+        lockWaitTimers[operation.ordinal()][outcome.ordinal()].record(acquiredAt - waitStartedAt, TimeUnit.NANOSECONDS);
+        lockHoldTimers[operation.ordinal()][outcome.ordinal()].record(releasedAt - acquiredAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * OPTIMISTIC 모드의 잔액 CAS 시도 결과를 기록한다.
+     * @param operation
+     * @param conflicted 다른 갱신과 충돌하여 실패했다면 true
+     */
+    public void recordOptimisticAttempt(PointOperation operation, boolean conflicted) {
+        optimisticAttempts[operation.ordinal()].increment();
+        if (conflicted) {
+            optimisticConflicts[operation.ordinal()].increment();
+        }
+    }
+
+    /**
+     * 누적 잔액 CAS 시도 중 충돌한 비율
+     */
+    public double optimisticConflictRate() {
+        double attempts = 0;
+        double conflicts = 0;
+        for (int i = 0; i < optimisticAttempts.length; i++) {
+            attempts += optimisticAttempts[i].count();
+            conflicts += optimisticConflicts[i].count();
+        }
+        return attempts == 0 ? 0.0 : conflicts / attempts;
+    }
+
+    /**
+     * 시작 시 잔액 복구에 걸린 시간을 기록한다. 저널을 사용할 때 시작 시 한 번만 호출된다.
+     * @param snapshotLoadNanos 스냅샷을 읽는 데 걸린 시간
+     * @param journalReplayNanos 저널을 재생하는 데 걸린 시간
+     * @param restoredUsers 복구된 사용자 수
+     */
+    public void recordRestore(long snapshotLoadNanos, long journalReplayNanos, long restoredUsers) {
+        Timer.builder("point.startup.restore")
+                .description("시작 시 잔액 복구 단계 별 소요 시간")
+                .tag("stage", "snapshot")
+                .register(meterRegistry)
+                .record(snapshotLoadNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("point.startup.restore")
+                .description("시작 시 잔액 복구 단계 별 소요 시간")
+                .tag("stage", "journal")
+                .register(meterRegistry)
+                .record(journalReplayNanos, TimeUnit.NANOSECONDS);
+        Gauge.builder("point.startup.restored.users", () -> restoredUsers)
+                .description("시작 시 복구된 사용자 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 단계를 수행하며 지연 시간을 기록한다.
+     * @param stage
+     * @param operation
+     * @param action 계측할 단계
+     * @return 단계 수행 결과
+     */
+    public <T> T time(Stage stage, PointOperation operation, Supplier<T> action) {
+        long startedAt = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            T result = action.get();
+            outcome = Outcome.SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = Outcome.of(e);
+            throw e;
+        } finally {
+            stageTimers[stage.ordinal()][operation.ordinal()][outcome.ordinal()].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 현재 락 대기 스레드가 가장 많은 상위 사용자들로 사용자 별 대기 게이지를 다시 구성한다.
+     */
+    public void refreshHotUsers() {
+        List<MultiGauge.Row<?>> rows = waitingByUser.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(hotUserCount)
+                .<MultiGauge.Row<?>>map(entry -> MultiGauge.Row.of(Tags.of("userId", String.valueOf(entry.getKey())), entry.getValue()))
+                .toList();
+        hotUserWaiting.register(rows, true);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (hotUserRefresher != null) {
+            hotUserRefresher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 포인트 쓰기 작업의 종류. 계측 태그와 락 이벤트 기록에 사용한다.
+ * - CHARGE / USE : 단건 충전 및 사용
+ * - BATCH : 일괄 처리 요청의 사용자 별 묶음
+ * - COMBINED : COMBINING 모드에서 결합자가 처리한 명령 묶음
+ * - TRANSFER : 두 사용자 간 포인트 이체
+ * - HANDOFF : 클러스터 구성 변경 시 이전 소유 인스턴스로부터 사용자 상태 이관
+ */
+public enum PointOperation {
+    CHARGE("charge"),
+    USE("use"),
+    BATCH("batch"),
+    COMBINED("combined"),
+    TRANSFER("transfer"),
+    HANDOFF("handoff");
+
+    private final String tag;
+
+    PointOperation(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public static PointOperation of(TransactionType type) {
+        return switch (type) {
+            case CHARGE -> CHARGE;
+            case USE -> USE;
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 처리 한도를 넘어 실행하지 않고 거절한 요청의 예외. 요청은 반영되지 않았으므로 잠시 후 다시 시도할 수 있다.
+ */
+public class PointOverloadedException extends RuntimeException {
+
+    /**
+     * 거절 사유
+     * - USER_LIMIT : 해당 사용자의 처리 중인 요청 수가 한도에 도달
+     * - GLOBAL_LIMIT : 전체 처리 중인 요청 수가 한도에 도달
+     * - LOCK_TIMEOUT : 제한 시간 안에 사용자 락을 획득하지 못함
+     * - POOL_SATURATED : 작업 스레드 풀의 스레드와 대기열이 모두 사용 중
+     */
+    public enum Reason {
+        USER_LIMIT("user_limit"), GLOBAL_LIMIT("global_limit"), LOCK_TIMEOUT("lock_timeout"), POOL_SATURATED("pool_saturated");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final Reason reason;
+
+    public PointOverloadedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+}
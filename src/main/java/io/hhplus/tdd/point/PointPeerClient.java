@@ -0,0 +1,132 @@
+package io.hhplus.tdd.point;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * <b>클러스터 구성원 사이의 HTTP 요청</b>
+ * <br></br>
+ * 요청 본문을 JSON 으로 직렬화하여 다른 인스턴스에 보내고, 2xx 응답의 본문을 지정한 형식으로 변환한다.
+ * 모든 요청에는 {@link PointCluster#FORWARDED_BY_HEADER} 헤더로 이 인스턴스 주소를 붙인다.
+ * <br></br>
+ * - 2xx 가 아닌 응답은 {@link PointPeerResponseException}, 연결 실패와 제한 시간 초과는 {@link PointRoutingException} 으로 실패한다.
+ */
+final class PointPeerClient {
+
+    private final String self;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    /**
+     * @param self 이 인스턴스 주소
+     * @param timeout 연결 및 응답 제한 시간
+     * @param objectMapper
+     */
+    PointPeerClient(String self, Duration timeout, ObjectMapper objectMapper) {
+        this.self = self;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * @param peer 요청받을 인스턴스 주소
+     * @param method HTTP 메소드
+     * @param pathAndQuery 경로와 쿼리
+     * @param body JSON 으로 직렬화할 본문. 없다면 null
+     * @param headers 함께 보낼 헤더
+     * @param type 응답 본문의 형식
+     * @return 본문을 변환한 응답
+     */
+    <T> CompletableFuture<PointPeerResponse<T>> send(String peer, String method, String pathAndQuery, Object body,
+                                                     Map<String, String> headers, TypeReference<T> type) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        HttpRequest.Builder request = request(peer, pathAndQuery)
+                .header("Content-Type", "application/json")
+                .method(method, publisher);
+        headers.forEach(request::header);
+
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        throw unavailable(peer, failure);
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        throw new PointPeerResponseException(response.statusCode(),
+                                response.headers().firstValue("Content-Type").orElse(null), response.body());
+                    }
+                    return new PointPeerResponse<>(read(response.body(), type), response.headers().map());
+                });
+    }
+
+    /**
+     * 요청의 응답 본문을 받는 대로 그대로 기록한다.
+     * @param peer 요청받을 인스턴스 주소
+     * @param pathAndQuery 경로와 쿼리
+     * @param accept 요청할 응답 형식
+     * @param outputStream 응답 본문을 기록할 스트림
+     */
+    void stream(String peer, String pathAndQuery, String accept, OutputStream outputStream) throws IOException {
+        HttpRequest request = request(peer, pathAndQuery).header("Accept", accept).GET().build();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw unavailable(peer, e);
+        } catch (IOException e) {
+            throw unavailable(peer, e);
+        }
+        try (InputStream body = response.body()) {
+            if (response.statusCode() / 100 != 2) {
+                throw new PointPeerResponseException(response.statusCode(),
+                        response.headers().firstValue("Content-Type").orElse(null), body.readAllBytes());
+            }
+            body.transferTo(outputStream);
+        }
+    }
+
+    /* 본문이 없는 응답(예 : Future<Void> 를 반환하는 API)은 null 로 변환한다. */
+    private <T> T read(byte[] body, TypeReference<T> type) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String peer, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(peer + pathAndQuery))
+                .timeout(timeout)
+                .header(PointCluster.FORWARDED_BY_HEADER, self);
+    }
+
+    private static PointRoutingException unavailable(String peer, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return new PointRoutingException(PointRoutingException.Reason.UNAVAILABLE,
+                "소유 인스턴스(" + peer + ")에 요청을 전달하지 못했습니다.", cause);
+    }
+}
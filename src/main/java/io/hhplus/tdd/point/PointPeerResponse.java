@@ -0,0 +1,27 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 소유 인스턴스로 전달한 요청의 2xx 응답
+ * @param body JSON 본문을 변환한 값. 본문이 없었다면 null
+ * @param headers 응답 헤더
+ */
+public record PointPeerResponse<T>(
+        T body,
+        Map<String, List<String>> headers
+) {
+
+    /**
+     * @param name 헤더 이름. 대소문자를 구분하지 않는다.
+     * @return 헤더의 첫 번째 값
+     */
+    public Optional<String> header(String name) {
+        return headers.entrySet().stream()
+                .filter(header -> header.getKey().equalsIgnoreCase(name))
+                .flatMap(header -> header.getValue().stream())
+                .findFirst();
+    }
+}
@@ -0,0 +1,33 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 소유 인스턴스로 전달한 요청이 실패 응답을 받은 경우의 예외. 응답 상태와 본문을 그대로 클라이언트에 전달한다.
+ */
+public class PointPeerResponseException extends RuntimeException {
+
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+
+    public PointPeerResponseException(int status, String contentType, byte[] body) {
+        super("소유 인스턴스가 " + status + " 으로 응답했습니다.");
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @return 응답의 Content-Type. 없었다면 null
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+}
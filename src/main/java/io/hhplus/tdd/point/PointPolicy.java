@@ -0,0 +1,96 @@
+package io.hhplus.tdd.point;
+
+/**
+ * <b>포인트 정책</b>
+ * <br></br>
+ * - 최대 포인트 잔액 : 1,000,000 점
+ * <br></br>
+ * - 최소 포인트 잔액 : 0 점
+ * <br></br>
+ * - 충전 및 사용 금액은 0 이상이어야 한다.
+ * <br></br>
+ * 단건 충전/사용과 일괄 처리가 같은 정책을 적용하도록 검증과 잔액 계산을 한 곳에 모아둔다.
+ */
+final class PointPolicy {
+
+    static final long MAX_BALANCE = 1_000_000L;
+
+    private PointPolicy() {
+    }
+
+    static void validateChargeAmount(long chargeAmount) {
+        // 정책 : 충전하고자 하는 포인트가 0보다 작은 경우 예외를 발생시킨다.
+        if (chargeAmount < 0) {
+            throw new IllegalArgumentException("0보다 작은 금액의 포인트 충전은 불가합니다.");
+        }
+    }
+
+    static void validateUseAmount(long useAmount) {
+        // 정책 : 사용 금액이 0 미만인 경우 예외를 발생시킨다.
+        if (useAmount < 0) {
+            throw new IllegalArgumentException("0 미만 금액의 사용은 불가합니다.");
+        }
+    }
+
+    /**
+     * 충전 후 잔액을 계산한다.
+     * @param balance 현재 잔액
+     * @param chargeAmount 충전 금액
+     * @return 충전 후 잔액
+     */
+    static long charge(long balance, long chargeAmount) {
+        validateChargeAmount(chargeAmount);
+        // 정책 : 충전 후 잔액이 최대 충전 한도인 1,000,000점을 초과할 경우 예외를 발생시킨다.
+        //       (balance + chargeAmount 는 long 범위를 넘어 음수가 될 수 있으므로 뺄셈으로 비교한다.)
+        if (chargeAmount > MAX_BALANCE - balance) {
+            throw new IllegalArgumentException("허용된 포인트 한도를 초과합니다.");
+        }
+        return balance + chargeAmount;
+    }
+
+    /**
+     * 사용 후 잔액을 계산한다.
+     * @param balance 현재 잔액
+     * @param useAmount 사용 금액
+     * @return 사용 후 잔액
+     */
+    static long use(long balance, long useAmount) {
+        validateUseAmount(useAmount);
+        // 정책 : 차감 후 금액이 0보다 작아질 경우, 유효하지 않으므로 예외를 발생시킨다.
+        if (useAmount > balance) {
+            throw new IllegalArgumentException("잔액 이상의 금액은 사용이 불가합니다.");
+        }
+        return balance - useAmount;
+    }
+
+    static void validateAmount(TransactionType type, long amount) {
+        switch (type) {
+            case CHARGE -> validateChargeAmount(amount);
+            case USE -> validateUseAmount(amount);
+        }
+    }
+
+    static long apply(long balance, TransactionType type, long amount) {
+        return switch (type) {
+            case CHARGE -> charge(balance, amount);
+            case USE -> use(balance, amount);
+        };
+    }
+
+    /**
+     * 반영한 명령을 되돌린 잔액을 계산한다. 되돌린 잔액도 같은 정책을 지켜야 한다.
+     * <br></br>
+     * - 충전을 되돌리면 잔액이 0 보다 작아지거나, 사용을 되돌리면 최대 잔액을 넘는 경우 예외를 발생시킨다.
+     *   (그 사이 되돌릴 명령이 반영된 잔액을 바탕으로 다른 명령이 반영된 경우)
+     * @param balance 현재 잔액
+     * @param type 되돌릴 명령의 종류
+     * @param amount 되돌릴 명령의 금액
+     * @return 되돌린 잔액
+     */
+    static long revert(long balance, TransactionType type, long amount) {
+        return switch (type) {
+            case CHARGE -> use(balance, amount);
+            case USE -> charge(balance, amount);
+        };
+    }
+}
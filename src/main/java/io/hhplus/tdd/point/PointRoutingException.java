@@ -0,0 +1,33 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 클러스터 모드에서 요청을 이 인스턴스가 처리하지도, 소유 인스턴스로 전달하지도 못한 경우의 예외. 요청은 반영되지 않았다.
+ */
+public class PointRoutingException extends RuntimeException {
+
+    /**
+     * 실패 사유
+     * - NOT_OWNER : 다른 인스턴스가 전달한 요청이지만 이 인스턴스도 소유자가 아님 (구성원 목록이 인스턴스마다 다름)
+     * - UNAVAILABLE : 소유 인스턴스에 연결하지 못했거나, 이전 소유 인스턴스로부터 사용자를 이관받지 못함. 잠시 후 다시 시도할 수 있다.
+     * - CROSS_OWNER : 두 사용자를 함께 다루는 요청이지만 두 사용자의 소유 인스턴스가 다름
+     */
+    public enum Reason {
+        NOT_OWNER, UNAVAILABLE, CROSS_OWNER
+    }
+
+    private final Reason reason;
+
+    public PointRoutingException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public PointRoutingException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+}
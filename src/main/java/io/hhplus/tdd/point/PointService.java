@@ -1,81 +1,202 @@
 package io.hhplus.tdd.point;
 
+import io.hhplus.tdd.database.CachedUserPointRepository;
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.LongBalanceTable;
 import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.database.PointHistoryWriter;
 import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.database.VersionedUserPointStore;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-import javax.naming.LimitExceededException;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-@Slf4j
 @Service
-@RequiredArgsConstructor
-public class PointService {
+public class PointService implements AutoCloseable {
 
-    private final PointHistoryTable pointHistoryTable;
-    private final UserPointTable userPointTable;
+    private static final int DEFAULT_CACHE_CAPACITY = 10_000;
+    public static final int MAX_HISTORY_PAGE_SIZE = 1_000;
+    private static final int HISTORY_STREAM_CHUNK_SIZE = 256;
+    public static final int MAX_BATCH_SIZE = 10_000;
+    private static final int DEFAULT_ASYNC_POOL_SIZE = 200;
+    private static final int DEFAULT_READ_POOL_SIZE = 32;
+    private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1_000;
 
     /*
-       사용자 별 락 상태를 보관하는 ConcurrentHashMap.
+       사용자 별 색인을 갖는 내역 저장소. 내역 조회 비용은 해당 사용자의 내역 수에만 비례한다.
+     */
+    private final PointHistoryRepository pointHistoryRepository;
 
-       * 왜 ConcurrentHashMap 인가?
-        - 동시성 문제 발생 시나리오를 생각해보면 동일 사용자에 대한 포인트 충전 및 사용이 동시에 발생해서는 안됨을 알 수 있다.
-          이를 예방하기 위해서는 '어떤 사용자에 대해', '어떤 락'이 걸려있는지에 관한 정보 어떤 '목록'에 저장함으로써 이를를 추적할 필요가 있다.
-          또한 락이 해제될 경우 해당 '목록'으로부터 그 락의 정보를 제거해야한다.
+    /*
+       포인트 내역은 임계 구역 안에서 기록 큐에 적재하고, 임계 구역을 벗어난 뒤 기록될 때까지 기다렸다가 응답한다.
+       내역을 기록하지 못했다면 잔액을 되돌리고 요청을 실패시키므로, 갱신된 잔액은 기록된 내역으로 설명된다.
+       기록은 사용자 파티션 별 기록 스레드가 여러 사용자의 내역을 모아 수행한다.
+     */
+    private final PointHistoryWriter pointHistoryWriter;
 
-          이처럼 특정 사용자의 포인트 잔액에 대한 어떤 쓰기 연산이 다른 스레드에 의해 진행 중이라는 것을 다른 스레드들이 알 필요가 있고,
-          해제가 됨으로써 사용 가능함 또한 다른 스레드가 확인할 수 있어야 한다.
+    /*
+       충전/사용/이체/일괄 처리의 실행 방식(LOCK / MAILBOX / COMBINING / OPTIMISTIC / SHARDED).
+       한 사용자에 대한 잔액 쓰기를 어떻게 직렬화할지는 실행 방식이 결정하고, 이 클래스는 요청 수 제한과 조회만 담당한다.
+     */
+    private final PointExecution pointExecution;
 
-          또한 동일 사용자가 아닌 복수의 사용자에 대한 쓰기 연산이 종료되어 동시에 여러 개의 락 상태가 해제될 가능성도 존재한다.
+    /*
+       조회 Future 반환 API 의 스레드 풀. 락을 기다리는 작업과 스레드를 공유하지 않으므로, 한 사용자에게 쓰기가 몰려도 조회는 밀리지 않는다.
+     */
+    private final Executor readExecutor;
 
-          그렇기 때문에 ConcurrentHashMap을 활용하여 이런 정보를 관리함으로써 복수의 스레드에 의해 즉각적으로 갱신 및 조회가 가능하도록 한다.
-          이는 dead-lock 상태가 쉬이 발생하지 않도록 하는데에 주요하다.
+    /*
+       충전/사용 요청 수 제한. 사용자 별/전체 처리 중인 요청 수가 한도를 넘거나 제한 시간 안에 락을 얻지 못하면 줄을 세우지 않고 거절한다.
      */
-    private final ConcurrentHashMap<Long, Lock> perUserLockStatus = new ConcurrentHashMap<>();
+    private final PointAdmission pointAdmission;
 
+    /*
+       이 인스턴스가 직접 생성한 스레드 풀과 실행 방식 별 큐/저장소. 새 명령을 받는 순서대로 닫는다.
+       Spring 이 주입한 협력 객체는 각자의 빈 소멸 시점에 종료되므로 비어 있다.
+     */
+    private final List<Runnable> ownedResources;
 
-    /**
-     * 포인트 충전 기능
-     * @param userId
-     * @param chargeAmount
-     * @return
+    /*
+       이 인스턴스가 직접 생성한 내역 기록기. 실행 중이던 명령의 내역이 모두 기록되도록 마지막에 닫는다. 주입받았다면 null
      */
-    public UserPoint charge(long userId, long chargeAmount) {
+    private final PointHistoryWriter ownedHistoryWriter;
 
-        // 현재 충전이 수행될 사용자에 대한 쓰기 작업 락 여부를 확인한다. 없을 경우, 현재 충전 연산을 수행하려하는 현 스레드가 락을 설정하고 보유한다.
-        Lock reEntrantLock = perUserLockStatus.computeIfAbsent(userId, mapping -> new ReentrantLock(true));
-        reEntrantLock.lock(); // 락 설정!
-        long lockAttainedAt = System.currentTimeMillis(); // 락 획득 시점 기준 순차 수행하도록 설계한다!
-        log.info("충전 작업 - 락을 획득했습니다 : " + lockAttainedAt); // 락 획득 시점 로깅.
+    /*
+       내역 없이 잔액만 이관받은 사용자. 내역 저장소로는 찾을 수 없으므로, 다음 구성 변경 때 옮길 수 있도록 따로 기록한다.
+       그 외의 잔액은 모두 내역과 함께 바뀌므로 기록하지 않으며, 사용자를 내보내면 지운다. 사용자 당 객체를 만들지 않도록 {@link LongBalanceTable} 에 둔다.
+     */
+    private final LongBalanceTable balanceOnlyUsers = new LongBalanceTable();
 
-        try {
-            // 정책 : 충전하고자 하는 포인트가 0보다 작은 경우 예외를 발생시킨다.
-            if(chargeAmount < 0){
-                throw new IllegalArgumentException("0보다 작은 금액의 포인트 충전은 불가합니다.");
-            }
+    public PointService(PointHistoryTable pointHistoryTable, UserPointTable userPointTable) {
+        this(pointHistoryTable, userPointTable, new PointMetrics());
+    }
 
-            UserPoint userPoint = userPointTable.selectById(userId);
-            UserPoint updatedUserPoint = new UserPoint(userId, userPoint.point() + chargeAmount, System.currentTimeMillis());
-            
-            // 정책 : 충전하고자 하는 포인트가 최대 충전 한도인 1,000,000점 이상일 경우 예외를 발생시킨다.
-            if(updatedUserPoint.point() > 1_000_000){throw new IllegalArgumentException("허용된 포인트 한도를 초과합니다.");}
+    private PointService(PointHistoryTable pointHistoryTable, UserPointTable userPointTable, PointMetrics pointMetrics) {
+        this(pointHistoryTable, userPointTable, new RefCountedUserLockProvider(), new PointAdmission(pointMetrics), pointMetrics, PointExecutionMode.LOCK);
+    }
 
-            // 정책 위반 사항이 없어 정상 충전 가능한 경우, 충전 이력을 생성하고 저장한다.
-            pointHistoryTable.insert(userId, chargeAmount, TransactionType.CHARGE, System.currentTimeMillis());
+    /**
+     * Spring 컨텍스트 밖에서 사용하는 생성자. 테이블 앞에 사용자 별 내역 색인과 잔액 캐시를 둔다.
+     * @param pointHistoryTable
+     * @param userPointTable
+     * @param userLockProvider 사용자 별 락 제공자
+     * @param pointAdmission 충전/사용 요청 수 제한
+     * @param pointMetrics
+     * @param executionMode 충전/사용 실행 방식
+     */
+    public PointService(PointHistoryTable pointHistoryTable,
+                        UserPointTable userPointTable,
+                        UserLockProvider userLockProvider,
+                        PointAdmission pointAdmission,
+                        PointMetrics pointMetrics,
+                        PointExecutionMode executionMode) {
+        this(new IndexedPointHistoryRepository(pointHistoryTable),
+                new CachedUserPointRepository(userPointTable, DEFAULT_CACHE_CAPACITY),
+                userLockProvider, pointAdmission, pointMetrics, executionMode);
+    }
 
-            return userPointTable.insertOrUpdate(updatedUserPoint.id(), updatedUserPoint.point());
+    /**
+     * Spring 컨텍스트 밖에서 사용하는 생성자.
+     * <br></br>
+     * 기록 스레드와 작업 스레드 풀, 그리고 실행 방식에 필요한 협력 객체(메일박스 / 샤드 / 버전 저장소)만 생성하며,
+     * 생성한 스레드는 {@link #close()} 로 종료한다.
+     * @param pointHistoryRepository
+     * @param userPointRepository
+     * @param userLockProvider 사용자 별 락 제공자
+     * @param pointAdmission 충전/사용 요청 수 제한
+     * @param pointMetrics
+     * @param executionMode 충전/사용 실행 방식
+     */
+    public PointService(PointHistoryRepository pointHistoryRepository,
+                        UserPointRepository userPointRepository,
+                        UserLockProvider userLockProvider,
+                        PointAdmission pointAdmission,
+                        PointMetrics pointMetrics,
+                        PointExecutionMode executionMode) {
+        ExecutorService asyncExecutor = PointExecutors.newBoundedPool("point-async", DEFAULT_ASYNC_POOL_SIZE, DEFAULT_ASYNC_QUEUE_CAPACITY);
+        ExecutorService readExecutor = PointExecutors.newBoundedPool("point-read", DEFAULT_READ_POOL_SIZE, DEFAULT_ASYNC_QUEUE_CAPACITY);
+        UserCommandMailbox userCommandMailbox = executionMode == PointExecutionMode.MAILBOX ? new UserCommandMailbox() : null;
+        PointShards pointShards = executionMode == PointExecutionMode.SHARDED ? new PointShards(0, pointMetrics) : null;
+        VersionedUserPointStore versionedUserPointStore =
+                executionMode == PointExecutionMode.OPTIMISTIC ? new VersionedUserPointStore(userPointRepository) : null;
+
+        PointHistoryWriter pointHistoryWriter = new PointHistoryWriter(pointHistoryRepository, pointMetrics);
+
+        this.pointHistoryRepository = pointHistoryRepository;
+        this.pointHistoryWriter = pointHistoryWriter;
+        this.pointExecution = PointExecution.of(executionMode, new PointUpdater(userPointRepository, pointHistoryWriter, pointMetrics),
+                userLockProvider, pointAdmission, pointMetrics, asyncExecutor, userCommandMailbox, pointShards, versionedUserPointStore);
+        this.pointAdmission = pointAdmission;
+        this.readExecutor = readExecutor;
+        this.ownedHistoryWriter = pointHistoryWriter;
+
+        List<Runnable> ownedResources = new ArrayList<>(List.of(asyncExecutor::shutdown, readExecutor::shutdown, pointExecution::close));
+        if (userCommandMailbox != null) {
+            ownedResources.add(userCommandMailbox::close);
         }
-        finally {
-            long lockReleasedAt = System.currentTimeMillis();
-            log.info("충전 작업 - 락이 해제되었습니다. : {}", lockReleasedAt);
-            log.info("충전 작업 - 총 락 유지 시간 : {}", lockReleasedAt - lockAttainedAt);
-            reEntrantLock.unlock(); // 명시적 잠금 해제.
+        if (pointShards != null) {
+            ownedResources.add(pointShards::close);
         }
+        if (versionedUserPointStore != null) {
+            ownedResources.add(versionedUserPointStore::close);
+        }
+        this.ownedResources = List.copyOf(ownedResources);
+    }
+
+    /**
+     * @param pointHistoryRepository
+     * @param pointHistoryWriter
+     * @param pointExecution 설정(point.execution.mode)에 따라 선택된 실행 방식
+     * @param pointAdmission
+     * @param readExecutor 조회 Future 반환 API 의 스레드 풀
+     */
+    @Autowired
+    PointService(PointHistoryRepository pointHistoryRepository,
+                 PointHistoryWriter pointHistoryWriter,
+                 PointExecution pointExecution,
+                 PointAdmission pointAdmission,
+                 @Qualifier("pointReadExecutor") Executor readExecutor) {
+        this.pointHistoryRepository = pointHistoryRepository;
+        this.pointHistoryWriter = pointHistoryWriter;
+        this.pointExecution = pointExecution;
+        this.pointAdmission = pointAdmission;
+        this.readExecutor = readExecutor;
+        this.ownedResources = List.of();
+        this.ownedHistoryWriter = null;
+    }
+
+    /**
+     * 포인트 충전 기능
+     * @param userId
+     * @param chargeAmount
+     * @return
+     * @throws PointOverloadedException 처리 중인 요청 수가 한도를 넘었거나, 제한 시간 안에 락을 획득하지 못한 경우
+     */
+    public UserPoint charge(long userId, long chargeAmount) {
+        return admitted(userId, () -> pointExecution.execute(new PointCommand(userId, TransactionType.CHARGE, chargeAmount)));
+    }
 
+    /**
+     * 포인트 충전 기능 - Future 반환
+     * <br></br>
+     * 요청 스레드는 즉시 반환되고, 충전은 실행 방식에 따라 작업 스레드 풀, 사용자 메일박스, 혹은 사용자를 소유한 샤드에서 수행된다.
+     * @param userId
+     * @param chargeAmount
+     * @return 충전 및 충전 이력 기록이 끝나면 완료되는 Future. 처리 한도를 넘었다면 {@link PointOverloadedException} 으로 실패한다.
+     */
+    public CompletableFuture<UserPoint> chargeAsync(long userId, long chargeAmount) {
+        return admittedAsync(userId, () -> pointExecution.executeAsync(new PointCommand(userId, TransactionType.CHARGE, chargeAmount)));
     }
 
     /**
@@ -83,35 +204,176 @@ public class PointService {
      * @param userId
      * @param useAmount
      * @return
+     * @throws PointOverloadedException 처리 중인 요청 수가 한도를 넘었거나, 제한 시간 안에 락을 획득하지 못한 경우
      */
     public UserPoint use(long userId, long useAmount){
+        return admitted(userId, () -> pointExecution.execute(new PointCommand(userId, TransactionType.USE, useAmount)));
+    }
+
+    /**
+     * 포인트 사용 기능 - Future 반환
+     * @param userId
+     * @param useAmount
+     * @return 사용 및 사용 내역 기록이 끝나면 완료되는 Future. 처리 한도를 넘었다면 {@link PointOverloadedException} 으로 실패한다.
+     */
+    public CompletableFuture<UserPoint> useAsync(long userId, long useAmount) {
+        return admittedAsync(userId, () -> pointExecution.executeAsync(new PointCommand(userId, TransactionType.USE, useAmount)));
+    }
+
+    /**
+     * 포인트 이체 기능
+     * <br></br>
+     * 보내는 사용자의 사용과 받는 사용자의 충전을 하나의 작업으로 처리한다. 두 사용자의 락을 모두 보유한 채로 잔액을 갱신하므로,
+     * 다른 요청은 한쪽만 반영된 중간 상태를 볼 수 없다.
+     * <br></br>
+     * - 정책 : 단건 사용/충전과 같은 정책을 양쪽에 모두 적용하며, 어느 한쪽이라도 위반하면 아무것도 갱신하지 않는다.
+     * <br></br>
+     * - 내역 : 사용/충전 내역은 같은 시각으로 한 쌍으로 적재되며, 양쪽 모두 기록된 뒤 반환한다.
+     * <br></br>
+     * - 잔액 쓰기를 락으로 직렬화하는 LOCK, COMBINING 모드에서만 지원한다.
+     * @param fromUserId 보내는 사용자 ID
+     * @param toUserId 받는 사용자 ID
+     * @param amount 이체 금액
+     * @return 양쪽의 이체 직후 잔액과 내역
+     * @throws PointOverloadedException 처리 중인 요청 수가 한도를 넘었거나, 제한 시간 안에 락을 획득하지 못한 경우
+     */
+    public PointTransferResult transfer(long fromUserId, long toUserId, long amount) {
+        validateTransfer(fromUserId, toUserId, amount);
+        return admitted(fromUserId, () -> admitted(toUserId, () -> pointExecution.transfer(fromUserId, toUserId, amount)));
+    }
+
+    /**
+     * 포인트 이체 기능 - Future 반환
+     * @param fromUserId
+     * @param toUserId
+     * @param amount
+     * @return 이체 및 양쪽 내역 기록이 끝나면 완료되는 Future. 처리 한도를 넘었다면 {@link PointOverloadedException} 으로 실패한다.
+     */
+    public CompletableFuture<PointTransferResult> transferAsync(long fromUserId, long toUserId, long amount) {
+        try {
+            validateTransfer(fromUserId, toUserId, amount);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return admittedAsync(fromUserId, () -> admittedAsync(toUserId,
+                () -> pointExecution.transferAsync(fromUserId, toUserId, amount)));
+    }
 
-        Lock reEntrantLock = perUserLockStatus.computeIfAbsent(userId, mapping -> new ReentrantLock(true));
-        reEntrantLock.lock(); // 락 설정!
-        long lockAttainedAt = System.currentTimeMillis();
-        log.info("사용 작업 - 락을 획득했습니다 : " + lockAttainedAt);
+    private void validateTransfer(long fromUserId, long toUserId, long amount) {
+        // MAILBOX, SHARDED 는 큐로, OPTIMISTIC 은 버전 CAS 로 잔액 쓰기를 직렬화하므로 사용자 락으로 두 사용자를 함께 묶을 수 없다.
+        if (!pointExecution.supportsTransfer()) {
+            throw new IllegalStateException("현재 실행 방식에서는 포인트 이체를 지원하지 않습니다.");
+        }
+        // 정책 : 자기 자신에게는 이체할 수 없다.
+        if (fromUserId == toUserId) {
+            throw new IllegalArgumentException("자기 자신에게는 포인트를 이체할 수 없습니다.");
+        }
+        // 정책 : 이체 금액은 사용 금액과 같은 정책을 따른다.
+        PointPolicy.validateUseAmount(amount);
+    }
 
+    /*
+       요청 수 제한 : 한도 안이라면 실행하고, 실행이 끝나면(성공/실패 무관) 자리를 반납한다.
+       비동기 API 는 작업 스레드 풀이나 메일박스에 적재하기 전에 판단하므로, 거절된 요청은 어느 대기열에도 쌓이지 않는다.
+     */
+    private <T> T admitted(long userId, Supplier<T> operation) {
+        pointAdmission.acquire(userId);
         try {
+            return operation.get();
+        } finally {
+            pointAdmission.release(userId);
+        }
+    }
 
-            // 정책 : 사용 금액이 0 미만인 경우 예외를 발생시킨다.
-            if(useAmount < 0){throw new IllegalArgumentException("0 미만 금액의 사용은 불가합니다.");}
+    private <T> CompletableFuture<T> admittedAsync(long userId, Supplier<CompletableFuture<T>> operation) {
+        try {
+            pointAdmission.acquire(userId);
+        } catch (PointOverloadedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return releasedOnCompletion(userId, operation);
+    }
 
-            UserPoint userPoint = userPointTable.selectById(userId);
-            UserPoint updatedUserPoint = new UserPoint(userId, userPoint.point() - useAmount, System.currentTimeMillis());
+    /* 이미 받아들인 요청을 실행하고, 실행이 끝나면(성공/실패 무관) 자리를 반납한다. */
+    private <T> CompletableFuture<T> releasedOnCompletion(long userId, Supplier<CompletableFuture<T>> operation) {
+        CompletableFuture<T> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            pointAdmission.release(userId);
+            return CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((completed, failure) -> pointAdmission.release(userId));
+    }
 
-            // 정책 : 차감 후 금액이 0보다 작아질 경우, 유효하지 않으므로 예외를 발생시킨다.
-            if(updatedUserPoint.point() < 0){throw new IllegalArgumentException("잔액 이상의 금액은 사용이 불가합니다.");}
+    /**
+     * 포인트 충전/사용 일괄 처리
+     * <br></br>
+     * 명령을 사용자 별로 묶어, 사용자마다 한 번만 배타적 실행 권한(락, 메일박스 혹은 샤드)을 얻고 잔액을 한 번만 조회/저장한다.
+     * <br></br>
+     * - 같은 사용자의 명령은 요청 순서대로, 단건 충전/사용과 같은 정책으로 하나씩 검증된다.
+     * <br></br>
+     * - 정책을 위반한 명령만 실패로 기록되고, 같은 사용자의 나머지 명령은 계속 처리된다.
+     * <br></br>
+     * - 내역은 잔액보다 먼저 기록한다. 내역 기록에 실패하면 기록된 앞부분의 명령까지만 반영하고, 나머지 명령은 실패로 기록된다.
+     * <br></br>
+     * - 서로 다른 사용자의 묶음은 동시에 처리된다.
+     * <br></br>
+     * - 요청 수 제한 : 사용자 묶음마다 한 자리를 차지한다. 한 묶음이라도 거절되면 어떤 묶음도 처리하지 않고 거절한다.
+     * @param commands 충전/사용 명령 목록
+     * @return 요청 순서와 같은 순서의 명령 별 처리 결과. 처리 한도를 넘었다면 {@link PointOverloadedException} 으로 실패한다.
+     */
+    public CompletableFuture<List<PointCommandResult>> executeBatchAsync(List<PointCommand> commands) {
+        // 정책 : 한 번에 처리할 수 있는 명령 수는 MAX_BATCH_SIZE 이하여야 한다.
+        if (commands.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("일괄 처리 가능한 명령 수(" + MAX_BATCH_SIZE + ")를 초과합니다."));
+        }
+        // 정책 : 모든 명령은 충전/사용 종류를 가져야 한다.
+        if (commands.stream().anyMatch(command -> command.type() == null)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("충전/사용 종류가 없는 명령이 포함되어 있습니다."));
+        }
 
-            // 정책 위반이 없는 경우, 정상적으로 사용 처리 후 사용 내역을 생성하여 저장한다.
-            pointHistoryTable.insert(userId, useAmount, TransactionType.USE, System.currentTimeMillis());
-            return userPointTable.insertOrUpdate(updatedUserPoint.id(), updatedUserPoint.point());
+        // 사용자 별로 명령의 위치(index)를 요청 순서대로 모은다.
+        Map<Long, List<Integer>> indicesByUser = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            indicesByUser.computeIfAbsent(commands.get(i).userId(), userId -> new ArrayList<>()).add(i);
         }
-        finally {
-            long lockReleasedAt = System.currentTimeMillis();
-            log.info("사용 작업 - 락이 해제되었습니다. : {}", lockReleasedAt);
-            log.info("사용 작업 - 총 락 유지 시간 : {}", lockReleasedAt - lockAttainedAt);
-            reEntrantLock.unlock(); // 명시적 락 해제.
+
+        // 모든 사용자 묶음을 적재하기 전에 받아들인다. 일부 묶음만 반영된 채로 거절되면 클라이언트가 안전하게 다시 시도할 수 없다.
+        List<Long> admitted = new ArrayList<>(indicesByUser.size());
+        try {
+            for (long userId : indicesByUser.keySet()) {
+                pointAdmission.acquire(userId);
+                admitted.add(userId);
+            }
+        } catch (PointOverloadedException e) {
+            admitted.forEach(pointAdmission::release);
+            return CompletableFuture.failedFuture(e);
         }
+
+        PointCommandResult[] results = new PointCommandResult[commands.size()];
+        List<CompletableFuture<Void>> userBatches = new ArrayList<>(indicesByUser.size());
+        for (Map.Entry<Long, List<Integer>> entry : indicesByUser.entrySet()) {
+            long userId = entry.getKey();
+            List<PointCommand> userCommands = entry.getValue().stream().map(commands::get).toList();
+            userBatches.add(releasedOnCompletion(userId, () -> pointExecution.executeBatchAsync(userId, userCommands))
+                    .thenAccept(userResults -> {
+                        for (int i = 0; i < userResults.size(); i++) {
+                            results[entry.getValue().get(i)] = userResults.get(i);
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(userBatches.toArray(CompletableFuture[]::new))
+                .thenApply(done -> List.of(results));
+    }
+
+    /**
+     * 포인트 충전/사용 일괄 처리 - 결과를 기다린다.
+     * @param commands
+     * @return
+     */
+    public List<PointCommandResult> executeBatch(List<PointCommand> commands) {
+        return PointExecution.join(executeBatchAsync(commands));
     }
 
     /**
@@ -120,7 +382,7 @@ public class PointService {
      * @return
      */
     public UserPoint getUserPoint(long userId){
-        return userPointTable.selectById(userId);
+        return pointExecution.getUserPoint(userId);
     }
 
     /**
@@ -129,8 +391,209 @@ public class PointService {
      * @return
      */
     public List<PointHistory> getAllHistory(long userId){
-        return pointHistoryTable.selectAllByUserId(userId);
+        // 기록 큐에 남아있는 해당 사용자의 내역이 모두 기록된 이후 조회한다. (Read-Your-Writes)
+        pointHistoryWriter.awaitPending(userId);
+        return pointHistoryRepository.findAllByUserId(userId);
+    }
+
+    /**
+     * 포인트 잔액 조회 기능 - Future 반환
+     * @param userId
+     * @return
+     */
+    public CompletableFuture<UserPoint> getUserPointAsync(long userId) {
+        try {
+            return pointExecution.getUserPointAsync(userId, readExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(pointAdmission.poolSaturated());
+        }
+    }
+
+    /**
+     * 포인트 사용 및 충전 내역 전체 조회 - Future 반환
+     * @param userId
+     * @return
+     */
+    public CompletableFuture<List<PointHistory>> getAllHistoryAsync(long userId) {
+        return pointAdmission.supplyAsync(() -> getAllHistory(userId), readExecutor);
+    }
+
+    /**
+     * 포인트 사용 및 충전 내역 시각 구간 조회
+     * <br></br>
+     * 사용자 별 색인의 시각 열을 이진 탐색하므로, 조회 비용은 사용자의 전체 내역 수가 아닌 결과 크기에 비례한다.
+     * @param userId
+     * @param fromMillis 구간 시작 시각 (포함)
+     * @param toMillis 구간 끝 시각 (포함)
+     * @return 구간에 속하는 내역을 ID 오름차순으로
+     */
+    public List<PointHistory> getHistoryBetween(long userId, long fromMillis, long toMillis) {
+        // 정책 : 구간 시작 시각은 끝 시각보다 늦을 수 없다.
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("조회 시작 시각은 끝 시각보다 늦을 수 없습니다.");
+        }
+        pointHistoryWriter.awaitPending(userId);
+        return pointHistoryRepository.findAllByUserIdBetween(userId, fromMillis, toMillis);
+    }
+
+    /**
+     * 포인트 사용 및 충전 내역 시각 구간 조회 - Future 반환
+     * @param userId
+     * @param fromMillis
+     * @param toMillis
+     * @return
+     */
+    public CompletableFuture<List<PointHistory>> getHistoryBetweenAsync(long userId, long fromMillis, long toMillis) {
+        return pointAdmission.supplyAsync(() -> getHistoryBetween(userId, fromMillis, toMillis), readExecutor);
+    }
+
+    /**
+     * 포인트 충전/사용 요약 조회
+     * <br></br>
+     * 합계와 횟수는 내역이 저장될 때마다 사용자 별로 갱신되어 있으므로, 내역 수와 무관하게 상수 시간에 조회된다.
+     * @param userId
+     * @return 충전/사용 합계와 횟수, 마지막 활동 시각
+     */
+    public PointSummary getSummary(long userId) {
+        // 기록 큐에 남아있는 해당 사용자의 내역이 모두 반영된 이후 조회한다. (Read-Your-Writes)
+        pointHistoryWriter.awaitPending(userId);
+        return pointHistoryRepository.summarize(userId);
     }
 
+    /**
+     * 포인트 충전/사용 요약 조회 - Future 반환
+     * @param userId
+     * @return
+     */
+    public CompletableFuture<PointSummary> getSummaryAsync(long userId) {
+        return pointAdmission.supplyAsync(() -> getSummary(userId), readExecutor);
+    }
 
+    /**
+     * 포인트 사용 및 충전 내역 페이지 조회 - Future 반환
+     * @param userId
+     * @param cursor
+     * @param limit
+     * @return
+     */
+    public CompletableFuture<List<PointHistory>> getHistoryPageAsync(long userId, long cursor, int limit) {
+        return pointAdmission.supplyAsync(() -> getHistoryPage(userId, cursor, limit), readExecutor);
+    }
+
+    /**
+     * 포인트 사용 및 충전 내역 페이지 조회 (Keyset Pagination)
+     * @param userId
+     * @param cursor 직전 페이지의 마지막 내역 ID. 처음부터 조회하려면 0
+     * @param limit 페이지 크기
+     * @return 커서 이후의 내역을 ID 오름차순으로 최대 limit 개
+     */
+    public List<PointHistory> getHistoryPage(long userId, long cursor, int limit) {
+        // 정책 : 페이지 크기는 1 이상 MAX_HISTORY_PAGE_SIZE 이하여야 한다.
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("페이지 크기는 1 이상 " + MAX_HISTORY_PAGE_SIZE + " 이하여야 합니다.");
+        }
+        pointHistoryWriter.awaitPending(userId);
+        return pointHistoryRepository.findAllByUserIdAfter(userId, cursor, limit);
+    }
+
+    /**
+     * 포인트 사용 및 충전 내역을 커서 이후부터 순서대로 하나씩 전달한다.
+     * <br></br>
+     * 전체 목록을 메모리에 만들지 않고 일정 크기씩 나누어 읽으며 전달하므로, 내역이 많은 사용자도 힙 사용량이 일정하다.
+     * @param userId
+     * @param cursor 직전에 전달받은 마지막 내역 ID. 처음부터 조회하려면 0
+     * @param limit 전달할 최대 내역 수
+     * @param action 내역 별로 수행할 작업
+     */
+    public void forEachHistory(long userId, long cursor, long limit, Consumer<PointHistory> action) {
+        pointHistoryWriter.awaitPending(userId);
+        long remaining = limit;
+        long nextCursor = cursor;
+        while (remaining > 0) {
+            List<PointHistory> chunk = pointHistoryRepository.findAllByUserIdAfter(userId, nextCursor, (int) Math.min(remaining, HISTORY_STREAM_CHUNK_SIZE));
+            for (PointHistory pointHistory : chunk) {
+                action.accept(pointHistory);
+            }
+            if (chunk.size() < HISTORY_STREAM_CHUNK_SIZE) {
+                return;
+            }
+            remaining -= chunk.size();
+            nextCursor = chunk.get(chunk.size() - 1).id();
+        }
+    }
+
+    /**
+     * 클러스터 구성 변경 시 사용자 상태 내보내기
+     * <br></br>
+     * 호출자는 이 인스턴스에서 해당 사용자의 요청이 더 이상 처리되지 않음을 보장해야 한다.
+     * @param userId
+     * @return 잔액과 내역 전체. 멱등 키 결과는 {@link IdempotencyStore} 가 따로 내보낸다.
+     */
+    public PointHandoff exportUser(long userId) {
+        PointHandoff handoff = new PointHandoff(getUserPoint(userId), getAllHistory(userId), List.of());
+        balanceOnlyUsers.remove(userId);
+        return handoff;
+    }
+
+    /**
+     * 내역 없이 잔액만 이관받아, 내역 저장소로는 찾을 수 없는 사용자를 순회한다. 이후 내역이 생긴 사용자도 포함될 수 있다.
+     * @param action 사용자 ID 를 전달받는다.
+     */
+    public void forEachBalanceOnlyUser(LongConsumer action) {
+        balanceOnlyUsers.forEach((userId, point, updateMillis, tag) -> action.accept(userId));
+    }
+
+    /**
+     * 클러스터 구성 변경 시 사용자 상태 가져오기
+     * <br></br>
+     * 이 인스턴스에 없는 내역만 원래 순서와 시각으로 추가한 뒤 잔액을 덮어쓴다. 내역 ID 는 이 인스턴스에서 새로 부여된다.
+     * 사용자가 이 인스턴스를 떠났다가 돌아온 경우, 떠나기 전의 내역은 가져온 내역의 앞부분과 같으므로 다시 추가하지 않는다.
+     * <br></br>
+     * 호출자는 가져오기가 끝날 때까지 해당 사용자의 다른 요청이 처리되지 않음을 보장해야 한다.
+     * @param handoff 이전 소유 인스턴스가 내보낸 상태
+     */
+    public void importUser(PointHandoff handoff) {
+        long userId = handoff.point().id();
+        List<PointHistory> existing = getAllHistory(userId);
+        List<PointHistory> incoming = handoff.histories();
+        for (int i = 0; i < existing.size(); i++) {
+            if (i >= incoming.size() || !isSameRecord(existing.get(i), incoming.get(i))) {
+                throw new IllegalStateException("사용자 " + userId + " 의 기존 내역이 이관받을 내역과 다릅니다.");
+            }
+        }
+
+        CompletableFuture<PointHistory> lastHistory = null;
+        for (PointHistory pointHistory : incoming.subList(existing.size(), incoming.size())) {
+            lastHistory = pointHistoryWriter.append(userId, pointHistory.amount(), pointHistory.type(), pointHistory.updateMillis(), lastHistory);
+        }
+        if (lastHistory != null) {
+            // 내역을 모두 옮기지 못했다면 잔액을 덮어쓰지 않고 이관을 실패시켜, 이전 소유자가 다시 시도하도록 한다.
+            pointHistoryWriter.await(lastHistory);
+        }
+        pointExecution.importBalance(userId, handoff.point().point());
+        if (incoming.isEmpty() && handoff.point().point() != 0) {
+            balanceOnlyUsers.put(userId, handoff.point().point(), handoff.point().updateMillis(), 0L);
+        } else {
+            balanceOnlyUsers.remove(userId);
+        }
+    }
+
+    private static boolean isSameRecord(PointHistory local, PointHistory imported) {
+        return local.type() == imported.type()
+                && local.amount() == imported.amount()
+                && local.updateMillis() == imported.updateMillis();
+    }
+
+    /**
+     * 이 인스턴스가 생성한 스레드를 종료한다. 새 명령을 받는 큐와 스레드 풀을 먼저 닫고, 내역 기록 스레드는 마지막에 닫는다.
+     * <br></br>
+     * Spring 이 주입한 협력 객체로 생성된 경우에는 아무것도 하지 않는다.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        ownedResources.forEach(Runnable::run);
+        if (ownedHistoryWriter != null) {
+            ownedHistoryWriter.close();
+        }
+    }
 }
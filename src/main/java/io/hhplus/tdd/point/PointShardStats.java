@@ -0,0 +1,14 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 샤드 별 처리 현황
+ * @param shard 샤드 번호
+ * @param queueDepth 실행을 기다리는 명령 수
+ * @param completed 실행을 마친 누적 명령 수
+ */
+public record PointShardStats(
+        int shard,
+        int queueDepth,
+        long completed
+) {
+}
@@ -0,0 +1,147 @@
+package io.hhplus.tdd.point;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>사용자 ID 분할 단일 스레드 샤드</b>
+ * <br></br>
+ * 사용자 ID 를 해시하여 고정된 수의 샤드 중 하나에 배정한다. 샤드마다 하나의 스레드가 자신의 큐에 적재된 명령을 순서대로 실행하므로,
+ * 한 사용자의 명령은 항상 같은 스레드에서 직렬로 실행되고 사용자 락이 필요 없다.
+ * <br></br>
+ * - 메일박스({@link UserCommandMailbox})와 달리 사용자 별 큐를 만들고 지우지 않으며, 작업자 배정을 위한 스레드 간 전달도 없다.
+ *   샤드 수가 고정이므로 처리량은 사용자 수가 충분하다면 샤드(코어) 수에 비례한다.
+ * <br></br>
+ * - 같은 샤드에 배정된 사용자끼리는 서로를 기다린다. 한 사용자에 요청이 몰리면 그 샤드의 다른 사용자도 함께 지연된다.
+ * <br></br>
+ * - 샤드 별 큐 길이와 누적 처리 수는 {@link #stats()} 와 point.shard.queue.depth / point.shard.completed 지표로 노출한다.
+ * <br></br>
+ * - 샤드 스레드를 만들므로, point.execution.mode 가 SHARDED 일 때만 빈으로 등록한다.
+ */
+@Component
+@ConditionalOnProperty(name = "point.execution.mode", havingValue = "SHARDED")
+public class PointShards {
+
+    private final Shard[] shards;
+
+    public PointShards() {
+        this(0, new PointMetrics());
+    }
+
+    /**
+     * @param shardCount 샤드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @param pointMetrics 샤드 별 지표를 등록할 계측기
+     */
+    @Autowired
+    public PointShards(@Value("${point.shard.count:0}") int shardCount, PointMetrics pointMetrics) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+        }
+        pointMetrics.bindShards(this);
+    }
+
+    /**
+     * 사용자를 소유한 샤드에 명령을 적재한다.
+     * @param userId
+     * @param command 해당 사용자에 대해 배타적으로 실행될 명령
+     * @return 명령 실행 결과로 완료되는 Future
+     */
+    public <T> CompletableFuture<T> submit(long userId, Supplier<T> command) {
+        Shard shard = shards[shardOf(userId)];
+        CompletableFuture<T> result = new CompletableFuture<>();
+        shard.executor.execute(() -> {
+            // 결과를 받은 호출자가 처리 수에 자신의 명령이 포함된 것을 보도록, 완료 전에 센다.
+            T value;
+            try {
+                value = command.get();
+            } catch (RuntimeException e) {
+                shard.completed.increment();
+                result.completeExceptionally(e);
+                return;
+            }
+            shard.completed.increment();
+            result.complete(value);
+        });
+        return result;
+    }
+
+    /**
+     * @param userId
+     * @return 사용자를 소유한 샤드 번호
+     */
+    public int shardOf(long userId) {
+        return Math.floorMod(mix(userId), shards.length);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param shard 샤드 번호
+     * @return 실행을 기다리는 명령 수
+     */
+    public int queueDepth(int shard) {
+        return shards[shard].executor.getQueue().size();
+    }
+
+    /**
+     * @param shard 샤드 번호
+     * @return 실행을 마친 누적 명령 수 (성공/실패 무관)
+     */
+    public long completed(int shard) {
+        return shards[shard].completed.sum();
+    }
+
+    /**
+     * 샤드 별 큐 길이와 누적 처리 수. 처리량은 누적 처리 수의 변화율로 구한다.
+     */
+    public List<PointShardStats> stats() {
+        List<PointShardStats> stats = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            stats.add(new PointShardStats(i, queueDepth(i), completed(i)));
+        }
+        return stats;
+    }
+
+    /* 연속된 사용자 ID 가 고르게 흩어지도록 비트를 섞는다. (MurmurHash3 fmix64) */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    private static final class Shard {
+        private final ThreadPoolExecutor executor;
+        private final LongAdder completed = new LongAdder();
+
+        private Shard(int index) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    PointExecutors.namedDaemonThreadFactory("point-shard-" + index));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 사용자의 포인트 충전/사용 요약
+ * @param userId 대상 사용자 ID
+ * @param totalCharged 충전 금액 합계
+ * @param totalUsed 사용 금액 합계
+ * @param chargeCount 충전 횟수
+ * @param useCount 사용 횟수
+ * @param lastActivityMillis 마지막 충전/사용 시각. 내역이 없다면 0
+ */
+public record PointSummary(
+        long userId,
+        long totalCharged,
+        long totalUsed,
+        long chargeCount,
+        long useCount,
+        long lastActivityMillis
+) {
+
+    public static PointSummary empty(long userId) {
+        return new PointSummary(userId, 0L, 0L, 0L, 0L, 0L);
+    }
+}
@@ -0,0 +1,14 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 포인트 이체 명령
+ * @param fromUserId 보내는 사용자 ID
+ * @param toUserId 받는 사용자 ID
+ * @param amount 이체 금액
+ */
+public record PointTransferCommand(
+        long fromUserId,
+        long toUserId,
+        long amount
+) {
+}
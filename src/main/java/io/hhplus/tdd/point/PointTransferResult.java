@@ -0,0 +1,16 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 포인트 이체 결과
+ * @param from 이체 직후 보낸 사용자의 잔액
+ * @param to 이체 직후 받은 사용자의 잔액
+ * @param withdrawal 보낸 사용자의 사용(USE) 내역
+ * @param deposit 받은 사용자의 충전(CHARGE) 내역. 사용 내역과 같은 금액과 시각을 갖는다.
+ */
+public record PointTransferResult(
+        UserPoint from,
+        UserPoint to,
+        PointHistory withdrawal,
+        PointHistory deposit
+) {
+}
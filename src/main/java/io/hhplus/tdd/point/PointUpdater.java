@@ -0,0 +1,343 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.PointHistoryWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * <b>포인트 갱신 임계 구역</b>
+ * <br></br>
+ * 잔액 조회, 정책 검사, 내역 기록, 잔액 저장을 하나의 갱신으로 수행한다. 모든 실행 방식({@link PointExecution})이 공유하며,
+ * 호출자는 해당 사용자에 대한 배타적 실행(락 보유, 메일박스 작업자, 소유 샤드)을 보장해야 한다.
+ * <br></br>
+ * - 충전/사용 : 배타적 실행 안에서는 내역을 기록 큐에 적재하고 잔액을 저장하기까지만 한다. 적재 순서가 곧 사용자 별 내역 순서이며,
+ *   내역 기록은 배타적 실행을 마친 뒤에 기다린다. 기록하지 못했다면 호출자가 다시 배타적으로 {@link #compensate} 를 실행한다.
+ * <br></br>
+ * - 일괄 처리 : 내역을 잔액보다 먼저 기록한다. 기록하지 못한 명령은 잔액에 반영하지 않고 실패시킨다.
+ * <br></br>
+ * - 잔액 조회/저장 단계의 지연 시간은 작업 종류 별로 기록된다.
+ */
+final class PointUpdater {
+
+    private final UserPointRepository userPointRepository;
+    private final PointHistoryWriter pointHistoryWriter;
+    private final PointMetrics pointMetrics;
+
+    PointUpdater(UserPointRepository userPointRepository, PointHistoryWriter pointHistoryWriter, PointMetrics pointMetrics) {
+        this.userPointRepository = userPointRepository;
+        this.pointHistoryWriter = pointHistoryWriter;
+        this.pointMetrics = pointMetrics;
+    }
+
+    /**
+     * 같은 내역 기록과 계측을 사용하되, 다른 저장소의 잔액을 갱신한다. (예 : 저장소 앞에 둔 샤드 별 잔액)
+     */
+    PointUpdater withRepository(UserPointRepository userPointRepository) {
+        return new PointUpdater(userPointRepository, pointHistoryWriter, pointMetrics);
+    }
+
+    UserPointRepository userPointRepository() {
+        return userPointRepository;
+    }
+
+    /**
+     * 충전/사용 임계 구역 : 정책을 검사한 뒤 내역을 기록 큐에 적재하고 잔액을 저장한다. 내역이 기록되기를 기다리지 않는다.
+     * <br></br>
+     * 호출자는 배타적 실행을 마친 뒤 {@link Applied#history()} 가 기록되기를 기다려야 하며,
+     * 기록하지 못했다면 다시 해당 사용자에 대한 배타적 실행 안에서 {@link #compensate} 를 호출해야 한다.
+     * @param command
+     * @return 명령이 반영된 잔액과 기록 중인 내역
+     */
+    Applied apply(PointCommand command) {
+        long userId = command.userId();
+        PointOperation operation = PointOperation.of(command.type());
+
+        // 정책 : 충전/사용 금액이 0 미만이라면 잔액을 조회하기 전에 실패시킨다.
+        PointPolicy.validateAmount(command.type(), command.amount());
+
+        UserPoint userPoint = select(userId, operation);
+
+        // 정책 : 충전 후 잔액이 최대 충전 한도를 초과하거나, 사용 후 잔액이 0보다 작아질 경우 예외를 발생시킨다.
+        long balance = PointPolicy.apply(userPoint.point(), command.type(), command.amount());
+
+        // 정책 위반 사항이 없는 경우, 내역을 기록 큐에 적재한 뒤 잔액을 갱신한다. 적재는 배타적 실행 안에서 이루어지므로 내역 순서가 보장된다.
+        CompletableFuture<PointHistory> history = append(userId, command.amount(), command.type(), System.currentTimeMillis());
+        try {
+            return new Applied(command, save(userId, balance, operation), history);
+        } catch (RuntimeException e) {
+            // 잔액을 저장하지 못했다면, 적재한 내역이 기록되는 대로 반대 종류의 내역으로 상쇄한다.
+            offset(history, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 잔액을 저장한 뒤 내역을 기록하지 못한 충전/사용을 보정한다. 호출자는 다시 해당 사용자에 대한 배타적 실행을 보장해야 한다.
+     * <br></br>
+     * - 명령을 되돌린 잔액이 정책을 지킨다면 잔액을 되돌리고 기록 실패로 요청을 실패시킨다.
+     * <br></br>
+     * - 그 사이 같은 사용자의 다른 명령이 이 잔액을 바탕으로 반영되어 되돌릴 수 없다면, 잔액을 그대로 두고 내역을 다시 기록한다.
+     *   다시 기록했다면 명령은 반영된 것이므로 명령 직후의 잔액을 반환하고, 그마저 실패했다면 원래 실패에 덧붙여 실패시킨다.
+     * @param applied {@link #apply} 의 결과
+     * @param failure 내역 기록 실패 원인
+     * @return 내역을 다시 기록한 경우 명령이 반영된 잔액
+     */
+    UserPoint compensate(Applied applied, Throwable failure) {
+        RuntimeException cause = failure instanceof RuntimeException e ? e : new CompletionException(failure);
+        CompletableFuture<PointHistory> retry = revertOrRetry(applied, cause);
+        try {
+            await(retry);
+            return applied.userPoint();
+        } catch (RuntimeException retryFailure) {
+            cause.addSuppressed(retryFailure);
+            throw cause;
+        }
+    }
+
+    /**
+     * {@link #compensate} 의 배타적 실행 부분. 잔액을 되돌릴 수 있다면 되돌리고 cause 를 던지며,
+     * 되돌릴 수 없다면 내역을 다시 기록 큐에 적재하고 기록을 기다리지 않고 반환한다.
+     * @param applied {@link #apply} 의 결과
+     * @param cause 내역 기록 실패 원인
+     * @return 다시 적재한 내역. 기록되었다면 명령은 반영된 것이다.
+     */
+    CompletableFuture<PointHistory> revertOrRetry(Applied applied, RuntimeException cause) {
+        if (userPointRepository.derivedFromHistory()) {
+            // 기록되지 않은 내역은 잔액에 반영되지 않았으므로 되돌릴 것이 없다.
+            throw cause;
+        }
+        PointCommand command = applied.command();
+        PointOperation operation = PointOperation.of(command.type());
+        long reverted;
+        try {
+            reverted = PointPolicy.revert(select(command.userId(), operation).point(), command.type(), command.amount());
+        } catch (IllegalArgumentException e) {
+            cause.addSuppressed(e);
+            return append(command.userId(), command.amount(), command.type(), System.currentTimeMillis());
+        }
+        try {
+            save(command.userId(), reverted, operation);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+        throw cause;
+    }
+
+    /**
+     * 일괄 처리 임계 구역 : 잔액을 한 번 조회하고, 명령을 순서대로 메모리 상의 잔액에 반영한 뒤,
+     * 성공한 명령의 내역을 기록하고 기록된 명령이 있다면 잔액을 한 번만 저장한다.
+     * @param userId
+     * @param userCommands 같은 사용자에 대한 명령 목록
+     * @return 명령 별 처리 결과
+     */
+    List<PointCommandResult> applyBatch(long userId, List<PointCommand> userCommands) {
+        return completeBatch(appendBatch(userId, userCommands));
+    }
+
+    /**
+     * 일괄 처리의 앞 단계 : 잔액을 한 번 조회하고, 명령을 순서대로 메모리 상의 잔액에 반영한 뒤 성공한 명령의 내역을 기록 큐에 적재한다.
+     * 호출자는 {@link #completeBatch} 를 마칠 때까지 해당 사용자의 다른 갱신이 실행되지 않음을 보장해야 한다.
+     * @param userId
+     * @param userCommands 같은 사용자에 대한 명령 목록
+     * @return 기록 중인 일괄 처리
+     */
+    PendingBatch appendBatch(long userId, List<PointCommand> userCommands) {
+        long initialBalance = select(userId, PointOperation.BATCH).point();
+        BatchPlan plan = planBatch(initialBalance, userCommands);
+        return new PendingBatch(userId, userCommands, initialBalance, plan, appendHistories(userId, plan.applied()));
+    }
+
+    /**
+     * 일괄 처리의 뒤 단계 : 내역이 기록되기를 기다린 뒤, 기록된 명령이 있다면 잔액을 한 번만 저장한다.
+     * 내역이 모두 기록된 뒤 호출하면 기다리지 않는다.
+     * @param pending {@link #appendBatch} 의 결과
+     * @return 명령 별 처리 결과
+     */
+    List<PointCommandResult> completeBatch(PendingBatch pending) {
+        BatchPlan plan = pending.plan();
+        if (plan.applied().isEmpty()) {
+            return plan.results();
+        }
+
+        RecordedHistories recorded = awaitRecorded(pending.histories());
+        BatchPlan durable = recordedPlan(plan, pending.initialBalance(), pending.userCommands(), recorded);
+        if (!durable.applied().isEmpty()) {
+            save(pending.userId(), durable.balance(), PointOperation.BATCH);
+        }
+        return durable.results();
+    }
+
+    /**
+     * 명령을 순서대로 메모리 상의 잔액에 반영한다. 정책을 위반한 명령은 실패로 기록하고 건너뛴다.
+     */
+    static BatchPlan planBatch(long balance, List<PointCommand> userCommands) {
+        List<PointCommandResult> results = new ArrayList<>(userCommands.size());
+        List<PointCommand> applied = new ArrayList<>(userCommands.size());
+
+        for (PointCommand command : userCommands) {
+            try {
+                balance = PointPolicy.apply(balance, command.type(), command.amount());
+                applied.add(command);
+                results.add(PointCommandResult.succeeded(command, balance));
+            } catch (IllegalArgumentException e) {
+                results.add(PointCommandResult.failed(command, balance, e.getMessage()));
+            }
+        }
+        return new BatchPlan(results, applied, balance);
+    }
+
+    /**
+     * 기록된 앞부분의 명령까지만 반영한 계획. 처음으로 기록하지 못한 명령부터는 정책 검사 결과와 무관하게 실패로 기록하고,
+     * 그 직전의 잔액을 결과 잔액으로 한다.
+     */
+    static BatchPlan recordedPlan(BatchPlan plan, long initialBalance, List<PointCommand> userCommands, RecordedHistories recorded) {
+        if (recorded.count() == plan.applied().size()) {
+            return plan;
+        }
+        List<PointCommandResult> results = new ArrayList<>(userCommands.size());
+        long balance = initialBalance;
+        int succeeded = 0;
+        for (int i = 0; i < userCommands.size(); i++) {
+            PointCommandResult result = plan.results().get(i);
+            if (result.success() && succeeded++ == recorded.count()) {
+                for (PointCommand rest : userCommands.subList(i, userCommands.size())) {
+                    results.add(PointCommandResult.failed(rest, balance, "포인트 내역을 기록하지 못했습니다."));
+                }
+                break;
+            }
+            results.add(result);
+            balance = result.point();
+        }
+        return new BatchPlan(results, plan.applied().subList(0, recorded.count()), balance);
+    }
+
+    /**
+     * 같은 사용자의 내역을 순서대로 이어서 적재한다. 앞선 내역의 기록이 실패하면 뒤의 내역은 기록되지 않는다.
+     */
+    List<CompletableFuture<PointHistory>> appendHistories(long userId, List<PointCommand> commands) {
+        List<CompletableFuture<PointHistory>> histories = new ArrayList<>(commands.size());
+        CompletableFuture<PointHistory> previous = null;
+        for (PointCommand command : commands) {
+            previous = pointHistoryWriter.append(userId, command.amount(), command.type(), System.currentTimeMillis(), previous);
+            histories.add(previous);
+        }
+        return histories;
+    }
+
+    /**
+     * 이어서 적재한 내역이 기록된 앞부분의 길이와, 처음으로 기록하지 못한 내역의 실패 원인을 구한다.
+     */
+    RecordedHistories awaitRecorded(List<CompletableFuture<PointHistory>> histories) {
+        for (int i = 0; i < histories.size(); i++) {
+            try {
+                pointHistoryWriter.await(histories.get(i));
+            } catch (RuntimeException e) {
+                return new RecordedHistories(i, e);
+            }
+        }
+        return new RecordedHistories(histories.size(), null);
+    }
+
+    /**
+     * 내역을 기록 큐에 적재한다.
+     * @return 기록되면 완료되는 Future
+     */
+    CompletableFuture<PointHistory> append(long userId, long amount, TransactionType type, long updateMillis) {
+        return pointHistoryWriter.append(userId, amount, type, updateMillis);
+    }
+
+    /**
+     * 적재한 내역이 기록될 때까지 기다린다. 기록하지 못했다면 예외를 던진다.
+     */
+    PointHistory await(CompletableFuture<PointHistory> history) {
+        return pointHistoryWriter.await(history);
+    }
+
+    /**
+     * 내역을 기록 큐에 적재하고 기록될 때까지 기다린다.
+     */
+    PointHistory record(long userId, long amount, TransactionType type) {
+        return await(append(userId, amount, type, System.currentTimeMillis()));
+    }
+
+    /**
+     * 잔액에 반영하지 않을 내역을 반대 종류의 내역으로 상쇄한다. 상쇄에도 실패했다면 원래 실패에 덧붙인다.
+     */
+    void offset(long userId, long amount, TransactionType type, RuntimeException failure) {
+        try {
+            record(userId, amount, type);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 적재한 내역이 기록되면 반대 종류의 내역으로 상쇄한다. 적재한 내역이 기록되지 않았거나 상쇄에 실패했다면 원래 실패에 덧붙인다.
+     */
+    void offset(CompletableFuture<PointHistory> appended, RuntimeException failure) {
+        PointHistory recorded;
+        try {
+            recorded = await(appended);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+            return;
+        }
+        TransactionType opposite = recorded.type() == TransactionType.CHARGE ? TransactionType.USE : TransactionType.CHARGE;
+        offset(recorded.userId(), recorded.amount(), opposite, failure);
+    }
+
+    /**
+     * 잔액 조회 요청의 조회. 갱신 단계가 아니므로 지연 시간을 기록하지 않는다.
+     */
+    UserPoint find(long userId) {
+        return userPointRepository.findById(userId);
+    }
+
+    /**
+     * 갱신을 위한 잔액 조회. 잔액이 내역으로부터 계산되는 저장소라면, 앞서 적재한 내역이 반영되도록 기록 중인 내역을 먼저 기다린다.
+     */
+    UserPoint select(long userId, PointOperation operation) {
+        if (userPointRepository.derivedFromHistory()) {
+            pointHistoryWriter.awaitPending(userId);
+        }
+        return pointMetrics.time(PointMetrics.Stage.SELECT, operation, () -> userPointRepository.findById(userId));
+    }
+
+    UserPoint save(long userId, long point, PointOperation operation) {
+        return pointMetrics.time(PointMetrics.Stage.UPDATE, operation, () -> userPointRepository.save(userId, point));
+    }
+
+    /**
+     * 이관받은 잔액을 저장한다. 내역으로부터 계산되는 잔액이라도 이관받은 값으로 덮어쓴다.
+     */
+    UserPoint importBalance(long userId, long point) {
+        return pointMetrics.time(PointMetrics.Stage.UPDATE, PointOperation.HANDOFF, () -> userPointRepository.importBalance(userId, point));
+    }
+
+    /**
+     * 이어서 적재한 내역 중 기록된 앞부분의 길이와, 처음으로 기록하지 못한 내역의 실패 원인. 모두 기록되었다면 failure 는 null
+     */
+    record RecordedHistories(int count, RuntimeException failure) {
+    }
+
+    /**
+     * 배타적 실행 안에서 반영한 충전/사용. 잔액은 저장되었고 내역은 기록 중이다.
+     */
+    record Applied(PointCommand command, UserPoint userPoint, CompletableFuture<PointHistory> history) {
+    }
+
+    /**
+     * 내역을 적재했고 아직 잔액에 반영하지 않은 일괄 처리.
+     */
+    record PendingBatch(long userId, List<PointCommand> userCommands, long initialBalance, BatchPlan plan,
+                        List<CompletableFuture<PointHistory>> histories) {
+    }
+
+    /**
+     * 일괄 처리 계획 : 명령 별 결과, 정책을 통과한 명령, 모두 반영한 뒤의 잔액.
+     */
+    record BatchPlan(List<PointCommandResult> results, List<PointCommand> applied, long balance) {
+    }
+}
@@ -0,0 +1,93 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <b>참조 카운트 기반 사용자 락</b>
+ * <br></br>
+ * 사용자 별로 공정 락을 생성하되, 락을 보유하거나 기다리는 스레드 수(참조 수)를 함께 관리한다.
+ * 참조 수가 0 이 되는 순간 맵에서 제거하므로, 유지되는 락의 수는 "현재 사용 중인 사용자 수"로 제한된다.
+ * <br></br>
+ * - 참조 수의 증감과 제거는 모두 {@link ConcurrentHashMap#compute} 내부에서 원자적으로 수행된다.
+ *   따라서 제거 직전의 락을 다른 스레드가 새로 참조하는 경합이 발생하지 않는다.
+ */
+public class RefCountedUserLockProvider implements UserLockProvider {
+
+    private final ConcurrentHashMap<Long, CountedLock> locks = new ConcurrentHashMap<>();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    @Override
+    public void lock(long userId) {
+        CountedLock countedLock = retain(userId);
+
+        if (countedLock.lock.isLocked() && !countedLock.lock.isHeldByCurrentThread()) {
+            contendedAcquisitions.increment();
+        }
+        long waitStartedAt = System.nanoTime();
+        countedLock.lock.lock();
+        totalWaitNanos.add(System.nanoTime() - waitStartedAt);
+        acquisitions.increment();
+    }
+
+    @Override
+    public boolean tryLock(long userId, Duration timeout) {
+        CountedLock countedLock = retain(userId);
+
+        if (countedLock.lock.isLocked() && !countedLock.lock.isHeldByCurrentThread()) {
+            contendedAcquisitions.increment();
+        }
+        long waitStartedAt = System.nanoTime();
+        boolean acquired = StripedUserLockProvider.tryLock(countedLock.lock, timeout);
+        totalWaitNanos.add(System.nanoTime() - waitStartedAt);
+        if (!acquired) {
+            release(userId);
+            return false;
+        }
+        acquisitions.increment();
+        return true;
+    }
+
+    @Override
+    public void unlock(long userId) {
+        CountedLock countedLock = locks.get(userId);
+        if (countedLock == null) {
+            throw new IllegalMonitorStateException("보유 중이지 않은 사용자 락입니다. : " + userId);
+        }
+        countedLock.lock.unlock();
+        release(userId);
+    }
+
+    private CountedLock retain(long userId) {
+        return locks.compute(userId, (id, current) -> {
+            CountedLock retained = current == null ? new CountedLock() : current;
+            retained.references++;
+            return retained;
+        });
+    }
+
+    /* 더 이상 참조하는 스레드가 없다면 제거한다. */
+    private void release(long userId) {
+        locks.computeIfPresent(userId, (id, current) -> --current.references == 0 ? null : current);
+    }
+
+    @Override
+    public UserLockStats stats() {
+        return new UserLockStats(UserLockStrategy.REF_COUNTED,
+                acquisitions.sum(),
+                contendedAcquisitions.sum(),
+                totalWaitNanos.sum(),
+                locks.size(),
+                0L);
+    }
+
+    private static final class CountedLock {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int references; // compute 내부에서만 읽고 쓴다.
+    }
+}
@@ -0,0 +1,296 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.LongBalanceTable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <b>샤드 별 잔액 (SHARDED 모드)</b>
+ * <br></br>
+ * {@link UserPointRepository} 앞에 위치하여, 샤드가 소유한 사용자의 잔액을 샤드 별 {@link LongBalanceTable} 에 유지한다.
+ * 잔액은 소유 샤드의 스레드만 쓰고, 조회는 어느 스레드에서나 락 없이 한다. 샤드 스레드는 저장소를 기다리지 않는다.
+ * <br></br>
+ * - 적재 : 처음 다루는 사용자의 잔액은 샤드 밖의 스레드가 저장소에서 읽어온다. 읽어오는 동안 그 사용자의 명령은 샤드에 보류되었다가
+ *   적재된 뒤 순서대로 실행되며, 같은 샤드의 다른 사용자의 명령은 기다리지 않는다. ({@link #whenLoaded})
+ *   샤드 밖에서 기다린 결과로 잔액을 갱신하는 명령도 같은 방식으로 그 사용자의 명령만 보류한다. ({@link #hold})
+ * <br></br>
+ * - 반영 : 저장한 잔액은 사용자 별로 하나의 반영 작업이 최신 값만 저장소에 저장한다. 저장소가 한 사용자의 저장에서 느려져도
+ *   같은 샤드의 다른 사용자의 반영은 기다리지 않는다.
+ *   호출자는 {@link #takePersisted(long)} 로 자신이 저장한 잔액이 반영될 때까지 기다린 뒤 응답한다.
+ * <br></br>
+ * - 조회 : 샤드에 적재된 잔액을, 없다면 저장소의 값을 반환한다. 적재되지 않은 사용자의 잔액은 모두 저장소에 반영되어 있다.
+ * <br></br>
+ * 잔액은 샤드가 직접 유지하므로 내역으로부터 계산되는 저장소 앞에서도 기록 중인 내역을 기다리지 않는다. ({@link #derivedFromHistory()})
+ */
+final class ShardLocalBalances implements UserPointRepository {
+
+    /* 저장소 조회/저장은 블로킹이므로, 스레드 수는 CPU 코어 수가 아니라 동시에 저장소를 기다릴 수 있는 사용자 수로 정한다. */
+    private static final int IO_THREADS = 64;
+
+    private final UserPointRepository userPointRepository;
+    private final PointShards pointShards;
+    private final Local[] locals;
+    private final ExecutorService ioExecutor;
+
+    /**
+     * @param userPointRepository 적재 및 최종 반영 대상 저장소
+     * @param pointShards 잔액을 소유하는 샤드
+     */
+    ShardLocalBalances(UserPointRepository userPointRepository, PointShards pointShards) {
+        this.userPointRepository = userPointRepository;
+        this.pointShards = pointShards;
+        this.locals = new Local[pointShards.shardCount()];
+        for (int i = 0; i < locals.length; i++) {
+            locals[i] = new Local();
+        }
+        this.ioExecutor = PointExecutors.newFixedPool("point-shard-io", IO_THREADS);
+    }
+
+    /**
+     * 사용자의 잔액이 샤드에 적재된 뒤 명령을 실행한다. 소유 샤드의 스레드에서 호출해야 한다.
+     * <br></br>
+     * 적재되어 있다면 곧바로 실행하고, 아니라면 적재를 시작하거나 진행 중인 적재에 명령을 보류한 뒤 반환한다.
+     * @param userId
+     * @param command 적재된 잔액으로 실행할 명령
+     * @return 명령의 결과로 완료되는 Future. 적재에 실패했다면 그 원인으로 실패한다.
+     */
+    <T> CompletableFuture<T> whenLoaded(long userId, Supplier<CompletableFuture<T>> command) {
+        Local local = localOf(userId);
+        if ((local.loading.isEmpty() || !local.loading.containsKey(userId)) && local.balances.find(userId) != null) {
+            return run(command);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Consumer<Throwable> parked = failure -> {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            run(command).whenComplete((value, commandFailure) -> {
+                if (commandFailure != null) {
+                    result.completeExceptionally(commandFailure);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        List<Consumer<Throwable>> waiting = local.loading.get(userId);
+        if (waiting != null) {
+            waiting.add(parked);
+            return result;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(parked);
+        local.loading.put(userId, waiting);
+        CompletableFuture.supplyAsync(() -> userPointRepository.findById(userId), ioExecutor)
+                .whenComplete((loaded, failure) -> pointShards.submit(userId, () -> {
+                    if (failure == null && local.balances.find(userId) == null) {
+                        local.balances.put(userId, loaded.point(), loaded.updateMillis(), 0L);
+                    }
+                    resume(local, userId, failure);
+                    return null;
+                }));
+        return result;
+    }
+
+    /**
+     * 적재된 사용자의 이후 명령을 {@link #release(long)} 할 때까지 보류한다. 소유 샤드의 스레드에서 호출해야 한다.
+     * <br></br>
+     * 샤드 밖에서 기다린 결과로 잔액을 갱신하는 명령(예 : 내역을 먼저 기록하는 일괄 처리)이 그 사이 다른 명령에 앞지르지 않도록 한다.
+     * 같은 샤드의 다른 사용자의 명령은 기다리지 않는다.
+     */
+    void hold(long userId) {
+        localOf(userId).loading.put(userId, new ArrayList<>());
+    }
+
+    /**
+     * 보류한 명령을 순서대로 실행한다. 소유 샤드의 스레드에서 호출해야 한다.
+     */
+    void release(long userId) {
+        resume(localOf(userId), userId, null);
+    }
+
+    /*
+       샤드 스레드 : 적재 또는 보류가 끝난 사용자의 명령을 순서대로 실행한다. 적재하지 못했다면 모두 그 원인으로 실패시킨다.
+       실행한 명령이 다시 보류했다면 남은 명령은 새 보류 목록으로 옮긴다.
+     */
+    private void resume(Local local, long userId, Throwable failure) {
+        List<Consumer<Throwable>> waiting = local.loading.remove(userId);
+        for (int i = 0; i < waiting.size(); i++) {
+            List<Consumer<Throwable>> held = local.loading.get(userId);
+            if (held != null) {
+                held.addAll(waiting.subList(i, waiting.size()));
+                return;
+            }
+            waiting.get(i).accept(failure);
+        }
+    }
+
+    private static <T> CompletableFuture<T> run(Supplier<CompletableFuture<T>> command) {
+        try {
+            return command.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 샤드에 적재된 잔액을 조회한다.
+     * @param userId
+     * @return 적재되지 않은 사용자라면 null
+     */
+    UserPoint findLoaded(long userId) {
+        return localOf(userId).balances.find(userId);
+    }
+
+    @Override
+    public UserPoint findById(long userId) {
+        UserPoint loaded = findLoaded(userId);
+        return loaded != null ? loaded : userPointRepository.findById(userId);
+    }
+
+    /**
+     * 샤드의 잔액을 갱신하고 반영을 예약한다. 소유 샤드의 스레드에서 호출해야 한다.
+     */
+    @Override
+    public UserPoint save(long userId, long point) {
+        Local local = localOf(userId);
+        long updateMillis = System.currentTimeMillis();
+        long sequence = ++local.sequence;
+        local.balances.put(userId, point, updateMillis, sequence);
+
+        CompletableFuture<Void> persisted = new CompletableFuture<>();
+        UserFlush flush = local.flushes.get(userId);
+        if (flush == null || !flush.offer(point, sequence, persisted)) {
+            UserFlush created = new UserFlush(point, sequence, persisted);
+            local.flushes.put(userId, created);
+            ioExecutor.execute(() -> flush(local, userId, created));
+        }
+        local.lastPersisted = persisted;
+        return new UserPoint(userId, point, updateMillis);
+    }
+
+    /**
+     * 현재 샤드 스레드에서 마지막으로 저장한 잔액이 저장소에 반영되면 완료되는 Future 를 꺼낸다. 소유 샤드의 스레드에서 호출해야 한다.
+     * @param userId 샤드를 찾기 위한 사용자 ID
+     * @return 꺼내기 전까지 저장한 잔액이 없다면 완료된 Future
+     */
+    CompletableFuture<Void> takePersisted(long userId) {
+        Local local = localOf(userId);
+        CompletableFuture<Void> persisted = local.lastPersisted;
+        local.lastPersisted = null;
+        return persisted != null ? persisted : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 저장소에 이관받은 잔액을 저장한 뒤 소유 샤드의 잔액도 덮어쓴다. 반영을 기다리던 이전 잔액이 이관받은 잔액을 덮어쓰지 않도록 다시 반영한다.
+     * 샤드 스레드가 아닌 스레드에서 호출해야 한다.
+     */
+    @Override
+    public UserPoint importBalance(long userId, long point) {
+        UserPoint imported = userPointRepository.importBalance(userId, point);
+        PointExecution.join(pointShards.submit(userId, () -> {
+            save(userId, point);
+            return takePersisted(userId);
+        }).thenCompose(persisted -> persisted));
+        return imported;
+    }
+
+    @Override
+    public boolean derivedFromHistory() {
+        return false;
+    }
+
+    private Local localOf(long userId) {
+        return locals[pointShards.shardOf(userId)];
+    }
+
+    /*
+       사용자 별 반영 작업 : 최신 잔액만 저장하고, 저장하는 동안 새 잔액이 저장되었다면 이어서 반영한다.
+       저장한 순번까지의 대기는 완료하거나, 저장하지 못했다면 그 원인으로 실패시킨다. 사용자마다 반영 작업은 하나이므로 반영 순서가 뒤바뀌지 않는다.
+     */
+    private void flush(Local local, long userId, UserFlush flush) {
+        while (true) {
+            long point;
+            long sequence;
+            synchronized (flush) {
+                point = flush.point;
+                sequence = flush.sequence;
+            }
+            RuntimeException failure = null;
+            try {
+                userPointRepository.save(userId, point);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (flush.persisted(sequence, failure)) {
+                local.flushes.remove(userId, flush);
+                return;
+            }
+        }
+    }
+
+    void close() {
+        ioExecutor.shutdown();
+    }
+
+    /* 한 샤드의 잔액. 잔액 테이블과 적재 상태, 순번은 샤드 스레드만 쓴다. */
+    private static final class Local {
+        private final LongBalanceTable balances = new LongBalanceTable();
+        /* 반영 중인 쓰기가 있는 사용자의 반영 작업. 반영을 마치면 제거되므로 반영 중인 사용자만 담긴다. */
+        private final ConcurrentHashMap<Long, UserFlush> flushes = new ConcurrentHashMap<>();
+
+        /* 적재 중이거나 보류된 사용자와 그동안 기다리는 명령. 해당 사용자만 담기므로, 비어 있다면 조회하지 않는다. */
+        private final Map<Long, List<Consumer<Throwable>>> loading = new HashMap<>();
+        private long sequence;
+        private CompletableFuture<Void> lastPersisted;
+    }
+
+    /* 한 사용자의 반영할 최신 잔액과 반영 대기. 모니터로 보호되며, 모니터 안에서는 블로킹하지 않는다. */
+    private static final class UserFlush {
+        private long point;
+        private long sequence;
+        private final List<PersistWaiter> waiters = new ArrayList<>();
+        private boolean retired;
+
+        private UserFlush(long point, long sequence, CompletableFuture<Void> persisted) {
+            this.point = point;
+            this.sequence = sequence;
+            waiters.add(new PersistWaiter(sequence, persisted));
+        }
+
+        /* 반영 작업이 끝나지 않았다면 반영할 잔액을 갱신하고 대기를 등록한다. 끝났다면 false */
+        private synchronized boolean offer(long point, long sequence, CompletableFuture<Void> persisted) {
+            if (retired) {
+                return false;
+            }
+            this.point = point;
+            this.sequence = sequence;
+            waiters.add(new PersistWaiter(sequence, persisted));
+            return true;
+        }
+
+        /* 저장한 순번까지의 대기를 끝낸다. 그 사이 새 잔액이 없다면 반영 작업을 끝내고 true */
+        private synchronized boolean persisted(long sequence, RuntimeException failure) {
+            while (!waiters.isEmpty() && waiters.get(0).sequence() <= sequence) {
+                CompletableFuture<Void> persisted = waiters.remove(0).persisted();
+                if (failure == null) {
+                    persisted.complete(null);
+                } else {
+                    persisted.completeExceptionally(failure);
+                }
+            }
+            retired = this.sequence == sequence;
+            return retired;
+        }
+    }
+
+    private record PersistWaiter(long sequence, CompletableFuture<Void> persisted) {
+    }
+}
@@ -0,0 +1,143 @@
+package io.hhplus.tdd.point;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <b>SHARDED 모드 : 단일 스레드 샤드 실행</b>
+ * <br></br>
+ * 사용자 ID 를 해시하여 고정된 수의 단일 스레드 샤드에 배정한다. 사용자의 충전/사용은 사용자를 소유한 샤드에서만 실행되므로 사용자 락이 필요 없다.
+ * <br></br>
+ * - 잔액은 샤드 별 잔액({@link ShardLocalBalances})에 유지한다. 샤드 스레드는 저장소 조회/저장과 내역 기록을 기다리지 않으며,
+ *   저장소에 반영되고 내역이 기록되기를 기다리는 것은 요청의 Future 이다.
+ * <br></br>
+ * - 잔액 조회는 샤드 큐를 거치지 않고 샤드에 적재된 잔액을 읽으므로, 적재된 충전/사용을 기다리지 않는다.
+ */
+class ShardedPointExecution implements PointExecution {
+
+    private final PointUpdater pointUpdater;
+    private final PointShards pointShards;
+    private final ShardLocalBalances balances;
+
+    /**
+     * @param pointUpdater 저장소에 직접 쓰는 갱신. 샤드 별 잔액을 앞에 둔 갱신으로 바꾸어 사용한다.
+     * @param pointShards
+     */
+    ShardedPointExecution(PointUpdater pointUpdater, PointShards pointShards) {
+        this.balances = new ShardLocalBalances(pointUpdater.userPointRepository(), pointShards);
+        this.pointUpdater = pointUpdater.withRepository(balances);
+        this.pointShards = pointShards;
+    }
+
+    @Override
+    public UserPoint execute(PointCommand command) {
+        return PointExecution.join(executeAsync(command));
+    }
+
+    /**
+     * 소유 샤드에서는 내역을 적재하고 잔액을 저장하기까지만 하고, 내역 기록은 다음 명령을 막지 않고 기다린다.
+     * 기록하지 못했다면 보정도 소유 샤드에서 실행하며, 다시 적재한 내역도 샤드 밖에서 기다린다.
+     */
+    @Override
+    public CompletableFuture<UserPoint> executeAsync(PointCommand command) {
+        long userId = command.userId();
+        return onShard(userId, () -> pointUpdater.apply(command))
+                .thenCompose(applied -> applied.history()
+                        .handle((history, failure) -> failure == null
+                                ? CompletableFuture.completedFuture(applied.userPoint())
+                                : compensate(applied, failure))
+                        .thenCompose(Function.identity()));
+    }
+
+    private CompletableFuture<UserPoint> compensate(PointUpdater.Applied applied, Throwable failure) {
+        RuntimeException cause = failure instanceof RuntimeException e ? e : new CompletionException(failure);
+        return onShard(applied.command().userId(), () -> pointUpdater.revertOrRetry(applied, cause))
+                .thenCompose(retry -> retry.handle((history, retryFailure) -> {
+                    if (retryFailure != null) {
+                        cause.addSuppressed(retryFailure);
+                        throw cause;
+                    }
+                    return applied.userPoint();
+                }));
+    }
+
+    /**
+     * 일괄 처리는 내역을 먼저 기록한 뒤 잔액을 저장한다. 소유 샤드에서 내역을 적재하고 그 사용자의 명령만 보류한 뒤,
+     * 내역이 기록되면 다시 소유 샤드에서 잔액을 저장하고 보류한 명령을 이어서 실행한다.
+     */
+    @Override
+    public CompletableFuture<List<PointCommandResult>> executeBatchAsync(long userId, List<PointCommand> userCommands) {
+        return onShard(userId, () -> {
+                    PointUpdater.PendingBatch pending = pointUpdater.appendBatch(userId, userCommands);
+                    if (pending.histories().isEmpty()) {
+                        return CompletableFuture.completedFuture(pointUpdater.completeBatch(pending));
+                    }
+                    balances.hold(userId);
+                    return CompletableFuture.allOf(pending.histories().toArray(CompletableFuture[]::new))
+                            .handle((recorded, failure) -> pointShards.submit(userId, () -> completeBatch(pending)))
+                            .thenCompose(Function.identity())
+                            .thenCompose(Function.identity());
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /* 소유 샤드 : 기록이 끝난 일괄 처리의 잔액을 저장하고 보류한 명령을 이어서 실행한다. 결과는 저장한 잔액이 반영되면 완료된다. */
+    private CompletableFuture<List<PointCommandResult>> completeBatch(PointUpdater.PendingBatch pending) {
+        long userId = pending.userId();
+        try {
+            List<PointCommandResult> results = pointUpdater.completeBatch(pending);
+            return balances.takePersisted(userId).thenApply(persisted -> results);
+        } catch (RuntimeException e) {
+            balances.takePersisted(userId);
+            throw e;
+        } finally {
+            balances.release(userId);
+        }
+    }
+
+    /*
+       소유 샤드에서 잔액이 적재된 뒤 명령을 실행하고, 명령이 저장한 잔액이 저장소에 반영되면 명령의 결과로 완료한다.
+       명령이 실패하더라도 저장한 잔액의 반영 대기는 꺼내어, 다음 명령이 이어받지 않도록 한다.
+     */
+    private <T> CompletableFuture<T> onShard(long userId, Supplier<T> command) {
+        return pointShards.submit(userId, () -> balances.whenLoaded(userId, () -> {
+                    T result;
+                    try {
+                        result = command.get();
+                    } catch (RuntimeException e) {
+                        balances.takePersisted(userId);
+                        throw e;
+                    }
+                    return balances.takePersisted(userId).thenApply(persisted -> result);
+                }))
+                .thenCompose(Function.identity());
+    }
+
+    @Override
+    public UserPoint getUserPoint(long userId) {
+        return balances.findById(userId);
+    }
+
+    /**
+     * 샤드에 적재된 사용자라면 곧바로 반환하고, 아니라면 조회 스레드 풀에서 저장소를 조회한다.
+     */
+    @Override
+    public CompletableFuture<UserPoint> getUserPointAsync(long userId, Executor readExecutor) {
+        UserPoint loaded = balances.findLoaded(userId);
+        return loaded != null ? CompletableFuture.completedFuture(loaded) : PointExecution.super.getUserPointAsync(userId, readExecutor);
+    }
+
+    @Override
+    public void importBalance(long userId, long point) {
+        pointUpdater.importBalance(userId, point);
+    }
+
+    @Override
+    public void close() {
+        balances.close();
+    }
+}
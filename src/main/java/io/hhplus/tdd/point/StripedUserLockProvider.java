@@ -0,0 +1,121 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <b>고정 크기 락 스트라이핑</b>
+ * <br></br>
+ * 2의 거듭제곱 크기의 공정 락 배열을 미리 생성해두고, 사용자 ID 의 해시로 락을 선택한다.
+ * <br></br>
+ * - 락 인스턴스 수가 스트라이프 수로 고정되므로 사용자 수와 무관하게 메모리 사용량이 일정하다.
+ * <br></br>
+ * - 서로 다른 사용자가 같은 스트라이프를 공유하면 불필요한 경합이 생기므로, 스트라이프 별 경합 횟수를 함께 기록한다.
+ */
+public class StripedUserLockProvider implements UserLockProvider {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLongArray contendedPerStripe;
+
+    public StripedUserLockProvider(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("스트라이프 수는 1 이상이어야 합니다.");
+        }
+        int size = Integer.highestOneBit(stripes);
+        size = size < stripes ? size << 1 : size; // 2의 거듭제곱으로 올림하여 나머지 연산을 비트 연산으로 대체한다.
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.contendedPerStripe = new AtomicLongArray(size);
+    }
+
+    @Override
+    public void lock(long userId) {
+        int index = stripeIndex(userId);
+        ReentrantLock lock = stripes[index];
+
+        // tryLock() 은 공정성을 무시하고 끼어들기 때문에, 경합 여부는 상태 조회로만 판단한다.
+        if (lock.isLocked() && !lock.isHeldByCurrentThread()) {
+            contendedAcquisitions.increment();
+            contendedPerStripe.incrementAndGet(index);
+        }
+        long waitStartedAt = System.nanoTime();
+        lock.lock();
+        totalWaitNanos.add(System.nanoTime() - waitStartedAt);
+        acquisitions.increment();
+    }
+
+    @Override
+    public boolean tryLock(long userId, Duration timeout) {
+        int index = stripeIndex(userId);
+        ReentrantLock lock = stripes[index];
+
+        if (lock.isLocked() && !lock.isHeldByCurrentThread()) {
+            contendedAcquisitions.increment();
+            contendedPerStripe.incrementAndGet(index);
+        }
+        long waitStartedAt = System.nanoTime();
+        boolean acquired = tryLock(lock, timeout);
+        totalWaitNanos.add(System.nanoTime() - waitStartedAt);
+        if (acquired) {
+            acquisitions.increment();
+        }
+        return acquired;
+    }
+
+    /* 시간 제한이 있는 tryLock 은 lock() 과 같이 공정성을 지킨다. */
+    static boolean tryLock(ReentrantLock lock, Duration timeout) {
+        try {
+            return lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void unlock(long userId) {
+        stripes[stripeIndex(userId)].unlock();
+    }
+
+    /* 사용자 ID 순서로 잡으면 스트라이프 순서가 스레드마다 달라질 수 있으므로, 스트라이프 번호 순서로 잡는다. */
+    @Override
+    public long lockOrder(long userId) {
+        return stripeIndex(userId);
+    }
+
+    /**
+     * 사용자 ID 에 대응하는 스트라이프 번호. 동일 스트라이프의 사용자끼리는 같은 락을 공유한다.
+     * @param userId
+     * @return
+     */
+    public int stripeIndex(long userId) {
+        // 연속된 ID 가 인접 스트라이프에 몰리지 않도록 상위 비트를 섞는다.
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @Override
+    public UserLockStats stats() {
+        long maxStripeContended = 0;
+        for (int i = 0; i < contendedPerStripe.length(); i++) {
+            maxStripeContended = Math.max(maxStripeContended, contendedPerStripe.get(i));
+        }
+        return new UserLockStats(UserLockStrategy.STRIPED,
+                acquisitions.sum(),
+                contendedAcquisitions.sum(),
+                totalWaitNanos.sum(),
+                stripes.length,
+                maxStripeContended);
+    }
+}
@@ -0,0 +1,237 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * <b>사용자 별 명령 결합기 (Flat Combining)</b>
+ * <br></br>
+ * 요청 스레드는 명령을 사용자 별 대기열에 적재한다. 대기열을 새로 만든 요청만 결합자가 되어 사용자 락을 획득하고,
+ * 나머지 요청은 락을 기다리지 않고 자신의 명령이 처리되거나 다음 결합자로 지목되기를 기다린다.
+ * 결합자는 대기열에 쌓인 같은 사용자의 명령을 도착 순서대로 꺼내어 한 번에 처리하고, 자신의 명령이 처리되면
+ * 대기열에 남은 가장 앞의 명령을 다음 결합자로 지목한 뒤 물러난다.
+ * <br></br>
+ * - 동일 사용자에 요청이 몰릴수록 한 번의 락 보유 구간에서 더 많은 명령이 처리되어, N 번의 잔액 조회/저장이 한 번으로 줄어든다.
+ * <br></br>
+ * - 이미 처리된 명령의 요청 스레드는 락 대기열에 서지 않으므로, 같은 락을 쓰는 다른 작업(송금 등)이 그만큼 덜 기다린다.
+ * <br></br>
+ * - 경합이 없다면 결합자는 자신의 명령 하나만 처리하므로 기존 락 기반 실행과 같다.
+ * <br></br>
+ * - 대기열은 비워지는 즉시 제거되므로 처리한 사용자 수만큼 계속 늘어나지 않는다.
+ * <br></br>
+ * - 락 획득 제한 시간({@link PointAdmission#lockTimeout()})이 지나도록 명령이 처리되지 않은 요청은, 명령이 아직 대기열에 남아 있다면
+ *   대기열에서 빼낸 뒤 {@link PointOverloadedException} 으로 실패하므로 이후에 다른 결합자가 처리하지 않는다.
+ * @param <C> 명령 타입
+ * @param <R> 명령 별 처리 결과 타입
+ */
+final class UserCommandCombiner<C, R> {
+
+    /**
+     * 결합된 명령 묶음을 처리한다. 해당 사용자의 락을 보유한 상태로 호출된다.
+     * 묶음의 모든 명령에 대해 {@link Pending#result()} 를 완료(성공 혹은 실패)시켜야 한다.
+     */
+    @FunctionalInterface
+    interface Applier<C, R> {
+        void apply(long userId, List<Pending<C, R>> combined);
+    }
+
+    record Pending<C, R>(
+            C command,
+            CompletableFuture<R> result,
+            /* 명령이 처리되었거나, 결합자로 지목되면 완료된다. 대기 중인 요청 스레드를 깨우는 용도로만 사용한다. */
+            CompletableFuture<Void> awakened
+    ) {
+    }
+
+    private final UserLockProvider userLockProvider;
+    private final PointAdmission pointAdmission;
+    private final PointMetrics pointMetrics;
+    private final Function<C, PointOperation> operationOf;
+    private final Applier<C, R> applier;
+    private final int maxCombinedSize;
+
+    /*
+       사용자 별 아직 처리되지 않은 명령의 대기열. 대기열이 존재하는 동안에는 항상 한 명의 결합자가 있다.
+       대기열의 생성/제거와 결합자 지목은 모두 ConcurrentHashMap 의 원자적 연산 내에서 수행된다.
+     */
+    private final ConcurrentHashMap<Long, Queue<Pending<C, R>>> pendingByUser = new ConcurrentHashMap<>();
+
+    /**
+     * @param userLockProvider 사용자 별 배타적 실행을 보장하는 락 제공자
+     * @param pointAdmission 락 획득 제한 시간과, 제한 시간을 넘긴 요청의 거절
+     * @param pointMetrics 락 대기/보유 시간 계측
+     * @param operationOf 계측 태그로 사용할 명령의 작업 종류
+     * @param applier 결합된 명령 묶음의 처리기
+     * @param maxCombinedSize 한 번의 결합으로 처리할 최대 명령 수. 결합자 한 명의 락 보유 시간이 무한히 길어지지 않도록 제한한다.
+     */
+    UserCommandCombiner(UserLockProvider userLockProvider,
+                        PointAdmission pointAdmission,
+                        PointMetrics pointMetrics,
+                        Function<C, PointOperation> operationOf,
+                        Applier<C, R> applier,
+                        int maxCombinedSize) {
+        if (maxCombinedSize < 1) {
+            throw new IllegalArgumentException("결합 크기는 1 이상이어야 합니다.");
+        }
+        this.userLockProvider = userLockProvider;
+        this.pointAdmission = pointAdmission;
+        this.pointMetrics = pointMetrics;
+        this.operationOf = operationOf;
+        this.applier = applier;
+        this.maxCombinedSize = maxCombinedSize;
+    }
+
+    /**
+     * 명령을 적재하고, 다른 결합자가 처리해주었거나 스스로 결합자가 되어 처리한 결과를 반환한다.
+     * @param userId
+     * @param command
+     * @return 명령 처리 결과
+     * @throws PointOverloadedException 제한 시간 안에 락을 획득하지 못했고, 그 사이 다른 결합자도 명령을 처리하지 않은 경우
+     */
+    R execute(long userId, C command) {
+        Pending<C, R> pending = new Pending<>(command, new CompletableFuture<>(), new CompletableFuture<>());
+        pendingByUser.compute(userId, (id, queue) -> {
+            if (queue == null) {
+                // 대기열을 새로 만든 요청이 결합자가 된다.
+                queue = new ConcurrentLinkedQueue<>();
+                pending.awakened().complete(null);
+            }
+            queue.add(pending);
+            return queue;
+        });
+
+        Duration lockTimeout = pointAdmission.lockTimeout();
+        long deadline = System.nanoTime() + lockTimeout.toNanos();
+        if (!awaitTurn(pending, lockTimeout, deadline)) {
+            return timedOut(userId, pending);
+        }
+        if (pending.result().isDone()) {
+            return join(pending.result());
+        }
+
+        // 결합자로 지목되었다. 결합자는 한 명뿐이므로 자신의 명령은 여전히 대기열에 있다.
+        long waitStartedAt = pointMetrics.lockWaitStarted(userId);
+        if (!acquire(userId, lockTimeout, deadline)) {
+            pointMetrics.lockWaitAbandoned(userId);
+            return timedOut(userId, pending);
+        }
+        long acquiredAt = pointMetrics.lockAcquired(userId);
+        try {
+            while (!pending.result().isDone()) {
+                combine(userId);
+            }
+        } finally {
+            userLockProvider.unlock(userId);
+            pendingByUser.computeIfPresent(userId, (id, queue) -> handOff(queue));
+            pointMetrics.recordLock(userId, operationOf.apply(command), outcomeOf(pending.result()), waitStartedAt, acquiredAt);
+        }
+        return join(pending.result());
+    }
+
+    /* 명령이 처리되거나 결합자로 지목될 때까지 기다린다. 제한 시간이 지나면 false */
+    private static boolean awaitTurn(Pending<?, ?> pending, Duration lockTimeout, long deadline) {
+        if (lockTimeout.isZero()) {
+            pending.awakened().join();
+            return true;
+        }
+        try {
+            pending.awakened().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    /* 락 획득 제한 시간이 있다면 적재 시점부터 그 시간까지만 기다린다. */
+    private boolean acquire(long userId, Duration lockTimeout, long deadline) {
+        if (lockTimeout.isZero()) {
+            userLockProvider.lock(userId);
+            return true;
+        }
+        return userLockProvider.tryLock(userId, Duration.ofNanos(Math.max(0L, deadline - System.nanoTime())));
+    }
+
+    /* 제한 시간 안에 처리되지 못한 명령을 거절한다. 그 사이 결합자가 명령을 꺼내갔다면 처리 결과를 기다린다. */
+    private R timedOut(long userId, Pending<C, R> pending) {
+        boolean[] withdrawn = new boolean[1];
+        pendingByUser.computeIfPresent(userId, (id, queue) -> {
+            withdrawn[0] = queue.remove(pending);
+            // 결합자로 지목된 채 물러난다면, 남은 명령 중 하나를 대신 지목해야 한다.
+            return withdrawn[0] && pending.awakened().isDone() ? handOff(queue) : queue;
+        });
+        if (withdrawn[0]) {
+            throw pointAdmission.lockTimedOut(userId);
+        }
+        return join(pending.result());
+    }
+
+    /* 대기열에 남은 가장 앞의 명령을 다음 결합자로 지목한다. 남은 명령이 없다면 대기열을 제거한다. */
+    private Queue<Pending<C, R>> handOff(Queue<Pending<C, R>> queue) {
+        Pending<C, R> next = queue.peek();
+        if (next == null) {
+            return null;
+        }
+        next.awakened().complete(null);
+        return queue;
+    }
+
+    private void combine(long userId) {
+        Queue<Pending<C, R>> queue = pendingByUser.get(userId);
+        List<Pending<C, R>> combined = new ArrayList<>();
+        Pending<C, R> next;
+        while (combined.size() < maxCombinedSize && (next = queue.poll()) != null) {
+            combined.add(next);
+        }
+
+        try {
+            applier.apply(userId, combined);
+        } catch (RuntimeException e) {
+            // 잔액 저장 실패 등 묶음 전체에 대한 실패는 아직 완료되지 않은 모든 명령에 전달한다.
+            combined.forEach(each -> each.result().completeExceptionally(e));
+        }
+        // 처리기가 누락한 명령이 있다면, 해당 요청 스레드가 무한히 대기하지 않도록 실패 처리한다.
+        combined.forEach(each -> each.result().completeExceptionally(new IllegalStateException("결합된 명령이 처리되지 않았습니다.")));
+        combined.forEach(each -> each.awakened().complete(null));
+    }
+
+    private static PointMetrics.Outcome outcomeOf(CompletableFuture<?> result) {
+        if (!result.isDone()) {
+            return PointMetrics.Outcome.ERROR;
+        }
+        if (!result.isCompletedExceptionally()) {
+            return PointMetrics.Outcome.SUCCESS;
+        }
+        try {
+            result.join();
+            return PointMetrics.Outcome.SUCCESS;
+        } catch (CompletionException e) {
+            return PointMetrics.Outcome.of(e.getCause());
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
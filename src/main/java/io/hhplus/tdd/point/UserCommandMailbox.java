@@ -0,0 +1,137 @@
+package io.hhplus.tdd.point;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <b>사용자 별 단일 작업자 명령 큐 (Mailbox)</b>
+ * <br></br>
+ * 사용자 별로 하나의 메일박스를 두고, 해당 사용자에 대한 명령을 도착 순서대로 적재한다.
+ * 메일박스마다 동시에 최대 하나의 작업자만 명령을 꺼내어 실행하므로 사용자 단위로 직렬 실행이 보장된다.
+ * <br></br>
+ * - 요청 스레드는 락을 기다리며 파킹되지 않고 {@link CompletableFuture} 를 즉시 돌려받는다.
+ * <br></br>
+ * - 실행 순서는 적재 순서(FIFO)와 같으며, 이는 공정(fair) 락의 획득 순서와 같은 의미를 갖는다.
+ * <br></br>
+ * - 메일박스는 비워지는 즉시 제거되므로 처리한 사용자 수만큼 계속 늘어나지 않는다.
+ * <br></br>
+ * - 작업자는 한 차례에 최대 maxCommandsPerTurn 개의 명령만 실행하고, 명령이 남아 있다면 메일박스를 작업자 풀에 다시 배정한다.
+ *   요청이 끊이지 않는 사용자가 작업자를 계속 점유하여 다른 사용자의 메일박스가 배정되지 못하는 일을 막는다.
+ * <br></br>
+ * - 작업자 스레드를 만들므로, point.execution.mode 가 MAILBOX 일 때만 빈으로 등록한다.
+ */
+@Component
+@ConditionalOnProperty(name = "point.execution.mode", havingValue = "MAILBOX")
+public class UserCommandMailbox {
+
+    private static final int DEFAULT_MAX_COMMANDS_PER_TURN = 32;
+
+    private final ConcurrentHashMap<Long, Queue<Runnable>> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final int maxCommandsPerTurn;
+
+    public UserCommandMailbox() {
+        this(0, false, DEFAULT_MAX_COMMANDS_PER_TURN);
+    }
+
+    /**
+     * @param workerCount 메일박스를 처리하는 플랫폼 스레드 수. 0 이하라면 CPU 코어 수를 사용한다.
+     * @param virtualThreads true 이고 Java 21 이상이라면 메일박스 처리마다 가상 스레드를 사용한다.
+     * @param maxCommandsPerTurn 작업자가 다른 메일박스에 차례를 넘기기 전까지 한 메일박스에서 연속으로 실행할 최대 명령 수
+     */
+    @Autowired
+    public UserCommandMailbox(@Value("${point.mailbox.worker-count:0}") int workerCount,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                              @Value("${point.mailbox.max-commands-per-turn:32}") int maxCommandsPerTurn) {
+        if (maxCommandsPerTurn < 1) {
+            throw new IllegalArgumentException("차례 당 명령 수는 1 이상이어야 합니다.");
+        }
+        this.workers = PointExecutors.newPool("point-mailbox", workerCount, virtualThreads);
+        this.maxCommandsPerTurn = maxCommandsPerTurn;
+    }
+
+    /**
+     * 사용자의 메일박스에 명령을 적재한다.
+     * @param userId
+     * @param command 해당 사용자에 대해 배타적으로 실행될 명령
+     * @return 명령 실행 결과로 완료되는 Future
+     */
+    public <T> CompletableFuture<T> submit(long userId, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(command.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+
+        // 적재와 메일박스 제거는 모두 ConcurrentHashMap 의 원자적 연산 내에서 수행되므로, 제거 직전에 적재된 명령이 유실되지 않는다.
+        boolean[] created = new boolean[1];
+        mailboxes.compute(userId, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new ConcurrentLinkedQueue<>();
+                created[0] = true;
+            }
+            mailbox.add(task);
+            return mailbox;
+        });
+
+        // 메일박스를 새로 만든 경우에만 작업자를 배정한다. 이미 존재한다면 실행 중인 작업자가 이어서 처리한다.
+        if (created[0]) {
+            workers.execute(() -> drain(userId));
+        }
+        return result;
+    }
+
+    /**
+     * 현재 메일박스가 존재하는(처리 대기 또는 처리 중인 명령이 있는) 사용자 수.
+     */
+    public int activeMailboxCount() {
+        return mailboxes.size();
+    }
+
+    private void drain(long userId) {
+        Queue<Runnable> mailbox = mailboxes.get(userId);
+        int executed = 0;
+        while (mailbox != null) {
+            Runnable task;
+            while ((task = mailbox.poll()) != null) {
+                task.run();
+                if (++executed >= maxCommandsPerTurn && !mailbox.isEmpty() && yieldTurn(userId)) {
+                    return;
+                }
+            }
+            // 비어있다면 메일박스를 제거하고 종료한다. 그 사이 새 명령이 적재되었다면 계속 처리한다.
+            mailbox = mailboxes.computeIfPresent(userId, (id, current) -> current.isEmpty() ? null : current);
+        }
+    }
+
+    /*
+       남은 명령은 작업자 풀의 대기열 뒤에서 이어서 처리한다. 메일박스는 제거하지 않으므로 그 사이 적재된 명령도 순서대로 처리된다.
+       작업자 풀이 종료되어 다시 배정할 수 없다면 false 를 반환하고, 현재 작업자가 이어서 처리한다.
+     */
+    private boolean yieldTurn(long userId) {
+        try {
+            workers.execute(() -> drain(userId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+
+/**
+ * <b>사용자 별 락 제공자</b>
+ * <br></br>
+ * 동일 사용자에 대한 충전/사용이 동시에 수행되지 않도록, 사용자 ID 에 대응하는 락을 획득/해제한다.
+ * <br></br>
+ * - {@link #lock(long)} 과 {@link #unlock(long)} 은 반드시 같은 스레드에서 짝을 이루어 호출되어야 한다.
+ * <br></br>
+ * - 구현체는 락 인스턴스의 수가 사용자 수에 비례하여 끝없이 늘어나지 않도록 관리해야 한다.
+ * <br></br>
+ * - 락 대기는 테이블 지연만큼 길어질 수 있으므로 synchronized 가 아닌 {@link java.util.concurrent.locks.ReentrantLock} 으로 구현한다.
+ *   가상 스레드로 실행될 때 대기 중인 스레드가 캐리어 스레드를 점유하지 않는다.
+ */
+public interface UserLockProvider {
+
+    /**
+     * 해당 사용자의 락을 획득할 때까지 기다린다. 락은 공정(fair)하게, 대기 순서대로 부여된다.
+     * @param userId
+     */
+    void lock(long userId);
+
+    /**
+     * 해당 사용자의 락을 최대 timeout 만큼 기다려 획득한다. 대기 순서는 {@link #lock(long)} 과 같이 공정하다.
+     * 대기 중 인터럽트되면 인터럽트 상태를 복구하고 획득하지 못한 것으로 처리한다.
+     * @param userId
+     * @param timeout 최대 대기 시간
+     * @return 획득했다면 true. 이 경우에만 {@link #unlock(long)} 을 호출해야 한다.
+     */
+    boolean tryLock(long userId, Duration timeout);
+
+    /**
+     * 해당 사용자의 락을 해제한다.
+     * @param userId
+     */
+    void unlock(long userId);
+
+    /**
+     * 여러 사용자의 락을 함께 잡을 때의 획득 순서. 모든 스레드가 이 값의 오름차순으로 획득하면 교착 상태가 생기지 않는다.
+     * 서로 다른 사용자가 같은 락 인스턴스를 공유하는 구현은 락 인스턴스의 순서를 반환해야 한다.
+     * @param userId
+     * @return 기본값은 사용자 ID
+     */
+    default long lockOrder(long userId) {
+        return userId;
+    }
+
+    /**
+     * 락 전략 별 경합 통계
+     * @return
+     */
+    UserLockStats stats();
+
+    static UserLockProvider of(UserLockStrategy strategy, int stripes) {
+        return switch (strategy) {
+            case STRIPED -> new StripedUserLockProvider(stripes);
+            case REF_COUNTED -> new RefCountedUserLockProvider();
+        };
+    }
+}
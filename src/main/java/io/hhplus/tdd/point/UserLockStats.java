@@ -0,0 +1,33 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 사용자 락 경합 통계
+ * @param strategy 락 관리 전략
+ * @param acquisitions 누적 락 획득 횟수
+ * @param contendedAcquisitions 획득 시점에 이미 다른 스레드가 보유 혹은 대기 중이었던 횟수
+ * @param totalWaitNanos 누적 락 대기 시간
+ * @param lockInstances 현재 유지 중인 락 인스턴스 수 (STRIPED : 스트라이프 수, REF_COUNTED : 사용 중인 사용자 수)
+ * @param maxStripeContended 가장 경합이 많았던 스트라이프의 경합 횟수 (STRIPED 전용, 그 외 0)
+ */
+public record UserLockStats(
+        UserLockStrategy strategy,
+        long acquisitions,
+        long contendedAcquisitions,
+        long totalWaitNanos,
+        int lockInstances,
+        long maxStripeContended
+) {
+
+    /**
+     * 전체 락 획득 중 경합이 발생한 비율.
+     * <br></br>
+     * STRIPED 전략에서 서로 다른 사용자 간 경합이 높다면 스트라이프 수를 늘려야 한다.
+     */
+    public double contentionRate() {
+        return acquisitions == 0 ? 0.0 : (double) contendedAcquisitions / acquisitions;
+    }
+
+    public double averageWaitNanos() {
+        return acquisitions == 0 ? 0.0 : (double) totalWaitNanos / acquisitions;
+    }
+}
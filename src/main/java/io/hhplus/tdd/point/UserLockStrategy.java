@@ -0,0 +1,10 @@
+package io.hhplus.tdd.point;
+
+/**
+ * 사용자 별 락 관리 전략
+ * - STRIPED : 고정 크기의 락 배열에 사용자 ID 를 해시하여 대응시킨다. 서로 다른 사용자가 같은 락을 공유할 수 있다.
+ * - REF_COUNTED : 사용자 별로 락을 생성하되, 해당 락을 사용(보유 혹은 대기)하는 스레드가 없어지면 즉시 제거한다.
+ */
+public enum UserLockStrategy {
+    STRIPED, REF_COUNTED
+}
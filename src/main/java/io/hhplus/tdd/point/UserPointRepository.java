@@ -0,0 +1,43 @@
+package io.hhplus.tdd.point;
+
+/**
+ * <b>사용자 포인트 잔액 저장소</b>
+ * <br></br>
+ * {@link PointService} 가 잔액을 조회하고 갱신하는 통로이다. 실제 저장 방식(테이블 직접 접근, 캐시 경유 등)은 구현체가 결정한다.
+ */
+public interface UserPointRepository {
+
+    /**
+     * 사용자의 포인트 잔액을 조회한다. 존재하지 않는 사용자라면 잔액 0 으로 간주한다.
+     * @param userId
+     * @return
+     */
+    UserPoint findById(long userId);
+
+    /**
+     * 사용자의 포인트 잔액을 저장한다.
+     * @param userId
+     * @param point
+     * @return 저장된 포인트 잔액
+     */
+    UserPoint save(long userId, long point);
+
+    /**
+     * 다른 인스턴스에서 이관받은 잔액을 저장한다. 기본적으로 {@link #save} 와 같다.
+     * @param userId
+     * @param point
+     * @return 저장된 포인트 잔액
+     */
+    default UserPoint importBalance(long userId, long point) {
+        return save(userId, point);
+    }
+
+    /**
+     * 잔액을 기록된 내역으로부터 계산하는 저장소라면 true 를 반환한다.
+     * 이 경우 {@link #save} 는 잔액을 바꾸지 않으며, 잔액은 내역이 기록될 때 반영된다.
+     * 따라서 갱신을 위해 잔액을 조회하는 쪽은 먼저 해당 사용자의 기록 중인 내역을 기다려야 한다.
+     */
+    default boolean derivedFromHistory() {
+        return false;
+    }
+}
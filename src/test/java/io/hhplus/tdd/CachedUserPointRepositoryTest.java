@@ -0,0 +1,86 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.CachedUserPointRepository;
+import io.hhplus.tdd.database.UserPointCacheStats;
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.point.UserPoint;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * <b>{@link CachedUserPointRepository} 단위 테스트</b>
+ * <br></br>
+ * - 미적중 시에만 {@link UserPointTable} 을 조회하고, 갱신은 테이블과 캐시에 모두 반영되는지 검증한다.
+ */
+public class CachedUserPointRepositoryTest {
+
+    @Mock
+    UserPointTable userPointTable;
+
+    private static final long USER_ID = 1L;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /* 성공 : 두 번째 조회부터는 테이블을 조회하지 않는다. */
+    @Test
+    void shouldReadThroughOnce_AndHitAfterwards() {
+        // given
+        CachedUserPointRepository repository = new CachedUserPointRepository(userPointTable, 100);
+        Mockito.when(userPointTable.selectById(USER_ID))
+                .thenReturn(new UserPoint(USER_ID, 10L, System.currentTimeMillis()));
+
+        // when
+        repository.findById(USER_ID);
+        UserPoint result = repository.findById(USER_ID);
+
+        // then
+        Assertions.assertThat(result.point()).isEqualTo(10L);
+        Mockito.verify(userPointTable, Mockito.times(1)).selectById(USER_ID);
+        UserPointCacheStats stats = repository.stats();
+        Assertions.assertThat(stats.hits()).isEqualTo(1);
+        Assertions.assertThat(stats.misses()).isEqualTo(1);
+    }
+
+    /* 성공 : 갱신된 잔액은 테이블에 저장되고, 이후 조회는 테이블을 거치지 않고 갱신된 값을 반환한다. */
+    @Test
+    void shouldWriteThrough_AndServeUpdatedValueFromCache() {
+        // given
+        CachedUserPointRepository repository = new CachedUserPointRepository(userPointTable, 100);
+        Mockito.when(userPointTable.insertOrUpdate(USER_ID, 30L))
+                .thenReturn(new UserPoint(USER_ID, 30L, System.currentTimeMillis()));
+
+        // when
+        repository.save(USER_ID, 30L);
+        UserPoint result = repository.findById(USER_ID);
+
+        // then
+        Assertions.assertThat(result.point()).isEqualTo(30L);
+        Mockito.verify(userPointTable).insertOrUpdate(USER_ID, 30L);
+        Mockito.verify(userPointTable, Mockito.never()).selectById(USER_ID);
+    }
+
+    /* 성공 : 용량을 초과하면 가장 오래 사용되지 않은 항목부터 제거된다. */
+    @Test
+    void shouldEvictEntries_WhenCapacityExceeded() {
+        // given : 용량 1 의 캐시
+        CachedUserPointRepository repository = new CachedUserPointRepository(userPointTable, 1);
+        Mockito.when(userPointTable.insertOrUpdate(Mockito.anyLong(), Mockito.anyLong()))
+                .thenAnswer(invocation -> new UserPoint(invocation.getArgument(0), invocation.getArgument(1), System.currentTimeMillis()));
+
+        // when
+        repository.save(1L, 10L);
+        repository.save(2L, 20L);
+
+        // then
+        UserPointCacheStats stats = repository.stats();
+        Assertions.assertThat(stats.size()).isEqualTo(1);
+        Assertions.assertThat(stats.evictions()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.ConsistentHashRing;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link ConsistentHashRing} 단위 테스트</b>
+ * <br></br>
+ * - 구성원 목록의 순서와 무관하게 모든 인스턴스가 같은 소유자를 계산하는지 검증한다.
+ * <br></br>
+ * - 사용자가 인스턴스에 고르게 나뉘고, 인스턴스가 추가되면 추가된 인스턴스로 옮겨가는 사용자만 소유자가 바뀌는지 검증한다.
+ */
+public class ConsistentHashRingTest {
+
+    private static final List<String> MEMBERS = List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+    private static final int USERS = 30_000;
+
+    /* 성공 : 같은 구성원이라면 목록의 순서나 중복과 무관하게 같은 소유자를 반환한다. */
+    @Test
+    void shouldReturnSameOwner_RegardlessOfMemberOrder() {
+        // given
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(
+                List.of(MEMBERS.get(2), MEMBERS.get(0), MEMBERS.get(1), MEMBERS.get(0)), 128);
+
+        // when & then
+        for (long userId = 1; userId <= USERS; userId++) {
+            Assertions.assertThat(reordered.ownerOf(userId)).isEqualTo(ring.ownerOf(userId));
+        }
+        Assertions.assertThat(reordered.members()).hasSize(MEMBERS.size());
+    }
+
+    /* 성공 : 연속된 사용자 ID 도 인스턴스에 고르게 나뉜다. */
+    @Test
+    void shouldDistributeUsersEvenly() {
+        // given
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+
+        // when
+        Map<String, Integer> owned = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            owned.merge(ring.ownerOf(userId), 1, Integer::sum);
+        }
+
+        // then : 각 인스턴스가 평균의 ±25% 이내를 소유한다.
+        int average = USERS / MEMBERS.size();
+        Assertions.assertThat(owned).containsOnlyKeys(MEMBERS);
+        Assertions.assertThat(owned.values()).allSatisfy(count -> Assertions.assertThat(count).isBetween(average * 3 / 4, average * 5 / 4));
+    }
+
+    /* 성공 : 인스턴스가 추가되면 일부 사용자만 추가된 인스턴스로 옮겨가고, 나머지 사용자의 소유자는 바뀌지 않는다. */
+    @Test
+    void shouldMoveUsersOnlyToAddedMember() {
+        // given
+        String added = "http://localhost:8084";
+        ConsistentHashRing before = new ConsistentHashRing(MEMBERS, 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(MEMBERS.get(0), MEMBERS.get(1), MEMBERS.get(2), added), 128);
+
+        // when
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            String previousOwner = before.ownerOf(userId);
+            String owner = after.ownerOf(userId);
+            if (!owner.equals(previousOwner)) {
+                Assertions.assertThat(owner).isEqualTo(added);
+                moved++;
+            }
+        }
+
+        // then : 약 1/4 의 사용자만 옮겨간다.
+        Assertions.assertThat(moved).isBetween(USERS / 8, USERS * 3 / 8);
+    }
+}
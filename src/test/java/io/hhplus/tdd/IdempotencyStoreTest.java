@@ -0,0 +1,162 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.IdempotencyStore;
+import io.hhplus.tdd.point.IdempotentResult;
+import io.hhplus.tdd.point.PointCommand;
+import io.hhplus.tdd.point.TransactionType;
+import io.hhplus.tdd.point.UserPoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link IdempotencyStore} 단위 테스트</b>
+ * <br></br>
+ * - 같은 멱등 키의 재시도와 동시 중복 요청은 한 번만 실행되고 같은 결과를 받는지 검증한다.
+ * <br></br>
+ * - 실패한 요청과 만료되거나 밀려난 키의 재시도는 다시 실행되는지 검증한다.
+ * <br></br>
+ * - 다른 저장소로 이관한 결과는 이관받은 저장소에서도 재시도에 반환되는지 검증한다.
+ */
+public class IdempotencyStoreTest {
+
+    private static final PointCommand CHARGE = new PointCommand(1L, TransactionType.CHARGE, 100L);
+
+    /* 성공 : 완료된 키의 재시도는 실행하지 않고 처음 요청의 결과를 반환한다. */
+    @Test
+    void shouldReturnStoredResult_WhenRetried() {
+        // given
+        IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100);
+        AtomicInteger executions = new AtomicInteger();
+        UserPoint first = store.execute("key", CHARGE, () -> charge(executions)).join();
+
+        // when
+        UserPoint retried = store.execute("key", CHARGE, () -> charge(executions)).join();
+
+        // then
+        Assertions.assertThat(retried).isEqualTo(first);
+        Assertions.assertThat(executions).hasValue(1);
+        Assertions.assertThat(store.replays()).isEqualTo(1L);
+    }
+
+    /* 동시성 : 처음 요청이 실행 중일 때 들어온 중복 요청은 다시 실행하지 않고 처음 요청의 결과를 기다린다. */
+    @Test
+    void shouldExecuteOnce_WhenDuplicatesArriveConcurrently() throws Exception {
+        // given
+        IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100);
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<UserPoint> inFlight = new CompletableFuture<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+
+        // when
+        List<Future<CompletableFuture<UserPoint>>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executorService.submit(() -> store.execute("key", CHARGE, () -> {
+                executions.incrementAndGet();
+                return inFlight;
+            })));
+        }
+        List<CompletableFuture<UserPoint>> results = new ArrayList<>();
+        for (Future<CompletableFuture<UserPoint>> future : futures) {
+            results.add(future.get());
+        }
+        executorService.shutdown();
+        inFlight.complete(new UserPoint(1L, 100L, 1L));
+
+        // then
+        Assertions.assertThat(executions).hasValue(1);
+        Assertions.assertThat(results).allMatch(result -> result.join().equals(new UserPoint(1L, 100L, 1L)));
+    }
+
+    /* 성공 : 처음 요청이 실패하면 키가 제거되어, 이후의 재시도는 다시 실행된다. */
+    @Test
+    void shouldExecuteAgain_WhenFirstAttemptFailed() {
+        // given
+        IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100);
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<UserPoint> failed = store.execute("key", CHARGE,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("시간 초과")));
+
+        // when
+        UserPoint retried = store.execute("key", CHARGE, () -> charge(executions)).join();
+
+        // then
+        Assertions.assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(retried.point()).isEqualTo(100L);
+        Assertions.assertThat(executions).hasValue(1);
+    }
+
+    /* 실패 : 같은 키로 다른 요청을 보내면 실행하지 않고 실패한다. */
+    @Test
+    void shouldReject_WhenKeyIsReusedForDifferentRequest() {
+        // given
+        IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100);
+        AtomicInteger executions = new AtomicInteger();
+        store.execute("key", CHARGE, () -> charge(executions)).join();
+
+        // when
+        CompletableFuture<UserPoint> reused = store.execute("key", new PointCommand(1L, TransactionType.USE, 100L), () -> charge(executions));
+
+        // then
+        Assertions.assertThatThrownBy(reused::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThat(executions).hasValue(1);
+    }
+
+    /* 성공 : 보관 기간이 지났거나 용량을 넘어 밀려난 키의 재시도는 다시 실행된다. */
+    @Test
+    void shouldExecuteAgain_WhenKeyExpiredOrEvicted() throws InterruptedException {
+        // given
+        IdempotencyStore expiring = new IdempotencyStore(Duration.ofMillis(50), 100);
+        IdempotencyStore bounded = new IdempotencyStore(Duration.ofMinutes(1), 2);
+        AtomicInteger expiringExecutions = new AtomicInteger();
+        AtomicInteger boundedExecutions = new AtomicInteger();
+        expiring.execute("key", CHARGE, () -> charge(expiringExecutions)).join();
+        for (String key : List.of("a", "b", "c")) {
+            bounded.execute(key, CHARGE, () -> charge(boundedExecutions)).join();
+        }
+
+        // when
+        Thread.sleep(100);
+        expiring.execute("key", CHARGE, () -> charge(expiringExecutions)).join();
+        bounded.execute("a", CHARGE, () -> charge(boundedExecutions)).join();
+        bounded.execute("c", CHARGE, () -> charge(boundedExecutions)).join();
+
+        // then
+        Assertions.assertThat(expiringExecutions).hasValue(2);
+        Assertions.assertThat(boundedExecutions).hasValue(4);
+    }
+
+    /* 성공 : 이관받은 결과는 새 저장소에서도 재시도에 그대로 반환되고, 다른 사용자의 결과는 함께 옮겨지지 않는다. */
+    @Test
+    void shouldReturnRestoredResult_WhenRetriedAfterHandoff() {
+        // given
+        IdempotencyStore previousOwner = new IdempotencyStore(Duration.ofMinutes(1), 100);
+        IdempotencyStore newOwner = new IdempotencyStore(Duration.ofMinutes(1), 100);
+        AtomicInteger executions = new AtomicInteger();
+        UserPoint first = previousOwner.execute("key", CHARGE, () -> charge(executions)).join();
+        previousOwner.execute("other", new PointCommand(2L, TransactionType.CHARGE, 100L), () -> charge(executions)).join();
+
+        // when
+        List<IdempotentResult> exported = previousOwner.exportCompleted(1L);
+        newOwner.restore(exported);
+        UserPoint retried = newOwner.execute("key", CHARGE, () -> charge(executions)).join();
+
+        // then
+        Assertions.assertThat(exported).extracting(IdempotentResult::key).containsExactly("key");
+        Assertions.assertThat(retried).isEqualTo(first);
+        Assertions.assertThat(executions).hasValue(2);
+        Assertions.assertThat(newOwner.replays()).isEqualTo(1L);
+    }
+
+    private static CompletableFuture<UserPoint> charge(AtomicInteger executions) {
+        return CompletableFuture.completedFuture(new UserPoint(1L, 100L * executions.incrementAndGet(), System.nanoTime()));
+    }
+}
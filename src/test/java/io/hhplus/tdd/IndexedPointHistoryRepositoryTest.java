@@ -0,0 +1,186 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointSummary;
+import io.hhplus.tdd.point.TransactionType;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * <b>{@link IndexedPointHistoryRepository} 단위 테스트</b>
+ * <br></br>
+ * - 내역은 테이블에 저장되고, 조회는 사용자 별 색인에서 수행되는지 검증한다.
+ * <br></br>
+ * - 테이블 없이 생성하면 색인에만 보관하고 ID 를 직접 부여하는지 검증한다.
+ * <br></br>
+ * - 테이블 지연을 배제하기 위해, 테이블 Mock 은 호출 순서대로 증가하는 ID 를 부여한 내역을 반환한다.
+ */
+public class IndexedPointHistoryRepositoryTest {
+
+    @Mock
+    PointHistoryTable pointHistoryTable;
+
+    IndexedPointHistoryRepository repository;
+
+    private long sequence;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        sequence = 0;
+        Mockito.when(pointHistoryTable.insert(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(), Mockito.anyLong()))
+                .thenAnswer(invocation -> new PointHistory(++sequence,
+                        invocation.getArgument(0),
+                        invocation.getArgument(1),
+                        invocation.getArgument(2),
+                        invocation.getArgument(3)));
+        repository = new IndexedPointHistoryRepository(pointHistoryTable);
+    }
+
+    /* 성공 : 다른 사용자의 내역이 섞여 저장되더라도, 사용자 별 내역만 저장 순서대로 조회된다. */
+    @Test
+    void shouldReturnOnlyUsersHistories_InInsertionOrder() {
+        // given : 사용자 1, 2 의 내역이 번갈아 저장된다.
+        for (int i = 0; i < 10; i++) {
+            repository.save(1L, 100L + i, TransactionType.CHARGE, System.currentTimeMillis());
+            repository.save(2L, 200L + i, TransactionType.USE, System.currentTimeMillis());
+        }
+
+        // when
+        List<PointHistory> result = repository.findAllByUserId(1L);
+
+        // then
+        Assertions.assertThat(result).hasSize(10);
+        Assertions.assertThat(result).allMatch(pointHistory -> pointHistory.userId() == 1L);
+        Assertions.assertThat(result).extracting(PointHistory::amount)
+                .containsExactly(100L, 101L, 102L, 103L, 104L, 105L, 106L, 107L, 108L, 109L);
+        Mockito.verify(pointHistoryTable, Mockito.never()).selectAllByUserId(Mockito.anyLong());
+    }
+
+    /* 성공 : 커서 이후의 내역을 limit 개씩 나누어 빠짐없이 조회할 수 있다. */
+    @Test
+    void shouldPageThroughHistories_ByCursor() {
+        // given : 사용자 1 의 내역 25건
+        for (int i = 0; i < 25; i++) {
+            repository.save(1L, i, TransactionType.CHARGE, System.currentTimeMillis());
+        }
+
+        // when : 10개씩 커서를 이어가며 조회한다.
+        List<PointHistory> first = repository.findAllByUserIdAfter(1L, 0L, 10);
+        List<PointHistory> second = repository.findAllByUserIdAfter(1L, first.get(first.size() - 1).id(), 10);
+        List<PointHistory> third = repository.findAllByUserIdAfter(1L, second.get(second.size() - 1).id(), 10);
+
+        // then
+        Assertions.assertThat(first).extracting(PointHistory::id).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        Assertions.assertThat(second).extracting(PointHistory::id).containsExactly(11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L);
+        Assertions.assertThat(third).extracting(PointHistory::id).containsExactly(21L, 22L, 23L, 24L, 25L);
+    }
+
+    /* 성공 : 색인의 청크 경계를 여러 번 넘어도 모든 내역이 종류와 함께 순서대로 조회되고, 커서 조회도 경계를 넘어 이어진다. */
+    @Test
+    void shouldKeepAllFields_AcrossChunkBoundaries() {
+        // given : 사용자 1 의 내역 3,000건. 충전과 사용이 번갈아 저장된다.
+        for (int i = 0; i < 3_000; i++) {
+            repository.save(1L, i, i % 2 == 0 ? TransactionType.CHARGE : TransactionType.USE, i);
+        }
+
+        // when
+        List<PointHistory> all = repository.findAllByUserId(1L);
+        List<PointHistory> page = repository.findAllByUserIdAfter(1L, 1_010L, 20);
+
+        // then
+        Assertions.assertThat(all).hasSize(3_000);
+        for (int i = 0; i < 3_000; i++) {
+            Assertions.assertThat(all.get(i)).isEqualTo(new PointHistory(i + 1, 1L, i,
+                    i % 2 == 0 ? TransactionType.CHARGE : TransactionType.USE, i));
+        }
+        Assertions.assertThat(page).extracting(PointHistory::id)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1_011L, 1_030L).boxed().toList());
+    }
+
+    /* 성공 : 요약은 저장된 내역의 충전/사용 합계와 횟수, 마지막 활동 시각을 반영한다. */
+    @Test
+    void shouldSummarizeHistories_AsTheyAreSaved() {
+        // given
+        repository.save(1L, 1_000L, TransactionType.CHARGE, 10L);
+        repository.save(1L, 300L, TransactionType.USE, 20L);
+        repository.save(1L, 500L, TransactionType.CHARGE, 30L);
+        repository.save(2L, 700L, TransactionType.CHARGE, 40L);
+
+        // when
+        PointSummary summary = repository.summarize(1L);
+
+        // then
+        Assertions.assertThat(summary).isEqualTo(new PointSummary(1L, 1_500L, 300L, 2L, 1L, 30L));
+        Assertions.assertThat(repository.summarize(99L)).isEqualTo(PointSummary.empty(99L));
+    }
+
+    /* 성공 : 시각 구간 조회는 구간 양 끝을 포함하여 구간에 속하는 내역만 저장 순서대로 반환한다. */
+    @Test
+    void shouldReturnHistoriesBetween_FromAndTo() {
+        // given : 사용자 1 의 내역 100건. 시각은 10 단위로 증가한다.
+        for (int i = 0; i < 100; i++) {
+            repository.save(1L, i, TransactionType.CHARGE, i * 10L);
+            repository.save(2L, i, TransactionType.CHARGE, i * 10L);
+        }
+
+        // when
+        List<PointHistory> result = repository.findAllByUserIdBetween(1L, 200L, 250L);
+
+        // then
+        Assertions.assertThat(result).extracting(PointHistory::updateMillis).containsExactly(200L, 210L, 220L, 230L, 240L, 250L);
+        Assertions.assertThat(result).allMatch(pointHistory -> pointHistory.userId() == 1L);
+        Assertions.assertThat(repository.findAllByUserIdBetween(1L, 5_000L, 6_000L)).isEmpty();
+        Assertions.assertThat(repository.findAllByUserIdBetween(99L, 0L, Long.MAX_VALUE)).isEmpty();
+    }
+
+    /* 성공 : 저장 순서와 시각 순서가 어긋난 내역이 있어도 구간에 속하는 내역을 빠짐없이 반환한다. */
+    @Test
+    void shouldReturnHistoriesBetween_WhenTimestampsAreOutOfOrder() {
+        // given : 시각이 앞선 내역보다 이른 내역이 중간에 섞여 있다.
+        long[] updateMillis = {100L, 110L, 105L, 120L, 130L, 90L, 140L, 150L};
+        for (long millis : updateMillis) {
+            repository.save(1L, millis, TransactionType.USE, millis);
+        }
+
+        // when
+        List<PointHistory> result = repository.findAllByUserIdBetween(1L, 95L, 125L);
+
+        // then
+        Assertions.assertThat(result).extracting(PointHistory::updateMillis).containsExactly(100L, 110L, 105L, 120L);
+    }
+
+    /* 성공 : 내역이 없는 사용자는 빈 목록을 반환한다. */
+    @Test
+    void shouldReturnEmpty_WhenUserHasNoHistory() {
+        Assertions.assertThat(repository.findAllByUserId(99L)).isEmpty();
+        Assertions.assertThat(repository.findAllByUserIdAfter(99L, 0L, 10)).isEmpty();
+    }
+
+    /* 성공 : 테이블 없이 생성하면 테이블을 거치지 않고, 저장 순서대로 증가하는 ID 를 직접 부여한다. */
+    @Test
+    void shouldAssignIncreasingIds_WhenStoredInIndexOnly() {
+        // given
+        IndexedPointHistoryRepository indexOnly = new IndexedPointHistoryRepository();
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            indexOnly.save(1L, 100L, TransactionType.CHARGE, System.currentTimeMillis());
+            indexOnly.save(2L, 200L, TransactionType.USE, System.currentTimeMillis());
+        }
+
+        // then
+        Assertions.assertThat(indexOnly.findAllByUserId(1L)).extracting(PointHistory::id).containsExactly(1L, 3L, 5L);
+        Assertions.assertThat(indexOnly.findAllByUserId(2L)).extracting(PointHistory::id).containsExactly(2L, 4L, 6L);
+        Assertions.assertThat(indexOnly.findAllByUserIdAfter(1L, 1L, 10)).extracting(PointHistory::id).containsExactly(3L, 5L);
+        Mockito.verifyNoInteractions(pointHistoryTable);
+    }
+}
@@ -0,0 +1,218 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.JournalRestoreStats;
+import io.hhplus.tdd.database.JournaledPointHistoryRepository;
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.TransactionType;
+import io.hhplus.tdd.point.UserPointRepository;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * <b>{@link JournaledPointHistoryRepository} 단위 테스트</b>
+ * <br></br>
+ * - 저장소를 다시 열면 저널을 재생하여 사용자 별 내역과 ID 순서를 그대로 복구하는지 검증한다.
+ * <br></br>
+ * - 세그먼트가 가득 차면 다음 세그먼트로 넘어가고, 쓰다 만 레코드는 복구 대상에서 제외되는지 검증한다.
+ * <br></br>
+ * - 잔액은 최신 스냅샷과 그 이후의 내역만으로 복구되며, 수백만 사용자의 잔액도 제한 시간 안에 복구되는지 검증한다.
+ * <br></br>
+ * - 잔액 저장소는 기록된 내역과 이관받은 잔액으로만 바뀌는지 검증한다.
+ */
+public class JournaledPointHistoryRepositoryTest {
+
+    private static final int RECORD_SIZE = 40;
+    private static final long SEGMENT_BYTES = 64L << 20;
+
+    @TempDir
+    Path directory;
+
+    /* 성공 : 다시 연 저장소는 이전 내역을 사용자 별로 복구하고, 마지막 ID 다음부터 ID 를 부여한다. */
+    @Test
+    void shouldRebuildIndexFromJournal_WhenReopened() {
+        // given : 사용자 1, 2 의 내역이 번갈아 저장된 뒤 저장소가 닫힌다.
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, 1024)) {
+            for (int i = 0; i < 5; i++) {
+                repository.save(1L, 100L + i, TransactionType.CHARGE, 1_000L + i);
+                repository.save(2L, 200L + i, TransactionType.USE, 2_000L + i);
+            }
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, 1024)) {
+            PointHistory next = reopened.save(1L, 999L, TransactionType.CHARGE, 3_000L);
+
+            // then
+            Assertions.assertThat(reopened.findAllByUserId(1L)).extracting(PointHistory::amount)
+                    .containsExactly(100L, 101L, 102L, 103L, 104L, 999L);
+            Assertions.assertThat(reopened.findAllByUserId(2L))
+                    .first().isEqualTo(new PointHistory(2L, 2L, 200L, TransactionType.USE, 2_000L));
+            Assertions.assertThat(next.id()).isEqualTo(11L);
+        }
+    }
+
+    /* 성공 : 세그먼트 크기를 넘는 내역은 여러 세그먼트에 나뉘어 기록되고, 모두 재생된다. */
+    @Test
+    void shouldRollSegments_AndReplayAll() throws IOException {
+        // given : 세그먼트 하나에 레코드 4개
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, RECORD_SIZE * 4)) {
+            for (int i = 0; i < 10; i++) {
+                repository.save(1L, i, TransactionType.CHARGE, i);
+            }
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, RECORD_SIZE * 4)) {
+
+            // then
+            Assertions.assertThat(segments()).hasSize(3);
+            Assertions.assertThat(reopened.findAllByUserIdAfter(1L, 0L, 100)).extracting(PointHistory::id)
+                    .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        }
+    }
+
+    /* 성공 : 체크섬이 맞지 않는 마지막 레코드는 버리고, 그 자리부터 이어서 기록한다. */
+    @Test
+    void shouldDiscardTornRecord_AndOverwriteIt() throws IOException {
+        // given : 3번째 레코드의 금액이 손상된다.
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, 1024)) {
+            for (int i = 0; i < 3; i++) {
+                repository.save(1L, 10L, TransactionType.CHARGE, i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 77L), RECORD_SIZE * 2 + 16);
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, 1024)) {
+            PointHistory next = reopened.save(1L, 20L, TransactionType.USE, 9L);
+
+            // then
+            Assertions.assertThat(next.id()).isEqualTo(3L);
+            Assertions.assertThat(reopened.findAllByUserId(1L)).extracting(PointHistory::amount).containsExactly(10L, 10L, 20L);
+        }
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, 1024)) {
+            Assertions.assertThat(reopened.findAllByUserId(1L)).extracting(PointHistory::amount).containsExactly(10L, 10L, 20L);
+        }
+    }
+
+    /* 성공 : 스냅샷 이후의 내역만 잔액에 다시 반영하고, 잔액은 전체 내역의 합과 같다. */
+    @Test
+    void shouldRestoreBalances_FromSnapshotAndJournalTail() {
+        // given : 내역 4건 이후 스냅샷을 기록하고, 스냅샷 이후 내역 2건이 더 기록된다.
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, 1024)) {
+            repository.save(1L, 1_000L, TransactionType.CHARGE, 1L);
+            repository.save(2L, 500L, TransactionType.CHARGE, 2L);
+            repository.save(1L, 300L, TransactionType.USE, 3L);
+            repository.save(2L, 100L, TransactionType.USE, 4L);
+            repository.snapshot();
+            repository.save(1L, 50L, TransactionType.CHARGE, 5L);
+            repository.save(3L, 70L, TransactionType.CHARGE, 6L);
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, 1024)) {
+            JournalRestoreStats restoreStats = reopened.restoreStats();
+            UserPointRepository userPointRepository = reopened.userPointRepository();
+
+            // then
+            Assertions.assertThat(restoreStats.snapshotOffset()).isEqualTo(4L);
+            Assertions.assertThat(restoreStats.replayedRecords()).isEqualTo(2L);
+            Assertions.assertThat(restoreStats.restoredUsers()).isEqualTo(3L);
+            Assertions.assertThat(userPointRepository.findById(1L).point()).isEqualTo(750L);
+            Assertions.assertThat(userPointRepository.findById(2L).point()).isEqualTo(400L);
+            Assertions.assertThat(userPointRepository.findById(3L).point()).isEqualTo(70L);
+            Assertions.assertThat(userPointRepository.findById(4L).point()).isZero();
+        }
+    }
+
+    /* 성공 : 주기적 스냅샷을 사용하면 종료 시 마지막 스냅샷을 남겨, 다시 열 때 재생할 잔액 내역이 없다. */
+    @Test
+    void shouldWriteFinalSnapshot_OnClose() {
+        // given
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, 1024, Duration.ofHours(1))) {
+            repository.save(1L, 1_000L, TransactionType.CHARGE, 1L);
+            repository.save(1L, 400L, TransactionType.USE, 2L);
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, 1024)) {
+
+            // then
+            Assertions.assertThat(reopened.restoreStats().snapshotOffset()).isEqualTo(2L);
+            Assertions.assertThat(reopened.restoreStats().replayedRecords()).isZero();
+            Assertions.assertThat(reopened.userPointRepository().findById(1L).point()).isEqualTo(600L);
+            Assertions.assertThat(reopened.findAllByUserId(1L)).hasSize(2);
+        }
+    }
+
+    /* 성공 : 잔액은 기록된 내역으로만 바뀌고, 이관받은 잔액은 원장을 덮어써 스냅샷과 이후의 내역으로 복구된다. */
+    @Test
+    void shouldDeriveBalanceFromHistory_AndKeepImportedBalance() {
+        // given : 잔액 저장은 무시되고, 이관받은 잔액은 스냅샷에 남은 뒤 내역이 더 기록된다.
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, 1024)) {
+            UserPointRepository userPointRepository = repository.userPointRepository();
+            userPointRepository.save(1L, 999L);
+            repository.save(1L, 100L, TransactionType.CHARGE, 1L);
+            userPointRepository.importBalance(2L, 500L);
+            Assertions.assertThat(userPointRepository.findById(1L).point()).isEqualTo(100L);
+            Assertions.assertThat(userPointRepository.findById(2L).point()).isEqualTo(500L);
+            repository.snapshot();
+            repository.save(2L, 50L, TransactionType.CHARGE, 2L);
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, 1024)) {
+
+            // then
+            Assertions.assertThat(reopened.userPointRepository().findById(1L).point()).isEqualTo(100L);
+            Assertions.assertThat(reopened.userPointRepository().findById(2L).point()).isEqualTo(550L);
+        }
+    }
+
+    /* 성공 : 200만 사용자의 잔액을 스냅샷과 저널 꼬리만으로 10초 안에 복구한다. */
+    @Test
+    void shouldRestoreMillionsOfUsers_WithinTimeLimit() {
+        // given : 사용자마다 충전 1건을 기록하고 스냅샷을 남긴 뒤, 1,000 명이 1건씩 더 충전한다.
+        int users = 2_000_000;
+        int tail = 1_000;
+        try (JournaledPointHistoryRepository repository = new JournaledPointHistoryRepository(directory, SEGMENT_BYTES)) {
+            for (long userId = 1; userId <= users; userId++) {
+                repository.save(userId, userId, TransactionType.CHARGE, userId);
+            }
+            repository.snapshot();
+            for (long userId = 1; userId <= tail; userId++) {
+                repository.save(userId, 1L, TransactionType.CHARGE, userId);
+            }
+        }
+
+        // when
+        try (JournaledPointHistoryRepository reopened = new JournaledPointHistoryRepository(directory, SEGMENT_BYTES)) {
+            JournalRestoreStats restoreStats = reopened.restoreStats();
+
+            // then
+            Assertions.assertThat(restoreStats.restoredUsers()).isEqualTo(users);
+            Assertions.assertThat(restoreStats.replayedRecords()).isEqualTo(tail);
+            Assertions.assertThat(Duration.ofNanos(restoreStats.totalNanos())).isLessThan(Duration.ofSeconds(10));
+            Assertions.assertThat(reopened.userPointRepository().findById(1L).point()).isEqualTo(2L);
+            Assertions.assertThat(reopened.userPointRepository().findById(users).point()).isEqualTo(users);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.LockEvent;
+import io.hhplus.tdd.point.LockTelemetry;
+import io.hhplus.tdd.point.LockTelemetrySummary;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointOperation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link LockTelemetry} 단위 테스트</b>
+ * <br></br>
+ * - 링 버퍼는 가장 최근의 capacity 개 이벤트만 보관하며, 요약은 보관 중인 이벤트로 계산되는지 검증한다.
+ */
+public class LockTelemetryTest {
+
+    /* 성공 : 버퍼 크기를 넘겨 기록하면 오래된 이벤트는 덮어쓰이고, 최근 이벤트가 최신순으로 조회된다. */
+    @Test
+    void shouldKeepMostRecentEvents_WhenBufferWrapsAround() {
+        // given
+        LockTelemetry lockTelemetry = new LockTelemetry(4);
+
+        // when : 사용자 1 ~ 6 에 대해 한 번씩 기록한다.
+        for (long userId = 1; userId <= 6; userId++) {
+            lockTelemetry.record(userId, PointOperation.CHARGE, PointMetrics.Outcome.SUCCESS, 0L, 0L, 0L);
+        }
+
+        // then
+        List<LockEvent> recent = lockTelemetry.recent(10);
+        Assertions.assertThat(lockTelemetry.totalRecorded()).isEqualTo(6);
+        Assertions.assertThat(recent).extracting(LockEvent::userId).containsExactly(6L, 5L, 4L, 3L);
+    }
+
+    /* 성공 : 작업 종류 별 보유 시간 분포와 처리 결과, 락을 가장 오래 보유한 사용자가 요약된다. */
+    @Test
+    void shouldSummarizeHoldTimeByOperationAndUser() {
+        // given : 사용자 1은 1ms 씩 두 번 충전하고, 사용자 2는 5ms 동안 사용을 시도했다가 잔액 부족으로 실패한다.
+        LockTelemetry lockTelemetry = new LockTelemetry(16);
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        lockTelemetry.record(1L, PointOperation.CHARGE, PointMetrics.Outcome.SUCCESS, 0L, 0L, millis);
+        lockTelemetry.record(1L, PointOperation.CHARGE, PointMetrics.Outcome.SUCCESS, millis, millis, 2 * millis);
+        lockTelemetry.record(2L, PointOperation.USE, PointMetrics.Outcome.REJECTED, 0L, 0L, 5 * millis);
+
+        // when
+        LockTelemetrySummary summary = lockTelemetry.summarize(1);
+
+        // then
+        Assertions.assertThat(summary.sampled()).isEqualTo(3);
+        Assertions.assertThat(summary.operations())
+                .extracting(LockTelemetrySummary.OperationSummary::operation, LockTelemetrySummary.OperationSummary::count,
+                        LockTelemetrySummary.OperationSummary::rejected, LockTelemetrySummary.OperationSummary::holdMaxMicros)
+                .containsExactly(
+                        Assertions.tuple(PointOperation.CHARGE, 2L, 0L, 1_000L),
+                        Assertions.tuple(PointOperation.USE, 1L, 1L, 5_000L));
+        Assertions.assertThat(summary.hotUsers()).extracting(LockTelemetrySummary.HotUser::userId).containsExactly(2L);
+        Assertions.assertThat(summary.slowest()).extracting(LockEvent::holdMicros).containsExactly(5_000L);
+    }
+}
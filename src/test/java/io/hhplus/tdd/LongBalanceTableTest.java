@@ -0,0 +1,140 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.LongBalanceTable;
+import io.hhplus.tdd.point.UserPoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link LongBalanceTable} 단위 테스트</b>
+ * <br></br>
+ * - 배열이 늘어나도 저장한 잔액을 모두 조회할 수 있는지, 태그가 더 클 때만 잔액이 더해지는지 검증한다.
+ * <br></br>
+ * - 삭제한 항목 뒤로 탐사되던 항목도 계속 조회되는지 검증한다.
+ * <br></br>
+ * - 여러 스레드가 동시에 저장하고 조회해도 항목을 잃지 않는지 검증한다.
+ */
+public class LongBalanceTableTest {
+
+    /* 성공 : 초기 크기를 넘겨 저장해도 모든 사용자의 잔액이 조회되고, 없는 사용자는 null 이다. */
+    @Test
+    void shouldFindAllEntries_AfterResize() {
+        // given
+        LongBalanceTable table = new LongBalanceTable();
+
+        // when
+        for (long userId = 0; userId < 100_000; userId++) {
+            table.put(userId, userId * 10, userId, 0L);
+        }
+
+        // then
+        Assertions.assertThat(table.size()).isEqualTo(100_000L);
+        Assertions.assertThat(table.find(0L)).isEqualTo(new UserPoint(0L, 0L, 0L));
+        Assertions.assertThat(table.find(99_999L)).isEqualTo(new UserPoint(99_999L, 999_990L, 99_999L));
+        Assertions.assertThat(table.find(-1L)).isNull();
+        Assertions.assertThat(table.find(100_000L)).isNull();
+    }
+
+    /* 성공 : 태그가 기존 태그보다 클 때만 잔액에 더해진다. */
+    @Test
+    void shouldAddOnlyNewerTag() {
+        // given
+        LongBalanceTable table = new LongBalanceTable();
+        table.addIfNewer(1L, 1_000L, 1L, 1L);
+
+        // when
+        boolean applied = table.addIfNewer(1L, -300L, 2L, 2L);
+        boolean stale = table.addIfNewer(1L, -300L, 2L, 2L);
+
+        // then
+        Assertions.assertThat(applied).isTrue();
+        Assertions.assertThat(stale).isFalse();
+        Assertions.assertThat(table.find(1L).point()).isEqualTo(700L);
+    }
+
+    /* 성공 : 절반의 사용자를 삭제해도 남은 사용자는 모두 조회되고, 삭제한 사용자는 다시 저장할 수 있다. */
+    @Test
+    void shouldFindRemainingEntries_AfterRemove() {
+        // given
+        LongBalanceTable table = new LongBalanceTable();
+        for (long userId = 0; userId < 10_000; userId++) {
+            table.put(userId, userId, 0L, 0L);
+        }
+
+        // when
+        for (long userId = 0; userId < 10_000; userId += 2) {
+            Assertions.assertThat(table.remove(userId)).isTrue();
+        }
+
+        // then
+        Assertions.assertThat(table.size()).isEqualTo(5_000L);
+        Assertions.assertThat(table.remove(0L)).isFalse();
+        for (long userId = 0; userId < 10_000; userId++) {
+            if (userId % 2 == 0) {
+                Assertions.assertThat(table.find(userId)).isNull();
+            } else {
+                Assertions.assertThat(table.find(userId).point()).isEqualTo(userId);
+            }
+        }
+        table.put(2L, 20L, 0L, 0L);
+        Assertions.assertThat(table.find(2L).point()).isEqualTo(20L);
+        Assertions.assertThat(table.size()).isEqualTo(5_001L);
+    }
+
+    /* 성공 : 순회는 모든 항목을 태그와 함께 전달한다. */
+    @Test
+    void shouldVisitAllEntries() {
+        // given
+        LongBalanceTable table = new LongBalanceTable();
+        for (long userId = 1; userId <= 1_000; userId++) {
+            table.put(userId, userId, userId, userId + 1);
+        }
+
+        // when
+        Map<Long, Long> tags = new HashMap<>();
+        table.forEach((userId, point, updateMillis, tag) -> tags.put(userId, tag));
+
+        // then
+        Assertions.assertThat(tags).hasSize(1_000);
+        Assertions.assertThat(tags.get(500L)).isEqualTo(501L);
+    }
+
+    /* 동시성 : 여러 스레드가 서로 다른 사용자를 저장하는 동안 조회해도, 저장이 끝난 뒤 모든 항목이 남아 있다. */
+    @Test
+    void shouldKeepAllEntries_WhenWrittenConcurrently() throws Exception {
+        // given
+        LongBalanceTable table = new LongBalanceTable();
+        int threads = 8;
+        int usersPerThread = 50_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * usersPerThread;
+            futures.add(executorService.submit(() -> {
+                for (long userId = base; userId < base + usersPerThread; userId++) {
+                    table.put(userId, userId, 0L, 0L);
+                    Assertions.assertThat(table.find(userId).point()).isEqualTo(userId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        // then
+        Assertions.assertThat(table.size()).isEqualTo((long) threads * usersPerThread);
+        for (long userId = 0; userId < (long) threads * usersPerThread; userId++) {
+            Assertions.assertThat(table.find(userId).point()).isEqualTo(userId);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.PointAdmission;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointOverloadedException;
+import java.time.Duration;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link PointAdmission} 단위 테스트</b>
+ * <br></br>
+ * - 사용자 별 / 전체 처리 중인 요청 수가 한도를 넘으면 거절하고, 사유 별 거절 수를 기록하는지 검증한다.
+ * <br></br>
+ * - 처리를 마친 요청의 자리는 반납되어 다시 받아들이는지 검증한다.
+ */
+public class PointAdmissionTest {
+
+    /* 실패 : 한 사용자의 처리 중인 요청 수가 한도에 도달하면 그 사용자의 요청만 거절한다. */
+    @Test
+    void shouldShedUser_WhenUserLimitReached() {
+        // given
+        PointMetrics pointMetrics = new PointMetrics();
+        PointAdmission admission = new PointAdmission(2, 0, Duration.ZERO, pointMetrics);
+        admission.acquire(1L);
+        admission.acquire(1L);
+
+        // when & then
+        Assertions.assertThatThrownBy(() -> admission.acquire(1L))
+                .isInstanceOfSatisfying(PointOverloadedException.class,
+                        e -> Assertions.assertThat(e.reason()).isEqualTo(PointOverloadedException.Reason.USER_LIMIT));
+        admission.acquire(2L);
+        Assertions.assertThat(pointMetrics.shedCount(PointOverloadedException.Reason.USER_LIMIT)).isEqualTo(1.0);
+    }
+
+    /* 실패 : 전체 처리 중인 요청 수가 한도에 도달하면 모든 사용자의 요청을 거절한다. */
+    @Test
+    void shouldShedAll_WhenGlobalLimitReached() {
+        // given
+        PointMetrics pointMetrics = new PointMetrics();
+        PointAdmission admission = new PointAdmission(0, 2, Duration.ZERO, pointMetrics);
+        admission.acquire(1L);
+        admission.acquire(2L);
+
+        // when & then
+        Assertions.assertThatThrownBy(() -> admission.acquire(3L))
+                .isInstanceOfSatisfying(PointOverloadedException.class,
+                        e -> Assertions.assertThat(e.reason()).isEqualTo(PointOverloadedException.Reason.GLOBAL_LIMIT));
+        Assertions.assertThat(admission.inFlight()).isEqualTo(2);
+        Assertions.assertThat(pointMetrics.shedCount(PointOverloadedException.Reason.GLOBAL_LIMIT)).isEqualTo(1.0);
+    }
+
+    /* 성공 : 처리를 마친 요청의 자리는 반납되고, 사용자 한도로 거절된 요청은 전체 자리를 차지하지 않는다. */
+    @Test
+    void shouldAdmitAgain_AfterRelease() {
+        // given
+        PointAdmission admission = new PointAdmission(1, 2, Duration.ZERO, new PointMetrics());
+        admission.acquire(1L);
+        Assertions.assertThatThrownBy(() -> admission.acquire(1L)).isInstanceOf(PointOverloadedException.class);
+
+        // when
+        admission.release(1L);
+
+        // then
+        admission.acquire(1L);
+        admission.acquire(2L);
+        Assertions.assertThat(admission.inFlight()).isEqualTo(2);
+    }
+}
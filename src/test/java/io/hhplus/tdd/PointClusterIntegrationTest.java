@@ -0,0 +1,289 @@
+package io.hhplus.tdd;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hhplus.tdd.point.ConsistentHashRing;
+import io.hhplus.tdd.point.PointCluster;
+import io.hhplus.tdd.point.PointClusterStatus;
+import io.hhplus.tdd.point.PointHandoff;
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointService;
+import io.hhplus.tdd.point.TransactionType;
+import io.hhplus.tdd.point.UserPoint;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * <b>다중 인스턴스 라우팅 통합 테스트</b>
+ * <br></br>
+ * 임의의 빈 포트에 클러스터 모드 애플리케이션 컨텍스트 두 개(A, B)를 띄우고 HTTP 로만 요청하여 검증한다.
+ * <br></br>
+ * - 소유하지 않은 사용자의 요청은 소유 인스턴스로 전달되고, 전달받은 인스턴스가 소유자가 아니라면 421 로 거절하는지 검증한다.
+ * <br></br>
+ * - 멱등 키는 소유 인스턴스에서 확인되어, 어느 인스턴스로 재시도하더라도 한 번만 실행되는지 검증한다.
+ * <br></br>
+ * - 구성원을 바꾸고 rebalance 하면 잔액, 내역, 완료된 멱등 키 결과가 새 소유자로 옮겨지는지 검증한다.
+ *   내역 없이 잔액만 있는 사용자도 옮겨지는지 검증한다.
+ * <br></br>
+ * 테스트마다 서로 다른 사용자를 사용하며, 구성원을 바꾸는 테스트는 끝날 때 원래 구성으로 되돌린다.
+ */
+public class PointClusterIntegrationTest {
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int VIRTUAL_NODES = 128;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private static String instanceA;
+    private static String instanceB;
+    private static ConfigurableApplicationContext contextA;
+    private static ConfigurableApplicationContext contextB;
+
+    @BeforeAll
+    static void startInstances() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        instanceA = "http://localhost:" + portA;
+        instanceB = "http://localhost:" + portB;
+        List<String> members = List.of(instanceA, instanceB);
+        contextA = start(portA, instanceA, members);
+        contextB = start(portB, instanceB, members);
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        if (contextA != null) {
+            contextA.close();
+        }
+        if (contextB != null) {
+            contextB.close();
+        }
+    }
+
+    /**
+     * 시나리오 : A 에 B 가 소유한 사용자의 충전 요청을 보낸다.
+     * <br></br>
+     * A 는 직접 처리하지 않고 B 로 전달하며, 충전은 B 에만 반영되어야 한다.
+     */
+    @Test
+    @DisplayName("소유하지 않은 사용자의 요청은 소유 인스턴스로 전달하여 처리한다.")
+    void shouldForwardRequest_ToOwningInstance() throws Exception {
+        // given
+        long userId = userOwnedBy(instanceB, 1_000L);
+        long forwardedBefore = status(instanceA).forwarded();
+
+        // when
+        HttpResponse<String> response = charge(instanceA, userId, 100L, Map.of());
+
+        // then
+        Assertions.assertThat(response.statusCode()).isEqualTo(200);
+        Assertions.assertThat(read(response, UserPoint.class).point()).isEqualTo(100L);
+        Assertions.assertThat(status(instanceA).forwarded()).isGreaterThan(forwardedBefore);
+        Assertions.assertThat(contextB.getBean(PointService.class).getUserPoint(userId).point()).isEqualTo(100L);
+        Assertions.assertThat(contextA.getBean(PointService.class).getUserPoint(userId).point()).isZero();
+    }
+
+    /**
+     * 시나리오 : 다른 인스턴스가 전달한 요청이, 요청의 사용자를 소유하지 않은 인스턴스에 도착한다. (구성원 목록이 서로 다른 경우)
+     * <br></br>
+     * 다시 전달하지 않고 421 로 거절하며, 어느 인스턴스에도 반영되지 않아야 한다.
+     */
+    @Test
+    @DisplayName("전달받은 요청의 사용자를 소유하지 않는다면 421 로 거절한다.")
+    void shouldRejectWith421_WhenForwardedRequestIsMisrouted() throws Exception {
+        // given
+        long userId = userOwnedBy(instanceB, 2_000L);
+
+        // when
+        HttpResponse<String> response = charge(instanceA, userId, 100L, Map.of(PointCluster.FORWARDED_BY_HEADER, instanceB));
+
+        // then
+        Assertions.assertThat(response.statusCode()).isEqualTo(421);
+        Assertions.assertThat(contextA.getBean(PointService.class).getUserPoint(userId).point()).isZero();
+        Assertions.assertThat(contextB.getBean(PointService.class).getUserPoint(userId).point()).isZero();
+    }
+
+    /**
+     * 시나리오 : 같은 멱등 키로 충전 요청을 A(전달)와 B(소유자)에 번갈아 재시도한다.
+     * <br></br>
+     * 멱등 키는 소유 인스턴스의 저장소에서 확인되므로 충전은 한 번만 실행되고, 모든 재시도는 처음 요청의 결과를 받아야 한다.
+     */
+    @Test
+    @DisplayName("멱등 키는 소유 인스턴스에서 확인되어, 어느 인스턴스로 재시도하더라도 한 번만 실행된다.")
+    void shouldChargeOnce_WhenRetriedWithSameIdempotencyKey_ThroughAnyInstance() throws Exception {
+        // given
+        long userId = userOwnedBy(instanceB, 3_000L);
+        Map<String, String> key = Map.of(IDEMPOTENCY_KEY_HEADER, "cluster-retry-" + userId);
+        UserPoint first = read(charge(instanceA, userId, 100L, key), UserPoint.class);
+
+        // when
+        UserPoint retriedThroughA = read(charge(instanceA, userId, 100L, key), UserPoint.class);
+        UserPoint retriedOnOwner = read(charge(instanceB, userId, 100L, key), UserPoint.class);
+
+        // then
+        Assertions.assertThat(retriedThroughA).isEqualTo(first);
+        Assertions.assertThat(retriedOnOwner).isEqualTo(first);
+        PointService owner = contextB.getBean(PointService.class);
+        Assertions.assertThat(owner.getUserPoint(userId).point()).isEqualTo(100L);
+        Assertions.assertThat(owner.getAllHistory(userId)).hasSize(1);
+    }
+
+    /**
+     * 시나리오 : B 가 소유한 사용자가 충전과 사용을 한 뒤, 구성원에서 B 를 빼고 B 에서 rebalance 한다.
+     * <br></br>
+     * 사용자의 요청이 오기 전에 A 로 잔액과 내역이 옮겨져야 하며, 옮기기 전에 완료된 멱등 키로 A 에 재시도하면 다시 충전하지 않아야 한다.
+     */
+    @Test
+    @DisplayName("구성원 변경 후 rebalance 하면 잔액, 내역, 멱등 키 결과가 새 소유자로 옮겨진다.")
+    void shouldMoveBalanceHistoriesAndIdempotencyKeys_WhenRebalanced() throws Exception {
+        // given
+        long userId = userOwnedBy(instanceB, 4_000L);
+        Map<String, String> key = Map.of(IDEMPOTENCY_KEY_HEADER, "cluster-handoff-" + userId);
+        UserPoint charged = read(charge(instanceA, userId, 1_000L, key), UserPoint.class);
+        Assertions.assertThat(send(instanceB, "PATCH", "/point/" + userId + "/use", 300L, Map.of()).statusCode()).isEqualTo(200);
+        long migratedBefore = status(instanceA).migrated();
+
+        try {
+            // when : 모든 인스턴스에 구성원 변경 → 이전 소유자 B 에서 rebalance
+            updateMembers(List.of(instanceA));
+            Integer moved = read(send(instanceB, "POST", "/admin/point/cluster/rebalance", null, Map.of()), Integer.class);
+
+            // then : 사용자의 요청 없이도 이관되었다.
+            Assertions.assertThat(moved).isGreaterThanOrEqualTo(1);
+            Assertions.assertThat(status(instanceA).migrated()).isGreaterThan(migratedBefore);
+            PointService newOwner = contextA.getBean(PointService.class);
+            Assertions.assertThat(newOwner.getUserPoint(userId).point()).isEqualTo(700L);
+            Assertions.assertThat(newOwner.getAllHistory(userId)).extracting(PointHistory::type)
+                    .containsExactly(TransactionType.CHARGE, TransactionType.USE);
+
+            // then : 이관 전에 완료된 멱등 키의 재시도는 새 소유자에서도 다시 충전하지 않는다.
+            UserPoint retried = read(charge(instanceA, userId, 1_000L, key), UserPoint.class);
+            Assertions.assertThat(retried).isEqualTo(charged);
+            Assertions.assertThat(newOwner.getUserPoint(userId).point()).isEqualTo(700L);
+            Assertions.assertThat(read(send(instanceB, "GET", "/point/" + userId + "/histories", null, Map.of()),
+                    new TypeReference<List<PointHistory>>() {})).hasSize(2);
+        } finally {
+            // 다른 테스트가 같은 구성에서 실행되도록 되돌린다.
+            completeRebalance();
+            updateMembers(List.of(instanceA, instanceB));
+            send(instanceA, "POST", "/admin/point/cluster/rebalance", null, Map.of());
+            completeRebalance();
+        }
+    }
+
+    /**
+     * 시나리오 : B 가 소유한 사용자가 내역 없이 잔액만 가진 상태에서(이관받은 잔액 등), 구성원에서 B 를 빼고 B 에서 rebalance 한다.
+     * <br></br>
+     * 내역이 있는 사용자만 찾는다면 이 사용자는 옮겨지지 않는다. 사용자의 요청이 오기 전에 A 로 잔액이 옮겨져야 한다.
+     */
+    @Test
+    @DisplayName("구성원 변경 후 rebalance 하면 내역 없이 잔액만 있는 사용자도 새 소유자로 옮겨진다.")
+    void shouldMoveBalanceOnlyUser_WhenRebalanced() throws Exception {
+        // given
+        long userId = userOwnedBy(instanceB, 5_000L);
+        PointService previousOwner = contextB.getBean(PointService.class);
+        previousOwner.importUser(new PointHandoff(new UserPoint(userId, 500L, System.currentTimeMillis()), List.of(), List.of()));
+        Assertions.assertThat(previousOwner.getAllHistory(userId)).isEmpty();
+
+        try {
+            // when : 모든 인스턴스에 구성원 변경 → 이전 소유자 B 에서 rebalance
+            updateMembers(List.of(instanceA));
+            Integer moved = read(send(instanceB, "POST", "/admin/point/cluster/rebalance", null, Map.of()), Integer.class);
+
+            // then : 사용자의 요청 없이도 잔액이 이관되었다.
+            Assertions.assertThat(moved).isGreaterThanOrEqualTo(1);
+            PointService newOwner = contextA.getBean(PointService.class);
+            Assertions.assertThat(newOwner.getUserPoint(userId).point()).isEqualTo(500L);
+            Assertions.assertThat(newOwner.getAllHistory(userId)).isEmpty();
+        } finally {
+            completeRebalance();
+            updateMembers(List.of(instanceA, instanceB));
+            send(instanceA, "POST", "/admin/point/cluster/rebalance", null, Map.of());
+            completeRebalance();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int port, String self, List<String> members) {
+        return new SpringApplicationBuilder(TddApplication.class)
+                .properties(
+                        "server.port=" + port,
+                        "point.cluster.enabled=true",
+                        "point.cluster.self=" + self,
+                        "point.cluster.members=" + String.join(",", members),
+                        "point.cluster.virtual-nodes=" + VIRTUAL_NODES)
+                .run();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /* 두 인스턴스 구성에서 owner 가 소유한, from 이상의 첫 사용자 ID */
+    private static long userOwnedBy(String owner, long from) {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(instanceA, instanceB), VIRTUAL_NODES);
+        long userId = from;
+        while (!ring.ownerOf(userId).equals(owner)) {
+            userId++;
+        }
+        return userId;
+    }
+
+    private static HttpResponse<String> charge(String instance, long userId, long amount, Map<String, String> headers) throws Exception {
+        return send(instance, "PATCH", "/point/" + userId + "/charge", amount, headers);
+    }
+
+    private static void updateMembers(List<String> members) throws Exception {
+        for (String instance : List.of(instanceA, instanceB)) {
+            Assertions.assertThat(send(instance, "PUT", "/admin/point/cluster/members", members, Map.of()).statusCode()).isEqualTo(200);
+        }
+    }
+
+    private static void completeRebalance() throws Exception {
+        for (String instance : List.of(instanceA, instanceB)) {
+            send(instance, "POST", "/admin/point/cluster/rebalance/complete", null, Map.of());
+        }
+    }
+
+    private static PointClusterStatus status(String instance) throws Exception {
+        return read(send(instance, "GET", "/admin/point/cluster", null, Map.of()), PointClusterStatus.class);
+    }
+
+    private static HttpResponse<String> send(String instance, String method, String path, Object body,
+                                             Map<String, String> headers) throws Exception {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(instance + path))
+                .header("Content-Type", "application/json")
+                .method(method, publisher);
+        new HashMap<>(headers).forEach(request::header);
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static <T> T read(HttpResponse<String> response, Class<T> type) throws IOException {
+        Assertions.assertThat(response.statusCode()).as(response.body()).isEqualTo(200);
+        return objectMapper.readValue(response.body(), type);
+    }
+
+    private static <T> T read(HttpResponse<String> response, TypeReference<T> type) throws IOException {
+        Assertions.assertThat(response.statusCode()).as(response.body()).isEqualTo(200);
+        return objectMapper.readValue(response.body(), type);
+    }
+}
@@ -0,0 +1,95 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.database.PointHistoryWriter;
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.TransactionType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link PointHistoryWriter} 단위 테스트</b>
+ * <br></br>
+ * - 실제 {@link PointHistoryTable}(저장마다 0 ~ 300ms 지연)에 저장하더라도, 서로 다른 사용자의 내역은 파티션 별로 병렬 기록되는지 검증한다.
+ * <br></br>
+ * - 한 사용자의 내역은 적재 순서대로, 증가하는 ID 로 기록되는지 검증한다.
+ */
+public class PointHistoryWriterTest {
+
+    private static final int PARTITIONS = 32;
+    private static final int USERS = 32;
+    private static final int HISTORIES_PER_USER = 4;
+
+    private PointHistoryWriter writer;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        writer.close();
+    }
+
+    /* 파티션 수만큼의 실제 테이블에 나누어 저장하는 저장소와 기록기를 만든다. */
+    private IndexedPointHistoryRepository newPartitionedWriter() {
+        List<PointHistoryTable> tables = IntStream.range(0, PARTITIONS).mapToObj(i -> new PointHistoryTable()).toList();
+        IndexedPointHistoryRepository repository = new IndexedPointHistoryRepository(tables);
+        writer = new PointHistoryWriter(repository, new PointMetrics(), 64, PARTITIONS);
+        return repository;
+    }
+
+    /*
+       성공 : 여러 사용자의 내역 128건을 직렬로 기록하면 평균 150ms 씩 약 19초가 걸리지만,
+       파티션 별로 병렬 기록되므로 가장 많은 내역이 몰린 파티션의 기록 시간 안팎에 모두 기록된다.
+     */
+    @Test
+    void shouldWriteDifferentUsersInParallel_WhenTableIsThrottled() {
+        // given
+        IndexedPointHistoryRepository repository = newPartitionedWriter();
+        List<CompletableFuture<PointHistory>> appended = new ArrayList<>();
+
+        // when
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < HISTORIES_PER_USER; i++) {
+            for (long userId = 1; userId <= USERS; userId++) {
+                appended.add(writer.append(userId, 100L, TransactionType.CHARGE, System.currentTimeMillis()));
+            }
+        }
+        appended.forEach(writer::await);
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        // then
+        Assertions.assertThat(elapsedMillis).isLessThan(8_000L);
+        for (long userId = 1; userId <= USERS; userId++) {
+            Assertions.assertThat(repository.findAllByUserId(userId)).hasSize(HISTORIES_PER_USER);
+        }
+    }
+
+    /* 성공 : 한 사용자의 내역은 적재 순서대로 기록되고, 다른 파티션의 내역과 ID 가 겹치지 않는다. */
+    @Test
+    void shouldKeepPerUserOrderAndUniqueIds_AcrossPartitions() {
+        // given
+        IndexedPointHistoryRepository repository = newPartitionedWriter();
+        List<CompletableFuture<PointHistory>> appended = new ArrayList<>();
+
+        // when
+        for (long userId = 1; userId <= USERS; userId++) {
+            for (int i = 0; i < HISTORIES_PER_USER; i++) {
+                appended.add(writer.append(userId, i, TransactionType.CHARGE, System.currentTimeMillis()));
+            }
+        }
+        List<PointHistory> written = appended.stream().map(writer::await).toList();
+
+        // then
+        Assertions.assertThat(written).extracting(PointHistory::id).doesNotHaveDuplicates();
+        for (long userId = 1; userId <= USERS; userId++) {
+            List<PointHistory> histories = repository.findAllByUserId(userId);
+            Assertions.assertThat(histories).extracting(PointHistory::amount).containsExactly(0L, 1L, 2L, 3L);
+            Assertions.assertThat(histories).extracting(PointHistory::id).isSorted();
+        }
+    }
+}
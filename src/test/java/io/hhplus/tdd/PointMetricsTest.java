@@ -0,0 +1,105 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.LockTelemetry;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link PointMetrics} 단위 테스트</b>
+ * <br></br>
+ * - 락 대기/보유 시간과 단계 별 지연 시간이 작업 종류와 처리 결과 태그로 구분되어 기록되는지 검증한다.
+ * <br></br>
+ * - 사용자 별 락 대기 스레드 수 게이지가 대기 스레드가 많은 사용자 순으로 노출되는지 검증한다.
+ * <br></br>
+ * - OPTIMISTIC 모드의 CAS 충돌 비율이 노출되는지 검증한다.
+ */
+public class PointMetricsTest {
+
+    SimpleMeterRegistry meterRegistry;
+    PointMetrics pointMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        pointMetrics = new PointMetrics(meterRegistry, new LockTelemetry(16), 1, Duration.ZERO);
+    }
+
+    /* 성공 : 락 대기 시간과 보유 시간이 작업 종류 및 처리 결과 태그로 기록된다. */
+    @Test
+    void shouldRecordLockWaitAndHold_TaggedByOperationAndOutcome() {
+        // given
+        long waitStartedAt = pointMetrics.lockWaitStarted(1L);
+        long acquiredAt = pointMetrics.lockAcquired(1L);
+
+        // when
+        pointMetrics.recordLock(1L, PointOperation.CHARGE, PointMetrics.Outcome.SUCCESS, waitStartedAt, acquiredAt);
+
+        // then
+        Assertions.assertThat(meterRegistry.get("point.lock.wait").tag("operation", "charge").tag("outcome", "success").timer().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("point.lock.hold").tag("operation", "charge").tag("outcome", "success").timer().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("point.lock.hold").tag("operation", "use").tag("outcome", "success").timer().count()).isZero();
+    }
+
+    /* 실패 : 정책 위반으로 실패한 단계는 rejected 로 기록되고, 예외는 그대로 전달된다. */
+    @Test
+    void shouldRecordRejectedOutcome_WhenStageThrowsPolicyViolation() {
+        // when
+        Assertions.assertThatThrownBy(() -> pointMetrics.time(PointMetrics.Stage.SELECT, PointOperation.USE, () -> {
+                    throw new IllegalArgumentException("잔액 이상의 금액은 사용이 불가합니다.");
+                }))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // then
+        Assertions.assertThat(meterRegistry.get("point.stage.latency")
+                .tag("stage", "selectById").tag("operation", "use").tag("outcome", "rejected")
+                .timer().totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+    /* 성공 : 대기 스레드가 가장 많은 사용자의 대기 스레드 수가 노출되고, 모두 락을 획득하면 전체 대기 수는 0 이 된다. */
+    @Test
+    void shouldExposeHottestUserWaitingThreads() {
+        // given : 1번 사용자에 3개, 2번 사용자에 1개의 스레드가 락을 기다린다.
+        for (int i = 0; i < 3; i++) {
+            pointMetrics.lockWaitStarted(1L);
+        }
+        pointMetrics.lockWaitStarted(2L);
+
+        // when
+        pointMetrics.refreshHotUsers();
+
+        // then : 상위 1명의 사용자만 노출된다.
+        Assertions.assertThat(meterRegistry.get("point.lock.waiting").gauge().value()).isEqualTo(4);
+        Assertions.assertThat(meterRegistry.get("point.lock.waiting.user").tag("userId", "1").gauge().value()).isEqualTo(3);
+        Assertions.assertThat(meterRegistry.find("point.lock.waiting.user").tag("userId", "2").gauge()).isNull();
+
+        // + 모든 스레드가 락을 획득한 뒤에는 대기 수가 0 이다.
+        for (int i = 0; i < 3; i++) {
+            pointMetrics.lockAcquired(1L);
+        }
+        pointMetrics.lockAcquired(2L);
+        pointMetrics.refreshHotUsers();
+        Assertions.assertThat(meterRegistry.get("point.lock.waiting").gauge().value()).isZero();
+        Assertions.assertThat(meterRegistry.find("point.lock.waiting.user").gauge()).isNull();
+    }
+
+    /* 성공 : CAS 시도와 충돌 수가 작업 종류 별로 기록되고, 누적 충돌 비율이 노출된다. */
+    @Test
+    void shouldExposeOptimisticConflictRate() {
+        // when : 4번의 시도 중 1번이 충돌한다.
+        pointMetrics.recordOptimisticAttempt(PointOperation.CHARGE, true);
+        pointMetrics.recordOptimisticAttempt(PointOperation.CHARGE, false);
+        pointMetrics.recordOptimisticAttempt(PointOperation.USE, false);
+        pointMetrics.recordOptimisticAttempt(PointOperation.USE, false);
+
+        // then
+        Assertions.assertThat(meterRegistry.get("point.optimistic.attempts").tag("operation", "charge").counter().count()).isEqualTo(2);
+        Assertions.assertThat(meterRegistry.get("point.optimistic.conflicts").tag("operation", "charge").counter().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("point.optimistic.conflict.rate").gauge().value()).isEqualTo(0.25);
+    }
+}
@@ -2,24 +2,39 @@ package io.hhplus.tdd;
 
 import io.hhplus.tdd.database.PointHistoryTable;
 import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.point.PointAdmission;
+import io.hhplus.tdd.point.PointCommand;
+import io.hhplus.tdd.point.PointCommandResult;
+import io.hhplus.tdd.point.PointExecutionMode;
 import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointOverloadedException;
 import io.hhplus.tdd.point.PointService;
+import io.hhplus.tdd.point.PointSummary;
+import io.hhplus.tdd.point.PointTransferResult;
+import io.hhplus.tdd.point.RefCountedUserLockProvider;
+import io.hhplus.tdd.point.TransactionType;
 import io.hhplus.tdd.point.UserPoint;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.springframework.boot.test.context.SpringBootTest;
 
 
@@ -37,6 +52,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 public class PointServiceIntegrationTest {
     PointService pointService;
 
+    /* 테스트에서 생성한 PointService 가 공유하는 사용자 락 제공자와 계측기. 테스트에서 락을 직접 잡거나 지표를 검증할 때 사용한다. */
+    RefCountedUserLockProvider userLockProvider;
+    PointMetrics pointMetrics;
+
+    private final List<PointService> openedServices = new ArrayList<>();
+
     private static final long initialBalance = 600_000L; // 사용자 최초 보유 잔액. 이를 넉넉하게 잡음으로써 예외 발생 여부 고려하지 않아도 동시성 문제 해결 여부 검증 가능하다.
     private static final int numberOfUseRequest = 25; // 사용 요청(스레드) 수
     private static final int numberOfChargeRequest = 25; // 충전 요청(스레드) 수
@@ -50,19 +71,53 @@ public class PointServiceIntegrationTest {
      */
     @BeforeEach
     public void init(){
-        pointService = new PointService(new PointHistoryTable(), new UserPointTable());
+        userLockProvider = new RefCountedUserLockProvider();
+        pointMetrics = new PointMetrics();
+        pointService = newPointService(PointExecutionMode.LOCK);
+    }
+
+    /**
+     * 테스트 중 생성한 PointService 를 모두 닫아, 내역 기록 스레드와 작업 스레드가 다음 테스트로 이어지지 않도록 한다.
+     */
+    @AfterEach
+    public void close() throws Exception {
+        for (PointService opened : openedServices) {
+            opened.close();
+        }
+        openedServices.clear();
+    }
+
+    /* 요청 수 제한 없이, 주어진 실행 모드로 동작하는 PointService 를 생성한다. */
+    private PointService newPointService(PointExecutionMode executionMode) {
+        return newPointService(executionMode, 0, 0, Duration.ZERO);
+    }
+
+    /**
+     * 새 테이블 위에서 주어진 실행 모드와 요청 수 제한으로 동작하는 PointService 를 생성한다. 생성한 PointService 는 테스트가 끝나면 닫힌다.
+     * @param executionMode 충전/사용 실행 방식
+     * @param maxInFlightPerUser 사용자 별 처리 중인 요청 수 한도. 0 이라면 제한하지 않는다.
+     * @param maxInFlight 전체 처리 중인 요청 수 한도. 0 이라면 제한하지 않는다.
+     * @param lockTimeout 사용자 락 획득 제한 시간. 0 이라면 획득할 때까지 기다린다.
+     */
+    private PointService newPointService(PointExecutionMode executionMode, int maxInFlightPerUser, int maxInFlight, Duration lockTimeout) {
+        PointService created = new PointService(new PointHistoryTable(), new UserPointTable(), userLockProvider,
+                new PointAdmission(maxInFlightPerUser, maxInFlight, lockTimeout, pointMetrics), pointMetrics, executionMode);
+        openedServices.add(created);
+        return created;
     }
 
     /**
      * 시나리오 : 동일한 사용자에 대해 동시에 다수의 충전 및 사용 요청이 발생한다.
      * <br></br>
-     * 이때 순차적으로 처리되도록 하여 동시성 문제가 발생하지 않도록 한다.
+     * 이때 순차적으로 처리되도록 하여 동시성 문제가 발생하지 않도록 한다. 실행 방식과 관계없이 결과는 요청을 하나씩 처리한 결과와 같아야 한다.
      */
-    @Test
+    @ParameterizedTest
+    @EnumSource(PointExecutionMode.class)
     @DisplayName("동일한 사용자에 대한 동시 다발적 충전 및 사용 요청이 발생할 경우 순차적으로 처리한다.")
-    void shouldBehaveProperly_WhenConcurrentUseAndChargeOccurs_ForSameUser() throws InterruptedException, ExecutionException {
+    void shouldBehaveProperly_WhenConcurrentUseAndChargeOccurs_ForSameUser(PointExecutionMode executionMode) throws InterruptedException, ExecutionException {
 
-        // given : 아이디 1L, 잔액 600_000을 가진 사용자가 존재한다. 해당 사용자에게 각각 25개의 사용 및 충전 요청이 생성된다.
+        // given : 주어진 실행 방식의 PointService 를 사용한다. 아이디 1L, 잔액 600_000을 가진 사용자가 존재한다. 해당 사용자에게 각각 25개의 사용 및 충전 요청이 생성된다.
+        pointService = newPointService(executionMode);
         UserPoint userPoint = new UserPoint(1L, 0L, System.currentTimeMillis());
         pointService.charge(userPoint.id(), initialBalance); // 최초 충전 시행.
 
@@ -145,6 +200,264 @@ public class PointServiceIntegrationTest {
         }
     }
 
+    /**
+     * 시나리오 : 다른 요청이 사용자 락을 오래 보유한 동안 같은 사용자의 충전 요청이 들어온다.
+     * <br></br>
+     * 락 획득 제한 시간이 지나면 기다리지 않고 거절되며, 잔액과 내역은 변경되지 않아야 한다.
+     */
+    @Test
+    @DisplayName("락 획득 제한 시간 안에 차례가 오지 않은 요청은 거절된다.")
+    void shouldShedRequest_WhenLockIsNotAcquiredInTime() throws InterruptedException, ExecutionException {
+        // given : 다른 스레드가 사용자 1 의 락을 보유 중이다.
+        pointService = newPointService(PointExecutionMode.LOCK, 0, 0, Duration.ofMillis(100));
+        long userId = 1L;
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        holder.submit(() -> userLockProvider.lock(userId)).get();
+
+        // when
+        PointOverloadedException shed = Assertions.assertThrows(PointOverloadedException.class, () -> pointService.charge(userId, amountPerCharge));
+        holder.submit(() -> userLockProvider.unlock(userId)).get();
+        holder.shutdown();
+
+        // then : 거절된 요청은 반영되지 않았고, 락이 풀린 뒤의 요청은 정상 처리된다.
+        Assertions.assertEquals(PointOverloadedException.Reason.LOCK_TIMEOUT, shed.reason());
+        Assertions.assertEquals(1.0, pointMetrics.shedCount(PointOverloadedException.Reason.LOCK_TIMEOUT));
+        Assertions.assertEquals(0, pointService.getAllHistory(userId).size());
+        Assertions.assertEquals(amountPerCharge, pointService.charge(userId, amountPerCharge).point());
+    }
+
+    /**
+     * 시나리오 : 한 사용자의 요청이 처리 중인 동안, 그 사용자와 다른 사용자의 명령이 섞인 일괄 처리 요청이 들어온다.
+     * <br></br>
+     * 사용자 별 한도에 걸린 묶음이 있으면 일괄 처리 전체가 거절되며, 다른 사용자의 묶음도 반영되지 않아야 한다.
+     */
+    @Test
+    @DisplayName("일괄 처리의 사용자 묶음 중 하나라도 요청 수 한도를 넘으면 아무것도 반영하지 않고 거절한다.")
+    void shouldShedWholeBatch_WhenAnyUserGroupExceedsLimit() throws InterruptedException, ExecutionException {
+        // given : 사용자 별 한도는 1 이다. 사용자 1 의 충전 요청이 락을 기다리며 처리 중이다.
+        pointService = newPointService(PointExecutionMode.LOCK, 1, 0, Duration.ZERO);
+        long busyUserId = 1L;
+        long otherUserId = 2L;
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        holder.submit(() -> userLockProvider.lock(busyUserId)).get();
+        CompletableFuture<UserPoint> inFlight = pointService.chargeAsync(busyUserId, amountPerCharge);
+
+        // when
+        List<PointCommand> commands = List.of(
+                new PointCommand(otherUserId, TransactionType.CHARGE, amountPerCharge),
+                new PointCommand(busyUserId, TransactionType.CHARGE, amountPerCharge));
+        PointOverloadedException shed = Assertions.assertThrows(PointOverloadedException.class, () -> pointService.executeBatch(commands));
+        holder.submit(() -> userLockProvider.unlock(busyUserId)).get();
+        holder.shutdown();
+
+        // then : 다른 사용자의 묶음도 반영되지 않았고, 거절된 묶음의 자리가 반납되어 이후 일괄 처리는 정상 처리된다.
+        Assertions.assertEquals(PointOverloadedException.Reason.USER_LIMIT, shed.reason());
+        Assertions.assertEquals(amountPerCharge, inFlight.get().point());
+        Assertions.assertEquals(0, pointService.getAllHistory(otherUserId).size());
+        Assertions.assertTrue(pointService.executeBatch(commands).stream().allMatch(PointCommandResult::success));
+        Assertions.assertEquals(amountPerCharge, pointService.getUserPoint(otherUserId).point());
+    }
+
+    /**
+     * 시나리오 : 동일한 사용자에 대해 동시에 다수의 충전 및 사용 요청이 발생한 뒤 요약을 조회한다.
+     * <br></br>
+     * 요약의 합계와 횟수는 내역 전체를 합산한 값과 같아야 한다.
+     */
+    @Test
+    @DisplayName("동시 충전 및 사용 이후 요약 조회")
+    void shouldSummarizeAllHistories_AfterConcurrentUseAndCharge() throws InterruptedException, ExecutionException {
+        // given
+        long userId = 1L;
+        pointService.charge(userId, initialBalance);
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfChargeRequest + numberOfUseRequest);
+
+        // when
+        List<Future<Void>> futures = executorService.invokeAll(generateShuffledChargeAndUse(userId, amountPerCharge, amountPerUse, numberOfChargeRequest, numberOfUseRequest));
+        executorService.shutdown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        PointSummary summary = pointService.getSummary(userId);
+
+        // then
+        List<PointHistory> histories = pointService.getAllHistory(userId);
+        Assertions.assertEquals(initialBalance + numberOfChargeRequest * amountPerCharge, summary.totalCharged());
+        Assertions.assertEquals(numberOfUseRequest * amountPerUse, summary.totalUsed());
+        Assertions.assertEquals(numberOfChargeRequest + 1, summary.chargeCount());
+        Assertions.assertEquals(numberOfUseRequest, summary.useCount());
+        Assertions.assertEquals(histories.stream().mapToLong(PointHistory::updateMillis).max().orElseThrow(), summary.lastActivityMillis());
+    }
+
+    /**
+     * 시나리오 : 두 사용자가 서로에게 동시에 다수의 이체를 요청한다.
+     * <br></br>
+     * 반대 방향의 이체가 서로의 락을 기다리며 멈추지 않아야 하며, 두 사용자의 잔액 합은 보존되고 이체마다 연결된 내역 한 쌍이 남아야 한다.
+     */
+    @Test
+    @DisplayName("두 사용자 간 동시 다발적 양방향 이체 요청이 발생")
+    void shouldConserveTotalBalance_WhenConcurrentTransfersOccurInBothDirections() throws InterruptedException, ExecutionException {
+        // given
+        long userA = 1L;
+        long userB = 2L;
+        pointService.charge(userA, initialBalance);
+        pointService.charge(userB, initialBalance);
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfChargeRequest + numberOfUseRequest);
+        List<Callable<Void>> transfers = new ArrayList<>();
+        for (int i = 0; i < numberOfChargeRequest; i++) {
+            transfers.add(() -> { pointService.transfer(userA, userB, amountPerCharge); return null; });
+        }
+        for (int i = 0; i < numberOfUseRequest; i++) {
+            transfers.add(() -> { pointService.transfer(userB, userA, amountPerUse); return null; });
+        }
+        Collections.shuffle(transfers);
+
+        // when
+        List<Future<Void>> futures = executorService.invokeAll(transfers);
+        executorService.shutdown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+
+        // then
+        long expectedA = initialBalance - numberOfChargeRequest * amountPerCharge + numberOfUseRequest * amountPerUse;
+        long expectedB = initialBalance + numberOfChargeRequest * amountPerCharge - numberOfUseRequest * amountPerUse;
+        Assertions.assertEquals(expectedA, pointService.getUserPoint(userA).point());
+        Assertions.assertEquals(expectedB, pointService.getUserPoint(userB).point());
+        Assertions.assertEquals(1 + numberOfChargeRequest + numberOfUseRequest, pointService.getAllHistory(userA).size());
+        Assertions.assertEquals(1 + numberOfChargeRequest + numberOfUseRequest, pointService.getAllHistory(userB).size());
+    }
+
+    /**
+     * 시나리오 : 받는 사용자의 잔액이 최대 한도를 넘게 되는 이체를 요청한다.
+     * <br></br>
+     * 보내는 쪽 정책은 통과하더라도 아무것도 갱신되지 않아야 하며, 정상 이체의 내역은 같은 금액과 시각의 사용/충전 한 쌍이어야 한다.
+     */
+    @Test
+    @DisplayName("받는 쪽 정책을 위반하는 이체는 양쪽 모두 반영되지 않는다.")
+    void shouldApplyNothing_WhenTransferViolatesPolicyOfEitherSide() {
+        // given
+        long from = 1L;
+        long to = 2L;
+        pointService.charge(from, initialBalance);
+        pointService.charge(to, initialBalance);
+
+        // when
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pointService.transfer(from, to, initialBalance));
+        PointTransferResult transferred = pointService.transfer(from, to, amountPerCharge);
+
+        // then
+        Assertions.assertEquals(initialBalance - amountPerCharge, transferred.from().point());
+        Assertions.assertEquals(initialBalance + amountPerCharge, transferred.to().point());
+        Assertions.assertEquals(TransactionType.USE, transferred.withdrawal().type());
+        Assertions.assertEquals(TransactionType.CHARGE, transferred.deposit().type());
+        Assertions.assertEquals(amountPerCharge, transferred.withdrawal().amount());
+        Assertions.assertEquals(amountPerCharge, transferred.deposit().amount());
+        Assertions.assertEquals(transferred.withdrawal().updateMillis(), transferred.deposit().updateMillis());
+        Assertions.assertEquals(2, pointService.getAllHistory(from).size());
+        Assertions.assertEquals(2, pointService.getAllHistory(to).size());
+    }
+
+    /**
+     * 시나리오 : 클러스터 구성원이 바뀌어 사용자의 소유 인스턴스가 바뀐다.
+     * <br></br>
+     * 새 소유 인스턴스는 이전 소유 인스턴스의 잔액과 내역을 그대로 가져와야 하며,
+     * 사용자가 다시 돌아온 경우 이미 가진 내역은 중복 추가하지 않고 이후의 내역만 추가해야 한다.
+     */
+    @Test
+    @DisplayName("사용자를 다른 인스턴스로 이관하면 잔액과 내역이 그대로 옮겨지고, 다시 이관받을 때는 없는 내역만 추가된다.")
+    void shouldMoveBalanceAndHistories_WhenUserIsHandedOff() {
+        // given
+        long userId = 1L;
+        PointService newOwner = newPointService(PointExecutionMode.LOCK);
+        pointService.charge(userId, initialBalance);
+        pointService.use(userId, amountPerUse);
+
+        // when
+        newOwner.importUser(pointService.exportUser(userId));
+        newOwner.charge(userId, amountPerCharge);
+        pointService.importUser(newOwner.exportUser(userId));
+
+        // then
+        long expected = initialBalance - amountPerUse + amountPerCharge;
+        Assertions.assertEquals(expected, newOwner.getUserPoint(userId).point());
+        Assertions.assertEquals(expected, pointService.getUserPoint(userId).point());
+        List<PointHistory> histories = pointService.getAllHistory(userId);
+        Assertions.assertEquals(List.of(TransactionType.CHARGE, TransactionType.USE, TransactionType.CHARGE),
+                histories.stream().map(PointHistory::type).toList());
+        Assertions.assertEquals(newOwner.getAllHistory(userId).stream().map(PointHistory::updateMillis).toList(),
+                histories.stream().map(PointHistory::updateMillis).toList());
+    }
+
+    /**
+     * 시나리오 : 동일한 사용자에 대해 Future 반환 충전 및 사용 요청이 동시에 다수 발생한다.
+     * <br></br>
+     * 요청 스레드는 기다리지 않고 반환되며, 작업 스레드 풀에서 순차적으로 처리된 결과는 동기 API 와 같아야 한다.
+     */
+    @Test
+    @DisplayName("Future 반환 충전 및 사용 요청이 동시에 발생할 경우 작업 스레드 풀에서 순차적으로 처리한다.")
+    void shouldBehaveProperly_WhenConcurrentAsyncUseAndChargeOccurs_ForSameUser() {
+        // given
+        long userId = 1L;
+        pointService.charge(userId, initialBalance);
+
+        // when : 요청 스레드 하나가 충전/사용 요청 50개를 기다리지 않고 모두 적재한다.
+        List<CompletableFuture<UserPoint>> futures = new ArrayList<>();
+        for (int i = 0; i < numberOfChargeRequest; i++) {
+            futures.add(pointService.chargeAsync(userId, amountPerCharge));
+            futures.add(pointService.useAsync(userId, amountPerUse));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        // then : 잔액과 내역 수가 순차 처리 결과와 일치하고, Future 반환 조회도 같은 결과를 반환한다.
+        Assertions.assertEquals(601_250L, pointService.getUserPointAsync(userId).join().point());
+        Assertions.assertEquals(51, pointService.getAllHistoryAsync(userId).join().size());
+        Assertions.assertEquals(numberOfChargeRequest + 1, pointService.getSummaryAsync(userId).join().chargeCount());
+    }
+
+    /**
+     * 시나리오 : 한 사용자의 락이 오래 잡혀있는 동안 같은 사용자에게 Future 반환 사용 요청이 계속 들어온다.
+     * <br></br>
+     * 쓰기 작업 스레드와 대기열이 모두 락 대기로 가득 차면 이후 요청은 쌓이지 않고 거절되어야 하며,
+     * 조회는 별도의 스레드 풀에서 처리되므로 지연되지 않아야 한다.
+     */
+    @Test
+    @DisplayName("쓰기 작업 스레드 풀이 락 대기로 가득 차면 요청을 거절하고, 조회는 지연 없이 처리한다.")
+    void shouldShedAsyncWrites_AndServeReads_WhenWritePoolIsSaturated() throws Exception {
+        // given : 다른 스레드가 사용자 1 의 락을 보유 중이다. 사용자 1 의 잔액은 0 이므로 사용 요청은 락을 얻은 뒤 정책 위반으로 빠르게 끝난다.
+        long userId = 1L;
+        long otherUserId = 2L;
+        pointService.charge(otherUserId, initialBalance);
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        holder.submit(() -> userLockProvider.lock(userId)).get();
+
+        // when : 거절될 때까지 사용 요청을 적재하고, 그 사이 다른 사용자의 잔액과 내역을 조회한다.
+        List<CompletableFuture<UserPoint>> accepted = new ArrayList<>();
+        CompletableFuture<UserPoint> rejected = null;
+        while (rejected == null) {
+            CompletableFuture<UserPoint> future = pointService.useAsync(userId, amountPerUse);
+            if (future.isCompletedExceptionally()) {
+                rejected = future;
+            } else {
+                accepted.add(future);
+            }
+        }
+        UserPoint otherUserPoint = pointService.getUserPointAsync(otherUserId).get(5, TimeUnit.SECONDS);
+        List<PointHistory> otherHistories = pointService.getAllHistoryAsync(otherUserId).get(5, TimeUnit.SECONDS);
+        holder.submit(() -> userLockProvider.unlock(userId)).get();
+        holder.shutdown();
+
+        // then : 거절 사유는 작업 스레드 풀 포화이고, 받아들인 요청은 락이 풀린 뒤 모두 처리된다.
+        ExecutionException shed = Assertions.assertThrows(ExecutionException.class, rejected::get);
+        Assertions.assertEquals(PointOverloadedException.Reason.POOL_SATURATED, ((PointOverloadedException) shed.getCause()).reason());
+        Assertions.assertEquals(1.0, pointMetrics.shedCount(PointOverloadedException.Reason.POOL_SATURATED));
+        Assertions.assertEquals(initialBalance, otherUserPoint.point());
+        Assertions.assertEquals(1, otherHistories.size());
+        for (CompletableFuture<UserPoint> future : accepted) {
+            ExecutionException failed = Assertions.assertThrows(ExecutionException.class, () -> future.get(30, TimeUnit.SECONDS));
+            Assertions.assertInstanceOf(IllegalArgumentException.class, failed.getCause());
+        }
+    }
+
 
 
     /**
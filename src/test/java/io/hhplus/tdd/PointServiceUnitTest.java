@@ -4,16 +4,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import io.hhplus.tdd.database.PointHistoryTable;
 import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.point.PointCommand;
+import io.hhplus.tdd.point.PointCommandResult;
 import io.hhplus.tdd.point.PointHistory;
 import io.hhplus.tdd.point.PointService;
 import io.hhplus.tdd.point.TransactionType;
 import io.hhplus.tdd.point.UserPoint;
 import java.util.List;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -38,7 +41,6 @@ import org.mockito.MockitoAnnotations;
  */
 public class PointServiceUnitTest {
 
-    @InjectMocks
     PointService pointService;
 
     @Mock
@@ -50,13 +52,31 @@ public class PointServiceUnitTest {
     private static final long USER_ID = 1L;
 
     /**
-     * 현 테스트 클래스에서 @Mock, @InjeckMocks 로 Annotated 된 필드를 매 테스트 수행 이전 새로 생성하여 주입한다.
+     * 현 테스트 클래스에서 @Mock 으로 Annotated 된 필드를 매 테스트 수행 이전 새로 생성하고, 이를 주입한 {@link PointService} 를 생성한다.
      * <br></br>
      * 이는 각 테스트들이 다른 테스트 수행 및 결과로부터 독립적으로 수행될 수 있도록 한다.
+     * <br></br>
+     * - {@link PointService} 는 테이블 이외의 협력 객체도 생성자로 주입받으므로, @InjectMocks 대신 테이블만 받는 생성자로 직접 생성한다.
      */
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        // 내역 테이블 Mock 은 실제 테이블처럼 저장된 내역을 반환하도록 한다. 반환된 내역은 사용자 별 색인에 추가된다.
+        Mockito.when(pointHistoryTable.insert(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(), Mockito.anyLong()))
+                .thenAnswer(invocation -> new PointHistory(1L,
+                        invocation.getArgument(0),
+                        invocation.getArgument(1),
+                        invocation.getArgument(2),
+                        invocation.getArgument(3)));
+        pointService = new PointService(pointHistoryTable, userPointTable);
+    }
+
+    /**
+     * 매 테스트마다 생성한 {@link PointService} 의 내역 기록 스레드와 작업 스레드를 종료한다.
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        pointService.close();
     }
 
 
@@ -132,6 +152,34 @@ public class PointServiceUnitTest {
             Mockito.verify(userPointTable).selectById(USER_ID);
             Mockito.verify(userPointTable).insertOrUpdate(USER_ID, expectedNewBalance);
         }
+
+        /*
+         * 실패 : 충전 이력 기록이 재시도 끝에 실패하면, 락을 해제하기 전에 저장한 잔액을 되돌리고 요청을 실패시킨다.
+         * - 이력 기록은 여러 차례 시도된다.
+         */
+        @Test
+        void shouldRevertBalance_WhenHistoryInsertKeepsFailing(){
+            // given : 아이디가 1L인 사용자의 보유 포인트는 100 점이며, 내역 테이블은 기록 요청마다 실패한다.
+            long chargeAmount = 50L;
+            Mockito.when(userPointTable.selectById(USER_ID))
+                    .thenReturn(new UserPoint(USER_ID, 100L, System.currentTimeMillis()));
+            Mockito.when(userPointTable.insertOrUpdate(Mockito.anyLong(), Mockito.anyLong()))
+                    .thenAnswer(invocation -> new UserPoint(invocation.getArgument(0), invocation.getArgument(1), System.currentTimeMillis()));
+            Mockito.when(pointHistoryTable.insert(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(), Mockito.anyLong()))
+                    .thenThrow(new IllegalStateException("내역 테이블 장애"));
+
+            // when : 50 점의 충전 요청이 발생한다.
+            // then : 내역 테이블의 예외로 실패하고, 저장했던 잔액은 100 점으로 되돌려지며, 이력 기록은 한 번 이상 다시 시도되었다.
+            Assertions.assertThatThrownBy(() -> pointService.charge(USER_ID, chargeAmount))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("내역 테이블 장애");
+            InOrder inOrder = Mockito.inOrder(userPointTable);
+            inOrder.verify(userPointTable).insertOrUpdate(USER_ID, 150L);
+            inOrder.verify(userPointTable).insertOrUpdate(USER_ID, 100L);
+            Assertions.assertThat(pointService.getUserPoint(USER_ID).point()).isEqualTo(100L);
+            Mockito.verify(pointHistoryTable, Mockito.atLeast(2))
+                    .insert(Mockito.eq(USER_ID), Mockito.eq(chargeAmount), Mockito.eq(TransactionType.CHARGE), Mockito.anyLong());
+        }
     }
 
 
@@ -268,24 +316,132 @@ public class PointServiceUnitTest {
             UserPoint userPoint = new UserPoint(USER_ID, 0L, System.currentTimeMillis());
             long chargeAmount  = 30L;
             UserPoint updatedUserPoint = new UserPoint(USER_ID, 30L, System.currentTimeMillis());
-            PointHistory createdPointHistory = new PointHistory(1L, USER_ID, updatedUserPoint.point(), TransactionType.CHARGE, System.currentTimeMillis());
-            List<PointHistory> histories = List.of(createdPointHistory);
 
             Mockito.when(userPointTable.selectById(USER_ID))
                     .thenReturn(userPoint);
             Mockito.when(userPointTable.insertOrUpdate(USER_ID, chargeAmount))
                     .thenReturn(updatedUserPoint);
-            Mockito.when(pointHistoryTable.selectAllByUserId(USER_ID))
-                    .thenReturn(List.of(createdPointHistory));
 
             pointService.charge(USER_ID, chargeAmount);
 
             // when : 충전 후 해당 회원의 포인트 충전 및 사용 내역 전체 조회.
             List<PointHistory> result = pointService.getAllHistory(USER_ID);
 
-            // then : 생성되어 반환된 포인트 충전 내역의 userId, amount(해당 유저 포인트 잔액), TransactionType.CHARGE가 모두 일치합니다.
-            Assertions.assertThat(result)
-                    .isEqualTo(histories);
+            // then : 생성되어 반환된 포인트 충전 내역의 userId, amount(충전 금액), TransactionType.CHARGE가 모두 일치합니다.
+            Assertions.assertThat(result).hasSize(1);
+            Assertions.assertThat(result.get(0).userId()).isEqualTo(USER_ID);
+            Assertions.assertThat(result.get(0).amount()).isEqualTo(chargeAmount);
+            Assertions.assertThat(result.get(0).type()).isEqualTo(TransactionType.CHARGE);
+
+            // + verify : 내역은 테이블에 저장되며, 조회는 전체 테이블이 아닌 사용자 별 색인에서 수행된다.
+            Mockito.verify(pointHistoryTable).insert(Mockito.eq(USER_ID), Mockito.eq(chargeAmount), Mockito.eq(TransactionType.CHARGE), Mockito.anyLong());
+            Mockito.verify(pointHistoryTable, Mockito.never()).selectAllByUserId(USER_ID);
+        }
+    }
+
+    /**
+     * <b>5. 포인트 충전/사용 일괄 처리 기능</b>
+     * <br></br>
+     * - 사용자 별로 잔액을 한 번만 조회/저장하며, 명령마다 단건과 같은 정책을 적용합니다.
+     */
+    @Nested
+    class PointBatchTests {
+
+        /* 성공 : 정책을 위반한 명령만 실패하고, 나머지 명령은 순서대로 반영되어 잔액은 한 번만 저장된다. */
+        @Test
+        void shouldApplyCommandsInOrder_AndSaveOnce_WhenBatchContainsInvalidCommand(){
+            // given : 잔액 100 점인 회원에 대해 50점 충전, 500점 사용(잔액 부족), 30점 사용 명령이 순서대로 주어진다.
+            UserPoint userPoint = new UserPoint(USER_ID, 100L, System.currentTimeMillis());
+            List<PointCommand> commands = List.of(
+                    new PointCommand(USER_ID, TransactionType.CHARGE, 50L),
+                    new PointCommand(USER_ID, TransactionType.USE, 500L),
+                    new PointCommand(USER_ID, TransactionType.USE, 30L));
+
+            Mockito.when(userPointTable.selectById(USER_ID))
+                    .thenReturn(userPoint);
+            Mockito.when(userPointTable.insertOrUpdate(USER_ID, 120L))
+                    .thenReturn(new UserPoint(USER_ID, 120L, System.currentTimeMillis()));
+
+            // when
+            List<PointCommandResult> results = pointService.executeBatch(commands);
+
+            // then : 두 번째 명령만 실패하며, 각 명령 직후의 잔액이 결과에 담긴다.
+            Assertions.assertThat(results).extracting(PointCommandResult::success).containsExactly(true, false, true);
+            Assertions.assertThat(results).extracting(PointCommandResult::point).containsExactly(150L, 150L, 120L);
+            Assertions.assertThat(results.get(1).message()).contains("잔액 이상의 금액은 사용이 불가합니다.");
+
+            // + verify : 잔액 조회와 저장은 한 번씩만, 내역은 성공한 명령 수만큼 기록된다.
+            Mockito.verify(userPointTable, Mockito.times(1)).selectById(USER_ID);
+            Mockito.verify(userPointTable, Mockito.times(1)).insertOrUpdate(USER_ID, 120L);
+            Mockito.verify(pointHistoryTable, Mockito.times(2)).insert(Mockito.eq(USER_ID), Mockito.anyLong(), Mockito.any(), Mockito.anyLong());
+        }
+
+        /* 실패 : 내역 기록에 실패한 명령부터는 반영하지 않고, 기록된 앞부분의 명령까지만 잔액에 저장한다. */
+        @Test
+        void shouldApplyOnlyRecordedPrefix_WhenHistoryInsertFailsMidBatch(){
+            // given : 잔액 100 점인 회원에 대해 50점 충전, 30점 사용, 10점 충전 명령이 주어지고, 사용 내역의 기록은 계속 실패한다.
+            List<PointCommand> commands = List.of(
+                    new PointCommand(USER_ID, TransactionType.CHARGE, 50L),
+                    new PointCommand(USER_ID, TransactionType.USE, 30L),
+                    new PointCommand(USER_ID, TransactionType.CHARGE, 10L));
+
+            Mockito.when(userPointTable.selectById(USER_ID))
+                    .thenReturn(new UserPoint(USER_ID, 100L, System.currentTimeMillis()));
+            Mockito.when(userPointTable.insertOrUpdate(USER_ID, 150L))
+                    .thenReturn(new UserPoint(USER_ID, 150L, System.currentTimeMillis()));
+            Mockito.when(pointHistoryTable.insert(Mockito.anyLong(), Mockito.anyLong(), Mockito.eq(TransactionType.USE), Mockito.anyLong()))
+                    .thenThrow(new IllegalStateException("내역 테이블 장애"));
+
+            // when
+            List<PointCommandResult> results = pointService.executeBatch(commands);
+
+            // then : 첫 번째 명령만 반영되고, 이후의 명령은 기록 직전의 잔액으로 실패한다.
+            Assertions.assertThat(results).extracting(PointCommandResult::success).containsExactly(true, false, false);
+            Assertions.assertThat(results).extracting(PointCommandResult::point).containsExactly(150L, 150L, 150L);
+
+            // + verify : 잔액은 기록된 명령까지만 반영하여 저장되고, 실패한 내역 뒤의 충전 내역은 기록을 시도하지 않는다.
+            Mockito.verify(userPointTable, Mockito.times(1)).insertOrUpdate(USER_ID, 150L);
+            Mockito.verify(pointHistoryTable, Mockito.times(1)).insert(Mockito.eq(USER_ID), Mockito.anyLong(), Mockito.eq(TransactionType.CHARGE), Mockito.anyLong());
+        }
+    }
+
+    /**
+     * <b>6. 포인트 이체 기능</b>
+     * <br></br>
+     * - 양쪽 내역을 모두 기록한 뒤 잔액을 갱신하며, 받는 쪽 잔액 저장이 실패하면 보낸 쪽 잔액과 두 내역을 모두 되돌립니다.
+     */
+    @Nested
+    class PointTransferTests {
+
+        private static final long RECEIVER_ID = 2L;
+
+        /* 실패 : 받는 쪽 잔액 저장이 실패하면 보낸 쪽 잔액은 복구되고, 기록된 두 내역은 반대 종류의 내역으로 상쇄된다. */
+        @Test
+        void shouldRestoreSenderAndOffsetBothHistories_WhenReceiverSaveFails(){
+            // given : 잔액 100 점인 회원이 잔액 0 점인 회원에게 50 점을 이체하며, 받는 쪽 잔액 저장은 실패한다.
+            Mockito.when(userPointTable.selectById(USER_ID))
+                    .thenReturn(new UserPoint(USER_ID, 100L, System.currentTimeMillis()));
+            Mockito.when(userPointTable.selectById(RECEIVER_ID))
+                    .thenReturn(new UserPoint(RECEIVER_ID, 0L, System.currentTimeMillis()));
+            Mockito.when(userPointTable.insertOrUpdate(Mockito.eq(USER_ID), Mockito.anyLong()))
+                    .thenAnswer(invocation -> new UserPoint(USER_ID, invocation.getArgument(1), System.currentTimeMillis()));
+            Mockito.when(userPointTable.insertOrUpdate(Mockito.eq(RECEIVER_ID), Mockito.anyLong()))
+                    .thenThrow(new IllegalStateException("잔액 테이블 장애"));
+
+            // when & then : 저장 실패가 그대로 전달된다.
+            Assertions.assertThatThrownBy(() -> pointService.transfer(USER_ID, RECEIVER_ID, 50L))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("잔액 테이블 장애");
+
+            // then : 보낸 쪽 잔액은 이체 전으로 복구되고, 양쪽 내역은 기록 후 상쇄되어 합이 0 이 된다.
+            InOrder inOrder = Mockito.inOrder(userPointTable);
+            inOrder.verify(userPointTable).insertOrUpdate(USER_ID, 50L);
+            inOrder.verify(userPointTable).insertOrUpdate(USER_ID, 100L);
+            Assertions.assertThat(pointService.getUserPoint(USER_ID).point()).isEqualTo(100L);
+            Assertions.assertThat(pointService.getAllHistory(USER_ID)).extracting(PointHistory::type)
+                    .containsExactly(TransactionType.USE, TransactionType.CHARGE);
+            Assertions.assertThat(pointService.getAllHistory(RECEIVER_ID)).extracting(PointHistory::type)
+                    .containsExactly(TransactionType.CHARGE, TransactionType.USE);
         }
     }
 }
@@ -0,0 +1,107 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.PointMetrics;
+import io.hhplus.tdd.point.PointShardStats;
+import io.hhplus.tdd.point.PointShards;
+import io.micrometer.core.instrument.FunctionCounter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link PointShards} 단위 테스트</b>
+ * <br></br>
+ * - 한 사용자의 명령은 항상 소유 샤드의 스레드에서 적재 순서대로 실행되는지 검증한다.
+ * <br></br>
+ * - 샤드 별 누적 처리 수와 큐 길이가 {@link PointShards#stats()} 와 지표로 노출되고, 실패한 명령도 처리 수에 포함되는지 검증한다.
+ */
+public class PointShardsTest {
+
+    private static final int SHARDS = 4;
+    private static final int USERS = 8;
+    private static final int COMMANDS_PER_USER = 200;
+
+    private PointMetrics pointMetrics;
+    private PointShards pointShards;
+
+    @BeforeEach
+    void setup() {
+        pointMetrics = new PointMetrics();
+        pointShards = new PointShards(SHARDS, pointMetrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pointShards.close();
+    }
+
+    /* 성공 : 사용자의 명령은 하나의 샤드 스레드에서 적재 순서대로 실행된다. */
+    @Test
+    void shouldRunUserCommandsOnOwningShardThread_InSubmissionOrder() {
+        // given : 사용자 별 실행 기록. 한 사용자의 명령은 한 스레드에서만 실행되므로 동기화하지 않은 목록을 사용한다.
+        Map<Long, List<Integer>> executed = new HashMap<>();
+        Map<Long, List<String>> threads = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            executed.put(userId, new ArrayList<>());
+            threads.put(userId, new ArrayList<>());
+        }
+
+        // when
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < COMMANDS_PER_USER; i++) {
+            for (long userId = 1; userId <= USERS; userId++) {
+                List<Integer> log = executed.get(userId);
+                List<String> names = threads.get(userId);
+                int sequence = i;
+                futures.add(pointShards.submit(userId, () -> {
+                    log.add(sequence);
+                    names.add(Thread.currentThread().getName());
+                    return sequence;
+                }));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        // then
+        List<Integer> expected = IntStream.range(0, COMMANDS_PER_USER).boxed().toList();
+        for (long userId = 1; userId <= USERS; userId++) {
+            Assertions.assertThat(executed.get(userId)).isEqualTo(expected);
+            List<String> names = threads.get(userId);
+            Assertions.assertThat(names).containsOnly(names.get(0));
+            Assertions.assertThat(names.get(0)).startsWith("point-shard-" + pointShards.shardOf(userId) + "-");
+        }
+    }
+
+    /* 성공 : 샤드 별 누적 처리 수의 합은 실패한 명령을 포함해 적재한 명령 수와 같고, 모두 처리된 뒤 큐는 비어 있다. */
+    @Test
+    void shouldExposeCompletedCountAndQueueDepth_PerShard() {
+        // given
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            long owner = userId;
+            futures.add(pointShards.submit(userId, () -> owner));
+            futures.add(pointShards.submit(userId, () -> {
+                throw new IllegalArgumentException("잔액이 부족합니다.");
+            }));
+        }
+
+        // when
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(failure -> null).join();
+        List<PointShardStats> stats = pointShards.stats();
+
+        // then
+        Assertions.assertThat(stats).hasSize(SHARDS);
+        Assertions.assertThat(stats).extracting(PointShardStats::queueDepth).containsOnly(0);
+        Assertions.assertThat(stats.stream().mapToLong(PointShardStats::completed).sum()).isEqualTo(USERS * 2L);
+        double completed = pointMetrics.meterRegistry().find("point.shard.completed").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count).sum();
+        Assertions.assertThat(completed).isEqualTo(USERS * 2.0);
+    }
+}
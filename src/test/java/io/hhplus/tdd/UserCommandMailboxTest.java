@@ -0,0 +1,92 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.UserCommandMailbox;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link UserCommandMailbox} 단위 테스트</b>
+ * <br></br>
+ * - 작업자가 차례를 넘기더라도 한 사용자의 명령은 적재 순서대로 하나씩 실행되는지 검증한다.
+ * <br></br>
+ * - 명령을 모두 처리한 메일박스는 제거되는지 검증한다.
+ */
+public class UserCommandMailboxTest {
+
+    private static final int USERS = 4;
+    private static final int COMMANDS_PER_USER = 1_000;
+    private static final int MAX_COMMANDS_PER_TURN = 4;
+
+    private UserCommandMailbox mailbox;
+
+    @BeforeEach
+    void setup() {
+        mailbox = new UserCommandMailbox(2, false, MAX_COMMANDS_PER_TURN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailbox.close();
+    }
+
+    /* 성공 : 여러 사용자의 명령이 섞여 적재되어도, 사용자 별 실행 순서는 적재 순서와 같다. */
+    @Test
+    void shouldRunCommandsInSubmissionOrder_ForEachUser() {
+        // given : 사용자 별 실행 기록. 한 사용자의 명령은 동시에 실행되지 않으므로 동기화하지 않은 목록을 사용한다.
+        Map<Long, List<Integer>> executed = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            executed.put(userId, new ArrayList<>());
+        }
+
+        // when
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < COMMANDS_PER_USER; i++) {
+            for (long userId = 1; userId <= USERS; userId++) {
+                List<Integer> log = executed.get(userId);
+                int sequence = i;
+                futures.add(mailbox.submit(userId, () -> {
+                    log.add(sequence);
+                    return sequence;
+                }));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        // then
+        List<Integer> expected = IntStream.range(0, COMMANDS_PER_USER).boxed().toList();
+        for (long userId = 1; userId <= USERS; userId++) {
+            Assertions.assertThat(executed.get(userId)).isEqualTo(expected);
+        }
+    }
+
+    /* 성공 : 명령을 모두 처리하면 메일박스가 제거되고, 실패한 명령은 해당 Future 에만 전달된다. */
+    @Test
+    void shouldRemoveMailbox_WhenDrained() {
+        // given
+        CompletableFuture<Integer> failed = mailbox.submit(1L, () -> {
+            throw new IllegalArgumentException("잔액이 부족합니다.");
+        });
+        CompletableFuture<Integer> succeeded = mailbox.submit(1L, () -> 1);
+
+        // when
+        Assertions.assertThat(succeeded.join()).isEqualTo(1);
+
+        // then
+        Assertions.assertThat(failed).isCompletedExceptionally();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (mailbox.activeMailboxCount() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assertions.assertThat(mailbox.activeMailboxCount()).isZero();
+    }
+}
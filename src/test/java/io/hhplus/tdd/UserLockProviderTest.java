@@ -0,0 +1,132 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.point.RefCountedUserLockProvider;
+import io.hhplus.tdd.point.StripedUserLockProvider;
+import io.hhplus.tdd.point.UserLockProvider;
+import io.hhplus.tdd.point.UserLockStats;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>사용자 락 제공자 테스트</b>
+ * <br></br>
+ * - 두 전략 모두 동일 사용자에 대한 임계 구역을 직렬화해야 한다.
+ * <br></br>
+ * - 유지되는 락 인스턴스 수가 처리한 사용자 수에 비례하여 늘어나지 않아야 한다.
+ */
+public class UserLockProviderTest {
+
+    private static final int numberOfThreads = 20;
+    private static final int incrementsPerThread = 500;
+
+    /* 락 없이 수행하면 갱신 유실이 발생하는 카운터 증가를 동시에 수행하여 상호 배제 여부를 검증한다. */
+    private long incrementConcurrently(UserLockProvider provider, long userId) throws Exception {
+        long[] counter = new long[1];
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < incrementsPerThread; j++) {
+                    provider.lock(userId);
+                    try {
+                        counter[0]++;
+                    } finally {
+                        provider.unlock(userId);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executorService.invokeAll(tasks)) {
+            future.get();
+        }
+        executorService.shutdown();
+        return counter[0];
+    }
+
+    @Test
+    @DisplayName("STRIPED 전략은 동일 사용자에 대한 임계 구역을 직렬화하고, 락 인스턴스 수는 스트라이프 수로 고정된다.")
+    void stripedProvider_ShouldSerializeSameUser_AndKeepFixedLockCount() throws Exception {
+        // given : 스트라이프 수 100 은 2의 거듭제곱인 128 로 올림된다.
+        StripedUserLockProvider provider = new StripedUserLockProvider(100);
+
+        // when
+        long result = incrementConcurrently(provider, 1L);
+        for (long userId = 0; userId < 10_000; userId++) {
+            provider.lock(userId);
+            provider.unlock(userId);
+        }
+
+        // then
+        UserLockStats stats = provider.stats();
+        Assertions.assertThat(result).isEqualTo((long) numberOfThreads * incrementsPerThread);
+        Assertions.assertThat(stats.lockInstances()).isEqualTo(128);
+        Assertions.assertThat(stats.acquisitions()).isEqualTo((long) numberOfThreads * incrementsPerThread + 10_000);
+    }
+
+    @Test
+    @DisplayName("REF_COUNTED 전략은 동일 사용자에 대한 임계 구역을 직렬화하고, 사용이 끝난 락은 제거한다.")
+    void refCountedProvider_ShouldSerializeSameUser_AndEvictUnusedLocks() throws Exception {
+        // given
+        RefCountedUserLockProvider provider = new RefCountedUserLockProvider();
+
+        // when
+        long result = incrementConcurrently(provider, 1L);
+        for (long userId = 0; userId < 10_000; userId++) {
+            provider.lock(userId);
+            provider.unlock(userId);
+        }
+
+        // then : 모든 락이 해제되었으므로 유지 중인 락은 없다.
+        Assertions.assertThat(result).isEqualTo((long) numberOfThreads * incrementsPerThread);
+        Assertions.assertThat(provider.stats().lockInstances()).isZero();
+    }
+
+    @Test
+    @DisplayName("REF_COUNTED 전략에서 재진입한 락은 모두 해제될 때까지 유지된다.")
+    void refCountedProvider_ShouldKeepLock_UntilAllReentrantHoldsReleased() {
+        RefCountedUserLockProvider provider = new RefCountedUserLockProvider();
+
+        provider.lock(1L);
+        provider.lock(1L);
+        provider.unlock(1L);
+        Assertions.assertThat(provider.stats().lockInstances()).isEqualTo(1);
+
+        provider.unlock(1L);
+        Assertions.assertThat(provider.stats().lockInstances()).isZero();
+    }
+
+    @Test
+    @DisplayName("제한 시간이 있는 락 획득은 다른 스레드가 보유 중이면 제한 시간 후 실패하고, 실패한 참조는 남기지 않는다.")
+    void tryLock_ShouldTimeOut_WhenHeldByAnotherThread() throws Exception {
+        for (UserLockProvider provider : List.of(new StripedUserLockProvider(16), new RefCountedUserLockProvider())) {
+            // given : 다른 스레드가 사용자 1 의 락을 보유 중이다.
+            ExecutorService holder = Executors.newSingleThreadExecutor();
+            holder.submit(() -> provider.lock(1L)).get();
+
+            // when
+            long startedAt = System.nanoTime();
+            boolean acquired = provider.tryLock(1L, Duration.ofMillis(50));
+            long waitedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            holder.submit(() -> provider.unlock(1L)).get();
+            holder.shutdown();
+
+            // then : 제한 시간만큼 기다린 뒤 실패하고, 락이 풀린 뒤에는 획득할 수 있다.
+            Assertions.assertThat(acquired).isFalse();
+            Assertions.assertThat(waitedMillis).isGreaterThanOrEqualTo(50L);
+            Assertions.assertThat(provider.tryLock(1L, Duration.ofMillis(50))).isTrue();
+            provider.unlock(1L);
+            if (provider instanceof RefCountedUserLockProvider) {
+                Assertions.assertThat(provider.stats().lockInstances()).isZero();
+            }
+        }
+    }
+}
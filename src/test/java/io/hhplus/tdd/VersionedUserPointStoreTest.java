@@ -0,0 +1,174 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.database.UserPointTableRepository;
+import io.hhplus.tdd.database.VersionedUserPointStore;
+import io.hhplus.tdd.database.VersionedUserPointStore.VersionedPoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link VersionedUserPointStore} 단위 테스트</b>
+ * <br></br>
+ * - 최신 버전까지 반영된 사용자는 메모리에서 제거되고, 조회만 한 사용자는 메모리에 적재되지 않는지 검증한다.
+ * <br></br>
+ * - 제거되었다가 다시 적재되더라도 이전에 조회한 값으로는 갱신할 수 없고, 동시 갱신이 유실되지 않는지 검증한다.
+ * <br></br>
+ * - 서로 다른 사용자의 갱신과 제거는 다른 사용자의 갱신을 충돌시키지 않는지 검증한다.
+ */
+public class VersionedUserPointStoreTest {
+
+    private static final long USER_ID = 1L;
+
+    private UserPointTable userPointTable;
+    private VersionedUserPointStore store;
+
+    @BeforeEach
+    void setup() {
+        userPointTable = new UserPointTable();
+        store = new VersionedUserPointStore(new UserPointTableRepository(userPointTable), 2, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    /* 성공 : 갱신한 버전이 반영되면 메모리에서 제거되고, 이후 조회는 저장소의 값을 반환한다. */
+    @Test
+    void shouldEvictUser_WhenLatestVersionPersisted() {
+        // given
+        VersionedPoint current = store.read(USER_ID);
+
+        // when
+        VersionedPoint updated = store.compareAndSet(USER_ID, current, 100L);
+        store.awaitPersisted(USER_ID, updated.version()).join();
+
+        // then
+        awaitEvicted();
+        Assertions.assertThat(userPointTable.selectById(USER_ID).point()).isEqualTo(100L);
+        VersionedPoint reloaded = store.read(USER_ID);
+        Assertions.assertThat(reloaded.point()).isEqualTo(100L);
+        Assertions.assertThat(reloaded.version()).isGreaterThanOrEqualTo(updated.version());
+    }
+
+    /* 성공 : 조회만 한 사용자는 메모리에 적재되지 않는다. */
+    @Test
+    void shouldNotLoadUsers_WhenOnlyRead() {
+        // when
+        for (long userId = 1; userId <= 10; userId++) {
+            store.read(userId);
+        }
+
+        // then
+        Assertions.assertThat(store.slotCount()).isZero();
+    }
+
+    /* 실패 : 제거되기 전에 조회한 값으로는, 그 사이 다른 갱신이 반영되었다면 다시 적재된 뒤에도 갱신할 수 없다. */
+    @Test
+    void shouldRejectStaleValue_AfterUserEvicted() {
+        // given : 먼저 조회해둔 값
+        VersionedPoint stale = store.read(USER_ID);
+        VersionedPoint updated = store.compareAndSet(USER_ID, store.read(USER_ID), 100L);
+        store.awaitPersisted(USER_ID, updated.version()).join();
+        awaitEvicted();
+
+        // when
+        VersionedPoint result = store.compareAndSet(USER_ID, stale, 50L);
+
+        // then
+        Assertions.assertThat(result).isNull();
+        Assertions.assertThat(store.read(USER_ID).point()).isEqualTo(100L);
+    }
+
+    /* 동시성 : 제거와 재적재가 반복되는 중에도 모든 갱신이 반영된다. */
+    @Test
+    void shouldApplyAllUpdates_WhenEvictedAndReloadedConcurrently() throws Exception {
+        // given
+        int users = 5;
+        int updatesPerUser = 40;
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < users * updatesPerUser; i++) {
+            long userId = 1 + i % users;
+            futures.add(executorService.submit(() -> increment(userId, 10L)));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        // then
+        for (long userId = 1; userId <= users; userId++) {
+            Assertions.assertThat(store.read(userId).point()).isEqualTo(updatesPerUser * 10L);
+            Assertions.assertThat(userPointTable.selectById(userId).point()).isEqualTo(updatesPerUser * 10L);
+        }
+        awaitEvicted();
+    }
+
+    /* 성공 : 사용자마다 한 스레드만 갱신한다면, 다른 사용자의 갱신과 제거가 반복되어도 충돌이 한 번도 일어나지 않는다. */
+    @Test
+    void shouldNeverConflict_WhenUsersAreDisjoint() throws Exception {
+        // given
+        int users = 16;
+        int updatesPerUser = 50;
+        ExecutorService executorService = Executors.newFixedThreadPool(users);
+
+        // when : 갱신마다 반영을 기다리므로 사용자는 매번 제거되었다가 다시 적재된다.
+        List<Future<Integer>> conflicts = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            long owner = userId;
+            conflicts.add(executorService.submit(() -> {
+                int userConflicts = 0;
+                for (int i = 0; i < updatesPerUser; i++) {
+                    userConflicts += increment(owner, 10L);
+                }
+                return userConflicts;
+            }));
+        }
+        int totalConflicts = 0;
+        for (Future<Integer> future : conflicts) {
+            totalConflicts += future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        // then
+        Assertions.assertThat(totalConflicts).isZero();
+        for (long userId = 1; userId <= users; userId++) {
+            Assertions.assertThat(userPointTable.selectById(userId).point()).isEqualTo(updatesPerUser * 10L);
+        }
+        awaitEvicted();
+    }
+
+    /* 갱신에 성공할 때까지 다시 시도하고, 충돌한 횟수를 반환한다. */
+    private int increment(long userId, long amount) {
+        for (int conflicts = 0; ; conflicts++) {
+            VersionedPoint current = store.read(userId);
+            VersionedPoint updated = store.compareAndSet(userId, current, current.point() + amount);
+            if (updated != null) {
+                store.awaitPersisted(userId, updated.version()).join();
+                return conflicts;
+            }
+        }
+    }
+
+    /* 제거는 반영 작업이 대기 중인 호출자를 깨운 뒤 수행하므로 잠시 기다린다. */
+    private void awaitEvicted() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (store.slotCount() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assertions.assertThat(store.slotCount()).isZero();
+    }
+}
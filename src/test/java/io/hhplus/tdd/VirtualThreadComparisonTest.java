@@ -0,0 +1,96 @@
+package io.hhplus.tdd;
+
+import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.point.PointExecutors;
+import io.hhplus.tdd.point.PointService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <b>플랫폼 스레드 / 가상 스레드 처리량 비교 테스트</b>
+ * <br></br>
+ * 동일한 충전/사용 요청 조합을 플랫폼 스레드 풀과 가상 스레드에서 각각 실행하고, 결과의 정합성과 처리량을 비교한다.
+ * <br></br>
+ * - 요청의 대부분의 시간은 사용자 락 대기와 테이블 지연(sleep)이므로, 스레드 수에 제한이 없는 가상 스레드 쪽의 처리량이 높을 것으로 기대한다.
+ * <br></br>
+ * - 처리량은 실행 환경에 따라 달라지므로 검증하지 않고 로그로 보고한다. 정합성(잔액)만 검증한다.
+ * <br></br>
+ * - 가상 스레드는 Java 21 이상에서만 지원되므로, 그 이하 버전에서는 이 테스트를 건너뛴다.
+ */
+public class VirtualThreadComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadComparisonTest.class);
+
+    private static final int numberOfUsers = 50;
+    private static final int requestsPerUser = 10; // 사용자 별 충전, 사용 요청 각각의 수
+    private static final int platformPoolSize = 16; // 일반적인 서블릿 스레드 풀처럼 제한된 수의 플랫폼 스레드
+    private static final long initialBalance = 10_000L;
+    private static final long amountPerCharge = 100L;
+    private static final long amountPerUse = 50L;
+
+    @Test
+    @DisplayName("동일한 충전/사용 요청 조합을 플랫폼 스레드와 가상 스레드에서 실행하여 처리량을 비교한다.")
+    void compareThroughput_PlatformThreads_VersusVirtualThreads() throws Exception {
+        Assumptions.assumeTrue(PointExecutors.virtualThreadsSupported(), "가상 스레드는 Java 21 이상에서만 지원됩니다.");
+
+        double platformThroughput = runMixedWorkload(PointExecutors.newFixedPool("platform", platformPoolSize));
+        double virtualThroughput = runMixedWorkload(PointExecutors.newVirtualThreadPerTaskExecutor());
+
+        log.info("처리량 비교 (ops/sec) - 플랫폼 스레드 {}개 : {}, 가상 스레드 : {}",
+                platformPoolSize, String.format("%.1f", platformThroughput), String.format("%.1f", virtualThroughput));
+    }
+
+    /* 사용자 별 충전/사용 요청을 섞어 주어진 Executor 에서 동시에 실행하고, 초당 처리 건수를 반환한다. */
+    private double runMixedWorkload(ExecutorService executorService) throws Exception {
+        try (PointService pointService = new PointService(new PointHistoryTable(), new UserPointTable())) {
+            return runMixedWorkload(pointService, executorService);
+        }
+    }
+
+    private double runMixedWorkload(PointService pointService, ExecutorService executorService) throws Exception {
+        for (long userId = 1; userId <= numberOfUsers; userId++) {
+            pointService.charge(userId, initialBalance);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long userId = 1; userId <= numberOfUsers; userId++) {
+            long targetUserId = userId;
+            for (int i = 0; i < requestsPerUser; i++) {
+                tasks.add(() -> {
+                    pointService.charge(targetUserId, amountPerCharge);
+                    return null;
+                });
+                tasks.add(() -> {
+                    pointService.use(targetUserId, amountPerUse);
+                    return null;
+                });
+            }
+        }
+        Collections.shuffle(tasks);
+
+        long startedAt = System.nanoTime();
+        List<Future<Void>> futures = executorService.invokeAll(tasks);
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executorService.shutdown();
+
+        long expectedBalance = initialBalance + requestsPerUser * (amountPerCharge - amountPerUse);
+        for (long userId = 1; userId <= numberOfUsers; userId++) {
+            Assertions.assertEquals(expectedBalance, pointService.getUserPoint(userId).point());
+        }
+        return tasks.size() / (elapsedNanos / 1_000_000_000.0);
+    }
+}
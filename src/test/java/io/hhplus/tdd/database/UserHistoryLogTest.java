@@ -0,0 +1,78 @@
+package io.hhplus.tdd.database;
+
+import io.hhplus.tdd.point.PointHistory;
+import io.hhplus.tdd.point.TransactionType;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link UserHistoryLog} 단위 테스트</b>
+ * <br></br>
+ * - 시각 순서가 어긋난 내역이 있어도 구간 조회가 살펴보는 내역 수가 전체 내역 수에 따라 늘어나지 않는지 검증한다.
+ * <br></br>
+ * - 늦게 도착한 내역도 실제 시각으로 조회되고, ID 순서로 반환되는지 검증한다.
+ */
+public class UserHistoryLogTest {
+
+    private static final long USER_ID = 1L;
+    private static final int HISTORIES = 10_000;
+
+    private UserHistoryLog userHistoryLog;
+    private long sequence;
+
+    @BeforeEach
+    void setup() {
+        userHistoryLog = new UserHistoryLog(USER_ID);
+        sequence = 0;
+    }
+
+    private void append(long updateMillis) {
+        userHistoryLog.append(new PointHistory(++sequence, USER_ID, 100L, TransactionType.CHARGE, updateMillis));
+    }
+
+    /*
+       성공 : 초반에 시각이 크게 어긋난 내역이 하나 있어도, 이후의 좁은 구간 조회는 결과 크기만큼만 살펴본다.
+       (어긋난 폭만큼 후보 구간을 넓히면 모든 조회가 전체 내역을 훑게 된다.)
+     */
+    @Test
+    void shouldKeepCandidateSpanNarrow_WhenOneTimestampIsOutOfOrder() {
+        // given : 시각 1_000_000 의 내역 다음에 시각 0 의 내역이 도착하고, 이후 시각 1_000_001 부터 순서대로 추가된다.
+        append(1_000_000L);
+        append(0L);
+        for (int i = 1; i <= HISTORIES; i++) {
+            append(1_000_000L + i);
+        }
+
+        // when
+        List<PointHistory> result = userHistoryLog.between(1_005_000L, 1_005_009L);
+
+        // then
+        Assertions.assertThat(result).extracting(PointHistory::updateMillis)
+                .containsExactly(1_005_000L, 1_005_001L, 1_005_002L, 1_005_003L, 1_005_004L,
+                        1_005_005L, 1_005_006L, 1_005_007L, 1_005_008L, 1_005_009L);
+        Assertions.assertThat(userHistoryLog.candidateCount(1_005_000L, 1_005_009L)).isEqualTo(10);
+    }
+
+    /* 성공 : 늦게 도착한 내역은 실제 시각으로 조회되고, 구간의 다른 내역과 함께 ID 순서로 반환된다. */
+    @Test
+    void shouldReturnLateHistoryByItsOwnTime_InIdOrder() {
+        // given
+        append(100L);
+        append(200L);
+        append(150L); // 늦게 도착한 내역
+        append(300L);
+        append(120L); // 늦게 도착한 내역
+
+        // when
+        List<PointHistory> result = userHistoryLog.between(110L, 210L);
+
+        // then
+        Assertions.assertThat(result).extracting(PointHistory::id).containsExactly(2L, 3L, 5L);
+        Assertions.assertThat(result).extracting(PointHistory::updateMillis).containsExactly(200L, 150L, 120L);
+        Assertions.assertThat(userHistoryLog.snapshot()).extracting(PointHistory::updateMillis)
+                .containsExactly(100L, 200L, 150L, 300L, 120L);
+        Assertions.assertThat(userHistoryLog.between(90L, 100L)).extracting(PointHistory::id).containsExactly(1L);
+    }
+}
@@ -0,0 +1,183 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.database.PointHistoryWriter;
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.database.UserPointTableRepository;
+import io.hhplus.tdd.database.VersionedUserPointStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link OptimisticPointExecution} 단위 테스트</b>
+ * <br></br>
+ * - 같은 사용자에 대한 동시 충전은 충돌하더라도 재시도되어 모두 반영되고, 명령마다 성공한 CAS 는 한 번이며 나머지 시도는 충돌로 기록되는지 검증한다.
+ * <br></br>
+ * - 서로 다른 사용자의 동시 충전은 충돌하지 않는지 검증한다.
+ * <br></br>
+ * - 내역을 기록 중인 충전의 잔액은 다른 명령이 사용할 수 없으며, 기록에 실패해 되돌린 잔액도 정책을 지키는지 검증한다.
+ */
+public class OptimisticPointExecutionTest {
+
+    private static final int THREADS = 8;
+    private static final int CHARGES_PER_THREAD = 3;
+    private static final long AMOUNT = 100L;
+
+    private PointMetrics pointMetrics;
+    private FailingChargeHistoryRepository pointHistoryRepository;
+    private PointHistoryWriter pointHistoryWriter;
+    private VersionedUserPointStore versionedUserPointStore;
+    private OptimisticPointExecution execution;
+
+    @BeforeEach
+    void setup() {
+        UserPointTableRepository userPointRepository = new UserPointTableRepository(new UserPointTable());
+        pointMetrics = new PointMetrics();
+        pointHistoryRepository = new FailingChargeHistoryRepository();
+        pointHistoryWriter = new PointHistoryWriter(pointHistoryRepository, pointMetrics);
+        versionedUserPointStore = new VersionedUserPointStore(userPointRepository);
+        execution = new OptimisticPointExecution(new PointUpdater(userPointRepository, pointHistoryWriter, pointMetrics),
+                versionedUserPointStore, new PointAdmission(pointMetrics), pointMetrics, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pointHistoryRepository.release();
+        versionedUserPointStore.close();
+        pointHistoryWriter.close();
+    }
+
+    /* 성공 : 같은 사용자의 동시 충전은 모두 반영되고, CAS 시도 수는 명령 수와 충돌 수의 합과 같다. */
+    @Test
+    void shouldRecordEveryFailedAttemptAsConflict_WhenSameUserIsContended() throws Exception {
+        // when
+        chargeConcurrently(thread -> 1L);
+
+        // then
+        long commands = THREADS * CHARGES_PER_THREAD;
+        Assertions.assertThat(execution.getUserPoint(1L).point()).isEqualTo(commands * AMOUNT);
+        Assertions.assertThat(attempts(PointOperation.CHARGE) - conflicts(PointOperation.CHARGE)).isEqualTo(commands);
+    }
+
+    /* 성공 : 서로 다른 사용자의 동시 충전은 충돌하지 않는다. */
+    @Test
+    void shouldNeverConflict_WhenUsersAreDisjoint() throws Exception {
+        // when
+        chargeConcurrently(thread -> (long) thread + 1);
+
+        // then
+        for (long userId = 1; userId <= THREADS; userId++) {
+            Assertions.assertThat(execution.getUserPoint(userId).point()).isEqualTo(CHARGES_PER_THREAD * AMOUNT);
+        }
+        Assertions.assertThat(attempts(PointOperation.CHARGE)).isEqualTo(THREADS * CHARGES_PER_THREAD);
+        Assertions.assertThat(conflicts(PointOperation.CHARGE)).isZero();
+    }
+
+    /* 실패 : 내역 기록 중인 충전 잔액을 사용하려는 명령은 충돌로 기다리고, 충전이 되돌려지면 잔액 부족으로 실패하여 잔액은 음수가 되지 않는다. */
+    @Test
+    void shouldNotUsePendingCharge_WhenItsHistoryFails() throws Exception {
+        // given : 잔액 0 점인 회원의 충전 내역 기록이 멈춰 있다.
+        pointHistoryRepository.failCharges();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<UserPoint> charge = executorService.submit(() -> execution.execute(new PointCommand(1L, TransactionType.CHARGE, AMOUNT)));
+        pointHistoryRepository.awaitChargeStarted();
+
+        // when : 충전 내역을 기록하는 동안 같은 금액의 사용 명령이 들어온 뒤, 충전 내역 기록이 실패한다.
+        Future<UserPoint> use = executorService.submit(() -> execution.execute(new PointCommand(1L, TransactionType.USE, AMOUNT)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (conflicts(PointOperation.USE) == 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        pointHistoryRepository.release();
+        executorService.shutdown();
+
+        // then : 사용 명령은 보류 중인 잔액을 읽어 충돌로 기록되고, 되돌린 잔액으로 다시 계산하여 정책 위반으로 실패한다.
+        Assertions.assertThat(conflicts(PointOperation.USE)).isPositive();
+        Assertions.assertThatThrownBy(() -> charge.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        Assertions.assertThatThrownBy(() -> use.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("잔액 이상의 금액은 사용이 불가합니다.");
+        Assertions.assertThat(execution.getUserPoint(1L).point()).isZero();
+        Assertions.assertThat(pointHistoryRepository.findAllByUserId(1L)).isEmpty();
+    }
+
+    /* 스레드마다 userIdOf 가 정한 사용자에게 차례로 충전한다. */
+    private void chargeConcurrently(IntFunction<Long> userIdOf) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long userId = userIdOf.apply(thread);
+            tasks.add(() -> {
+                for (int i = 0; i < CHARGES_PER_THREAD; i++) {
+                    execution.execute(new PointCommand(userId, TransactionType.CHARGE, AMOUNT));
+                }
+                return null;
+            });
+        }
+        List<Future<Void>> futures = executorService.invokeAll(tasks);
+        executorService.shutdown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    private double attempts(PointOperation operation) {
+        return pointMetrics.meterRegistry().find("point.optimistic.attempts").tag("operation", operation.tag()).counter().count();
+    }
+
+    private double conflicts(PointOperation operation) {
+        return pointMetrics.meterRegistry().find("point.optimistic.conflicts").tag("operation", operation.tag()).counter().count();
+    }
+
+    /* failCharges() 이후의 충전 내역 기록은 release() 될 때까지 멈춰 있다가 실패한다. 그 외의 내역은 그대로 저장한다. */
+    private static final class FailingChargeHistoryRepository extends IndexedPointHistoryRepository {
+
+        private final CountDownLatch chargeStarted = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean failCharges;
+
+        private FailingChargeHistoryRepository() {
+            super(new PointHistoryTable());
+        }
+
+        @Override
+        public PointHistory save(long userId, long amount, TransactionType type, long updateMillis) {
+            if (failCharges && type == TransactionType.CHARGE) {
+                chargeStarted.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("내역 테이블 장애");
+            }
+            return super.save(userId, amount, type, updateMillis);
+        }
+
+        private void failCharges() {
+            failCharges = true;
+        }
+
+        private void awaitChargeStarted() throws InterruptedException {
+            Assertions.assertThat(chargeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        private void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.hhplus.tdd.point;
+
+import io.hhplus.tdd.database.IndexedPointHistoryRepository;
+import io.hhplus.tdd.database.PointHistoryTable;
+import io.hhplus.tdd.database.PointHistoryWriter;
+import io.hhplus.tdd.database.UserPointTable;
+import io.hhplus.tdd.database.UserPointTableRepository;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link ShardedPointExecution} 단위 테스트</b>
+ * <br></br>
+ * - 저장소가 한 사용자의 잔액 조회/저장에서 멈춰 있어도, 같은 샤드의 다른 사용자의 명령은 기다리지 않는지 검증한다.
+ * <br></br>
+ * - 잔액 조회는 샤드 큐에 적재된 명령을 기다리지 않는지 검증한다.
+ */
+public class ShardedPointExecutionTest {
+
+    private static final long SLOW_USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+    private static final long AMOUNT = 100L;
+
+    private SlowUserPointRepository userPointRepository;
+    private PointHistoryWriter pointHistoryWriter;
+    private PointShards pointShards;
+    private ShardedPointExecution execution;
+
+    @BeforeEach
+    void setup() {
+        PointMetrics pointMetrics = new PointMetrics();
+        userPointRepository = new SlowUserPointRepository();
+        pointHistoryWriter = new PointHistoryWriter(new IndexedPointHistoryRepository(new PointHistoryTable()), pointMetrics);
+        // 두 사용자가 같은 샤드를 쓰도록 샤드를 하나만 둔다.
+        pointShards = new PointShards(1, pointMetrics);
+        execution = new ShardedPointExecution(new PointUpdater(userPointRepository, pointHistoryWriter, pointMetrics), pointShards);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        userPointRepository.release();
+        execution.close();
+        pointShards.close();
+        pointHistoryWriter.close();
+    }
+
+    /* 성공 : 저장소가 한 사용자의 잔액을 읽어오는 동안에도, 같은 샤드의 다른 사용자의 충전은 완료된다. */
+    @Test
+    void shouldNotBlockShard_WhenLoadingAnotherUser() throws Exception {
+        // given : 저장소가 느린 사용자의 잔액을 읽어오다 멈춰 있다.
+        userPointRepository.block();
+        CompletableFuture<UserPoint> slow = execution.executeAsync(new PointCommand(SLOW_USER_ID, TransactionType.CHARGE, AMOUNT));
+        userPointRepository.awaitBlocked();
+
+        // when
+        UserPoint other = execution.executeAsync(new PointCommand(OTHER_USER_ID, TransactionType.CHARGE, AMOUNT)).get(5, TimeUnit.SECONDS);
+
+        // then : 느린 사용자의 충전은 저장소가 풀린 뒤에 완료된다.
+        Assertions.assertThat(other.point()).isEqualTo(AMOUNT);
+        Assertions.assertThat(slow).isNotDone();
+        userPointRepository.release();
+        Assertions.assertThat(slow.get(5, TimeUnit.SECONDS).point()).isEqualTo(AMOUNT);
+    }
+
+    /* 성공 : 저장소가 한 사용자의 잔액을 저장하는 동안에도, 같은 샤드의 다른 사용자의 충전은 완료되고 반영 중인 잔액은 조회된다. */
+    @Test
+    void shouldNotBlockShard_WhenSavingAnotherUser() throws Exception {
+        // given : 느린 사용자의 잔액이 샤드에 적재된 뒤, 저장소가 그 사용자의 잔액을 저장하다 멈춰 있다.
+        execution.executeAsync(new PointCommand(SLOW_USER_ID, TransactionType.CHARGE, AMOUNT)).get(5, TimeUnit.SECONDS);
+        userPointRepository.block();
+        CompletableFuture<UserPoint> slow = execution.executeAsync(new PointCommand(SLOW_USER_ID, TransactionType.CHARGE, AMOUNT));
+        userPointRepository.awaitBlocked();
+
+        // when
+        UserPoint other = execution.executeAsync(new PointCommand(OTHER_USER_ID, TransactionType.CHARGE, AMOUNT)).get(5, TimeUnit.SECONDS);
+
+        // then : 느린 사용자의 충전은 저장소에 반영된 뒤에 완료된다.
+        Assertions.assertThat(other.point()).isEqualTo(AMOUNT);
+        Assertions.assertThat(execution.getUserPoint(SLOW_USER_ID).point()).isEqualTo(AMOUNT * 2);
+        Assertions.assertThat(slow).isNotDone();
+        userPointRepository.release();
+        Assertions.assertThat(slow.get(5, TimeUnit.SECONDS).point()).isEqualTo(AMOUNT * 2);
+        Assertions.assertThat(userPointRepository.findById(SLOW_USER_ID).point()).isEqualTo(AMOUNT * 2);
+    }
+
+    /* 성공 : 샤드 스레드가 명령을 실행하는 동안에도, 적재된 사용자의 잔액 조회는 큐를 거치지 않고 완료된다. */
+    @Test
+    void shouldReadLoadedBalance_WithoutQueueingBehindShardCommands() throws Exception {
+        // given : 잔액이 적재된 뒤, 샤드 스레드가 다른 명령에 묶여 있다.
+        execution.executeAsync(new PointCommand(OTHER_USER_ID, TransactionType.CHARGE, AMOUNT)).get(5, TimeUnit.SECONDS);
+        CountDownLatch busy = new CountDownLatch(1);
+        CompletableFuture<Boolean> occupied = pointShards.submit(OTHER_USER_ID, () -> {
+            try {
+                return busy.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+
+        // when
+        CompletableFuture<UserPoint> read = execution.getUserPointAsync(OTHER_USER_ID, Runnable::run);
+
+        // then
+        Assertions.assertThat(read.get(1, TimeUnit.SECONDS).point()).isEqualTo(AMOUNT);
+        Assertions.assertThat(occupied).isNotDone();
+        busy.countDown();
+        Assertions.assertThat(occupied.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    /* block() 이후 느린 사용자의 잔액 조회/저장은 release() 될 때까지 멈춰 있다. 다른 사용자는 그대로 처리한다. */
+    private static final class SlowUserPointRepository extends UserPointTableRepository {
+
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean block;
+
+        private SlowUserPointRepository() {
+            super(new UserPointTable());
+        }
+
+        @Override
+        public UserPoint findById(long userId) {
+            awaitReleased(userId);
+            return super.findById(userId);
+        }
+
+        @Override
+        public UserPoint save(long userId, long point) {
+            awaitReleased(userId);
+            return super.save(userId, point);
+        }
+
+        private void awaitReleased(long userId) {
+            if (block && userId == SLOW_USER_ID) {
+                blocked.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void block() {
+            block = true;
+        }
+
+        private void awaitBlocked() throws InterruptedException {
+            Assertions.assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        private void release() {
+            block = false;
+            released.countDown();
+        }
+    }
+}
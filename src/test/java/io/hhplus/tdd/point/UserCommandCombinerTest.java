@@ -0,0 +1,110 @@
+package io.hhplus.tdd.point;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <b>{@link UserCommandCombiner} 단위 테스트</b>
+ * <br></br>
+ * - 락을 기다리는 동안 쌓인 같은 사용자의 명령이 한 번의 처리로 결합되고, 요청마다 자신의 결과를 받는지 검증한다.
+ * <br></br>
+ * - 락 획득 제한 시간 안에 처리되지 않은 명령은 대기열에서 빠져 이후에 처리되지 않는지 검증한다.
+ */
+public class UserCommandCombinerTest {
+
+    private static final long USER_ID = 1L;
+    private static final int REQUESTS = 8;
+
+    private RefCountedUserLockProvider userLockProvider;
+    private ExecutorService holder;
+
+    /* 처리기에 전달된 묶음. 처리기는 명령 값의 10 배를 결과로 완료한다. */
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        userLockProvider = new RefCountedUserLockProvider();
+        holder = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        holder.shutdownNow();
+    }
+
+    private UserCommandCombiner<Integer, Integer> combiner(Duration lockTimeout) {
+        PointMetrics pointMetrics = new PointMetrics();
+        return new UserCommandCombiner<>(userLockProvider, new PointAdmission(0, 0, lockTimeout, pointMetrics), pointMetrics,
+                command -> PointOperation.CHARGE,
+                (userId, combined) -> {
+                    batches.add(combined.stream().map(UserCommandCombiner.Pending::command).toList());
+                    combined.forEach(pending -> pending.result().complete(pending.command() * 10));
+                },
+                256);
+    }
+
+    /* 성공 : 락이 풀리기를 기다리는 동안 적재된 명령은 한 번에 처리되고, 각 요청은 자신의 명령 결과를 받는다. */
+    @Test
+    void shouldCombineQueuedCommands_IntoOneBatch() throws Exception {
+        // given : 다른 스레드가 사용자 락을 보유한 동안 요청 스레드들이 명령을 적재하고 기다린다.
+        UserCommandCombiner<Integer, Integer> combiner = combiner(Duration.ZERO);
+        holder.submit(() -> userLockProvider.lock(USER_ID)).get();
+        ConcurrentHashMap<Integer, Integer> results = new ConcurrentHashMap<>();
+        List<Thread> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            int command = i;
+            Thread request = new Thread(() -> results.put(command, combiner.execute(USER_ID, command)));
+            request.start();
+            requests.add(request);
+        }
+        awaitParked(requests);
+
+        // when
+        holder.submit(() -> userLockProvider.unlock(USER_ID)).get();
+        for (Thread request : requests) {
+            request.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        // then
+        Assertions.assertThat(batches).hasSize(1);
+        Assertions.assertThat(batches.get(0)).containsExactlyInAnyOrderElementsOf(results.keySet());
+        Assertions.assertThat(results).hasSize(REQUESTS);
+        results.forEach((command, result) -> Assertions.assertThat(result).isEqualTo(command * 10));
+    }
+
+    /* 실패 : 제한 시간 안에 락을 얻지 못한 명령은 거절되고, 락이 풀린 뒤에도 처리되지 않는다. */
+    @Test
+    void shouldWithdrawCommand_WhenLockIsNotAcquiredInTime() throws Exception {
+        // given
+        UserCommandCombiner<Integer, Integer> combiner = combiner(Duration.ofMillis(50));
+        holder.submit(() -> userLockProvider.lock(USER_ID)).get();
+
+        // when & then
+        Assertions.assertThatThrownBy(() -> combiner.execute(USER_ID, 1))
+                .isInstanceOfSatisfying(PointOverloadedException.class,
+                        e -> Assertions.assertThat(e.reason()).isEqualTo(PointOverloadedException.Reason.LOCK_TIMEOUT));
+        holder.submit(() -> userLockProvider.unlock(USER_ID)).get();
+        Assertions.assertThat(combiner.execute(USER_ID, 2)).isEqualTo(20);
+        Assertions.assertThat(batches).containsExactly(List.of(2));
+    }
+
+    /* 요청 스레드가 모두 대기 상태가 될 때까지, 즉 모든 명령이 대기열에 적재될 때까지 기다린다. */
+    private static void awaitParked(List<Thread> threads) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING) && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assertions.assertThat(threads).allMatch(thread -> thread.getState() == Thread.State.WAITING);
+    }
+}